@@ -0,0 +1,78 @@
+package Helpers;
+
+import com.example.project.Services.AutocompleteIndex;
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helper class for suggesting the names of a catalog under a text field as the user types.
+ * <p>
+ * The suggestions come from an {@link AutocompleteIndex}, which answers in a few microseconds,
+ * so they are computed on the JavaFX thread at every keystroke. Choosing a suggestion writes
+ * the full name in the field; the name can then be turned back into its entity with
+ * {@link AutocompleteIndex#resolve(String)}.
+ * </p>
+ */
+public class AutocompleteHelper {
+
+    /**
+     * The most suggestions shown under a field.
+     */
+    public static final int MAX_SUGGESTIONS = 8;
+
+    /**
+     * Shows the suggestions of an index under a text field while the user types.
+     * <p>
+     * The suggestions are hidden when the field loses the focus, when nothing matches, and once
+     * the field holds exactly the name of an entity.
+     * </p>
+     *
+     * @param field The text field.
+     * @param index The names to suggest.
+     * @param <T>   The type of the entities.
+     */
+    public static <T> void attach(TextField field, AutocompleteIndex<T> index) {
+        ContextMenu suggestionsMenu = new ContextMenu();
+
+        field.textProperty().addListener((observable, oldText, newText) -> {
+            List<T> suggestions = index.suggest(newText, MAX_SUGGESTIONS);
+            boolean complete = suggestions.size() == 1
+                    && index.nameOf(suggestions.get(0)).equalsIgnoreCase(newText.trim());
+            if (suggestions.isEmpty() || complete) {
+                suggestionsMenu.hide();
+                return;
+            }
+
+            List<MenuItem> items = new ArrayList<>();
+            for (T suggestion : suggestions) {
+                String name = index.nameOf(suggestion);
+                MenuItem item = new MenuItem(name);
+                item.setOnAction(event -> {
+                    field.setText(name);
+                    field.positionCaret(name.length());
+                    suggestionsMenu.hide();
+                });
+                items.add(item);
+            }
+            suggestionsMenu.getItems().setAll(items);
+
+            // Only show the suggestions once the window is on screen, not while the field is filled in
+            boolean onScreen = field.getScene() != null && field.getScene().getWindow() != null
+                    && field.getScene().getWindow().isShowing();
+            if (onScreen && !suggestionsMenu.isShowing()) {
+                suggestionsMenu.show(field, Side.BOTTOM, 0, 0);
+            }
+        });
+
+        field.focusedProperty().addListener((observable, wasFocused, isFocused) -> {
+            if (!isFocused) {
+                suggestionsMenu.hide();
+            }
+        });
+    }
+}
@@ -0,0 +1,154 @@
+package Helpers;
+
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Helper class for running a search as the user types, without blocking the JavaFX thread.
+ * <p>
+ * Each call to {@link #search(String)} waits for a short pause in the typing before running the
+ * query on a background thread, and hands the results back on the JavaFX thread in a single call.
+ * A newer search cancels the one that is waiting or running, and the results of a cancelled
+ * search are never delivered, so the table always shows the results of the latest text.
+ * </p>
+ * <p>
+ * All the searches of the application share one background thread, which does not keep the
+ * application running once its windows are closed.
+ * </p>
+ *
+ * @param <T> The type of the search results.
+ */
+public class SearchDebouncer<T> {
+
+    /**
+     * How long the typing must pause before the search runs, in milliseconds.
+     */
+    public static final long DEFAULT_DELAY_MILLIS = 200;
+
+    /**
+     * The background thread running the searches.
+     */
+    private static final ScheduledExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * How long the typing must pause before the search runs, in milliseconds.
+     */
+    private final long aDelayMillis;
+
+    /**
+     * Finds the results of a search text; called on the background thread.
+     */
+    private final Function<String, List<T>> aQuery;
+
+    /**
+     * Shows the results of a search; called on the JavaFX thread.
+     */
+    private final Consumer<List<T>> aResultsHandler;
+
+    /**
+     * The search waiting or running, or null if there is none.
+     */
+    private Future<?> aPendingSearch;
+
+    /**
+     * Number of the latest search, so that the results of older ones are ignored.
+     */
+    private volatile long aGeneration;
+
+    /**
+     * Creates a debouncer that waits {@link #DEFAULT_DELAY_MILLIS} after the last keystroke.
+     *
+     * @param query          Finds the results of a search text. It runs on a background thread, so it
+     *                       must not touch the user interface or lists that the JavaFX thread modifies.
+     * @param resultsHandler Shows the results of a search. It runs on the JavaFX thread.
+     */
+    public SearchDebouncer(Function<String, List<T>> query, Consumer<List<T>> resultsHandler) {
+        this(DEFAULT_DELAY_MILLIS, query, resultsHandler);
+    }
+
+    /**
+     * Creates a debouncer.
+     *
+     * @param delayMillis    How long the typing must pause before the search runs, in milliseconds.
+     * @param query          Finds the results of a search text, on a background thread.
+     * @param resultsHandler Shows the results of a search, on the JavaFX thread.
+     * @throws IllegalArgumentException if the delay is negative.
+     */
+    public SearchDebouncer(long delayMillis, Function<String, List<T>> query, Consumer<List<T>> resultsHandler) {
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("Delay cannot be negative.");
+        }
+        this.aDelayMillis = delayMillis;
+        this.aQuery = query;
+        this.aResultsHandler = resultsHandler;
+    }
+
+    /**
+     * Searches for a text once the typing pauses, cancelling the previous search.
+     * <p>
+     * Must be called on the JavaFX thread.
+     * </p>
+     *
+     * @param text The search text.
+     */
+    public void search(String text) {
+        schedule(text, aDelayMillis);
+    }
+
+    /**
+     * Searches for a text right away, cancelling the previous search.
+     * <p>
+     * Used when the user asks for the search explicitly, for example with a button. Must be called
+     * on the JavaFX thread.
+     * </p>
+     *
+     * @param text The search text.
+     */
+    public void searchNow(String text) {
+        schedule(text, 0);
+    }
+
+    /**
+     * Cancels the search waiting or running, if any, so that its results are never shown.
+     */
+    public void cancel() {
+        aGeneration++;
+        if (aPendingSearch != null) {
+            aPendingSearch.cancel(true);
+            aPendingSearch = null;
+        }
+    }
+
+    /**
+     * Schedules a search on the background thread.
+     *
+     * @param text        The search text.
+     * @param delayMillis How long to wait before running it, in milliseconds.
+     */
+    private void schedule(String text, long delayMillis) {
+        cancel();
+        long generation = aGeneration;
+        aPendingSearch = SEARCH_EXECUTOR.schedule(() -> {
+            List<T> results = aQuery.apply(text);
+            if (generation != aGeneration || Thread.currentThread().isInterrupted()) {
+                return; // A newer search replaced this one while it ran
+            }
+            Platform.runLater(() -> {
+                if (generation == aGeneration) {
+                    aResultsHandler.accept(results);
+                }
+            });
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
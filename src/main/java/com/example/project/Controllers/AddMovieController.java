@@ -4,6 +4,7 @@ import Helpers.AlertHelper;
 import Helpers.SerializationHelper;
 import com.example.project.Model.Movie;
 import com.example.project.Model.Genre;
+import com.example.project.Model.GenreRegistry;
 import javafx.fxml.FXML;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
@@ -202,7 +203,8 @@ public class AddMovieController implements Serializable {
      * Parses the genre input into a list of Genre objects.
      * <p>
      * This method takes a comma-separated string of genres, validates each genre,
-     * and returns a list of Genre objects. The genres must match predefined valid genres.
+     * and returns a list of Genre objects. The genres must match predefined valid genres,
+     * looked up in the {@link GenreRegistry}, which returns the shared genre of each name.
      * If any genre is invalid, an IllegalArgumentException is thrown.
      * </p>
      *
@@ -211,27 +213,10 @@ public class AddMovieController implements Serializable {
      * @throws IllegalArgumentException if any genre is not in the list of allowed genres.
      */
     private List<Genre> parseGenres(String genresInput) {
-        // Predefined list of valid genres
-        List<String> validGenres = Arrays.asList(
-                "action", "comedy", "drama", "horror", "sci-fi", "romance", "science fiction",
-                "thriller", "adventure", "fantasy", "mystery", "animation",
-                "documentary", "biography", "musical", "western"
-        );
-
-        String[] genresArray = genresInput.split(",");
-
-        // Validate each genre
-        for (String genre : genresArray) {
-            if (!validGenres.contains(genre.trim().toLowerCase())) {
-                throw new IllegalArgumentException(
-                        "Invalid genre: " + genre.trim() + ". Allowed genres: " + validGenres
-                );
-            }
-        }
-
-        // Convert genres to a list of Genre objects
-        return Arrays.stream(genresArray)
-                .map(genre -> new Genre(genre.trim()))
+        // Validate each genre and convert it to the shared Genre object
+        return Arrays.stream(genresInput.split(","))
+                .map(GenreRegistry::parseAllowed)
+                .distinct()
                 .toList();
     }
 
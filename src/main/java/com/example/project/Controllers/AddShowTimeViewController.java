@@ -1,7 +1,14 @@
 package com.example.project.Controllers;
 
 
+import Helpers.AlertHelper;
+import Helpers.AutocompleteHelper;
+import Helpers.SerializationHelper;
+import com.example.project.Model.Movie;
+import com.example.project.Model.ScreeningRoom;
 import com.example.project.Model.ShowTime;
+import com.example.project.Services.AutocompleteIndex;
+import com.example.project.Services.ShowTimeCatalog;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -43,12 +50,14 @@ public class AddShowTimeViewController {
 
     /**
      * Text field for entering the room ID where the show will take place.
+     * Room names are suggested as the user types.
      */
     @FXML
     private TextField roomIdField;
 
     /**
      * Text field for entering the movie ID associated with the show.
+     * Movie titles are suggested as the user types.
      */
     @FXML
     private TextField movieIdField;
@@ -78,6 +87,33 @@ public class AddShowTimeViewController {
     @FXML
     private ObservableList<ShowTime> showTimeList = FXCollections.observableArrayList(); // Initialize the list
 
+    /**
+     * Index of the movie titles, used for the suggestions and to check the movie entered.
+     */
+    private AutocompleteIndex<Movie> movieIndex;
+
+    /**
+     * Index of the screening room names, used for the suggestions and to check the room entered.
+     */
+    private AutocompleteIndex<ScreeningRoom> roomIndex;
+
+    /**
+     * Initializes the controller after the FXML file has been loaded.
+     * <p>
+     * Loads the movie and screening room catalogs and suggests their names under the movie
+     * and room fields.
+     * </p>
+     */
+    @FXML
+    public void initialize() {
+        List<Movie> movies = SerializationHelper.loadData("data/movies.ser");
+        List<ScreeningRoom> rooms = SerializationHelper.loadData("data/screening_rooms.ser");
+        movieIndex = new AutocompleteIndex<>(movies == null ? List.of() : movies, Movie::getTitle);
+        roomIndex = new AutocompleteIndex<>(rooms == null ? List.of() : rooms, ScreeningRoom::getName);
+        AutocompleteHelper.attach(movieIdField, movieIndex);
+        AutocompleteHelper.attach(roomIdField, roomIndex);
+    }
+
     /**
      * Method to set the showTimeList, ensuring that it is initialized if null.
      * @param showTimeList the list to set
@@ -94,8 +130,9 @@ public class AddShowTimeViewController {
     /**
      * Handles the action event triggered by the "Add Showtime" button.
      * <p>
-     * This method processes the user inputs for movie and room IDs, validates them,
-     * generates a unique showtime ID, and adds the new showtime to the list.
+     * This method processes the user inputs for movie and room IDs, checks that they name
+     * an existing movie and screening room, generates a unique showtime ID, and adds the
+     * new showtime to the list.
      * </p>
      * @param actionEvent the event triggered when the "Add Showtime" button is clicked
      */
@@ -116,8 +153,22 @@ public class AddShowTimeViewController {
                 throw new IllegalArgumentException("Movie or room cannot be empty.");
             }
 
-            // Generate a unique showtime ID based on the size of the list
-            int showTimeId = showTimeList.size() + 1;
+            // The showtime must refer to a movie and a room of the catalog, under their exact names
+            Movie selectedMovie = movieIndex.resolve(movie);
+            if (selectedMovie == null) {
+                AlertHelper.showErrorAlert("Unknown Movie", "No movie is titled \"" + movie + "\". Please choose one of the suggestions.");
+                return;
+            }
+            ScreeningRoom selectedRoom = roomIndex.resolve(room);
+            if (selectedRoom == null) {
+                AlertHelper.showErrorAlert("Unknown Room", "No screening room is named \"" + room + "\". Please choose one of the suggestions.");
+                return;
+            }
+            movie = selectedMovie.getTitle();
+            room = selectedRoom.getName();
+
+            // Take the ID after the largest one, which stays unique after showtimes are deleted
+            int showTimeId = ShowTimeCatalog.nextId(showTimeList);
             LocalDateTime showDateTime = LocalDateTime.now();  // You can adjust this as needed
 
             // Create a new ShowTime object with the provided details
@@ -2,22 +2,36 @@ package com.example.project.Controllers;
 
 import com.example.project.Model.ShowTime;
 import com.example.project.Model.Ticket;
+import com.example.project.Services.AdmissionPendingException;
+import com.example.project.Services.BookingClient;
+import com.example.project.Services.BookingService;
+import com.example.project.Services.SeatHold;
+import com.example.project.Services.ShowTimeCatalog;
+import com.example.project.Services.TicketBooking;
+import com.example.project.Services.WaitlistEntry;
+import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 
 import java.io.*;
 import java.net.URL;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller class for the buying ticket for a client, so filtering choosing a
@@ -50,13 +64,81 @@ public class BuyingTicketController implements Initializable {
     /**
     Set the constance for the ticket price
      */
-    private static final double TICKET_PRICE = 12.49;
+    private static final double TICKET_PRICE = BookingService.TICKET_PRICE;
+
+    /**
+     * How often the seats left are refreshed while the window is open, in seconds
+     */
+    private static final long AVAILABILITY_REFRESH_SECONDS = 2;
 
     /**
      * Create a list that will hold the showtime information
      */
     private List<ShowTime> showtimes;
 
+    /**
+     * The showtimes currently displayed in the list view, in the same order as its items
+     */
+    private final List<ShowTime> displayedShowtimes = new ArrayList<>();
+
+    /**
+     * A copy of the displayed showtimes for the background refresh, replaced whenever the list changes
+     */
+    private volatile List<ShowTime> refreshedShowtimes = List.of();
+
+    /**
+     * The seats left for each displayed showtime, keyed by showtime id
+     */
+    private final Map<Integer, Integer> remainingSeats = new ConcurrentHashMap<>();
+
+    /**
+     * Thread reading the seat counters of the displayed showtimes in the background
+     */
+    private final ScheduledExecutorService availabilityRefresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "availability-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The booking server, or the in-process booking service when no server is running,
+     * that holds the seats and sells the tickets
+     */
+    private final TicketBooking booking = BookingClient.connectOrLocal();
+
+    /**
+     * The seats currently held for the client, or null if nothing is held
+     */
+    private SeatHold currentHold;
+
+    /**
+     * Number of the latest hold request, so that the answers to older ones are dropped.
+     * Only changed on the JavaFX thread
+     */
+    private volatile long holdGeneration;
+
+    /**
+     * Token identifying the purchase the client is about to make. Clicking Buy again before the
+     * purchase is confirmed sends the same token, so the booking service sells the seats only once
+     */
+    private String purchaseToken = UUID.randomUUID().toString();
+
+    /**
+     * The waitlist entry of the client, or null if the client is not waiting for seats
+     */
+    private volatile WaitlistEntry waitlistEntry;
+
+    /**
+     * Whether the booking server placed the client in its waiting room, in which case the hold is
+     * tried again on every refresh until the client is let in
+     */
+    private boolean waitingForAdmission;
+
+    /**
+     * Set while the seats offered from the waitlist are shown, so the listeners keep the offered hold
+     */
+    private boolean applyingOffer;
+
     /**
      * Override the initialize class, this method will automatically be called when this view is called.
      * There's event listener to data picker and price label. Calls the loadDataFrom file methode that will read the showtimes.
@@ -85,10 +167,333 @@ public class BuyingTicketController implements Initializable {
             @Override
             public void changed(ObservableValue<? extends String> observable, String oldValue, String newValue) {
                 updateTotalPrice();
+                updateHold();
+            }
+        });
+
+        // Hold the seats again whenever the client picks another showtime
+        moveAndShowtimeListView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> updateHold());
+
+        // Show the seats left next to each showtime, refreshed from the seat counters
+        moveAndShowtimeListView.setCellFactory(listView -> new ListCell<>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : item + availabilityText(getIndex()));
+            }
+        });
+        availabilityRefresher.scheduleWithFixedDelay(this::refreshAvailability,
+                AVAILABILITY_REFRESH_SECONDS, AVAILABILITY_REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Describes the seats left for the showtime at the given position of the list view.
+     *
+     * @param index the position in the list view
+     * @return the seats left, "SOLD OUT", or nothing if the count is not known yet
+     */
+    private String availabilityText(int index) {
+        if (index < 0 || index >= displayedShowtimes.size()) {
+            return "";
+        }
+        Integer remaining = remainingSeats.get(displayedShowtimes.get(index).getaID());
+        if (remaining == null) {
+            return "";
+        }
+        return remaining == 0 ? " - SOLD OUT" : " - " + remaining + " seats left";
+    }
+
+    /**
+     * Reads the seats left for the displayed showtimes and redraws the list. Runs on the
+     * refresh thread so that asking a remote booking server never blocks the window.
+     * Stops once the window is closed.
+     */
+    private void refreshAvailability() {
+        for (ShowTime showtime : refreshedShowtimes) {
+            try {
+                remainingSeats.put(showtime.getaID(), booking.getAvailableSeats(showtime.getaID()));
+            } catch (RuntimeException e) {
+                // Unknown showtime or server unavailable, keep the last known count
+            }
+        }
+
+        WaitlistEntry entry = waitlistEntry;
+        if (entry != null) {
+            try {
+                WaitlistEntry current = booking.getWaitlistEntry(entry.getID());
+                if (current != null && current.getOffer() != null && current.getOffer().isPending()) {
+                    Platform.runLater(() -> acceptWaitlistOffer(current));
+                }
+            } catch (RuntimeException e) {
+                // Server unavailable, check again on the next refresh
+            }
+        }
+
+        Platform.runLater(() -> {
+            if (moveAndShowtimeListView.getScene() != null && moveAndShowtimeListView.getScene().getWindow() != null
+                    && !moveAndShowtimeListView.getScene().getWindow().isShowing()) {
+                releaseCurrentHold();
+                leaveWaitlist();
+                availabilityRefresher.shutdown();
+                return;
+            }
+            moveAndShowtimeListView.refresh();
+            if (waitingForAdmission) {
+                updateHold();
+            }
+        });
+    }
+
+    /**
+     * Holds the seats for the selected showtime and number of tickets, releasing the previous hold.
+     * If not enough seats are left, the price label tells the client how many remain.
+     */
+    private void updateHold() {
+        updateHold(null);
+    }
+
+    /**
+     * Holds the seats for the selected showtime and number of tickets, releasing the previous hold.
+     * The hold is asked on the refresh thread so that a remote booking server never blocks the
+     * window, and the answer is applied on the JavaFX thread. Only the answer to the latest request
+     * is applied; a hold answering an older one is released.
+     * If not enough seats are left, the price label tells the client how many remain.
+     *
+     * @param onApplied run on the JavaFX thread once the answer is applied, or null
+     */
+    private void updateHold(Runnable onApplied) {
+        if (applyingOffer) {
+            return;
+        }
+        ShowTime selectedShowtime = getSelectedShowtime();
+        int ticketCount;
+        try {
+            ticketCount = Integer.parseInt(numberTicketTextField.getText());
+        } catch (NumberFormatException e) {
+            // Nothing to hold until a valid number of tickets is entered
+            ticketCount = 0;
+        }
+        if (selectedShowtime != null && currentHold != null && currentHold.getShowTimeId() == selectedShowtime.getaID()
+                && currentHold.getSeatCount() == ticketCount) {
+            // The seats are already held, for example the seats offered from the waitlist
+            if (onApplied != null) {
+                onApplied.run();
+            }
+            return;
+        }
+
+        releaseCurrentHold();
+        waitingForAdmission = false;
+        if (selectedShowtime == null) {
+            if (onApplied != null) {
+                onApplied.run();
+            }
+            return;
+        }
+
+        long generation = holdGeneration;
+        int showTimeId = selectedShowtime.getaID();
+        int seatCount = ticketCount;
+        runInBackground(() -> {
+            if (seatCount > 0) {
+                try {
+                    SeatHold hold = booking.hold(showTimeId, seatCount);
+                    if (generation != holdGeneration) {
+                        // The client picked other seats meanwhile
+                        release(hold);
+                        return;
+                    }
+                    Platform.runLater(() -> applyHold(generation, hold, null, false, onApplied));
+                } catch (AdmissionPendingException e) {
+                    Platform.runLater(() -> applyHold(generation, null, e.getMessage(), true, onApplied));
+                    // While queued, the periodic refresh tries again instead
+                    return;
+                } catch (IllegalStateException | IllegalArgumentException e) {
+                    Platform.runLater(() -> applyHold(generation, null, e.getMessage(), false, onApplied));
+                } catch (UncheckedIOException e) {
+                    Platform.runLater(() -> applyHold(generation, null, "Booking server unavailable", false, onApplied));
+                }
+            } else {
+                Platform.runLater(() -> applyHold(generation, null, null, false, onApplied));
+            }
+            refreshAvailability();
+        });
+    }
+
+    /**
+     * Applies the answer to a hold request, unless the client asked for other seats since.
+     *
+     * @param generation the number of the request
+     * @param hold the seats held, or null if none could be held
+     * @param message the text to show in the price label, or null to leave it
+     * @param queued whether the booking server placed the client in its waiting room
+     * @param onApplied run once the answer is applied, or null
+     */
+    private void applyHold(long generation, SeatHold hold, String message, boolean queued, Runnable onApplied) {
+        if (generation != holdGeneration) {
+            if (hold != null) {
+                releaseInBackground(hold);
+            }
+            return;
+        }
+        currentHold = hold;
+        waitingForAdmission = queued;
+        if (message != null) {
+            priceLabel1.setText(message);
+        }
+        if (onApplied != null) {
+            onApplied.run();
+        }
+    }
+
+    /**
+     * Releases the seats currently held for the client, if any, and drops the answer to the hold
+     * request still running, if any.
+     */
+    private void releaseCurrentHold() {
+        holdGeneration++;
+        if (currentHold != null) {
+            releaseInBackground(currentHold);
+            currentHold = null;
+        }
+    }
+
+    /**
+     * Releases a hold on the refresh thread, so that a remote booking server never blocks the window.
+     *
+     * @param hold the hold to release
+     */
+    private void releaseInBackground(SeatHold hold) {
+        runInBackground(() -> release(hold));
+    }
+
+    /**
+     * Runs a task on the refresh thread, so that a remote booking server never blocks the window.
+     * Once the window is closed and the refresh thread stopped, the task is dropped: holds and
+     * waitlist offers left behind expire on their own.
+     *
+     * @param task the task to run
+     */
+    private void runInBackground(Runnable task) {
+        try {
+            availabilityRefresher.execute(task);
+        } catch (RejectedExecutionException e) {
+            // The window is closed
+        }
+    }
+
+    /**
+     * Releases a hold.
+     *
+     * @param hold the hold to release
+     */
+    private void release(SeatHold hold) {
+        try {
+            booking.release(hold.getID());
+        } catch (UncheckedIOException e) {
+            // The hold will expire on its own
+        }
+    }
+
+    /**
+     * Asks the client whether to join the waitlist of a showtime that does not have enough seats left.
+     *
+     * @param showtime the showtime
+     * @param ticketCount the number of tickets wanted
+     */
+    private void offerWaitlist(ShowTime showtime, int ticketCount) {
+        Optional<ButtonType> answer = Helpers.AlertHelper.showConfirmationAlert("Not Enough Seats", priceLabel1.getText(),
+                "Would you like to join the waitlist? The seats will be held for you as soon as they are freed.");
+        if (answer.isEmpty() || answer.get() != ButtonType.OK) {
+            return;
+        }
+        leaveWaitlist();
+        runInBackground(() -> {
+            try {
+                WaitlistEntry entry = booking.joinWaitlist(showtime.getaID(), ticketCount);
+                Platform.runLater(() -> {
+                    waitlistEntry = entry;
+                    Helpers.AlertHelper.showInformationAlert("Joined the Waitlist", null,
+                            "You are number " + (entry.getPosition() + 1) + " on the waitlist for " + showtime.getMovie()
+                                    + " at " + showtime.getFormattedTime() + ".");
+                });
+            } catch (IllegalArgumentException | IllegalStateException | UncheckedIOException e) {
+                Platform.runLater(() -> Helpers.AlertHelper.showErrorAlert("Waitlist Unavailable", e.getMessage()));
             }
         });
     }
 
+    /**
+     * Takes the client out of the waitlist, if it is waiting. The booking service is told on the
+     * refresh thread.
+     */
+    private void leaveWaitlist() {
+        WaitlistEntry entry = waitlistEntry;
+        if (entry != null) {
+            waitlistEntry = null;
+            runInBackground(() -> {
+                try {
+                    booking.leaveWaitlist(entry.getID());
+                } catch (UncheckedIOException e) {
+                    // An unused offer will expire on its own
+                }
+            });
+        }
+    }
+
+    /**
+     * Makes the seats offered from the waitlist the client's current hold and tells the client.
+     *
+     * @param entry the waitlist entry with its pending offer
+     */
+    private void acceptWaitlistOffer(WaitlistEntry entry) {
+        WaitlistEntry waiting = waitlistEntry;
+        if (waiting == null || waiting.getID() != entry.getID()) {
+            return;
+        }
+        waitlistEntry = null;
+        releaseCurrentHold();
+
+        // Show the offered showtime and seat count without letting the listeners place another hold
+        applyingOffer = true;
+        try {
+            for (ShowTime showtime : showtimes) {
+                if (showtime.getaID() == entry.getShowTimeId()) {
+                    datePicker.setValue(showtime.getDateTime().toLocalDate());
+                    break;
+                }
+            }
+            numberTicketTextField.setText(String.valueOf(entry.getSeatCount()));
+            for (int i = 0; i < displayedShowtimes.size(); i++) {
+                if (displayedShowtimes.get(i).getaID() == entry.getShowTimeId()) {
+                    moveAndShowtimeListView.getSelectionModel().select(i);
+                    break;
+                }
+            }
+        } finally {
+            applyingOffer = false;
+        }
+        currentHold = entry.getOffer();
+
+        Helpers.AlertHelper.showInformationAlert("Seats Available", null,
+                entry.getSeatCount() + " seats were freed and are held for you until "
+                        + entry.getOffer().getExpiresAt().format(DateTimeFormatter.ofPattern("HH:mm"))
+                        + ". Press Buy to complete the purchase.");
+    }
+
+    /**
+     * Gets the showtime matching the item selected in the list view.
+     *
+     * @return the selected showtime, or null if nothing or the placeholder text is selected
+     */
+    private ShowTime getSelectedShowtime() {
+        int selectedIndex = moveAndShowtimeListView.getSelectionModel().getSelectedIndex();
+        if (selectedIndex < 0 || selectedIndex >= displayedShowtimes.size()) {
+            return null;
+        }
+        return displayedShowtimes.get(selectedIndex);
+    }
+
     /**
      * This method loads the showtime information from a serialized file.
      * It reads a list of `ShowTime` objects from the file and returns it.
@@ -96,13 +501,11 @@ public class BuyingTicketController implements Initializable {
      * @return the list of the showtime information from the file
      */
     private List<ShowTime> loadDataFromFile(String fileName) {
-        List<ShowTime> showtimesList = new ArrayList<>();
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(fileName))) {
-            // Read the list of ShowTime objects from the serialized file
-            showtimesList = (List<ShowTime>) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+        // Read the list of ShowTime objects from the serialized file, each with its own ID
+        List<ShowTime> showtimesList = ShowTimeCatalog.load(fileName);
+        if (showtimesList == null) {
             Helpers.AlertHelper.showErrorAlert("Error Loading Data", "Could not load showtimes from the file: " + fileName);
-            e.printStackTrace();
+            return new ArrayList<>();
         }
         return showtimesList;
     }
@@ -113,6 +516,9 @@ public class BuyingTicketController implements Initializable {
      */
     @FXML
     public void onDateSelected() {
+        releaseCurrentHold();
+        displayedShowtimes.clear();
+        refreshedShowtimes = List.of();
         moveAndShowtimeListView.getItems().clear();
 
         LocalDate selectedDate = datePicker.getValue();
@@ -139,9 +545,12 @@ public class BuyingTicketController implements Initializable {
             String time = showtime.getDateTime().toLocalTime().format(DateTimeFormatter.ofPattern("HH:mm"));
 
             String displayText = movieName + " ShowtTime: " + time;
+            displayedShowtimes.add(showtime);
             moveAndShowtimeListView.getItems().add(displayText);
 
         }
+        refreshedShowtimes = List.copyOf(displayedShowtimes);
+        runInBackground(this::refreshAvailability);
     }
 
     /**
@@ -188,80 +597,82 @@ public class BuyingTicketController implements Initializable {
             Helpers.AlertHelper.showErrorAlert("Invalid Input", "Please enter a valid number of tickets.");
             return;
         }
-            int uniqueID = (int) (Math.random() * 100000);
-            LocalDateTime purchaseDateTime = LocalDateTime.now();
-
-        ShowTime matchedShowtime = showtimes.stream()
-                .filter(showtime -> selectedMovieTitle.startsWith(showtime.getMovie()))
-                .findFirst()
-                .orElse(null);
+        ShowTime matchedShowtime = getSelectedShowtime();
 
         if (matchedShowtime == null) {
             Helpers.AlertHelper.showErrorAlert("Showtime Not Found", "Could not find a showtime for the selected movie.");
             return;
         }
 
-        uniqueID = (int) (Math.random() * 100000);
-        purchaseDateTime = LocalDateTime.now();
-
-        // Create and save the ticket
-        Ticket eTicket = new Ticket(uniqueID, purchaseDateTime, matchedShowtime, ticketCount);
-        saveTicketToFile(eTicket);
-
-        Helpers.AlertHelper.showInformationAlert(
-                "Ticket Purchase Successful",
-                null,
-                "Ticket ID: " + eTicket.getID() +
-                        "\nPurchase Date/Time: " + eTicket.getPurchaseDateTime().format(DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm")) +
-                        "\nMovie: " + matchedShowtime.getMovie() +
-                        "\nTickets: " + ticketCount +
-                        "\nTotal Price: $" + (ticketCount * TICKET_PRICE)
-        );
-
-
+        // Make sure the seats are still held for this client, then turn the hold into a sale
+        if (currentHold == null || currentHold.getShowTimeId() != matchedShowtime.getaID()
+                || currentHold.getSeatCount() != ticketCount) {
+            updateHold(() -> purchaseHold(matchedShowtime, ticketCount));
+        } else {
+            purchaseHold(matchedShowtime, ticketCount);
+        }
     }
 
     /**
-     * Save the ticket data into a .ser file.
+     * Turns the seats held for the client into a ticket and shows it, or tells the client why
+     * the seats are not held. The purchase is made on the refresh thread so that a remote booking
+     * server never blocks the window, and its outcome is shown on the JavaFX thread.
      *
-     * @param ticket The Ticket object to be saved.
+     * @param matchedShowtime the showtime of the tickets
+     * @param ticketCount the number of tickets
      */
-    private void saveTicketToFile(Ticket ticket) {
-        List<Ticket> ticketList = loadTicketsFromFile();
-
-        // Add the new ticket to the list
-        ticketList.add(ticket);
-
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("data/tickets.ser"))) {
-            // Serialize the ticket list and write it to the file
-            oos.writeObject(ticketList);
-        } catch (IOException e) {
-            Helpers.AlertHelper.showErrorAlert("Error Saving Ticket", "Could not save the ticket to the file: " + e.getMessage());
+    private void purchaseHold(ShowTime matchedShowtime, int ticketCount) {
+        if (currentHold == null && waitingForAdmission) {
+            Helpers.AlertHelper.showInformationAlert("Please Wait", null, priceLabel1.getText());
+            return;
         }
+        if (currentHold == null) {
+            offerWaitlist(matchedShowtime, ticketCount);
+            return;
+        }
+
+        SeatHold purchasedHold = currentHold;
+        String token = purchaseToken;
+        currentHold = null;
+        runInBackground(() -> {
+            try {
+                Ticket eTicket = booking.purchase(purchasedHold.getID(), token);
+                // A repeated click answers the first ticket and leaves this hold unsold, so give its seats back
+                release(purchasedHold);
+                Platform.runLater(() -> showTicket(eTicket, matchedShowtime, ticketCount, token));
+            } catch (IllegalStateException e) {
+                Platform.runLater(() -> Helpers.AlertHelper.showErrorAlert("Seats No Longer Held", e.getMessage()));
+            } catch (UncheckedIOException e) {
+                Platform.runLater(() -> Helpers.AlertHelper.showErrorAlert("Error Saving Ticket",
+                        "Could not reach the booking server: " + e.getMessage()));
+            }
+            refreshAvailability();
+        });
     }
 
     /**
-     * Load the list of tickets from the file.
+     * Shows the ticket just bought.
      *
-     * @return A list of Ticket objects.
+     * @param eTicket the ticket
+     * @param matchedShowtime the showtime of the tickets
+     * @param ticketCount the number of tickets
+     * @param token the purchase token the ticket was bought with
      */
-    private List<Ticket> loadTicketsFromFile() {
-        List<Ticket> ticketList = new ArrayList<>();
-        File ticketFile = new File("data/tickets.ser");
-
-        if (!ticketFile.exists()) {
-            Helpers.AlertHelper.showErrorAlert("Ticket File Missing", "The ticket file does not exist: " + ticketFile.getAbsolutePath());
-
-            return ticketList; // Return an empty list if file doesn't exist
-        }
-
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(ticketFile))) {
-            // Read the list of Ticket objects from the serialized file
-            ticketList = (List<Ticket>) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            Helpers.AlertHelper.showErrorAlert("Error Loading Tickets", "An error occurred while loading the ticket file: " + e.getMessage());
+    private void showTicket(Ticket eTicket, ShowTime matchedShowtime, int ticketCount, String token) {
+        Helpers.AlertHelper.showInformationAlert(
+                "Ticket Purchase Successful",
+                null,
+                "Ticket ID: " + eTicket.getID() +
+                        "\nPurchase Date/Time: " + eTicket.getPurchaseDateTime().format(DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm")) +
+                        "\nMovie: " + matchedShowtime.getMovie() +
+                        "\nTickets: " + ticketCount +
+                        (eTicket.getSeats() == null ? "" : "\nSeats: " + eTicket.getSeats()) +
+                        "\nTotal Price: $" + (ticketCount * TICKET_PRICE)
+        );
+        // The client has seen the ticket, so the next click is a new purchase
+        if (token.equals(purchaseToken)) {
+            purchaseToken = UUID.randomUUID().toString();
         }
-        return ticketList;
     }
 
 }
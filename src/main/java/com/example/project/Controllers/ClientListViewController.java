@@ -2,7 +2,9 @@ package com.example.project.Controllers;
 
 import Helpers.AlertHelper;
 import com.example.project.Model.Client;
-import com.example.project.Model.User;
+import com.example.project.Services.ClientDirectory;
+import com.example.project.Services.ClientPage;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -17,10 +19,8 @@ import javafx.stage.Stage;
 
 import java.io.*;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.Optional;
-
-import static com.example.project.Model.User.saveClientData;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller class for managing the client table view and related actions in the application.
@@ -28,6 +28,20 @@ import static com.example.project.Model.User.saveClientData;
  */
 public class ClientListViewController {
 
+    /**
+     * Path to the serialized file holding the users.
+     */
+    private static final String USERS_FILE_PATH = "data/users.ser";
+
+    /**
+     * The number of clients fetched from the directory at a time.
+     */
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * How many rows before the last fetched client the next page is fetched.
+     */
+    private static final int PREFETCH_ROWS = 20;
 
     /**
      * TableView for displaying the list of clients.
@@ -74,10 +88,39 @@ public class ClientListViewController {
 
 
     /**
-     * Observable list that holds all clients to be displayed in the TableView.
+     * TextField for searching the clients by ID, name or email.
      */
+    @FXML
+    private TextField searchField;
 
-    private ObservableList<Client> clientList;
+    /**
+     * Label telling how many clients match the search.
+     */
+    @FXML
+    private Label countLabel;
+
+    /**
+     * Observable list that holds the clients fetched so far for the current search.
+     * <p>
+     * It grows a page at a time as the manager scrolls down the TableView.
+     * </p>
+     */
+    private final ObservableList<Client> clientList = FXCollections.observableArrayList();
+
+    /**
+     * The directory of the clients, or {@code null} while it is being loaded.
+     */
+    private ClientDirectory clientDirectory;
+
+    /**
+     * The current search; blank to list every client.
+     */
+    private String currentQuery = "";
+
+    /**
+     * The number of clients matching the current search.
+     */
+    private int matchCount;
 
 
     /**
@@ -101,32 +144,83 @@ public class ClientListViewController {
                         cellData.getValue().getRegistrationDateTime().format(formatter)
                 ));
 
-        // Load client data from the deserialized file
-        loadClientData();
-
         // Set the data into the TableView
         clientsTableView.setItems(clientList);
+        clientsTableView.setPlaceholder(new Label("Loading clients..."));
+
+        // Fetch the next page once the rows near the end of the fetched clients are displayed
+        clientsTableView.setRowFactory(table -> new TableRow<>() {
+            @Override
+            protected void updateItem(Client client, boolean empty) {
+                super.updateItem(client, empty);
+                if (!empty && getIndex() >= clientList.size() - PREFETCH_ROWS) {
+                    // Not while the rows are being laid out
+                    Platform.runLater(ClientListViewController.this::loadNextPage);
+                }
+            }
+        });
+
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> showSearch(newValue));
+
+        // Load client data from the deserialized file
+        loadClientData();
     }
 
 
     /**
-     * Loads client data from the serialized file into the clientList.
-     * This method reads a serialized list of users and filters out only the clients.
+     * Loads the client directory from the serialized file in the background.
+     * <p>
+     * The file holds every user, so reading it takes a while for a large number of clients;
+     * the first page is displayed once it is read.
+     * </p>
      */
     private void loadClientData() {
-        clientList = FXCollections.observableArrayList();
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("data/users.ser"))) {
-            // Read the deserialized object (userList) and filter for clients
-            ArrayList<User> userList = (ArrayList<User>) ois.readObject();
-
-            for (User user : userList) {
-                if (user instanceof Client) {
-                    clientList.add((Client) user);  // Adding Client objects to the list
-                }
-            }
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+        CompletableFuture.supplyAsync(() -> ClientDirectory.load(USERS_FILE_PATH))
+                .thenAccept(directory -> Platform.runLater(() -> {
+                    clientDirectory = directory;
+                    clientsTableView.setPlaceholder(new Label("No clients match your search."));
+                    showSearch(searchField.getText());
+                }));
+    }
+
+
+    /**
+     * Displays the first page of the clients matching a search.
+     *
+     * @param query The search; blank to list every client.
+     */
+    private void showSearch(String query) {
+        currentQuery = query == null ? "" : query;
+        if (clientDirectory == null) {
+            return; // The search is run once the directory is loaded
+        }
+        ClientPage page = clientDirectory.search(currentQuery, 0, PAGE_SIZE);
+        matchCount = page.getTotal();
+        clientList.setAll(page.getClients());
+        clientsTableView.scrollTo(0);
+        updateCountLabel();
+    }
+
+
+    /**
+     * Fetches the next page of the clients matching the current search, if any is left.
+     */
+    private void loadNextPage() {
+        if (clientDirectory == null || clientList.size() >= matchCount) {
+            return;
         }
+        ClientPage page = clientDirectory.search(currentQuery, clientList.size(), PAGE_SIZE);
+        matchCount = page.getTotal();
+        clientList.addAll(page.getClients());
+        updateCountLabel();
+    }
+
+
+    /**
+     * Updates the label telling how many clients match the search.
+     */
+    private void updateCountLabel() {
+        countLabel.setText(matchCount + (matchCount == 1 ? " client" : " clients"));
     }
 
 
@@ -150,11 +244,14 @@ public class ClientListViewController {
 
             // If the user confirms the deletion
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                // Remove the client from the ObservableList
+                // Remove the client from the directory and the ObservableList
+                clientDirectory.remove(selectedClient);
                 clientList.remove(selectedClient);
+                matchCount--;
+                updateCountLabel();
 
                 // Save the updated client list to the serialized file
-                saveClientData();
+                clientDirectory.save();
 
                 // Show a success message using AlertHelper
                 AlertHelper.showInformationAlert(
@@ -173,24 +270,6 @@ public class ClientListViewController {
     }
 
 
-    /**
-     * Saves the updated client list back to the serialized file after deletion.
-     * This method writes the remaining clients to the file.
-     */
-    private void saveClientData() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream("data/users.ser"))) {
-            // Create a new list of users that includes only the remaining clients
-            ArrayList<User> userList = new ArrayList<>(clientList);
-
-            // Write the updated list to the serialized file
-            oos.writeObject(userList);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-
-
     /**
      * Handles the action triggered by clicking the back button.
      *      * <p>
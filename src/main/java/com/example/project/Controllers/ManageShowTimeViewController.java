@@ -2,6 +2,7 @@ package com.example.project.Controllers;
 
 import Helpers.AlertHelper;
 import com.example.project.Model.ShowTime;
+import com.example.project.Services.ShowTimeCatalog;
 
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -116,18 +117,13 @@ public class ManageShowTimeViewController {
     private ObservableList<ShowTime> loadShowTimes() {
         ObservableList<ShowTime> showTimeList = FXCollections.observableArrayList();
 
-        // Attempt to load saved showtimes from file
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("data/showtimes.ser"))) {
-            // Deserialize the List<ShowTime>
-            List<ShowTime> deserializedList = (List<ShowTime>) ois.readObject();
-            if (deserializedList != null && !deserializedList.isEmpty()) {
-                // If file contains showtimes, add them to the list
-                showTimeList.addAll(deserializedList);
-            }
-            // If the file is empty or no showtimes, showTimeList will remain empty
-        } catch (IOException | ClassNotFoundException e) {
-            // If no saved file or error, showTimeList will remain empty
+        // Attempt to load saved showtimes from file, with unique IDs
+        List<ShowTime> loadedList = ShowTimeCatalog.load("data/showtimes.ser");
+        if (loadedList != null) {
+            // If file contains showtimes, add them to the list
+            showTimeList.addAll(loadedList);
         }
+        // If no saved file or error, showTimeList will remain empty
 
         // Return the ObservableList to bind to the TableView
         return showTimeList;
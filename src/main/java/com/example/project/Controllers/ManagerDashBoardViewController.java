@@ -1,20 +1,84 @@
 package com.example.project.Controllers;
 
+import Helpers.AlertHelper;
+import com.example.project.Model.ShowTime;
+import com.example.project.Model.User;
+import com.example.project.Services.DataExporter;
+import com.example.project.Services.ReportEngine;
+import com.example.project.Services.ReportJob;
+import com.example.project.Services.SalesReport;
+import com.example.project.Services.SalesRollups;
+import com.example.project.Services.SalesTotal;
+import com.example.project.Services.ShowTimeCatalog;
+import com.example.project.Services.TicketColumns;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controller class for managing the manager dashboard view.
- *
+ * <p>
+ * Besides opening the other views, the dashboard runs the sales report of a year, or of every
+ * year, on all the cores with the {@link ReportEngine}, showing its progress and letting the
+ * manager cancel it.
+ * </p>
+ * <p>
+ * It also exports the tickets, the showtimes or the clients of the chosen period to a CSV or
+ * JSON Lines file, optionally gzipped, with the {@link DataExporter}.
+ * </p>
  */
 public class ManagerDashBoardViewController {
 
+    /**
+     * Path to the serialized file holding the tickets.
+     */
+    private static final String TICKETS_FILE_PATH = "data/tickets.ser";
+
+    /**
+     * Path to the serialized file holding the showtimes.
+     */
+    private static final String SHOWTIMES_FILE_PATH = "data/showtimes.ser";
+
+    /**
+     * The report period covering every ticket.
+     */
+    private static final String ALL_TIME = "All time";
+
+    /**
+     * The number of years offered for the report, starting from the current one.
+     */
+    private static final int REPORT_YEARS = 5;
+
+    /**
+     * The number of movies and rooms listed in the report.
+     */
+    private static final int REPORT_TOP_COUNT = 5;
+
+    /**
+     * The data that can be exported.
+     */
+    private static final List<String> EXPORT_DATA = List.of("Tickets", "Showtimes", "Clients");
+
     /**
      * Button to navigate to the Movies view.
      */
@@ -45,6 +109,93 @@ public class ManagerDashBoardViewController {
     @FXML
     private Button viewClientsListButton;
 
+    /**
+     * Button to navigate to the Occupancy view.
+     */
+    @FXML
+    private Button viewOccupancyButton;
+
+    /**
+     * ComboBox choosing the period of the sales report.
+     */
+    @FXML
+    private ComboBox<String> reportPeriodComboBox;
+
+    /**
+     * Button to run the sales report.
+     */
+    @FXML
+    private Button runReportButton;
+
+    /**
+     * Button to cancel the sales report being run.
+     */
+    @FXML
+    private Button cancelReportButton;
+
+    /**
+     * ProgressBar showing how far the sales report has got.
+     */
+    @FXML
+    private ProgressBar reportProgressBar;
+
+    /**
+     * Label telling what the sales report is doing.
+     */
+    @FXML
+    private Label reportStatusLabel;
+
+    /**
+     * ComboBox choosing the data to export.
+     */
+    @FXML
+    private ComboBox<String> exportDataComboBox;
+
+    /**
+     * Button to export the chosen data.
+     */
+    @FXML
+    private Button exportButton;
+
+    /**
+     * Label telling what the export is doing.
+     */
+    @FXML
+    private Label exportStatusLabel;
+
+    /**
+     * The engine building the sales reports.
+     */
+    private final ReportEngine reportEngine = new ReportEngine();
+
+    /**
+     * The sales report being built, or {@code null} if none is.
+     */
+    private ReportJob reportJob;
+
+    /**
+     * Whether the sales report being run was cancelled, possibly while the tickets were loading.
+     */
+    private volatile boolean reportCancelled;
+
+    /**
+     * Initializes the controller by filling the periods of the sales report and the data to export.
+     */
+    @FXML
+    public void initialize() {
+        ObservableList<String> periods = FXCollections.observableArrayList(ALL_TIME);
+        int year = LocalDate.now().getYear();
+        for (int i = 0; i < REPORT_YEARS; i++) {
+            periods.add(String.valueOf(year - i));
+        }
+        reportPeriodComboBox.setItems(periods);
+        reportPeriodComboBox.setValue(ALL_TIME);
+        cancelReportButton.setDisable(true);
+        reportProgressBar.setProgress(0);
+        exportDataComboBox.setItems(FXCollections.observableArrayList(EXPORT_DATA));
+        exportDataComboBox.setValue(EXPORT_DATA.get(0));
+    }
+
     /**
      * Handles the action triggered by clicking the Movies button.
      * <p>
@@ -100,6 +251,234 @@ public class ManagerDashBoardViewController {
         navigateToView("/com/example/project/client-list-view.fxml", "Clients List", viewClientsListButton);
     }
 
+    /**
+     * Handles the action triggered by clicking the Occupancy button.
+     * <p>
+     * Navigates to the Occupancy view.
+     * </p>
+     */
+    @FXML
+    private void handleOccupancyButton() {
+        navigateToView("/com/example/project/occupancy-view.fxml", "Occupancy", viewOccupancyButton);
+    }
+
+    /**
+     * Handles the action triggered by clicking the Run Report button.
+     * <p>
+     * Loads the tickets in the background, lays them out in columns and starts the report of
+     * the chosen period.
+     * </p>
+     */
+    @FXML
+    private void handleRunReportButton() {
+        String period = selectedPeriod();
+        LocalDate from = periodStart(period);
+        LocalDate to = from == null ? null : from.plusYears(1);
+
+        reportCancelled = false;
+        runReportButton.setDisable(true);
+        cancelReportButton.setDisable(false);
+        reportProgressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        reportStatusLabel.setText("Loading tickets...");
+
+        CompletableFuture.supplyAsync(() -> TicketColumns.load(TICKETS_FILE_PATH))
+                .whenComplete((columns, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        finishReport("Report failed.");
+                        AlertHelper.showErrorAlert("Report Failed", "The tickets could not be loaded.");
+                    } else if (reportCancelled) {
+                        finishReport("Report cancelled.");
+                    } else {
+                        startReport(columns, from, to, period);
+                    }
+                }));
+    }
+
+    /**
+     * Handles the action triggered by clicking the Cancel button of the sales report.
+     */
+    @FXML
+    private void handleCancelReportButton() {
+        reportCancelled = true;
+        cancelReportButton.setDisable(true);
+        reportStatusLabel.setText("Cancelling...");
+        if (reportJob != null) {
+            reportJob.cancel();
+        }
+    }
+
+    /**
+     * Handles the action triggered by clicking the Export button.
+     * <p>
+     * Asks for the file to write, whose extension chooses the format, then exports the chosen
+     * data of the chosen period in the background.
+     * </p>
+     */
+    @FXML
+    private void handleExportButton() {
+        String data = exportDataComboBox.getValue() == null ? EXPORT_DATA.get(0) : exportDataComboBox.getValue();
+        String period = selectedPeriod();
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export " + data);
+        fileChooser.setInitialFileName(
+                (data + "-" + period).replace(' ', '-').toLowerCase(Locale.ROOT) + ".csv");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("CSV, gzipped", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl"),
+                new FileChooser.ExtensionFilter("JSON Lines, gzipped", "*.jsonl.gz"));
+        File file = fileChooser.showSaveDialog(exportButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - 3);
+        }
+        DataExporter.Format format = name.endsWith(".jsonl") ? DataExporter.Format.JSON_LINES : DataExporter.Format.CSV;
+        LocalDate from = periodStart(period);
+        DataExporter exporter = new DataExporter(format, gzip, from, from == null ? null : from.plusYears(1));
+        List<User> users = new ArrayList<>(User.getUserList());
+
+        exportButton.setDisable(true);
+        exportStatusLabel.setText("Exporting " + data.toLowerCase(Locale.ROOT) + "...");
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return switch (data) {
+                    case "Showtimes" -> {
+                        List<ShowTime> showTimes = ShowTimeCatalog.load(SHOWTIMES_FILE_PATH);
+                        yield exporter.exportShowTimes(showTimes == null ? List.of() : showTimes, file.toPath());
+                    }
+                    case "Clients" -> exporter.exportClients(users, file.toPath());
+                    default -> exporter.exportTickets(TICKETS_FILE_PATH, file.toPath());
+                };
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((count, error) -> Platform.runLater(() -> {
+            exportButton.setDisable(false);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                exportStatusLabel.setText("Export failed.");
+                AlertHelper.showErrorAlert("Export Failed", String.valueOf(cause.getMessage()));
+            } else {
+                exportStatusLabel.setText(count + " " + data.toLowerCase(Locale.ROOT) + " exported.");
+            }
+        }));
+    }
+
+    /**
+     * Gets the period chosen for the sales report and the exports.
+     *
+     * @return The name of the period: a year, or {@link #ALL_TIME}.
+     */
+    private String selectedPeriod() {
+        return reportPeriodComboBox.getValue() == null ? ALL_TIME : reportPeriodComboBox.getValue();
+    }
+
+    /**
+     * Gets the first day of a period.
+     *
+     * @param period The name of the period.
+     * @return The first day of its year, or {@code null} for every ticket.
+     */
+    private static LocalDate periodStart(String period) {
+        return period.equals(ALL_TIME) ? null : LocalDate.of(Integer.parseInt(period), 1, 1);
+    }
+
+    /**
+     * Starts building the sales report once the tickets are loaded.
+     *
+     * @param columns The tickets, laid out in columns.
+     * @param from    The first day of the period, or {@code null} for every ticket.
+     * @param to      The day after the period, or {@code null} for every ticket.
+     * @param period  The name of the period, shown in the report.
+     */
+    private void startReport(TicketColumns columns, LocalDate from, LocalDate to, String period) {
+        reportStatusLabel.setText("Adding up " + columns.size() + " sales...");
+        reportProgressBar.setProgress(0);
+        reportJob = reportEngine.start(columns, from, to,
+                progress -> Platform.runLater(() -> reportProgressBar.setProgress(progress)));
+        reportJob.getResult().whenComplete((report, error) -> Platform.runLater(() -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                finishReport("Report cancelled.");
+            } else if (cause != null) {
+                finishReport("Report failed.");
+                AlertHelper.showErrorAlert("Report Failed", String.valueOf(cause.getMessage()));
+            } else {
+                finishReport("Report ready.");
+                showReport(report, period);
+            }
+        }));
+    }
+
+    /**
+     * Puts the report controls back once the report is done, cancelled or failed.
+     *
+     * @param status The text telling how the report ended.
+     */
+    private void finishReport(String status) {
+        reportJob = null;
+        runReportButton.setDisable(false);
+        cancelReportButton.setDisable(true);
+        reportProgressBar.setProgress(0);
+        reportStatusLabel.setText(status);
+    }
+
+    /**
+     * Shows the figures of a sales report.
+     *
+     * @param report The report.
+     * @param period The name of its period.
+     */
+    private void showReport(SalesReport report, String period) {
+        StringBuilder content = new StringBuilder();
+        content.append(String.format("Sales: %d, %d tickets, $%.2f%n",
+                report.getSaleCount(), report.getTicketCount(), report.getRevenueCents() / 100.0));
+        if (report.getSaleCount() > 0) {
+            content.append(String.format("Tickets per sale: %d to %d%n", report.getMinTickets(), report.getMaxTickets()));
+        }
+        if (report.getFirstPurchase() != null) {
+            content.append("First purchase: ").append(report.getFirstPurchase().toLocalDate()).append('\n');
+            content.append("Last purchase: ").append(report.getLastPurchase().toLocalDate()).append('\n');
+        }
+        appendTop(content, "Top movies", report.totals(SalesRollups.Dimension.MOVIE));
+        appendTop(content, "Top rooms", report.totals(SalesRollups.Dimension.ROOM));
+
+        SalesTotal busiestDay = null;
+        for (SalesTotal day : report.totals(SalesRollups.Dimension.DAY)) {
+            if (busiestDay == null || day.getTickets() > busiestDay.getTickets()) {
+                busiestDay = day;
+            }
+        }
+        if (busiestDay != null) {
+            content.append("\nBusiest day: ").append(busiestDay);
+        }
+
+        AlertHelper.showInformationAlert("Sales Report", "Sales report: " + period, content.toString().trim());
+    }
+
+    /**
+     * Adds the first groups of a list of totals to the report text.
+     *
+     * @param content The report text.
+     * @param title   The title of the list.
+     * @param totals  The totals, largest first.
+     */
+    private static void appendTop(StringBuilder content, String title, List<SalesTotal> totals) {
+        if (totals.isEmpty()) {
+            return;
+        }
+        content.append('\n').append(title).append(":\n");
+        for (SalesTotal total : totals.subList(0, Math.min(REPORT_TOP_COUNT, totals.size()))) {
+            content.append(String.format("  %s: %d tickets, $%.2f%n", total.getKey(), total.getTickets(), total.getRevenue()));
+        }
+    }
+
     /**
      * Utility method to navigate to a specified view.
      *
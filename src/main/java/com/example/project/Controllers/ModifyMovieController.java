@@ -2,6 +2,7 @@ package com.example.project.Controllers;
 
 import Helpers.AlertHelper;
 import com.example.project.Model.Genre;
+import com.example.project.Model.GenreRegistry;
 import com.example.project.Model.Movie;
 import javafx.fxml.FXML;
 import javafx.scene.control.ButtonType;
@@ -274,7 +275,8 @@ public class ModifyMovieController implements Serializable {
      * Parses the genre input into a list of Genre objects.
      * <p>
      * This method takes a comma-separated list of genres and converts it into a list of Genre objects.
-     * It validates that each genre is allowed and throws an exception if any genre is invalid.
+     * It validates that each genre is allowed, using the {@link GenreRegistry}, and throws an exception
+     * if any genre is invalid.
      * </p>
      *
      * @param genresInput The input string containing genres (comma-separated).
@@ -282,19 +284,6 @@ public class ModifyMovieController implements Serializable {
      * @throws IllegalArgumentException if any genre is invalid.
      */
     private List<Genre> parseGenres(String genresInput) {
-        List<String> validGenres = Arrays.asList(
-                "Action", "Comedy", "Drama", "Horror", "Sci-Fi", "Romance", "Science Fiction",
-                "Thriller", "Adventure", "Fantasy", "Mystery", "Animation",
-                "Documentary", "Biography", "Musical", "Western"
-        );
-
-        String[] genresArray = genresInput.split(",");
-        for (String genre : genresArray) {
-            if (!validGenres.contains(genre.trim())) {
-                throw new IllegalArgumentException("Invalid genre: " + genre.trim());
-            }
-        }
-
-        return Arrays.stream(genresArray).map(genre -> new Genre(genre.trim())).toList();
+        return Arrays.stream(genresInput.split(",")).map(GenreRegistry::parseAllowed).distinct().toList();
     }
 }
@@ -1,7 +1,12 @@
 package com.example.project.Controllers;
 
 import Helpers.AlertHelper;
+import Helpers.AutocompleteHelper;
+import Helpers.SerializationHelper;
+import com.example.project.Model.Movie;
+import com.example.project.Model.ScreeningRoom;
 import com.example.project.Model.ShowTime;
+import com.example.project.Services.AutocompleteIndex;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -18,6 +23,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.List;
 
 public class ModifyShowTimeViewController {
 
@@ -56,6 +62,8 @@ public class ModifyShowTimeViewController {
 
     private ObservableList<ShowTime> showTimes; // Holds the list of showtimes
     private ShowTime selectedShowTime; // The selected showtime to modify
+    private AutocompleteIndex<Movie> movieIndex; // Movie titles suggested and checked
+    private AutocompleteIndex<ScreeningRoom> roomIndex; // Room names suggested and checked
 
     // This method is called to initialize the controller with the selected showtime
     public void initialize(ShowTime selectedShowTime, ObservableList<ShowTime> showTimes) {
@@ -68,6 +76,14 @@ public class ModifyShowTimeViewController {
         dateField.setValue(selectedShowTime.getDateTime().toLocalDate());
         timeField.setText(selectedShowTime.getFormattedTime());
         roomIdField.setText(selectedShowTime.getScreeningRoom());
+
+        // Suggest the movie titles and room names of the catalog as the manager types
+        List<Movie> movies = SerializationHelper.loadData("data/movies.ser");
+        List<ScreeningRoom> rooms = SerializationHelper.loadData("data/screening_rooms.ser");
+        movieIndex = new AutocompleteIndex<>(movies == null ? List.of() : movies, Movie::getTitle);
+        roomIndex = new AutocompleteIndex<>(rooms == null ? List.of() : rooms, ScreeningRoom::getName);
+        AutocompleteHelper.attach(movieIdField, movieIndex);
+        AutocompleteHelper.attach(roomIdField, roomIndex);
     }
 
     @FXML
@@ -79,6 +95,20 @@ public class ModifyShowTimeViewController {
         String newMovie = movieIdField.getText();
         String newScreeningRoom = roomIdField.getText();
 
+        // The showtime must refer to a movie and a room of the catalog, under their exact names
+        Movie movie = movieIndex.resolve(newMovie);
+        if (movie == null) {
+            AlertHelper.showErrorAlert("Unknown Movie", "No movie is titled \"" + newMovie.trim() + "\". Please choose one of the suggestions.");
+            return;
+        }
+        ScreeningRoom screeningRoom = roomIndex.resolve(newScreeningRoom);
+        if (screeningRoom == null) {
+            AlertHelper.showErrorAlert("Unknown Room", "No screening room is named \"" + newScreeningRoom.trim() + "\". Please choose one of the suggestions.");
+            return;
+        }
+        newMovie = movie.getTitle();
+        newScreeningRoom = screeningRoom.getName();
+
         // Create a new LocalDateTime object with the updated values
         LocalDateTime updatedDateTime = LocalDateTime.of(newDate, newTime);
 
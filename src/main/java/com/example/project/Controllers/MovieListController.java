@@ -1,18 +1,29 @@
 package com.example.project.Controllers;
 
 import Helpers.AlertHelper;
+import Helpers.SearchDebouncer;
 import Helpers.SerializationHelper;
 import com.example.project.Model.Movie;
 import com.example.project.Model.Genre;
+import com.example.project.Model.GenreRegistry;
+import com.example.project.Services.FacetCount;
+import com.example.project.Services.MovieFacets;
+import com.example.project.Services.MovieSearchIndex;
+import com.example.project.Services.SalesRollups;
+import com.example.project.Services.SalesTotal;
+import com.example.project.Services.SearchIndexStore;
+import com.example.project.Services.TicketStore;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
@@ -21,8 +32,13 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -45,11 +61,20 @@ public class MovieListController {
      */
     private static final String MOVIES_FILE_PATH = "data/movies.ser";
 
+    /**
+     * Path to the file holding the search index of the movies.
+     * <p>
+     * It is saved along with the movies and loaded back at the next launch, as long as the
+     * movie file has not changed since, so that the movies are not indexed again.
+     * </p>
+     */
+    private static final String SEARCH_INDEX_FILE_PATH = "data/movies.idx";
+
     /**
      * TextField for searching movies.
      * <p>
      * This field is used by the manager to enter keywords to search for specific movies
-     * by their title or genres.
+     * by their title, genres, actors, director or description. The search runs as the manager types.
      * </p>
      */
     @FXML
@@ -92,6 +117,27 @@ public class MovieListController {
     @FXML
     private TableColumn<Movie, String> genreColumn;
 
+    /**
+     * ComboBox for choosing a genre, listing the genres with the number of movies of each.
+     * <p>
+     * The first item stands for every genre. The counts follow the search and the other choices.
+     * </p>
+     */
+    @FXML
+    private ComboBox<FacetCount> aGenreFacetBox;
+
+    /**
+     * ComboBox for choosing a director, listing the directors with the number of movies of each.
+     */
+    @FXML
+    private ComboBox<FacetCount> aDirectorFacetBox;
+
+    /**
+     * ComboBox for choosing a release year, listing the years with the number of movies of each.
+     */
+    @FXML
+    private ComboBox<FacetCount> aYearFacetBox;
+
     /**
      * Button to consult the selected movie details.
      */
@@ -127,6 +173,61 @@ public class MovieListController {
      */
     private ObservableList<Movie> aMovies;
 
+    /**
+     * Trigram index of the movies used by the search.
+     * <p>
+     * It is loaded from its file, or rebuilt in the background when the file is missing or out of
+     * date, then kept up to date as movies are added, edited and deleted, so a search does not have
+     * to go through the whole list.
+     * </p>
+     */
+    private final MovieSearchIndex aSearchIndex = new MovieSearchIndex();
+
+    /**
+     * Whether the search index is loaded. Only used on the JavaFX thread.
+     */
+    private boolean aSearchIndexLoaded;
+
+    /**
+     * Changes to the search index made while it is being loaded, applied in order once it is.
+     * Only used on the JavaFX thread.
+     */
+    private final List<Runnable> aPendingIndexChanges = new ArrayList<>();
+
+    /**
+     * Counts of the movies by genre, director and release year.
+     * <p>
+     * They are kept up to date as movies are added, edited and deleted, and filtered
+     * with bitmaps as the manager searches and chooses values.
+     * </p>
+     */
+    private final MovieFacets aFacets = new MovieFacets();
+
+    /**
+     * The movies found by the current search, or {@code null} when the search field is empty.
+     */
+    private List<Movie> aSearchMatches;
+
+    /**
+     * Whether the facet ComboBoxes are being filled in, during which their changes are ignored.
+     */
+    private boolean aUpdatingFacets;
+
+    /**
+     * ObservableList holding the results of the current search.
+     * <p>
+     * The results of each search replace its content in a single change, so the TableView
+     * redraws once per search.
+     * </p>
+     */
+    private final ObservableList<Movie> aSearchResults = FXCollections.observableArrayList();
+
+    /**
+     * Runs the searches in the background as the manager types.
+     */
+    private final SearchDebouncer<Movie> aSearchDebouncer = new SearchDebouncer<>(
+            query -> aSearchIndex.search(query), this::showSearchResults);
+
     /**
      * Initializes the controller.
      * <p>
@@ -160,6 +261,20 @@ public class MovieListController {
             aDeleteButton.setDisable(!isSelected);
         });
 
+        // Search as the manager types
+        aSearchField.textProperty().addListener((observable, oldValue, newValue) -> aSearchDebouncer.search(newValue));
+        aMovieTableView.setPlaceholder(new Label("No movies match your search."));
+
+        // Filter as soon as a genre, director or year is chosen
+        for (ComboBox<FacetCount> facetBox : List.of(aGenreFacetBox, aDirectorFacetBox, aYearFacetBox)) {
+            facetBox.valueProperty().addListener((observable, oldValue, newValue) -> {
+                if (!aUpdatingFacets) {
+                    showMovies();
+                }
+            });
+        }
+        updateFacetCounts(Map.of());
+
         // Disable Refresh button by default until a search is performed
         aRefreshButton.setDisable(true);
     }
@@ -191,6 +306,93 @@ public class MovieListController {
 
         // Convert to ObservableList for UI operations
         aMovies = FXCollections.observableArrayList(aMovieList);
+        aFacets.addAll(aMovieList);
+        loadSearchIndex();
+        // The sales totals may have to be rebuilt from every ticket, so they are read in the background
+        CompletableFuture.supplyAsync(this::loadTicketSales)
+                .thenAccept(ticketSales -> Platform.runLater(
+                        () -> changeSearchIndex(() -> aSearchIndex.setPopularity(ticketSales))));
+    }
+
+    /**
+     * Loads the search index saved with the movies in the background, or rebuilds it there if it
+     * is missing or was saved for other movies.
+     * <p>
+     * The index holds its lock while it is loaded or rebuilt, so the searches made meanwhile wait
+     * for it in the background. The changes made meanwhile on the JavaFX thread are queued by
+     * {@link #changeSearchIndex(Runnable)} instead, and applied in order once the index is loaded,
+     * so the window never waits for the index.
+     * </p>
+     */
+    private void loadSearchIndex() {
+        MovieSearchIndex searchIndex = aSearchIndex;
+        List<Movie> movies = List.copyOf(aMovieList);
+        CompletableFuture.supplyAsync(() -> {
+            synchronized (searchIndex) {
+                if (SearchIndexStore.load(SEARCH_INDEX_FILE_PATH, searchIndex, movies,
+                        SearchIndexStore.catalogVersion(MOVIES_FILE_PATH))) {
+                    return false;
+                }
+                searchIndex.addAll(movies);
+                return true;
+            }
+        }).whenComplete((rebuilt, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                System.err.println("Search index could not be loaded: " + error.getMessage());
+            }
+            aSearchIndexLoaded = true;
+            boolean changed = !aPendingIndexChanges.isEmpty();
+            for (Runnable change : aPendingIndexChanges) {
+                change.run();
+            }
+            aPendingIndexChanges.clear();
+            if (Boolean.TRUE.equals(rebuilt) || changed) {
+                saveSearchIndex();
+            }
+        }));
+    }
+
+    /**
+     * Applies a change to the search index, or queues it until the index is loaded.
+     *
+     * @param pChange The change.
+     */
+    private void changeSearchIndex(Runnable pChange) {
+        if (aSearchIndexLoaded) {
+            pChange.run();
+        } else {
+            aPendingIndexChanges.add(pChange);
+        }
+    }
+
+    /**
+     * Saves the search index for the movies as they were last saved.
+     */
+    private void saveSearchIndex() {
+        if (aMovies == null || !aSearchIndexLoaded) {
+            return; // Saved once the index is loaded and the queued changes applied
+        }
+        SearchIndexStore.save(SEARCH_INDEX_FILE_PATH, aSearchIndex, List.copyOf(aMovieList), MOVIES_FILE_PATH);
+    }
+
+    /**
+     * Counts the tickets sold for each movie.
+     * <p>
+     * The counts rank the results of a search forgiving typos, so that the best selling
+     * of several similar titles comes first. They are read from the sales totals of the ticket
+     * store, which may have to be rebuilt from every ticket, so this runs in the background.
+     * </p>
+     *
+     * @return The tickets sold, keyed by movie title.
+     */
+    private Map<String, Integer> loadTicketSales() {
+        Map<String, Integer> ticketsByTitle = new HashMap<>();
+        for (SalesTotal total : TicketStore.loadRollups("data/tickets.ser").totals(SalesRollups.Dimension.MOVIE)) {
+            if (!total.getKey().equals(SalesRollups.UNKNOWN)) {
+                ticketsByTitle.put(total.getKey(), (int) Math.min(total.getTickets(), Integer.MAX_VALUE));
+            }
+        }
+        return ticketsByTitle;
     }
 
     /**
@@ -214,9 +416,9 @@ public class MovieListController {
      */
     private List<Movie> createDefaultMovies() {
         return new ArrayList<>(List.of(
-                new Movie("Inception", new ArrayList<>(List.of(new Genre("Sci-Fi"), new Genre("Action"))),
+                new Movie("Inception", List.of(GenreRegistry.of("Sci-Fi"), GenreRegistry.of("Action")),
                         "2010-07-16", "148 min", "Leonardo DiCaprio", "Christopher Nolan", "A mind-bending thriller."),
-                new Movie("Titanic", new ArrayList<>(List.of(new Genre("Romance"), new Genre("Drama"))),
+                new Movie("Titanic", List.of(GenreRegistry.of("Romance"), GenreRegistry.of("Drama")),
                         "1997-12-19", "195 min", "Leonardo DiCaprio, Kate Winslet", "James Cameron", "A romantic tragedy.")
         ));
     }
@@ -225,49 +427,154 @@ public class MovieListController {
      * Refreshes the TableView to display all movies.
      * <p>
      * This method is triggered by the "Refresh" button.
-     * It resets any search filters and displays the complete movie list.
+     * It clears the search field and the chosen genre, director and year, and displays the complete movie list.
      * </p>
      */
     @FXML
     private void onRefreshButtonClicked() {
-        aMovieTableView.setItems(aMovies);
+        aSearchField.clear();
+        aSearchDebouncer.cancel();
+        aUpdatingFacets = true;
+        for (ComboBox<FacetCount> facetBox : List.of(aGenreFacetBox, aDirectorFacetBox, aYearFacetBox)) {
+            facetBox.getSelectionModel().selectFirst();
+        }
+        aUpdatingFacets = false;
+        showAllMovies();
     }
 
     /**
-     * Filters movies based on the input from the search field.
+     * Searches the movies for the input of the search field right away.
      * <p>
-     * If no movies match the input, an alert is displayed to the manager.
-     * This method is triggered by the "Search" button.
+     * This method is triggered by the "Search" button. The search also runs on its own
+     * shortly after the manager stops typing.
      * </p>
      */
     @FXML
     private void onSearchButtonClicked() {
-        String pInput = aSearchField.getText().toLowerCase();
+        aSearchDebouncer.searchNow(aSearchField.getText());
+    }
 
-        // Filter movies based on the input
-        FilteredList<Movie> pFilteredMovies = new FilteredList<>(aMovies, pMovie -> {
-            if (pMovie.getTitle().toLowerCase().contains(pInput)) {
-                return true;
-            }
-            for (Genre genre : pMovie.getGenres()) {
-                if (genre.getName().toLowerCase().contains(pInput)) {
-                    return true;
-                }
-            }
-            return false;
-        });
+    /**
+     * Displays the results of the latest search in the TableView.
+     * <p>
+     * Called on the JavaFX thread once the search has run in the background. When the search
+     * field is empty, the complete movie list is displayed again.
+     * </p>
+     *
+     * @param pResults The movies matching the search input.
+     */
+    private void showSearchResults(List<Movie> pResults) {
+        if (aSearchField.getText() == null || aSearchField.getText().isBlank()) {
+            showAllMovies();
+            return;
+        }
+        aSearchMatches = pResults;
+        showMovies();
+    }
 
-        if (pFilteredMovies.isEmpty()) {
-            AlertHelper.showWarningAlert(
-                    "No Results Found",
-                    "No movies or genres match your search input.",
-                    "Please check your input and try again."
-            );
+    /**
+     * Displays the complete movie list in the TableView, narrowed down to the chosen genre,
+     * director and year if any.
+     */
+    private void showAllMovies() {
+        aSearchMatches = null;
+        showMovies();
+    }
+
+    /**
+     * Displays the movies found by the current search that have the chosen genre, director and
+     * year, and updates the counts next to each choice.
+     */
+    private void showMovies() {
+        Map<MovieFacets.Facet, Set<String>> selection = getFacetSelection();
+        if (aSearchMatches == null && selection.isEmpty()) {
+            aMovieTableView.setItems(aMovies);
+            aSearchResults.clear();
+            aRefreshButton.setDisable(true);
         } else {
-            aMovieTableView.setItems(pFilteredMovies);
+            aSearchResults.setAll(aFacets.filter(aSearchMatches == null ? aMovieList : aSearchMatches, selection));
+            aMovieTableView.setItems(aSearchResults);
+            aRefreshButton.setDisable(false);
         }
+        updateFacetCounts(selection);
+    }
+
+    /**
+     * Gets the genre, director and year chosen in the facet ComboBoxes.
+     *
+     * @return The chosen value of each facet having one.
+     */
+    private Map<MovieFacets.Facet, Set<String>> getFacetSelection() {
+        Map<MovieFacets.Facet, Set<String>> selection = new EnumMap<>(MovieFacets.Facet.class);
+        addFacetSelection(selection, MovieFacets.Facet.GENRE, aGenreFacetBox);
+        addFacetSelection(selection, MovieFacets.Facet.DIRECTOR, aDirectorFacetBox);
+        addFacetSelection(selection, MovieFacets.Facet.YEAR, aYearFacetBox);
+        return selection;
+    }
 
-        aRefreshButton.setDisable(false);
+    /**
+     * Adds the value chosen in a facet ComboBox to a selection, unless every value is accepted.
+     *
+     * @param pSelection The selection.
+     * @param pFacet     The facet of the ComboBox.
+     * @param pFacetBox  The ComboBox.
+     */
+    private static void addFacetSelection(Map<MovieFacets.Facet, Set<String>> pSelection, MovieFacets.Facet pFacet,
+                                          ComboBox<FacetCount> pFacetBox) {
+        // The first item stands for every value
+        if (pFacetBox.getSelectionModel().getSelectedIndex() > 0) {
+            pSelection.put(pFacet, Set.of(pFacetBox.getValue().getValue()));
+        }
+    }
+
+    /**
+     * Fills the facet ComboBoxes with the counts among the movies found by the current search and
+     * the values chosen in the other facets, keeping the current choices.
+     *
+     * @param pSelection The chosen values.
+     */
+    private void updateFacetCounts(Map<MovieFacets.Facet, Set<String>> pSelection) {
+        aUpdatingFacets = true;
+        updateFacetCounts(aGenreFacetBox, MovieFacets.Facet.GENRE, "All genres", pSelection);
+        updateFacetCounts(aDirectorFacetBox, MovieFacets.Facet.DIRECTOR, "All directors", pSelection);
+        updateFacetCounts(aYearFacetBox, MovieFacets.Facet.YEAR, "All years", pSelection);
+        aUpdatingFacets = false;
+    }
+
+    /**
+     * Fills a facet ComboBox with the counts of its facet, keeping its current choice.
+     *
+     * @param pFacetBox  The ComboBox.
+     * @param pFacet     The facet of the ComboBox.
+     * @param pAllLabel  The label of the first item, standing for every value.
+     * @param pSelection The chosen values.
+     */
+    private void updateFacetCounts(ComboBox<FacetCount> pFacetBox, MovieFacets.Facet pFacet, String pAllLabel,
+                                   Map<MovieFacets.Facet, Set<String>> pSelection) {
+        List<FacetCount> counts = aFacets.counts(pFacet, pSelection, aSearchMatches);
+        Map<MovieFacets.Facet, Set<String>> otherFacets = new EnumMap<>(MovieFacets.Facet.class);
+        otherFacets.putAll(pSelection);
+        otherFacets.remove(pFacet);
+        int total = aFacets.count(otherFacets, aSearchMatches);
+
+        List<FacetCount> items = new ArrayList<>();
+        items.add(new FacetCount(pAllLabel, total));
+        items.addAll(counts);
+
+        Set<String> chosen = pSelection.getOrDefault(pFacet, Set.of());
+        int chosenIndex = 0;
+        for (int i = 1; i < items.size() && !chosen.isEmpty(); i++) {
+            if (chosen.contains(items.get(i).getValue())) {
+                chosenIndex = i;
+            }
+        }
+        if (chosenIndex == 0 && !chosen.isEmpty()) {
+            // No movie left has the chosen value; keep it chosen so the manager sees why the list is empty
+            items.add(new FacetCount(chosen.iterator().next(), 0));
+            chosenIndex = items.size() - 1;
+        }
+        pFacetBox.getItems().setAll(items);
+        pFacetBox.getSelectionModel().select(chosenIndex);
     }
 
     /**
@@ -337,6 +644,9 @@ public class MovieListController {
                 Movie newMovie = controller.getNewMovie();
                 aMovieList.add(newMovie);
                 aMovies.add(newMovie);
+                changeSearchIndex(() -> aSearchIndex.add(newMovie));
+                aFacets.add(newMovie);
+                updateFacetCounts(getFacetSelection());
                 saveMovies();
             }
 
@@ -356,6 +666,7 @@ public class MovieListController {
     private void saveMovies() {
         ensureDataDirectoryExists(); // Ensure the "data" directory exists before saving
         SerializationHelper.saveData(MOVIES_FILE_PATH, aMovieList);
+        saveSearchIndex();
     }
 
     /**
@@ -384,6 +695,9 @@ public class MovieListController {
 
                 // Refresh the TableView after modifications
                 aMovieTableView.refresh();
+                changeSearchIndex(() -> aSearchIndex.update(pSelectedMovie));
+                aFacets.update(pSelectedMovie);
+                updateFacetCounts(getFacetSelection());
                 saveMovies();
 
             } catch (IOException e) {
@@ -416,6 +730,10 @@ public class MovieListController {
             if (result.isPresent() && result.get() == ButtonType.OK) {
                 aMovieList.remove(selectedMovie);
                 aMovies.remove(selectedMovie);
+                aSearchResults.remove(selectedMovie);
+                changeSearchIndex(() -> aSearchIndex.remove(selectedMovie));
+                aFacets.remove(selectedMovie);
+                updateFacetCounts(getFacetSelection());
                 saveMovies();
 
                 AlertHelper.showInformationAlert(
@@ -0,0 +1,259 @@
+package com.example.project.Controllers;
+
+import Helpers.SerializationHelper;
+import com.example.project.Model.ScreeningRoom;
+import com.example.project.Model.ShowTime;
+import com.example.project.Services.Occupancy;
+import com.example.project.Services.OccupancyAnalytics;
+import com.example.project.Services.ShowTimeCatalog;
+import com.example.project.Services.TicketStore;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controller class for the Occupancy view.
+ * <p>
+ * The view shows the load factor of every showtime, screening room or movie, the seats sold out
+ * of the seats offered, and a heatmap of the load factor of each room at each hour of the week.
+ * The seats sold are read from the sales totals kept by the ticket store, so the view does not
+ * go through the tickets.
+ * </p>
+ */
+public class OccupancyViewController {
+
+    /**
+     * Path to the serialized file holding the tickets.
+     */
+    private static final String TICKETS_FILE_PATH = "data/tickets.ser";
+
+    /**
+     * Path to the serialized file holding the showtimes.
+     */
+    private static final String SHOWTIMES_FILE_PATH = "data/showtimes.ser";
+
+    /**
+     * Path to the serialized file holding the screening rooms.
+     */
+    private static final String ROOMS_FILE_PATH = "data/screening_rooms.ser";
+
+    /**
+     * The names of the groupings offered.
+     */
+    private static final List<String> GROUPINGS = List.of("Showtime", "Room", "Movie");
+
+    /**
+     * The width of a cell of the heatmap, in pixels.
+     */
+    private static final double CELL_WIDTH = 12;
+
+    /**
+     * The height of a cell of the heatmap, in pixels.
+     */
+    private static final double CELL_HEIGHT = 18;
+
+    /**
+     * Button to navigate back to the previous screen.
+     */
+    @FXML
+    public Button backButton;
+
+    /**
+     * ComboBox choosing how the showtimes are grouped in the table.
+     */
+    @FXML
+    public ComboBox<String> groupByComboBox;
+
+    /**
+     * The table that displays the occupancy of each showtime, room or movie.
+     */
+    @FXML
+    public TableView<Occupancy> occupancyTable;
+
+    /**
+     * The table column that displays the showtime, room or movie.
+     */
+    @FXML
+    public TableColumn<Occupancy, String> nameColumn;
+
+    /**
+     * The table column that displays the seats sold.
+     */
+    @FXML
+    public TableColumn<Occupancy, Long> seatsSoldColumn;
+
+    /**
+     * The table column that displays the seats offered.
+     */
+    @FXML
+    public TableColumn<Occupancy, Long> capacityColumn;
+
+    /**
+     * The table column that displays the load factor.
+     */
+    @FXML
+    public TableColumn<Occupancy, String> loadFactorColumn;
+
+    /**
+     * The label telling how many showtimes were left out, with the list in its tooltip.
+     */
+    @FXML
+    public Label skippedLabel;
+
+    /**
+     * The grid holding the heatmap, one row per room and one column per hour of the week.
+     */
+    @FXML
+    public GridPane heatmapGrid;
+
+    /**
+     * The observable list holding the occupancies displayed in the table.
+     */
+    private final ObservableList<Occupancy> occupancyList = FXCollections.observableArrayList();
+
+    /**
+     * The occupancy analytics, or {@code null} while they are being loaded.
+     */
+    private OccupancyAnalytics analytics;
+
+    /**
+     * Initializes the controller by configuring the TableColumns and loading the analytics.
+     */
+    @FXML
+    public void initialize() {
+        nameColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getKey()));
+        seatsSoldColumn.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().getSeatsSold()));
+        capacityColumn.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().getCapacity()));
+        loadFactorColumn.setCellValueFactory(cellData ->
+                new SimpleStringProperty(String.format("%.1f%%", cellData.getValue().getLoadFactor() * 100)));
+
+        groupByComboBox.setItems(FXCollections.observableArrayList(GROUPINGS));
+        groupByComboBox.setValue(GROUPINGS.get(0));
+        groupByComboBox.setOnAction(event -> showOccupancy());
+
+        occupancyTable.setItems(occupancyList);
+        occupancyTable.setPlaceholder(new Label("Loading occupancy..."));
+
+        loadAnalytics();
+    }
+
+    /**
+     * Loads the seats sold, the showtimes and the rooms in the background, then displays the analytics.
+     */
+    private void loadAnalytics() {
+        CompletableFuture.supplyAsync(() -> {
+            List<ShowTime> showTimes = ShowTimeCatalog.load(SHOWTIMES_FILE_PATH);
+            List<ScreeningRoom> rooms = SerializationHelper.loadData(ROOMS_FILE_PATH);
+            return OccupancyAnalytics.of(TicketStore.loadRollups(TICKETS_FILE_PATH).seatsByShowTime(),
+                    showTimes == null ? List.of() : showTimes, rooms == null ? List.of() : rooms);
+        }).thenAccept(result -> Platform.runLater(() -> {
+            analytics = result;
+            occupancyTable.setPlaceholder(new Label("No showtimes scheduled."));
+            showSkippedShowTimes();
+            showOccupancy();
+            showHeatmap();
+        }));
+    }
+
+    /**
+     * Tells how many showtimes were left out of the analytics, and lists them in the tooltip.
+     */
+    private void showSkippedShowTimes() {
+        List<String> skipped = analytics.skippedShowTimes();
+        if (skipped.isEmpty()) {
+            skippedLabel.setText("");
+            skippedLabel.setTooltip(null);
+            return;
+        }
+        skippedLabel.setText(skipped.size() + (skipped.size() == 1 ? " showtime" : " showtimes")
+                + " left out (hover for details)");
+        skippedLabel.setTooltip(new Tooltip(String.join("\n", skipped)));
+    }
+
+    /**
+     * Displays the occupancies grouped as chosen in the ComboBox.
+     */
+    private void showOccupancy() {
+        String grouping = groupByComboBox.getValue() == null ? GROUPINGS.get(0) : groupByComboBox.getValue();
+        nameColumn.setText(grouping);
+        if (analytics == null) {
+            return;
+        }
+        switch (grouping) {
+            case "Room" -> occupancyList.setAll(analytics.byRoom());
+            case "Movie" -> occupancyList.setAll(analytics.byMovie());
+            default -> occupancyList.setAll(analytics.byShowTime());
+        }
+    }
+
+    /**
+     * Fills the heatmap: a header row with the days, then one row per room, each cell colored from
+     * white for an empty showtime to dark green for a full one, and gray when nothing is scheduled.
+     */
+    private void showHeatmap() {
+        heatmapGrid.getChildren().clear();
+        for (int day = 0; day < 7; day++) {
+            Label dayLabel = new Label(DayOfWeek.of(day + 1).getDisplayName(TextStyle.SHORT, Locale.ENGLISH));
+            heatmapGrid.add(dayLabel, 1 + day * 24, 0, 24, 1);
+        }
+
+        List<String> rooms = analytics.getHeatmapRooms();
+        for (int room = 0; room < rooms.size(); room++) {
+            heatmapGrid.add(new Label(rooms.get(room) + " "), 0, room + 1);
+            for (int hour = 0; hour < OccupancyAnalytics.HOURS_PER_WEEK; hour++) {
+                Occupancy cell = analytics.getHeatmapCell(room, hour);
+                Label cellLabel = new Label();
+                cellLabel.setMinSize(CELL_WIDTH, CELL_HEIGHT);
+                cellLabel.setPrefSize(CELL_WIDTH, CELL_HEIGHT);
+                if (cell == null) {
+                    cellLabel.setStyle("-fx-background-color: #e8e8e8;");
+                } else {
+                    cellLabel.setStyle(String.format(Locale.ROOT, "-fx-background-color: hsb(120, %.0f%%, %.0f%%);",
+                            cell.getLoadFactor() * 100, 100 - cell.getLoadFactor() * 45));
+                    cellLabel.setTooltip(new Tooltip(cell.toString()));
+                }
+                heatmapGrid.add(cellLabel, hour + 1, room + 1);
+            }
+        }
+    }
+
+    /**
+     * Handles the action triggered by clicking the back button.
+     * <p>
+     * This method closes the current window and returns to the manager dashboard.
+     * </p>
+     *
+     * @param actionEvent the event triggered by clicking the back button
+     */
+    public void handleBackButton(ActionEvent actionEvent) throws IOException {
+        Stage stage = (Stage) backButton.getScene().getWindow();
+
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/project/manager-dashboard-view.fxml"));
+        Parent root = loader.load();
+
+        stage.setScene(new Scene(root));
+        stage.show();
+    }
+}
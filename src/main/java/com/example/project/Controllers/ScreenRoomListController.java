@@ -1,11 +1,12 @@
 package com.example.project.Controllers;
 
 import Helpers.AlertHelper;
+import Helpers.SearchDebouncer;
 import Helpers.SerializationHelper;
 import com.example.project.Model.ScreeningRoom;
+import com.example.project.Services.RoomIndex;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -43,6 +44,7 @@ public class ScreenRoomListController {
      * TextField for searching screening rooms.
      * <p>
      * Allows the manager to input keywords to filter screening rooms by their names or features.
+     * The search runs as the manager types.
      * </p>
      */
     @FXML
@@ -57,6 +59,46 @@ public class ScreenRoomListController {
     @FXML
     private Button aRefreshButton;
 
+    /**
+     * CheckBox keeping the IMAX rooms in the list.
+     * <p>
+     * The feature CheckBoxes combine with "or": checking IMAX and 3D keeps the rooms having either.
+     * When none is checked, the rooms of every feature are kept.
+     * </p>
+     */
+    @FXML
+    private CheckBox aImaxCheckBox;
+
+    /**
+     * CheckBox keeping the 3D rooms in the list.
+     */
+    @FXML
+    private CheckBox a3DCheckBox;
+
+    /**
+     * CheckBox keeping the Standard rooms in the list.
+     */
+    @FXML
+    private CheckBox aStandardCheckBox;
+
+    /**
+     * TextField for the smallest number of seats of the rooms kept in the list.
+     * <p>
+     * Left empty, or holding something other than a number, it sets no lower limit.
+     * </p>
+     */
+    @FXML
+    private TextField aMinCapacityField;
+
+    /**
+     * TextField for the largest number of seats of the rooms kept in the list.
+     * <p>
+     * Left empty, or holding something other than a number, it sets no upper limit.
+     * </p>
+     */
+    @FXML
+    private TextField aMaxCapacityField;
+
     /**
      * TableView for displaying the list of screening rooms.
      * <p>
@@ -110,6 +152,38 @@ public class ScreenRoomListController {
      */
     private ObservableList<ScreeningRoom> aScreenRooms;
 
+    /**
+     * Index of the screening rooms read by the background searches.
+     * <p>
+     * It is rebuilt from a copy of the rooms whenever a room is added, edited or deleted, so
+     * the searches never read a list while the JavaFX thread modifies it.
+     * </p>
+     */
+    private volatile RoomIndex aRoomIndex = new RoomIndex(List.of());
+
+    /**
+     * The feature and capacity filters read by the background searches.
+     * <p>
+     * It is replaced as a whole whenever a filter control changes, so a search never sees
+     * half of a change.
+     * </p>
+     */
+    private volatile RoomFilter aRoomFilter = RoomFilter.NONE;
+
+    /**
+     * ObservableList holding the results of the current search.
+     * <p>
+     * The results of each search replace its content in a single change, so the TableView
+     * redraws once per search.
+     * </p>
+     */
+    private final ObservableList<ScreeningRoom> aSearchResults = FXCollections.observableArrayList();
+
+    /**
+     * Runs the searches in the background as the manager types.
+     */
+    private final SearchDebouncer<ScreeningRoom> aSearchDebouncer = new SearchDebouncer<>(this::findScreenRooms, this::showSearchResults);
+
     /**
      * Initializes the controller.
      * <p>
@@ -136,6 +210,17 @@ public class ScreenRoomListController {
             aDeleteButton.setDisable(!isSelected);
         });
 
+        // Search as the manager types
+        aSearchField.textProperty().addListener((observable, oldValue, newValue) -> aSearchDebouncer.search(newValue));
+
+        // Filter again as soon as a feature is checked or a capacity is typed
+        for (CheckBox featureCheckBox : List.of(aImaxCheckBox, a3DCheckBox, aStandardCheckBox)) {
+            featureCheckBox.selectedProperty().addListener((observable, oldValue, newValue) -> onFilterChanged());
+        }
+        aMinCapacityField.textProperty().addListener((observable, oldValue, newValue) -> onFilterChanged());
+        aMaxCapacityField.textProperty().addListener((observable, oldValue, newValue) -> onFilterChanged());
+        aScreenRoomTableView.setPlaceholder(new Label("No screening rooms match your search."));
+
         // Disable the Refresh button by default until a search is performed
         aRefreshButton.setDisable(true);
     }
@@ -166,6 +251,14 @@ public class ScreenRoomListController {
 
         // Convert to ObservableList for UI operations
         aScreenRooms = FXCollections.observableArrayList(aScreenRoomList);
+        updateRoomIndex();
+    }
+
+    /**
+     * Rebuilds the index of the screening rooms read by the background searches.
+     */
+    private void updateRoomIndex() {
+        aRoomIndex = new RoomIndex(List.copyOf(aScreenRoomList));
     }
 
     /**
@@ -209,48 +302,126 @@ public class ScreenRoomListController {
     /**
      * Refreshes the TableView to display all screening rooms.
      * <p>
-     * This method is triggered by the "Refresh" button and resets the TableView to display
-     * the complete list of screening rooms, removing any filters that were applied.
+     * This method is triggered by the "Refresh" button. It clears the search field and the filters,
+     * and resets the TableView to display the complete list of screening rooms.
      * </p>
      */
     @FXML
     private void onRefreshButtonClicked() {
-        // Reset the TableView to display the original list of screening rooms
-        aScreenRoomTableView.setItems(aScreenRooms);
+        aSearchField.clear();
+        aImaxCheckBox.setSelected(false);
+        a3DCheckBox.setSelected(false);
+        aStandardCheckBox.setSelected(false);
+        aMinCapacityField.clear();
+        aMaxCapacityField.clear();
+        aSearchDebouncer.cancel();
+        showAllScreenRooms();
     }
 
     /**
-     * Filters the screening room list based on the input from the search field.
+     * Searches the screening rooms for the input of the search field right away.
      * <p>
-     * This method filters the screening rooms displayed in the TableView based on the manager's
-     * input in the search field. If no rooms match the search input, an alert is displayed.
-     * Triggered by the "Search" button.
+     * Triggered by the "Search" button. The search also runs on its own shortly after
+     * the manager stops typing.
      * </p>
      */
     @FXML
     private void onSearchButtonClicked() {
-        String pInput = aSearchField.getText().toLowerCase();
-
-        // Filter screening rooms based on the input
-        FilteredList<ScreeningRoom> filteredRooms = new FilteredList<>(aScreenRooms, room ->
-                room.getName().toLowerCase().contains(pInput) || room.getFeatures().toLowerCase().contains(pInput)
-        );
-
-        if (filteredRooms.isEmpty()) {
-            AlertHelper.showWarningAlert(
-                    "No Results Found",
-                    "No screening rooms match your search input.",
-                    "Please check your input and try again."
-            );
-        } else {
-            // Update the TableView with the filtered screening rooms
-            aScreenRoomTableView.setItems(filteredRooms);
+        aSearchDebouncer.searchNow(aSearchField.getText());
+    }
+
+    /**
+     * Takes the new state of the filter controls and searches again right away.
+     * <p>
+     * Called on the JavaFX thread whenever a feature CheckBox or a capacity field changes.
+     * </p>
+     */
+    private void onFilterChanged() {
+        List<String> features = new ArrayList<>();
+        if (aImaxCheckBox.isSelected()) {
+            features.add("IMAX");
+        }
+        if (a3DCheckBox.isSelected()) {
+            features.add("3D");
+        }
+        if (aStandardCheckBox.isSelected()) {
+            features.add("Standard");
+        }
+        int minCapacity = parseCapacity(aMinCapacityField.getText(), Integer.MIN_VALUE);
+        int maxCapacity = parseCapacity(aMaxCapacityField.getText(), Integer.MAX_VALUE);
+        aRoomFilter = new RoomFilter(features, minCapacity, maxCapacity);
+        aSearchDebouncer.searchNow(aSearchField.getText());
+    }
+
+    /**
+     * Reads the number of seats typed in a capacity field.
+     *
+     * @param pText         The text of the field.
+     * @param pDefaultValue The value standing for no limit.
+     * @return The number typed, or the default value if the field does not hold a number.
+     */
+    private static int parseCapacity(String pText, int pDefaultValue) {
+        if (pText == null || pText.isBlank()) {
+            return pDefaultValue;
+        }
+        try {
+            return Integer.parseInt(pText.trim());
+        } catch (NumberFormatException e) {
+            return pDefaultValue;
+        }
+    }
+
+    /**
+     * Finds the screening rooms matching the filters whose name or features contain the search input.
+     * <p>
+     * Runs on the background search thread. The room index narrows the rooms down to the checked
+     * features and the capacity range first; only those are then matched against the input.
+     * </p>
+     *
+     * @param pInput The search input.
+     * @return The matching screening rooms, sorted by capacity.
+     */
+    private List<ScreeningRoom> findScreenRooms(String pInput) {
+        String input = pInput == null ? "" : pInput.trim().toLowerCase();
+        RoomFilter filter = aRoomFilter;
+        List<ScreeningRoom> results = new ArrayList<>();
+        for (ScreeningRoom room : aRoomIndex.find(filter.aFeatures, filter.aMinCapacity, filter.aMaxCapacity)) {
+            if (room.getName().toLowerCase().contains(input) || room.getFeatures().toLowerCase().contains(input)) {
+                results.add(room);
+            }
         }
+        return results;
+    }
 
-        // Enable the Refresh button if the search was performed
+    /**
+     * Displays the results of the latest search in the TableView.
+     * <p>
+     * Called on the JavaFX thread once the search has run in the background. When the search
+     * field is empty and no filter is set, the complete list of screening rooms is displayed again.
+     * </p>
+     *
+     * @param pResults The screening rooms matching the search input and the filters.
+     */
+    private void showSearchResults(List<ScreeningRoom> pResults) {
+        boolean noInput = aSearchField.getText() == null || aSearchField.getText().isBlank();
+        if (noInput && aRoomFilter.isEmpty()) {
+            showAllScreenRooms();
+            return;
+        }
+        aSearchResults.setAll(pResults);
+        aScreenRoomTableView.setItems(aSearchResults);
         aRefreshButton.setDisable(false);
     }
 
+    /**
+     * Displays the complete list of screening rooms in the TableView.
+     */
+    private void showAllScreenRooms() {
+        aScreenRoomTableView.setItems(aScreenRooms);
+        aSearchResults.clear();
+        aRefreshButton.setDisable(true);
+    }
+
     /**
      * Opens a new window to display the information about the selected screening room.
      * <p>
@@ -311,6 +482,7 @@ public class ScreenRoomListController {
                 ScreeningRoom newRoom = controller.getNewRoom();
                 aScreenRoomList.add(newRoom);
                 aScreenRooms.add(newRoom);
+                updateRoomIndex();
                 saveScreenRooms(); // Save after adding a new room
                 aScreenRoomTableView.refresh(); // Refresh the TableView after adding a new room
             }
@@ -350,6 +522,7 @@ public class ScreenRoomListController {
                     selectedRoom.setName(controller.getUpdatedName());
                     selectedRoom.setCapacity(controller.getUpdatedCapacity());
                     selectedRoom.setFeatures(controller.getUpdatedFeatures());
+                    updateRoomIndex(); // The capacity or features may have changed
                     saveScreenRooms(); // Save after editing the room
                     aScreenRoomTableView.refresh(); // Refresh the TableView after editing
                 }
@@ -384,6 +557,8 @@ public class ScreenRoomListController {
             if (result.isPresent() && result.get() == ButtonType.OK) {
                 aScreenRoomList.remove(selectedRoom);
                 aScreenRooms.remove(selectedRoom);
+                aSearchResults.remove(selectedRoom);
+                updateRoomIndex();
                 saveScreenRooms(); // Save after deleting the room
                 aScreenRoomTableView.refresh(); // Refresh the TableView after deletion
                 AlertHelper.showInformationAlert(
@@ -396,4 +571,38 @@ public class ScreenRoomListController {
             AlertHelper.showWarningAlert("No Room Selected", null, "Please select a room to delete.");
         }
     }
+
+    /**
+     * The state of the feature and capacity filters, taken on the JavaFX thread and read by the
+     * background searches.
+     */
+    private static final class RoomFilter {
+
+        /** The filters letting every room through. */
+        private static final RoomFilter NONE = new RoomFilter(List.of(), Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        /** The checked features; every feature is kept if empty. */
+        private final List<String> aFeatures;
+
+        /** The smallest number of seats kept. */
+        private final int aMinCapacity;
+
+        /** The largest number of seats kept. */
+        private final int aMaxCapacity;
+
+        private RoomFilter(List<String> pFeatures, int pMinCapacity, int pMaxCapacity) {
+            this.aFeatures = List.copyOf(pFeatures);
+            this.aMinCapacity = pMinCapacity;
+            this.aMaxCapacity = pMaxCapacity;
+        }
+
+        /**
+         * Checks whether the filters let every room through.
+         *
+         * @return {@code true} if no feature is checked and no capacity is set.
+         */
+        private boolean isEmpty() {
+            return aFeatures.isEmpty() && aMinCapacity == Integer.MIN_VALUE && aMaxCapacity == Integer.MAX_VALUE;
+        }
+    }
 }
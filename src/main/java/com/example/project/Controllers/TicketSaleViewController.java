@@ -1,8 +1,10 @@
 package com.example.project.Controllers;
 
-import com.example.project.Model.ShowTime;
-import com.example.project.Model.Ticket;
-import javafx.beans.property.SimpleIntegerProperty;
+import com.example.project.Services.SalesRollups;
+import com.example.project.Services.SalesTotal;
+import com.example.project.Services.TicketStore;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -12,25 +14,37 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
-import javafx.scene.control.ListView;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.stage.Stage;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller class for the Ticket Sales view.
+ * <p>
+ * The view shows the tickets sold and the revenue per movie, day, screening room or hour, along
+ * with the grand totals. They are read from the sales totals kept by the ticket store, so the
+ * view opens at once however many tickets were sold.
+ * </p>
  */
 
 public class TicketSaleViewController {
 
+    /**
+     * Path to the serialized file holding the tickets.
+     */
+    private static final String TICKETS_FILE_PATH = "data/tickets.ser";
+
+    /**
+     * The names of the groupings offered, in the order of {@link SalesRollups.Dimension}.
+     */
+    private static final List<String> GROUPINGS = List.of("Movie", "Day", "Room", "Hour");
+
     /**
      * Button to navigate back to the previous screen.
      */
@@ -38,84 +52,108 @@ public class TicketSaleViewController {
     public Button backButton;
 
     /**
-     * The table that displays the list of tickets sold.
+     * The table that displays the sales of each group.
      */
     @FXML
-    public TableView<Ticket> ticketSalesTable;
+    public TableView<SalesTotal> ticketSalesTable;
+
+
+    /**
+     * The table column that displays the group: the movie, day, room or hour.
+     */
+    @FXML
+    public TableColumn<SalesTotal, String> movieNameColumn;
+
+
+    /**
+     * The table column that displays the number of tickets sold.
+     */
+    @FXML
+    public TableColumn<SalesTotal, Long> ticketColumn;
+
 
+    /**
+     * The table column that displays the revenue of the tickets sold.
+     */
+    @FXML
+    public TableColumn<SalesTotal, String> revenueColumn;
 
 
     /**
-     * The table that displays the list of tickets sold.
+     * ComboBox choosing how the sales are grouped.
      */
     @FXML
-    public TableColumn<Ticket, String> movieNameColumn;
+    public ComboBox<String> groupByComboBox;
 
 
     /**
-     * The table column that displays the number of tickets purchased.
+     * Label displaying the tickets sold and the revenue of every sale.
      */
     @FXML
-    public TableColumn<Ticket, Integer> ticketColumn;
+    public Label totalsLabel;
 
 
     /**
-     * The observable list holding the tickets to be displayed in the table.
+     * The observable list holding the sales of each group displayed in the table.
      */
-    private ObservableList<Ticket> ticketList;
+    private final ObservableList<SalesTotal> salesList = FXCollections.observableArrayList();
 
 
     /**
-     * Initializes the controller by configuring the TableColumns and loading ticket data.
+     * The sales totals, or {@code null} while they are being loaded.
+     */
+    private SalesRollups salesRollups;
+
+
+    /**
+     * Initializes the controller by configuring the TableColumns and loading the sales totals.
      */
     @FXML
     public void initialize() {
         // Configure TableColumns
-        ticketColumn.setCellValueFactory(cellData -> new SimpleIntegerProperty(cellData.getValue().getTicketsPurchased()).asObject());
+        movieNameColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getKey()));
+        ticketColumn.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().getTickets()));
+        revenueColumn.setCellValueFactory(cellData ->
+                new SimpleStringProperty(String.format("$%.2f", cellData.getValue().getRevenue())));
 
-        // Load ticket data from the serialized file
-        loadTicketData();
+        groupByComboBox.setItems(FXCollections.observableArrayList(GROUPINGS));
+        groupByComboBox.setValue(GROUPINGS.get(0));
+        groupByComboBox.setOnAction(event -> showSales());
 
         // Set the data into the TableView
-        ticketSalesTable.setItems(ticketList);
+        ticketSalesTable.setItems(salesList);
+        ticketSalesTable.setPlaceholder(new Label("Loading sales..."));
+
+        loadSalesData();
     }
 
     /**
-     * Loads ticket data from the serialized file into the ticketList.
-     * This method reads a serialized list of tickets.
+     * Loads the sales totals in the background and displays them.
+     * <p>
+     * Only the saved totals and the tickets sold since the ticket file was last compacted are
+     * read, which is quick; the totals are only rebuilt from every ticket when they are missing.
+     * </p>
      */
-    private void loadTicketData() {
-        ticketList = FXCollections.observableArrayList();
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("data/tickets.ser"))) {
-            // Read the deserialized object (ticketList)
-            List<Ticket> loadedTickets = (List<Ticket>) ois.readObject();
-
-            // Add all tickets to the list (could filter if needed)
-            ticketList.addAll(loadedTickets);
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
-        }
+    private void loadSalesData() {
+        CompletableFuture.supplyAsync(() -> TicketStore.loadRollups(TICKETS_FILE_PATH))
+                .thenAccept(rollups -> Platform.runLater(() -> {
+                    salesRollups = rollups;
+                    ticketSalesTable.setPlaceholder(new Label("No tickets sold yet."));
+                    totalsLabel.setText(String.format("%d tickets sold, $%.2f revenue",
+                            rollups.getTicketCount(), rollups.getRevenueCents() / 100.0));
+                    showSales();
+                }));
     }
 
-    private List<ShowTime> loadShowTimesFromFile() {
-        List<ShowTime> showTimeList = new ArrayList<>();
-        File showTimeFile = new File("data/showtime.ser");
-
-        // Check if the file exists
-        if (!showTimeFile.exists()) {
-            System.err.println("ShowTime file does not exist: " + showTimeFile.getAbsolutePath());
-            return showTimeList; // Return an empty list if file doesn't exist
-        }
-
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(showTimeFile))) {
-            showTimeList = (List<ShowTime>) ois.readObject();
-            System.out.println("ShowTimes loaded successfully: " + showTimeList.size());
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Error loading ShowTimes from file: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * Displays the sales grouped as chosen in the ComboBox.
+     */
+    private void showSales() {
+        int grouping = Math.max(0, GROUPINGS.indexOf(groupByComboBox.getValue()));
+        movieNameColumn.setText(GROUPINGS.get(grouping));
+        if (salesRollups != null) {
+            salesList.setAll(salesRollups.totals(SalesRollups.Dimension.values()[grouping]));
         }
-
-        return showTimeList;
     }
 
 
@@ -0,0 +1,167 @@
+package com.example.project.LoadTest;
+
+/**
+ * The settings of a purchase load test, read from {@code key=value} arguments.
+ * <p>
+ * The keys are:
+ * </p>
+ * <ul>
+ *     <li>{@code users}: concurrent virtual users (default 1000)</li>
+ *     <li>{@code purchases}: purchases attempted by each user (default 10)</li>
+ *     <li>{@code showtimes}: showtimes on sale (default 50)</li>
+ *     <li>{@code capacity}: seats of each showtime's room, at most 255 (default 200)</li>
+ *     <li>{@code skew}: Zipf exponent of the showtime popularity, 0 for uniform (default 1.0)</li>
+ *     <li>{@code minTickets} and {@code maxTickets}: tickets per purchase (default 1 to 4)</li>
+ *     <li>{@code target}: {@code local} to run an in-process booking service over generated data,
+ *     or {@code server} to drive a running booking server (default local)</li>
+ *     <li>{@code port}: port of the booking server in server mode (default 8089)</li>
+ *     <li>{@code seed}: seed of the random choices (default 42)</li>
+ * </ul>
+ * <p>
+ * In server mode the showtimes are the ids 1 to {@code showtimes} of the server's own data.
+ * </p>
+ */
+public class LoadTestOptions {
+
+    /** Concurrent virtual users. */
+    private int aUsers = 1000;
+
+    /** Purchases attempted by each user. */
+    private int aPurchasesPerUser = 10;
+
+    /** Showtimes on sale. */
+    private int aShowTimes = 50;
+
+    /** Seats of each showtime's room. */
+    private int aCapacity = 200;
+
+    /** Zipf exponent of the showtime popularity. */
+    private double aSkew = 1.0;
+
+    /** Fewest tickets per purchase. */
+    private int aMinTickets = 1;
+
+    /** Most tickets per purchase. */
+    private int aMaxTickets = 4;
+
+    /** Whether to drive a running booking server instead of an in-process service. */
+    private boolean aServer;
+
+    /** Port of the booking server. */
+    private int aPort = 8089;
+
+    /** Seed of the random choices. */
+    private long aSeed = 42;
+
+    /**
+     * Reads the options from {@code key=value} arguments.
+     *
+     * @param pArguments The arguments.
+     * @return The options.
+     * @throws IllegalArgumentException if an argument is unknown or invalid.
+     */
+    public static LoadTestOptions parse(String[] pArguments) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String argument : pArguments) {
+            int separator = argument.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Arguments must be written as key=value: " + argument);
+            }
+            String key = argument.substring(0, separator);
+            String value = argument.substring(separator + 1);
+            try {
+                switch (key) {
+                    case "users" -> options.aUsers = Integer.parseInt(value);
+                    case "purchases" -> options.aPurchasesPerUser = Integer.parseInt(value);
+                    case "showtimes" -> options.aShowTimes = Integer.parseInt(value);
+                    case "capacity" -> options.aCapacity = Integer.parseInt(value);
+                    case "skew" -> options.aSkew = Double.parseDouble(value);
+                    case "minTickets" -> options.aMinTickets = Integer.parseInt(value);
+                    case "maxTickets" -> options.aMaxTickets = Integer.parseInt(value);
+                    case "target" -> options.aServer = parseTarget(value);
+                    case "port" -> options.aPort = Integer.parseInt(value);
+                    case "seed" -> options.aSeed = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Option " + key + " must be a number.");
+            }
+        }
+        options.validate();
+        return options;
+    }
+
+    /**
+     * Reads the target option.
+     *
+     * @param pValue "local" or "server".
+     * @return {@code true} for a booking server.
+     */
+    private static boolean parseTarget(String pValue) {
+        return switch (pValue) {
+            case "local" -> false;
+            case "server" -> true;
+            default -> throw new IllegalArgumentException("Target must be local or server.");
+        };
+    }
+
+    /**
+     * Checks that the options make sense together.
+     *
+     * @throws IllegalArgumentException if they do not.
+     */
+    private void validate() {
+        if (aUsers <= 0 || aPurchasesPerUser <= 0 || aShowTimes <= 0) {
+            throw new IllegalArgumentException("Users, purchases and showtimes must be positive numbers.");
+        }
+        if (aCapacity <= 0 || aCapacity > 255) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 255.");
+        }
+        if (aSkew < 0) {
+            throw new IllegalArgumentException("Skew cannot be negative.");
+        }
+        if (aMinTickets <= 0 || aMaxTickets < aMinTickets) {
+            throw new IllegalArgumentException("Tickets per purchase must be positive, with minTickets <= maxTickets.");
+        }
+    }
+
+    public int getUsers() {
+        return aUsers;
+    }
+
+    public int getPurchasesPerUser() {
+        return aPurchasesPerUser;
+    }
+
+    public int getShowTimes() {
+        return aShowTimes;
+    }
+
+    public int getCapacity() {
+        return aCapacity;
+    }
+
+    public double getSkew() {
+        return aSkew;
+    }
+
+    public int getMinTickets() {
+        return aMinTickets;
+    }
+
+    public int getMaxTickets() {
+        return aMaxTickets;
+    }
+
+    public boolean isServer() {
+        return aServer;
+    }
+
+    public int getPort() {
+        return aPort;
+    }
+
+    public long getSeed() {
+        return aSeed;
+    }
+}
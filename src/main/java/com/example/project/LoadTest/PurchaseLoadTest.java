@@ -0,0 +1,364 @@
+package com.example.project.LoadTest;
+
+import Helpers.SerializationHelper;
+import com.example.project.Model.ScreeningRoom;
+import com.example.project.Model.ShowTime;
+import com.example.project.Model.Ticket;
+import com.example.project.Services.AdmissionPendingException;
+import com.example.project.Services.BookingClient;
+import com.example.project.Services.BookingService;
+import com.example.project.Services.SeatBlock;
+import com.example.project.Services.SeatHold;
+import com.example.project.Services.TicketBooking;
+import com.example.project.Services.TicketStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of the purchase path: many buyers rushing the same showtimes at once.
+ * <p>
+ * Every virtual user runs on its own virtual thread and buys tickets the way the buying screen
+ * does, placing a hold and then buying it with a fresh request token. The users all start
+ * together, pick their showtimes with a Zipf skew so that a few showtimes sell out under heavy
+ * contention, and buy between {@code minTickets} and {@code maxTickets} tickets each time.
+ * </p>
+ * <p>
+ * The report gives the throughput, the latency percentiles of a purchase, and the outcome of
+ * every attempt. It then checks the sales: no showtime may have sold more seats than it had and
+ * no seat may have been sold twice. Against the in-process service, the ticket file is also
+ * reloaded to check that every sale was saved. See {@link LoadTestOptions} for the arguments,
+ * for example {@code users=2000 purchases=5 showtimes=20 skew=1.2}.
+ * </p>
+ */
+public class PurchaseLoadTest {
+
+    /** How long a queued user waits before checking its place in the waiting room again, in milliseconds. */
+    private static final long ADMISSION_POLL_MILLIS = 100;
+
+    /** The settings of the run. */
+    private final LoadTestOptions aOptions;
+
+    /** Latency of every completed attempt, in nanoseconds. */
+    private final ConcurrentLinkedQueue<long[]> aLatencies = new ConcurrentLinkedQueue<>();
+
+    /** Tickets bought during the run. */
+    private final ConcurrentLinkedQueue<Ticket> aTickets = new ConcurrentLinkedQueue<>();
+
+    /** Attempts refused because the showtime did not have enough seats left, or the waiting room was full. */
+    private final AtomicInteger aRefused = new AtomicInteger();
+
+    /** Times a user was placed in the server's waiting room. */
+    private final AtomicInteger aQueued = new AtomicInteger();
+
+    /** Attempts that failed with an unexpected error. */
+    private final AtomicInteger aErrors = new AtomicInteger();
+
+    /**
+     * Constructs a load test.
+     *
+     * @param pOptions The settings of the run.
+     */
+    public PurchaseLoadTest(LoadTestOptions pOptions) {
+        this.aOptions = pOptions;
+    }
+
+    /**
+     * Runs a load test with the settings given as {@code key=value} arguments.
+     *
+     * @param pArguments The settings.
+     */
+    public static void main(String[] pArguments) {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(pArguments);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: PurchaseLoadTest [users=N] [purchases=N] [showtimes=N] [capacity=N] [skew=S]"
+                    + " [minTickets=N] [maxTickets=N] [target=local|server] [port=N] [seed=N]");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            boolean passed = new PurchaseLoadTest(options).run();
+            System.exit(passed ? 0 : 1);
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            System.err.println("Load test failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the load test and prints its report.
+     *
+     * @return {@code true} if no seat was oversold or sold twice and every sale was saved.
+     * @throws IOException           if the data of the in-process service cannot be written.
+     * @throws IllegalStateException if the booking server does not answer.
+     */
+    public boolean run() throws IOException {
+        if (aOptions.isServer()) {
+            BookingClient probe = new BookingClient(aOptions.getPort());
+            if (!probe.isServerAvailable()) {
+                throw new IllegalStateException("No booking server answers on port " + aOptions.getPort() + ".");
+            }
+            Map<Integer, Integer> capacities = readAvailability(probe);
+            long elapsed = drive(() -> new BookingClient(aOptions.getPort()), capacities.keySet());
+            return report(elapsed, capacities, -1);
+        }
+
+        File directory = createData();
+        BookingService service = new BookingService(directory.getPath());
+        Map<Integer, Integer> capacities = readAvailability(service);
+        long elapsed;
+        try {
+            elapsed = drive(() -> service, capacities.keySet());
+        } finally {
+            service.shutdown();
+        }
+        int saved = TicketStore.loadTickets(new File(directory, "tickets.ser").getPath()).size();
+        return report(elapsed, capacities, saved);
+    }
+
+    /**
+     * Writes the showtimes and screening rooms of the in-process service to a new temporary directory.
+     *
+     * @return The data directory.
+     * @throws IOException if the directory cannot be created.
+     */
+    private File createData() throws IOException {
+        File directory = Files.createTempDirectory("purchase-load-test").toFile();
+        directory.deleteOnExit();
+
+        List<ScreeningRoom> rooms = new ArrayList<>();
+        List<ShowTime> showTimes = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(12).withMinute(0).withSecond(0).withNano(0);
+        for (int id = 1; id <= aOptions.getShowTimes(); id++) {
+            String room = "Load Test Room " + id;
+            rooms.add(new ScreeningRoom(room, aOptions.getCapacity(), "Standard"));
+            showTimes.add(new ShowTime(id, start.plusHours(id), "Load Test Movie", room));
+        }
+        SerializationHelper.saveData(new File(directory, "screening_rooms.ser").getPath(), rooms);
+        SerializationHelper.saveData(new File(directory, "showtimes.ser").getPath(), showTimes);
+        SerializationHelper.saveData(new File(directory, "tickets.ser").getPath(), new ArrayList<Ticket>());
+        for (String file : new String[] {"screening_rooms.ser", "showtimes.ser", "tickets.ser", "tickets.journal"}) {
+            new File(directory, file).deleteOnExit();
+        }
+        return directory;
+    }
+
+    /**
+     * Reads the seats left for each showtime of the run before it starts.
+     *
+     * @param pBooking The booking operations.
+     * @return The seats left, keyed by showtime id.
+     * @throws IllegalArgumentException if a showtime does not exist.
+     */
+    private Map<Integer, Integer> readAvailability(TicketBooking pBooking) {
+        Map<Integer, Integer> capacities = new HashMap<>();
+        for (int id = 1; id <= aOptions.getShowTimes(); id++) {
+            capacities.put(id, pBooking.getAvailableSeats(id));
+        }
+        return capacities;
+    }
+
+    /**
+     * Starts every virtual user at the same time and waits until they are all done.
+     *
+     * @param pBookings   Gives each user its booking operations.
+     * @param pShowTimeIds The showtimes on sale.
+     * @return How long the run took, in nanoseconds.
+     */
+    private long drive(BookingFactory pBookings, Set<Integer> pShowTimeIds) {
+        int[] showTimeIds = pShowTimeIds.stream().mapToInt(Integer::intValue).sorted().toArray();
+        ZipfSampler sampler = new ZipfSampler(showTimeIds.length, aOptions.getSkew());
+        CountDownLatch startSignal = new CountDownLatch(1);
+
+        long started;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < aOptions.getUsers(); user++) {
+                Random random = new Random(aOptions.getSeed() + user);
+                TicketBooking booking = pBookings.create();
+                executor.submit(() -> {
+                    startSignal.await();
+                    runUser(booking, random, sampler, showTimeIds);
+                    return null;
+                });
+            }
+            started = System.nanoTime();
+            startSignal.countDown();
+        }
+        return System.nanoTime() - started;
+    }
+
+    /**
+     * Makes the purchases of one virtual user.
+     *
+     * @param pBooking     The booking operations of the user.
+     * @param pRandom      The user's source of randomness.
+     * @param pSampler     Picks the rank of the showtime of each purchase.
+     * @param pShowTimeIds The showtimes on sale, by rank.
+     */
+    private void runUser(TicketBooking pBooking, Random pRandom, ZipfSampler pSampler, int[] pShowTimeIds) {
+        long[] latencies = new long[aOptions.getPurchasesPerUser()];
+        int completed = 0;
+        for (int i = 0; i < latencies.length; i++) {
+            int showTimeId = pShowTimeIds[pSampler.next(pRandom) - 1];
+            int seatCount = aOptions.getMinTickets()
+                    + pRandom.nextInt(aOptions.getMaxTickets() - aOptions.getMinTickets() + 1);
+
+            long start = System.nanoTime();
+            try {
+                aTickets.add(buy(pBooking, showTimeId, seatCount));
+            } catch (IllegalStateException e) {
+                aRefused.incrementAndGet();
+            } catch (RuntimeException e) {
+                aErrors.incrementAndGet();
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            latencies[completed++] = System.nanoTime() - start;
+        }
+        aLatencies.add(Arrays.copyOf(latencies, completed));
+    }
+
+    /**
+     * Holds seats and buys them, waiting in the server's waiting room when asked to.
+     *
+     * @param pBooking    The booking operations of the user.
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats.
+     * @return The ticket bought.
+     * @throws IllegalStateException if not enough seats are left or the waiting room is full.
+     * @throws InterruptedException  if the user is interrupted while waiting.
+     */
+    private Ticket buy(TicketBooking pBooking, int pShowTimeId, int pSeatCount) throws InterruptedException {
+        SeatHold hold = null;
+        boolean queued = false;
+        while (hold == null) {
+            try {
+                hold = pBooking.hold(pShowTimeId, pSeatCount);
+            } catch (AdmissionPendingException e) {
+                // The client keeps the admission id and sends it with the next attempt
+                if (!queued) {
+                    queued = true;
+                    aQueued.incrementAndGet();
+                }
+                Thread.sleep(ADMISSION_POLL_MILLIS);
+            }
+        }
+        try {
+            return pBooking.purchase(hold.getID(), UUID.randomUUID().toString());
+        } catch (RuntimeException e) {
+            pBooking.release(hold.getID());
+            throw e;
+        }
+    }
+
+    /**
+     * Prints the report of the run and checks the sales.
+     *
+     * @param pElapsedNanos How long the run took, in nanoseconds.
+     * @param pCapacities   The seats left for each showtime before the run.
+     * @param pSaved        The number of tickets in the reloaded ticket file, or -1 if it was not reloaded.
+     * @return {@code true} if every check passed.
+     */
+    private boolean report(long pElapsedNanos, Map<Integer, Integer> pCapacities, int pSaved) {
+        long[] latencies = aLatencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = pElapsedNanos / 1e9;
+        int attempts = aOptions.getUsers() * aOptions.getPurchasesPerUser();
+
+        System.out.printf("Target:        %s%n", aOptions.isServer() ? "server on port " + aOptions.getPort() : "in-process service");
+        System.out.printf("Users:         %d x %d purchases of %d-%d tickets over %d showtimes (skew %.2f)%n",
+                aOptions.getUsers(), aOptions.getPurchasesPerUser(), aOptions.getMinTickets(),
+                aOptions.getMaxTickets(), pCapacities.size(), aOptions.getSkew());
+        System.out.printf("Duration:      %.2f s%n", seconds);
+        System.out.printf("Throughput:    %.0f attempts/s, %.0f tickets/s%n", attempts / seconds, aTickets.size() / seconds);
+        System.out.printf("Latency (ms):  p50 %.2f  p95 %.2f  p99 %.2f  max %.2f%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                percentile(latencies, 1.0));
+        System.out.printf("Outcomes:      %d sold, %d refused, %d errors, %d queued%n",
+                aTickets.size(), aRefused.get(), aErrors.get(), aQueued.get());
+
+        Map<Integer, Integer> sold = new HashMap<>();
+        Set<String> seats = new HashSet<>();
+        int collisions = 0;
+        for (Ticket ticket : aTickets) {
+            int showTimeId = ticket.getShowtime().getaID();
+            sold.merge(showTimeId, ticket.getTicketsPurchased(), Integer::sum);
+            if (ticket.getSeats() == null) {
+                continue;
+            }
+            for (SeatBlock block : SeatBlock.parse(ticket.getSeats())) {
+                for (int seat = block.getFirstSeat(); seat < block.getFirstSeat() + block.getSeatCount(); seat++) {
+                    if (!seats.add(showTimeId + ":" + block.getRow() + ":" + seat)) {
+                        collisions++;
+                    }
+                }
+            }
+        }
+        int oversold = 0;
+        int soldOut = 0;
+        for (Map.Entry<Integer, Integer> entry : sold.entrySet()) {
+            int capacity = pCapacities.get(entry.getKey());
+            oversold += Math.max(0, entry.getValue() - capacity);
+            if (entry.getValue() == capacity) {
+                soldOut++;
+            }
+        }
+        System.out.printf("Sales:         %d seats, %d showtimes sold out%n",
+                sold.values().stream().mapToInt(Integer::intValue).sum(), soldOut);
+        System.out.printf("Oversold:      %d seats%n", oversold);
+        System.out.printf("Collisions:    %d seats sold twice%n", collisions);
+
+        boolean passed = oversold == 0 && collisions == 0;
+        if (pSaved >= 0) {
+            System.out.printf("Saved:         %d of %d tickets%n", pSaved, aTickets.size());
+            passed &= pSaved == aTickets.size();
+        }
+        System.out.println(passed ? "PASSED" : "FAILED");
+        return passed;
+    }
+
+    /**
+     * Gets a percentile of sorted latencies.
+     *
+     * @param pSorted   The latencies in nanoseconds, sorted.
+     * @param pFraction The percentile, between 0 and 1.
+     * @return The latency in milliseconds, or 0 if there is none.
+     */
+    private static double percentile(long[] pSorted, double pFraction) {
+        if (pSorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(pFraction * pSorted.length) - 1;
+        return pSorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Gives each virtual user its booking operations, so that server users each keep their own
+     * place in the waiting room.
+     */
+    @FunctionalInterface
+    private interface BookingFactory {
+        TicketBooking create();
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.project.LoadTest;
+
+import com.example.project.Model.ShowTime;
+import com.example.project.Model.Ticket;
+import com.example.project.Services.TicketColumns;
+import com.example.project.Services.TicketStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmark of the sales aggregations over the ticket objects against the same aggregations
+ * over {@link TicketColumns}.
+ * <p>
+ * A ticket history is generated in memory and written to a ticket file in a temporary directory.
+ * The columns are read back from that file the way the sales report reads them, one ticket at a
+ * time, then both paths add up the tickets of every movie, every screening room and every
+ * purchase day, several rounds each after a few warm-up rounds. The report gives the time taken
+ * to read the columns and the heap they take, the best and the average time of a round for each
+ * path, and checks that both paths found the same totals. The settings are given as
+ * {@code key=value} arguments: {@code tickets} (default 1000000), {@code movies} (default 200),
+ * {@code rooms} (default 12), {@code days} (default 365), {@code rounds} (default 10) and
+ * {@code seed} (default 42).
+ * </p>
+ */
+public class TicketAnalyticsBenchmark {
+
+    /** The rounds run by each path before the timed ones. */
+    private static final int WARM_UP_ROUNDS = 3;
+
+    /** The number of showtimes of each movie. */
+    private static final int SHOWTIMES_PER_MOVIE = 20;
+
+    /**
+     * Runs the benchmark with the settings given as {@code key=value} arguments.
+     *
+     * @param pArguments The settings.
+     */
+    public static void main(String[] pArguments) {
+        Map<String, Integer> settings = new HashMap<>(Map.of(
+                "tickets", 1_000_000, "movies", 200, "rooms", 12, "days", 365, "rounds", 10, "seed", 42));
+        try {
+            for (String argument : pArguments) {
+                String[] parts = argument.split("=", 2);
+                if (parts.length != 2 || !settings.containsKey(parts[0])) {
+                    throw new IllegalArgumentException("Unknown argument: " + argument);
+                }
+                int value = Integer.parseInt(parts[1]);
+                if (value <= 0) {
+                    throw new IllegalArgumentException("Option " + parts[0] + " must be a positive number.");
+                }
+                settings.put(parts[0], value);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: TicketAnalyticsBenchmark [tickets=N] [movies=N] [rooms=N] [days=N] [rounds=N] [seed=N]");
+            System.exit(2);
+            return;
+        }
+
+        List<Ticket> tickets = generate(settings.get("tickets"), settings.get("movies"), settings.get("rooms"),
+                settings.get("days"), settings.get("seed"));
+        String ticketFilePath;
+        try {
+            ticketFilePath = writeTicketFile(tickets);
+        } catch (IOException e) {
+            System.err.println("The ticket file could not be written: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        long heapBefore = usedHeap();
+        long started = System.nanoTime();
+        TicketColumns columns = TicketColumns.load(ticketFilePath);
+        long buildNanos = System.nanoTime() - started;
+        long columnsHeap = usedHeap() - heapBefore;
+
+        int rounds = settings.get("rounds");
+        long[] objectTimes = new long[rounds];
+        long[] columnTimes = new long[rounds];
+        Map<String, Long> objectTotals = null;
+        Map<String, Long> columnTotals = null;
+        for (int round = -WARM_UP_ROUNDS; round < rounds; round++) {
+            started = System.nanoTime();
+            objectTotals = aggregateObjects(tickets);
+            long objectNanos = System.nanoTime() - started;
+
+            started = System.nanoTime();
+            columnTotals = aggregateColumns(columns);
+            long columnNanos = System.nanoTime() - started;
+
+            if (round >= 0) {
+                objectTimes[round] = objectNanos;
+                columnTimes[round] = columnNanos;
+            }
+        }
+
+        System.out.printf("Tickets:       %d over %d movies, %d rooms and %d days%n", tickets.size(),
+                columns.getMovieCount(), columns.getRoomCount(), columns.getDayCount());
+        System.out.printf("Columns:       read from the ticket file in %.1f ms, about %.1f MB of heap%n", buildNanos / 1e6, columnsHeap / 1e6);
+        System.out.printf("Objects:       best %.2f ms, average %.2f ms per round%n", best(objectTimes), average(objectTimes));
+        System.out.printf("Columns:       best %.2f ms, average %.2f ms per round%n", best(columnTimes), average(columnTimes));
+        System.out.printf("Speed-up:      %.1fx%n", best(objectTimes) / best(columnTimes));
+        boolean passed = objectTotals.equals(columnTotals);
+        System.out.println(passed ? "Totals match" : "FAILED: the totals differ");
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Generates a ticket history, the tickets of a showtime sharing its object as they do once
+     * read from the ticket file.
+     *
+     * @param pTickets The number of tickets.
+     * @param pMovies  The number of movies.
+     * @param pRooms   The number of screening rooms.
+     * @param pDays    The number of days the tickets are bought over.
+     * @param pSeed    The seed of the random choices.
+     * @return The tickets.
+     */
+    private static List<Ticket> generate(int pTickets, int pMovies, int pRooms, int pDays, long pSeed) {
+        Random random = new Random(pSeed);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        List<ShowTime> showTimes = new ArrayList<>();
+        for (int movie = 0; movie < pMovies; movie++) {
+            for (int i = 0; i < SHOWTIMES_PER_MOVIE; i++) {
+                showTimes.add(new ShowTime(showTimes.size() + 1, start.plusDays(random.nextInt(pDays)).plusHours(random.nextInt(12)),
+                        "Movie " + movie, "Room " + random.nextInt(pRooms)));
+            }
+        }
+        List<Ticket> tickets = new ArrayList<>(pTickets);
+        for (int id = 1; id <= pTickets; id++) {
+            ShowTime showTime = showTimes.get(random.nextInt(showTimes.size()));
+            LocalDateTime purchase = showTime.getDateTime().minusMinutes(random.nextInt(7 * 24 * 60));
+            tickets.add(new Ticket(id, purchase, showTime, 1 + random.nextInt(4)));
+        }
+        return tickets;
+    }
+
+    /**
+     * Writes tickets to a ticket file in a temporary directory, which is deleted when the
+     * benchmark ends.
+     *
+     * @param pTickets The tickets.
+     * @return The path of the ticket file.
+     * @throws IOException if the directory cannot be created.
+     */
+    private static String writeTicketFile(List<Ticket> pTickets) throws IOException {
+        File directory = Files.createTempDirectory("ticket-analytics-benchmark").toFile();
+        directory.deleteOnExit();
+        String ticketFilePath = new File(directory, "tickets.ser").getPath();
+        TicketStore store = TicketStore.open(ticketFilePath);
+        store.appendAll(pTickets);
+        store.close();
+        for (File file : directory.listFiles()) {
+            file.deleteOnExit();
+        }
+        return ticketFilePath;
+    }
+
+    /**
+     * Adds up the tickets of every movie, room and day by walking the ticket objects.
+     *
+     * @param pTickets The tickets.
+     * @return The totals, keyed by "movie:", "room:" or "day:" followed by the group.
+     */
+    private static Map<String, Long> aggregateObjects(List<Ticket> pTickets) {
+        Map<String, Long> byMovie = new HashMap<>();
+        Map<String, Long> byRoom = new HashMap<>();
+        Map<LocalDate, Long> byDay = new HashMap<>();
+        for (Ticket ticket : pTickets) {
+            long count = ticket.getTicketsPurchased();
+            byMovie.merge(ticket.getShowtime().getMovie(), count, Long::sum);
+            byRoom.merge(ticket.getShowtime().getScreeningRoom(), count, Long::sum);
+            byDay.merge(ticket.getPurchaseDateTime().toLocalDate(), count, Long::sum);
+        }
+        Map<String, Long> totals = new HashMap<>();
+        byMovie.forEach((movie, count) -> totals.put("movie:" + movie, count));
+        byRoom.forEach((room, count) -> totals.put("room:" + room, count));
+        byDay.forEach((day, count) -> totals.put("day:" + day, count));
+        return totals;
+    }
+
+    /**
+     * Adds up the tickets of every movie, room and day over the columns.
+     *
+     * @param pColumns The columns.
+     * @return The totals, keyed like those of {@link #aggregateObjects(List)}.
+     */
+    private static Map<String, Long> aggregateColumns(TicketColumns pColumns) {
+        long[] byMovie = pColumns.ticketsByMovie(0, pColumns.size());
+        long[] byRoom = pColumns.ticketsByRoom(0, pColumns.size());
+        long[] byDay = pColumns.ticketsByDay(0, pColumns.size());
+        Map<String, Long> totals = new HashMap<>();
+        for (int movie = 0; movie < byMovie.length; movie++) {
+            totals.put("movie:" + pColumns.getMovieName(movie), byMovie[movie]);
+        }
+        for (int room = 0; room < byRoom.length; room++) {
+            totals.put("room:" + pColumns.getRoomName(room), byRoom[room]);
+        }
+        for (int day = 0; day < byDay.length; day++) {
+            if (byDay[day] != 0) {
+                totals.put("day:" + pColumns.getFirstDay().plusDays(day), byDay[day]);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Measures the heap in use after a garbage collection.
+     *
+     * @return The bytes in use.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Gets the shortest of some times.
+     *
+     * @param pNanos The times, in nanoseconds.
+     * @return The shortest, in milliseconds.
+     */
+    private static double best(long[] pNanos) {
+        long best = Long.MAX_VALUE;
+        for (long nanos : pNanos) {
+            best = Math.min(best, nanos);
+        }
+        return best / 1e6;
+    }
+
+    /**
+     * Gets the average of some times.
+     *
+     * @param pNanos The times, in nanoseconds.
+     * @return The average, in milliseconds.
+     */
+    private static double average(long[] pNanos) {
+        long sum = 0;
+        for (long nanos : pNanos) {
+            sum += nanos;
+        }
+        return sum / 1e6 / pNanos.length;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.project.LoadTest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws ranks following a Zipf distribution, so that a few showtimes get most of the buyers
+ * like a blockbuster's opening night does.
+ * <p>
+ * Rank {@code k} (from 1) is drawn with a probability proportional to {@code 1 / k^s}. The
+ * cumulative probabilities are computed once and each draw is a binary search.
+ * </p>
+ */
+public class ZipfSampler {
+
+    /** Cumulative probability of each rank, the last one being 1. */
+    private final double[] aCumulative;
+
+    /**
+     * Constructs a sampler.
+     *
+     * @param pRanks    The number of ranks. Must be positive.
+     * @param pExponent The exponent {@code s}; 0 draws every rank equally often.
+     * @throws IllegalArgumentException if the number of ranks is not positive.
+     */
+    public ZipfSampler(int pRanks, double pExponent) {
+        if (pRanks <= 0) {
+            throw new IllegalArgumentException("The number of ranks must be positive.");
+        }
+        this.aCumulative = new double[pRanks];
+        double total = 0;
+        for (int rank = 1; rank <= pRanks; rank++) {
+            total += 1 / Math.pow(rank, pExponent);
+            aCumulative[rank - 1] = total;
+        }
+        for (int i = 0; i < pRanks; i++) {
+            aCumulative[i] /= total;
+        }
+    }
+
+    /**
+     * Draws a rank.
+     *
+     * @param pRandom The source of randomness.
+     * @return A rank between 1 and the number of ranks.
+     */
+    public int next(Random pRandom) {
+        int index = Arrays.binarySearch(aCumulative, pRandom.nextDouble());
+        // A miss returns -(insertion point) - 1, and the insertion point is the rank's index
+        return (index >= 0 ? index : -index - 1) + 1;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.project.Model;
 
 import com.example.project.Controllers.MovieListController;
 
+import java.io.ObjectStreamException;
 import java.io.Serial;
 import java.io.Serializable;
 
@@ -13,6 +14,10 @@ import java.io.Serializable;
  * meaning it can be saved to a file or transferred over a network.
  * The {@link Genre} class is primarily used in classes like {@link Movie} to categorize movies by genre.
  * </p>
+ * <p>
+ * Genres are flyweights: there is a single instance per genre name, obtained from
+ * {@link GenreRegistry#of(String)}, and genres read from a file are replaced by that instance.
+ * </p>
  */
 public class Genre implements Serializable {
     /**
@@ -35,23 +40,38 @@ public class Genre implements Serializable {
     private final String aName;
 
     /**
-     * Constructs a Genre instance with a specified name.
+     * The small integer id of the genre, given by the {@link GenreRegistry}.
+     * <p>
+     * It is the position of the genre's bit in a genre bitmask. It is not saved, since the
+     * genres read from a file are replaced by the registered ones.
+     * </p>
+     */
+    private final transient int aID;
+
+    /**
+     * Constructs a Genre instance with a specified name and id.
      * <p>
-     * This constructor initializes a new {@link Genre} object using the provided name.
-     * The name must be non-null and non-empty to ensure that all genres are valid and meaningful.
-     * This is used in various other parts of the application such as in {@link Movie},
-     * where a {@link Genre} instance categorizes movies.
+     * Only the {@link GenreRegistry} creates genres, so that there is a single instance per name.
+     * Use {@link GenreRegistry#of(String)} to get a genre.
      * </p>
      *
-     * @param pName The name of the genre. Must not be null or empty.
-     * @throws IllegalArgumentException if the name is null or empty.
+     * @param pName The trimmed name of the genre.
+     * @param pID   The id of the genre.
      */
-    public Genre(String pName) {
-        if (pName == null || pName.trim().isEmpty()) {
-            throw new IllegalArgumentException("Genre name cannot be null or empty.");
-        }
-        // Trimming the name to ensure no leading or trailing spaces exist
-        this.aName = pName.trim();
+    Genre(String pName, int pID) {
+        this.aName = pName;
+        this.aID = pID;
+    }
+
+    /**
+     * Replaces a genre read from a file by the registered genre of the same name.
+     *
+     * @return The shared genre.
+     * @throws ObjectStreamException never; declared as required by serialization.
+     */
+    @Serial
+    private Object readResolve() throws ObjectStreamException {
+        return GenreRegistry.of(aName);
     }
 
     /**
@@ -68,6 +88,24 @@ public class Genre implements Serializable {
         return aName;
     }
 
+    /**
+     * Gets the id of the genre.
+     *
+     * @return The id, between 0 and {@link GenreRegistry#MAX_GENRES} - 1.
+     */
+    public int getID() {
+        return aID;
+    }
+
+    /**
+     * Gets the bitmask with only the bit of this genre set.
+     *
+     * @return The bitmask of the genre.
+     */
+    public long getMask() {
+        return 1L << aID;
+    }
+
     /**
      * Determines whether this Genre is equal to another object.
      * <p>
@@ -95,8 +133,8 @@ public class Genre implements Serializable {
     /**
      * Returns the hash code for this Genre.
      * <p>
-     * The hash code is generated based on the genre name in a case-insensitive manner.
-     * This ensures that genres that are equal in terms of their name (ignoring case) will have the same hash code.
+     * The hash code is the id of the genre, computed once by the registry. Genres that are equal in
+     * terms of their name (ignoring case) are the same registered instance, so they have the same hash code.
      * This method is important when genres are used in collections like {@link java.util.HashSet}
      * or as keys in {@link java.util.HashMap}.
      * </p>
@@ -105,8 +143,7 @@ public class Genre implements Serializable {
      */
     @Override
     public int hashCode() {
-        // Generate hash code using the lower-cased name for case-insensitive equality
-        return aName.toLowerCase().hashCode();
+        return aID;
     }
 
     /**
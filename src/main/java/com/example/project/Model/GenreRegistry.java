@@ -0,0 +1,156 @@
+package com.example.project.Model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the canonical {@link Genre} instances.
+ * <p>
+ * Every genre name is represented by a single shared {@link Genre} (a flyweight), whatever the
+ * case it was typed in, so the thousands of movies of a catalog point to the same few genre
+ * objects instead of each holding its own copies. Each genre also gets a small integer id, in
+ * the order it was registered, which is the position of its bit in a genre bitmask: the genres
+ * of a movie fit in a single {@code long}, and checking a movie against several genres at once
+ * is a single bitwise operation (see {@link Movie#hasAllGenres(long)} and {@link Movie#hasAnyGenre(long)}).
+ * </p>
+ * <p>
+ * The genres a manager may give to a movie are registered first, in a fixed order. Genres read
+ * from older data files are registered as they are found.
+ * </p>
+ */
+public final class GenreRegistry {
+
+    /**
+     * The most genres the registry holds, one per bit of a genre bitmask.
+     */
+    public static final int MAX_GENRES = Long.SIZE;
+
+    /**
+     * The genres a manager may give to a movie, in the order of their ids.
+     */
+    private static final List<String> ALLOWED_GENRES = List.of(
+            "Action", "Comedy", "Drama", "Horror", "Sci-Fi", "Romance", "Science Fiction",
+            "Thriller", "Adventure", "Fantasy", "Mystery", "Animation",
+            "Documentary", "Biography", "Musical", "Western"
+    );
+
+    /**
+     * The canonical genres keyed by lowercased name.
+     */
+    private static final Map<String, Genre> GENRES_BY_NAME = new ConcurrentHashMap<>();
+
+    /**
+     * The canonical genres in the order of their ids.
+     */
+    private static final List<Genre> GENRES_BY_ID = new ArrayList<>();
+
+    static {
+        for (String name : ALLOWED_GENRES) {
+            of(name);
+        }
+    }
+
+    /**
+     * Prevents instantiation; the registry is used through its static methods.
+     */
+    private GenreRegistry() {
+    }
+
+    /**
+     * Gets the canonical genre of a name, registering it on first use.
+     * <p>
+     * Names are compared ignoring case and surrounding spaces; a genre keeps the spelling it was
+     * first registered with.
+     * </p>
+     *
+     * @param pName The name of the genre. Must not be null or empty.
+     * @return The shared genre.
+     * @throws IllegalArgumentException if the name is null or empty.
+     * @throws IllegalStateException    if the registry already holds {@link #MAX_GENRES} genres.
+     */
+    public static Genre of(String pName) {
+        if (pName == null || pName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Genre name cannot be null or empty.");
+        }
+        String key = pName.trim().toLowerCase(Locale.ROOT);
+        Genre genre = GENRES_BY_NAME.get(key);
+        return genre != null ? genre : register(key, pName.trim());
+    }
+
+    /**
+     * Gets the genre a manager typed, provided it is one of the allowed genres.
+     *
+     * @param pName The name of the genre, in any case.
+     * @return The shared genre.
+     * @throws IllegalArgumentException if the name is not an allowed genre.
+     */
+    public static Genre parseAllowed(String pName) {
+        Genre genre = pName == null ? null : GENRES_BY_NAME.get(pName.trim().toLowerCase(Locale.ROOT));
+        if (genre == null || genre.getID() >= ALLOWED_GENRES.size()) {
+            throw new IllegalArgumentException(
+                    "Invalid genre: " + (pName == null ? "" : pName.trim()) + ". Allowed genres: " + ALLOWED_GENRES
+            );
+        }
+        return genre;
+    }
+
+    /**
+     * Gets the genre with a given id.
+     *
+     * @param pID The id of the genre.
+     * @return The shared genre.
+     * @throws IndexOutOfBoundsException if no genre has this id.
+     */
+    public static synchronized Genre get(int pID) {
+        return GENRES_BY_ID.get(pID);
+    }
+
+    /**
+     * Gets every registered genre.
+     *
+     * @return The genres in the order of their ids.
+     */
+    public static synchronized List<Genre> getGenres() {
+        return List.copyOf(GENRES_BY_ID);
+    }
+
+    /**
+     * Builds the bitmask of a collection of genres.
+     *
+     * @param pGenres The genres.
+     * @return The bitmask, with the bit of each genre's id set.
+     */
+    public static long maskOf(Collection<Genre> pGenres) {
+        long mask = 0;
+        for (Genre genre : pGenres) {
+            mask |= genre.getMask();
+        }
+        return mask;
+    }
+
+    /**
+     * Registers a new genre, unless another thread registered it first.
+     *
+     * @param pKey  The lowercased name of the genre.
+     * @param pName The name of the genre as it is displayed.
+     * @return The shared genre.
+     * @throws IllegalStateException if the registry is full.
+     */
+    private static synchronized Genre register(String pKey, String pName) {
+        Genre genre = GENRES_BY_NAME.get(pKey);
+        if (genre != null) {
+            return genre;
+        }
+        if (GENRES_BY_ID.size() == MAX_GENRES) {
+            throw new IllegalStateException("No more than " + MAX_GENRES + " genres can be registered.");
+        }
+        genre = new Genre(pName, GENRES_BY_ID.size());
+        GENRES_BY_ID.add(genre);
+        GENRES_BY_NAME.put(pKey, genre);
+        return genre;
+    }
+}
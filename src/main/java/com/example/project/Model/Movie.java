@@ -1,8 +1,9 @@
 package com.example.project.Model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -40,10 +41,20 @@ public class Movie implements Serializable {
      * <p>
      * This list represents the different genres that categorize the movie (e.g., Action, Comedy).
      * It helps in searching and filtering movies based on genres.
+     * The list is unmodifiable and holds the shared genres of the {@link GenreRegistry}.
      * </p>
      */
     private List<Genre> aGenres;
 
+    /**
+     * The bitmask of the movie's genres.
+     * <p>
+     * The bit of each genre's id is set, so the movie can be checked against several genres at
+     * once with a single bitwise operation. It is computed from the genres, so it is not saved.
+     * </p>
+     */
+    private transient long aGenreMask;
+
     /**
      * The release date of the movie in YYYY-MM-DD format.
      * <p>
@@ -147,11 +158,46 @@ public class Movie implements Serializable {
     /**
      * Gets the list of genres associated with the movie.
      *
-     * @return A list of genres. Returns a defensive copy to protect the original list.
+     * @return An unmodifiable list of genres, so the internal list does not need to be copied.
      */
     public List<Genre> getGenres() {
-        // Defensive copy to prevent external modification of the internal genre list
-        return new ArrayList<>(aGenres);
+        return aGenres;
+    }
+
+    /**
+     * Gets the bitmask of the movie's genres.
+     *
+     * @return The bitmask, with the bit of each genre's id set.
+     */
+    public long getGenreMask() {
+        return aGenreMask;
+    }
+
+    /**
+     * Checks whether the movie has every genre of a bitmask.
+     * <p>
+     * Used for filters where a movie must match all the selected genres.
+     * The bitmask is built with {@link GenreRegistry#maskOf(java.util.Collection)}.
+     * </p>
+     *
+     * @param pMask The bitmask of the genres.
+     * @return {@code true} if the movie has all the genres.
+     */
+    public boolean hasAllGenres(long pMask) {
+        return (aGenreMask & pMask) == pMask;
+    }
+
+    /**
+     * Checks whether the movie has at least one genre of a bitmask.
+     * <p>
+     * Used for filters where a movie must match any of the selected genres.
+     * </p>
+     *
+     * @param pMask The bitmask of the genres.
+     * @return {@code true} if the movie has one of the genres.
+     */
+    public boolean hasAnyGenre(long pMask) {
+        return (aGenreMask & pMask) != 0;
     }
 
     /**
@@ -168,7 +214,8 @@ public class Movie implements Serializable {
         if (pGenres == null || pGenres.isEmpty()) {
             throw new IllegalArgumentException("Genres cannot be null or empty.");
         }
-        this.aGenres = new ArrayList<>(pGenres);
+        this.aGenres = List.copyOf(pGenres);
+        this.aGenreMask = GenreRegistry.maskOf(aGenres);
     }
 
     /**
@@ -302,4 +349,21 @@ public class Movie implements Serializable {
         }
         this.aDescription = pDescription.trim();
     }
+
+    /**
+     * Restores a movie read from a file.
+     * <p>
+     * The genres were already replaced by the shared ones of the {@link GenreRegistry} while they
+     * were read; the list is made unmodifiable and the genre bitmask is computed again.
+     * </p>
+     *
+     * @param pInput The stream the movie is read from.
+     * @throws IOException            if the movie cannot be read.
+     * @throws ClassNotFoundException if a class of the movie cannot be found.
+     */
+    @Serial
+    private void readObject(ObjectInputStream pInput) throws IOException, ClassNotFoundException {
+        pInput.defaultReadObject();
+        setGenres(aGenres);
+    }
 }
@@ -23,6 +23,9 @@ public class Ticket implements Serializable {
     /** The number of tickets sold. */
     private int aTicketsPurchased;
 
+    /** The labels of the seats assigned to the ticket, such as "C5-C8", or null for older tickets. */
+    private String aSeats;
+
 
 
 
@@ -121,6 +124,24 @@ public class Ticket implements Serializable {
         this.aTicketsPurchased = pTicketsSold;
     }
 
+    /**
+     * Gets the labels of the seats assigned to the ticket.
+     *
+     * @return The seat labels, such as "C5-C8", or null if the ticket was sold without assigned seats.
+     */
+    public String getSeats() {
+        return aSeats;
+    }
+
+    /**
+     * Sets the labels of the seats assigned to the ticket.
+     *
+     * @param pSeats The seat labels.
+     */
+    public void setSeats(String pSeats) {
+        this.aSeats = pSeats;
+    }
+
 
 
 }
@@ -0,0 +1,265 @@
+package com.example.project.Services;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lets purchases in at a steady rate when a sale is rushed, and queues the others in a bounded
+ * waiting room.
+ * <p>
+ * A token bucket refilled at a fixed rate decides how many purchases may start. While the bucket
+ * has tokens and nobody is waiting, purchases go straight through. Otherwise the buyer takes a
+ * place at the back of the waiting room and checks back with its admission id; places are
+ * admitted from the front as tokens come back, and an admitted buyer has a short time to use
+ * its pass. When the waiting room is full, buyers are turned away at once.
+ * </p>
+ * <p>
+ * The purchase path therefore never sees more than the bucket lets through, so a purchase takes
+ * as long under a rush as it does on a quiet day, and a buyer waits at most the size of the
+ * waiting room divided by the rate. Positions are the difference between two sequence numbers,
+ * so every operation takes constant time however many buyers wait.
+ * </p>
+ */
+public class AdmissionController {
+
+    /** Purchases let in per second when no rate is given. */
+    public static final int DEFAULT_RATE = 200;
+
+    /** Purchases that may start at once when no burst is given. */
+    public static final int DEFAULT_BURST = 200;
+
+    /** Places in the waiting room when no capacity is given. */
+    public static final int DEFAULT_WAITING_ROOM = 10_000;
+
+    /** How long an admitted buyer may wait before using its pass, in milliseconds. */
+    private static final long PASS_LIFETIME_MILLIS = 60_000;
+
+    /** How long a waiting buyer may go without checking back before its place is given up, in milliseconds. */
+    private static final long ABANDON_MILLIS = 30_000;
+
+    /** Tokens added per millisecond. */
+    private final double aTokensPerMilli;
+
+    /** The most tokens the bucket holds. */
+    private final int aBurst;
+
+    /** The number of places in the waiting room. */
+    private final int aWaitingRoomCapacity;
+
+    /** Tokens currently in the bucket. */
+    private double aTokens;
+
+    /** When the bucket was last refilled, in milliseconds. */
+    private long aLastRefill;
+
+    /** The waiting buyers, in the order they arrived. */
+    private final ArrayDeque<Admission> aWaiting = new ArrayDeque<>();
+
+    /** The admitted buyers that did not use their pass yet, in the order they were admitted. */
+    private final ArrayDeque<Admission> aAdmitted = new ArrayDeque<>();
+
+    /** Waiting and admitted buyers, keyed by admission id. */
+    private final Map<Long, Admission> aAdmissions = new HashMap<>();
+
+    /** Sequence number given to the next buyer entering the waiting room. */
+    private long aNextSequence;
+
+    /** Sequence number of the buyer at the front of the waiting room. */
+    private long aHeadSequence;
+
+    /** Source of admission identifiers. */
+    private long aNextAdmissionId = 1;
+
+    /**
+     * Constructs an admission controller with a full bucket.
+     *
+     * @param pRatePerSecond       The purchases let in per second. Must be positive.
+     * @param pBurst               The purchases that may start at once. Must be positive.
+     * @param pWaitingRoomCapacity The places in the waiting room. Must not be negative.
+     * @throws IllegalArgumentException if a limit is invalid.
+     */
+    public AdmissionController(int pRatePerSecond, int pBurst, int pWaitingRoomCapacity) {
+        if (pRatePerSecond <= 0 || pBurst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive numbers.");
+        }
+        if (pWaitingRoomCapacity < 0) {
+            throw new IllegalArgumentException("Waiting room capacity cannot be negative.");
+        }
+        this.aTokensPerMilli = pRatePerSecond / 1000.0;
+        this.aBurst = pBurst;
+        this.aWaitingRoomCapacity = pWaitingRoomCapacity;
+        this.aTokens = pBurst;
+        this.aLastRefill = System.currentTimeMillis();
+    }
+
+    /**
+     * Lets a purchase through right away if a token is free and nobody is waiting.
+     *
+     * @return {@code true} if the purchase may start.
+     */
+    public synchronized boolean tryAcquire() {
+        update(System.currentTimeMillis());
+        if (aWaiting.isEmpty() && aTokens >= 1) {
+            aTokens--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Places a buyer at the back of the waiting room.
+     *
+     * @return The buyer's admission.
+     * @throws IllegalStateException if the waiting room is full.
+     */
+    public synchronized Admission enter() {
+        long now = System.currentTimeMillis();
+        update(now);
+        if (aWaiting.size() >= aWaitingRoomCapacity) {
+            throw new IllegalStateException("Too many people are buying tickets right now. Please try again in a few minutes.");
+        }
+        Admission admission = new Admission(aNextAdmissionId++, aNextSequence++, now);
+        aWaiting.add(admission);
+        aAdmissions.put(admission.aID, admission);
+        admission.aPosition = (int) (admission.aSequence - aHeadSequence);
+        return admission;
+    }
+
+    /**
+     * Checks on a buyer, keeping its place in the waiting room.
+     *
+     * @param pAdmissionId The admission identifier.
+     * @return The admission with its current position, or {@code null} if it is unknown, was
+     * given up or its pass expired.
+     */
+    public synchronized Admission status(long pAdmissionId) {
+        long now = System.currentTimeMillis();
+        update(now);
+        Admission admission = aAdmissions.get(pAdmissionId);
+        if (admission == null) {
+            return null;
+        }
+        admission.aLastSeen = now;
+        if (!admission.aAdmitted) {
+            admission.aPosition = (int) (admission.aSequence - aHeadSequence);
+        }
+        return admission;
+    }
+
+    /**
+     * Uses the pass of an admitted buyer.
+     *
+     * @param pAdmissionId The admission identifier.
+     * @return {@code true} if the buyer was admitted and the purchase may start.
+     */
+    public synchronized boolean consume(long pAdmissionId) {
+        update(System.currentTimeMillis());
+        Admission admission = aAdmissions.get(pAdmissionId);
+        if (admission == null || !admission.aAdmitted) {
+            return false;
+        }
+        aAdmissions.remove(pAdmissionId);
+        // Left in the admitted queue, where it is skipped once it is no longer in the map
+        return true;
+    }
+
+    /**
+     * Gets the number of buyers in the waiting room.
+     *
+     * @return The number of waiting buyers.
+     */
+    public synchronized int getWaitingCount() {
+        return aWaiting.size();
+    }
+
+    /**
+     * Refills the bucket, admits buyers from the front of the waiting room while tokens are
+     * left, and forgets expired passes.
+     *
+     * @param pNow The current time, in milliseconds.
+     */
+    private void update(long pNow) {
+        aTokens = Math.min(aBurst, aTokens + (pNow - aLastRefill) * aTokensPerMilli);
+        aLastRefill = pNow;
+
+        while (!aWaiting.isEmpty() && aTokens >= 1) {
+            Admission admission = aWaiting.poll();
+            aHeadSequence = admission.aSequence + 1;
+            if (pNow - admission.aLastSeen > ABANDON_MILLIS) {
+                // The buyer stopped checking back, the token goes to the next one
+                aAdmissions.remove(admission.aID);
+                continue;
+            }
+            aTokens--;
+            admission.aAdmitted = true;
+            admission.aPosition = 0;
+            admission.aPassExpiresAt = pNow + PASS_LIFETIME_MILLIS;
+            aAdmitted.add(admission);
+        }
+
+        Admission oldest;
+        while ((oldest = aAdmitted.peek()) != null
+                && (oldest.aPassExpiresAt <= pNow || aAdmissions.get(oldest.aID) != oldest)) {
+            aAdmitted.poll();
+            aAdmissions.remove(oldest.aID, oldest);
+        }
+    }
+
+    /**
+     * A buyer's place in the waiting room.
+     */
+    public static final class Admission {
+
+        /** The unique identifier of the admission. */
+        private final long aID;
+
+        /** The order in which the buyer entered the waiting room. */
+        private final long aSequence;
+
+        /** When the buyer last checked back, in milliseconds. */
+        private long aLastSeen;
+
+        /** Whether the buyer may start its purchase. */
+        private volatile boolean aAdmitted;
+
+        /** The number of buyers ahead when the buyer last checked back. */
+        private volatile int aPosition;
+
+        /** When the pass of an admitted buyer expires, in milliseconds. */
+        private long aPassExpiresAt;
+
+        private Admission(long pID, long pSequence, long pNow) {
+            this.aID = pID;
+            this.aSequence = pSequence;
+            this.aLastSeen = pNow;
+        }
+
+        /**
+         * Gets the unique identifier of the admission.
+         *
+         * @return The admission identifier.
+         */
+        public long getID() {
+            return aID;
+        }
+
+        /**
+         * Checks whether the buyer may start its purchase.
+         *
+         * @return {@code true} if the buyer was admitted.
+         */
+        public boolean isAdmitted() {
+            return aAdmitted;
+        }
+
+        /**
+         * Gets the number of buyers ahead.
+         *
+         * @return The position, 0 when the buyer is next or admitted.
+         */
+        public int getPosition() {
+            return aPosition;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.project.Services;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a purchase cannot be let in yet and the buyer was placed in the waiting room of the
+ * {@link AdmissionController}. Sending the request again with the admission id once it is the
+ * buyer's turn lets it through.
+ */
+public class AdmissionPendingException extends IllegalStateException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** The identifier of the buyer's place in the waiting room. */
+    private final long aAdmissionId;
+
+    /** The number of buyers ahead in the waiting room. */
+    private final int aPosition;
+
+    /**
+     * Constructs the exception.
+     *
+     * @param pAdmissionId The identifier of the buyer's place in the waiting room.
+     * @param pPosition    The number of buyers ahead.
+     */
+    public AdmissionPendingException(long pAdmissionId, int pPosition) {
+        super("Many people are buying tickets right now. You are number " + (pPosition + 1)
+                + " in line, please wait.");
+        this.aAdmissionId = pAdmissionId;
+        this.aPosition = pPosition;
+    }
+
+    /**
+     * Gets the identifier of the buyer's place in the waiting room.
+     *
+     * @return The admission identifier.
+     */
+    public long getAdmissionId() {
+        return aAdmissionId;
+    }
+
+    /**
+     * Gets the number of buyers ahead in the waiting room.
+     *
+     * @return The position, 0 when the buyer is next.
+     */
+    public int getPosition() {
+        return aPosition;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.project.Services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Suggests the names of a catalog, such as movie titles or room names, from the first letters
+ * typed, and turns a typed name back into the entity it names.
+ * <p>
+ * Every name is lowercased once and kept in a sorted array, along with the part of it starting at
+ * each later word, so that "knight" suggests "The Dark Knight" as well. The names starting with a
+ * prefix form a contiguous range of that array, found with two binary searches, so a suggestion
+ * takes a few microseconds whatever the size of the catalog, and the index is a few flat arrays
+ * rather than a node per character as in a trie.
+ * </p>
+ * <p>
+ * The index is built from a snapshot of the catalog; build a new one when the catalog changes.
+ * </p>
+ *
+ * @param <T> The type of the entities.
+ */
+public class AutocompleteIndex<T> {
+
+    /** The entities, in the order of the catalog. */
+    private final List<T> aEntities;
+
+    /** The lowercased names and name endings, sorted. */
+    private final String[] aKeys;
+
+    /** The entity of each key. */
+    private final int[] aKeyEntities;
+
+    /** Whether each key is a full name rather than the ending of one. */
+    private final boolean[] aFullNames;
+
+    /** Function giving the name of an entity. */
+    private final Function<T, String> aNameOf;
+
+    /**
+     * Builds the index of a catalog.
+     *
+     * @param pEntities The entities. Entities without a name are left out.
+     * @param pNameOf   Gives the name of an entity.
+     */
+    public AutocompleteIndex(Collection<T> pEntities, Function<T, String> pNameOf) {
+        this.aNameOf = pNameOf;
+        this.aEntities = new ArrayList<>();
+        List<Key> keys = new ArrayList<>();
+        for (T entity : pEntities) {
+            String name = pNameOf.apply(entity);
+            if (name == null || name.isBlank()) {
+                continue;
+            }
+            String lowercased = name.trim().toLowerCase(Locale.ROOT);
+            int index = aEntities.size();
+            aEntities.add(entity);
+            keys.add(new Key(lowercased, index, true));
+            for (int i = 1; i < lowercased.length(); i++) {
+                if (lowercased.charAt(i - 1) == ' ' && lowercased.charAt(i) != ' ') {
+                    keys.add(new Key(lowercased.substring(i), index, false));
+                }
+            }
+        }
+        keys.sort(Comparator.comparing((Key key) -> key.aText).thenComparingInt(key -> key.aEntity));
+
+        this.aKeys = new String[keys.size()];
+        this.aKeyEntities = new int[keys.size()];
+        this.aFullNames = new boolean[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            aKeys[i] = keys.get(i).aText;
+            aKeyEntities[i] = keys.get(i).aEntity;
+            aFullNames[i] = keys.get(i).aFullName;
+        }
+    }
+
+    /**
+     * Suggests the entities whose name, or one of whose words, starts with a prefix.
+     *
+     * @param pPrefix The text typed so far, in any case.
+     * @param pLimit  The most suggestions to return.
+     * @return The suggestions, those whose full name starts with the prefix first, each group in
+     * alphabetical order; empty if the prefix is blank.
+     */
+    public List<T> suggest(String pPrefix, int pLimit) {
+        String prefix = pPrefix == null ? "" : pPrefix.trim().toLowerCase(Locale.ROOT);
+        if (prefix.isEmpty() || pLimit <= 0) {
+            return List.of();
+        }
+        int from = lowerBound(prefix);
+        // Every key starting with the prefix sorts before the prefix followed by the last character
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+
+        Set<Integer> suggested = new LinkedHashSet<>();
+        for (int i = from; i < to && suggested.size() < pLimit; i++) {
+            if (aFullNames[i]) {
+                suggested.add(aKeyEntities[i]);
+            }
+        }
+        for (int i = from; i < to && suggested.size() < pLimit; i++) {
+            suggested.add(aKeyEntities[i]);
+        }
+        List<T> suggestions = new ArrayList<>(suggested.size());
+        for (int entity : suggested) {
+            suggestions.add(aEntities.get(entity));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Finds the entity with exactly the given name, ignoring case and surrounding spaces.
+     *
+     * @param pName The name.
+     * @return The entity, or {@code null} if no entity has this name.
+     */
+    public T resolve(String pName) {
+        if (pName == null || pName.isBlank()) {
+            return null;
+        }
+        String name = pName.trim().toLowerCase(Locale.ROOT);
+        for (int i = lowerBound(name); i < aKeys.length && aKeys[i].equals(name); i++) {
+            if (aFullNames[i]) {
+                return aEntities.get(aKeyEntities[i]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the name of an entity.
+     *
+     * @param pEntity The entity.
+     * @return Its name.
+     */
+    public String nameOf(T pEntity) {
+        return aNameOf.apply(pEntity);
+    }
+
+    /**
+     * Gets the number of entities in the index.
+     *
+     * @return The number of entities.
+     */
+    public int size() {
+        return aEntities.size();
+    }
+
+    /**
+     * Finds the first key that is not smaller than a text.
+     *
+     * @param pText The text.
+     * @return The index of that key, or the number of keys if every key is smaller.
+     */
+    private int lowerBound(String pText) {
+        int index = Arrays.binarySearch(aKeys, pText);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // Several entities may share the key; go back to the first one
+        while (index > 0 && aKeys[index - 1].equals(pText)) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * A name or name ending and the entity it belongs to.
+     */
+    private static final class Key {
+
+        /** The lowercased text. */
+        private final String aText;
+
+        /** The index of the entity. */
+        private final int aEntity;
+
+        /** Whether the text is the full name. */
+        private final boolean aFullName;
+
+        private Key(String pText, int pEntity, boolean pFullName) {
+            this.aText = pText;
+            this.aEntity = pEntity;
+            this.aFullName = pFullName;
+        }
+    }
+}
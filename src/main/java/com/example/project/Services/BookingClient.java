@@ -0,0 +1,322 @@
+package com.example.project.Services;
+
+import com.example.project.Model.ShowTime;
+import com.example.project.Model.Ticket;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Client of the {@link BookingServer}.
+ * <p>
+ * It implements {@link TicketBooking} by sending each operation to the server running on this
+ * machine, and turns the server's error responses back into the exceptions the
+ * {@link BookingService} would have thrown. Use {@link #connectOrLocal()} to fall back to an
+ * in-process service when no server is running.
+ * </p>
+ */
+public class BookingClient implements TicketBooking {
+
+    /** How long to wait for the server before giving up. */
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    /** The HTTP client shared by every request. */
+    private final HttpClient aHttpClient;
+
+    /** The address of the server, without a trailing slash. */
+    private final String aBaseUrl;
+
+    /** The place of this client in the server's waiting room, or 0 if it is not queued. */
+    private volatile long aAdmissionId;
+
+    /**
+     * Constructs a client of the booking server listening on the given local port.
+     *
+     * @param pPort The port of the server.
+     */
+    public BookingClient(int pPort) {
+        this.aHttpClient = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+        this.aBaseUrl = "http://127.0.0.1:" + pPort;
+    }
+
+    /**
+     * Connects to the local booking server, or uses the in-process booking service if no server answers.
+     *
+     * @return The booking operations to use.
+     */
+    public static TicketBooking connectOrLocal() {
+        BookingClient client = new BookingClient(BookingProtocol.configuredPort());
+        return client.isServerAvailable() ? client : BookingService.getInstance();
+    }
+
+    /**
+     * Checks whether the server answers.
+     *
+     * @return {@code true} if the server is running.
+     */
+    public boolean isServerAvailable() {
+        try {
+            send("GET", "/health", Map.of());
+            return true;
+        } catch (UncheckedIOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int getAvailableSeats(int pShowTimeId) {
+        Map<String, String> response = send("GET", "/availability", Map.of("showtime", String.valueOf(pShowTimeId)));
+        return Integer.parseInt(response.get("available"));
+    }
+
+    @Override
+    public SeatHold hold(int pShowTimeId, int pSeatCount) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("showtime", String.valueOf(pShowTimeId));
+        parameters.put("count", String.valueOf(pSeatCount));
+        Map<String, String> response = sendAdmitted("/hold", parameters, null);
+        return new SeatHold(Long.parseLong(response.get("hold")), Integer.parseInt(response.get("showtime")),
+                Integer.parseInt(response.get("count")), SeatBlock.parse(response.get("seats")),
+                LocalDateTime.parse(response.get("expires")));
+    }
+
+    @Override
+    public boolean release(long pHoldId) {
+        Map<String, String> response = send("POST", "/release", Map.of("hold", String.valueOf(pHoldId)));
+        return Boolean.parseBoolean(response.get("released"));
+    }
+
+    @Override
+    public Ticket purchase(long pHoldId, String pRequestToken) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("hold", String.valueOf(pHoldId));
+        return toTicket(sendPurchase("/purchase", parameters, pRequestToken));
+    }
+
+    @Override
+    public Ticket purchase(int pShowTimeId, int pSeatCount, String pRequestToken) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("showtime", String.valueOf(pShowTimeId));
+        parameters.put("count", String.valueOf(pSeatCount));
+        return toTicket(sendAdmitted("/purchase", parameters, pRequestToken));
+    }
+
+    @Override
+    public GroupPurchase purchaseGroup(List<BookingLine> pLines, String pRequestToken) {
+        if (pLines == null || pLines.isEmpty()) {
+            throw new IllegalArgumentException("A group booking needs at least one showtime.");
+        }
+        StringJoiner lines = new StringJoiner(",");
+        for (BookingLine line : pLines) {
+            lines.add(line.getShowTimeId() + ":" + line.getSeatCount());
+        }
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("lines", lines.toString());
+        Map<String, String> response = sendAdmitted("/group-purchase", parameters, pRequestToken);
+
+        int count = Integer.parseInt(response.get("tickets"));
+        List<Ticket> tickets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String prefix = i + ".";
+            Map<String, String> ticketPairs = new HashMap<>();
+            for (Map.Entry<String, String> entry : response.entrySet()) {
+                if (entry.getKey().startsWith(prefix)) {
+                    ticketPairs.put(entry.getKey().substring(prefix.length()), entry.getValue());
+                }
+            }
+            tickets.add(toTicket(ticketPairs));
+        }
+        return new GroupPurchase(tickets, Double.parseDouble(response.get("total")));
+    }
+
+    @Override
+    public Ticket refund(int pTicketId) {
+        return toTicket(send("POST", "/refund", Map.of("ticket", String.valueOf(pTicketId))));
+    }
+
+    @Override
+    public WaitlistEntry joinWaitlist(int pShowTimeId, int pSeatCount) {
+        return toEntry(send("POST", "/waitlist/join",
+                Map.of("showtime", String.valueOf(pShowTimeId), "count", String.valueOf(pSeatCount))));
+    }
+
+    @Override
+    public WaitlistEntry getWaitlistEntry(long pEntryId) {
+        try {
+            return toEntry(send("GET", "/waitlist/status", Map.of("entry", String.valueOf(pEntryId))));
+        } catch (IllegalArgumentException e) {
+            // The server does not know the entry
+            return null;
+        }
+    }
+
+    @Override
+    public boolean leaveWaitlist(long pEntryId) {
+        Map<String, String> response = send("POST", "/waitlist/leave", Map.of("entry", String.valueOf(pEntryId)));
+        return Boolean.parseBoolean(response.get("left"));
+    }
+
+    /**
+     * Rebuilds a waitlist entry, and the hold offered to it, from the pairs answered by the server.
+     *
+     * @param pResponse The response pairs.
+     * @return The entry.
+     */
+    static WaitlistEntry toEntry(Map<String, String> pResponse) {
+        int showTimeId = Integer.parseInt(pResponse.get("showtime"));
+        int seatCount = Integer.parseInt(pResponse.get("count"));
+        WaitlistEntry entry = new WaitlistEntry(Long.parseLong(pResponse.get("entry")), showTimeId, seatCount);
+        entry.setPosition(Integer.parseInt(pResponse.get("position")));
+        if (pResponse.containsKey("hold")) {
+            SeatHold offer = new SeatHold(Long.parseLong(pResponse.get("hold")), showTimeId, seatCount,
+                    SeatBlock.parse(pResponse.get("seats")), LocalDateTime.parse(pResponse.get("expires")));
+            SeatHold.State holdState = SeatHold.State.valueOf(pResponse.get("holdState"));
+            if (holdState != SeatHold.State.PENDING) {
+                offer.complete(holdState);
+            }
+            entry.offer(offer);
+        }
+        if (WaitlistEntry.State.valueOf(pResponse.get("state")) == WaitlistEntry.State.LEFT) {
+            entry.leave();
+        }
+        return entry;
+    }
+
+    /**
+     * Rebuilds a ticket from the pairs answered by the server.
+     *
+     * @param pResponse The response pairs.
+     * @return The ticket.
+     */
+    static Ticket toTicket(Map<String, String> pResponse) {
+        // The server leaves out the fields an old ticket lacks
+        ShowTime showTime = pResponse.containsKey("showtime")
+                ? new ShowTime(Integer.parseInt(pResponse.get("showtime")), dateTime(pResponse.get("showDateTime")),
+                        pResponse.get("movie"), pResponse.get("room"))
+                : null;
+        Ticket ticket = new Ticket(Integer.parseInt(pResponse.get("ticket")), dateTime(pResponse.get("purchased")),
+                showTime, Integer.parseInt(pResponse.get("count")));
+        String seats = pResponse.get("seats");
+        ticket.setSeats(seats == null || seats.isEmpty() ? null : seats);
+        return ticket;
+    }
+
+    /**
+     * Reads a date and time answered by the server.
+     *
+     * @param pValue The value, or {@code null} if it was left out.
+     * @return The date and time, or {@code null}.
+     */
+    private static LocalDateTime dateTime(String pValue) {
+        return pValue == null ? null : LocalDateTime.parse(pValue);
+    }
+
+    /**
+     * Sends a request that goes through the server's admission controller, reusing this client's
+     * place in the waiting room if it was queued.
+     *
+     * @param pPath         The route.
+     * @param pParameters   The query parameters.
+     * @param pRequestToken The request token of a purchase, or {@code null}.
+     * @return The response pairs.
+     * @throws AdmissionPendingException if the client must keep waiting; the same call made again
+     *                                   later checks whether it is the client's turn.
+     */
+    private Map<String, String> sendAdmitted(String pPath, Map<String, String> pParameters, String pRequestToken) {
+        long admissionId = aAdmissionId;
+        if (admissionId != 0) {
+            pParameters.put(BookingProtocol.ADMISSION, String.valueOf(admissionId));
+        }
+        try {
+            Map<String, String> response = sendPurchase(pPath, pParameters, pRequestToken);
+            aAdmissionId = 0;
+            return response;
+        } catch (AdmissionPendingException e) {
+            aAdmissionId = e.getAdmissionId();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a purchase. With a request token the purchase is sent a second time if the first
+     * attempt got no answer, since the server will not sell the same token twice.
+     *
+     * @param pPath         The route.
+     * @param pParameters   The query parameters.
+     * @param pRequestToken The request token, or {@code null}.
+     * @return The response pairs.
+     */
+    private Map<String, String> sendPurchase(String pPath, Map<String, String> pParameters, String pRequestToken) {
+        if (pRequestToken == null) {
+            return send("POST", pPath, pParameters);
+        }
+        pParameters.put("token", pRequestToken);
+        try {
+            return send("POST", pPath, pParameters);
+        } catch (UncheckedIOException e) {
+            return send("POST", pPath, pParameters);
+        }
+    }
+
+    /**
+     * Sends a request and decodes the response.
+     *
+     * @param pMethod     The HTTP method.
+     * @param pPath       The route.
+     * @param pParameters The query parameters.
+     * @return The response pairs.
+     * @throws IllegalStateException    if the server answered 409, for example when seats ran out.
+     * @throws IllegalArgumentException if the server rejected the request.
+     * @throws AdmissionPendingException if the server placed the request in its waiting room.
+     * @throws UncheckedIOException     if the server could not be reached.
+     */
+    private Map<String, String> send(String pMethod, String pPath, Map<String, String> pParameters) {
+        String query = BookingProtocol.encode(new LinkedHashMap<>(pParameters), "&");
+        HttpRequest request = HttpRequest.newBuilder(URI.create(aBaseUrl + pPath + (query.isEmpty() ? "" : "?" + query)))
+                .timeout(TIMEOUT)
+                .method(pMethod, HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        HttpResponse<String> response;
+        try {
+            response = aHttpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not reach the booking server.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException("Interrupted while waiting for the booking server.", new IOException(e));
+        }
+
+        Map<String, String> values = BookingProtocol.decode(response.body());
+        switch (response.statusCode()) {
+            case 200:
+                return values;
+            case 409:
+                throw new IllegalStateException(values.get(BookingProtocol.ERROR));
+            case 400:
+                throw new IllegalArgumentException(values.get(BookingProtocol.ERROR));
+            case 503:
+                if (values.containsKey(BookingProtocol.ADMISSION)) {
+                    throw new AdmissionPendingException(Long.parseLong(values.get(BookingProtocol.ADMISSION)),
+                            Integer.parseInt(values.get("position")));
+                }
+                throw new UncheckedIOException(new IOException("Booking server unavailable: "
+                        + values.get(BookingProtocol.ERROR)));
+            default:
+                throw new UncheckedIOException(new IOException("Booking server error " + response.statusCode()
+                        + ": " + values.get(BookingProtocol.ERROR)));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.project.Services;
+
+/**
+ * One line of a group booking: a number of seats for one showtime.
+ */
+public class BookingLine {
+
+    /** The identifier of the showtime. */
+    private final int aShowTimeId;
+
+    /** The number of seats wanted for the showtime. */
+    private final int aSeatCount;
+
+    /**
+     * Constructs a booking line.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats wanted. Must be positive.
+     * @throws IllegalArgumentException if the seat count is not positive.
+     */
+    public BookingLine(int pShowTimeId, int pSeatCount) {
+        if (pSeatCount <= 0) {
+            throw new IllegalArgumentException("Seat count must be a positive number.");
+        }
+        this.aShowTimeId = pShowTimeId;
+        this.aSeatCount = pSeatCount;
+    }
+
+    /**
+     * Gets the identifier of the showtime.
+     *
+     * @return The showtime identifier.
+     */
+    public int getShowTimeId() {
+        return aShowTimeId;
+    }
+
+    /**
+     * Gets the number of seats wanted for the showtime.
+     *
+     * @return The number of seats.
+     */
+    public int getSeatCount() {
+        return aSeatCount;
+    }
+}
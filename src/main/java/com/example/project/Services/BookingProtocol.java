@@ -0,0 +1,107 @@
+package com.example.project.Services;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The wire format shared by the {@link BookingServer} and the {@link BookingClient}.
+ * <p>
+ * Requests carry their parameters in the query string and responses are plain text made of
+ * {@code key=value} lines, with every value URL-encoded. This keeps the protocol readable with
+ * curl and free of any parsing library.
+ * </p>
+ */
+final class BookingProtocol {
+
+    /** Port the booking server listens on unless told otherwise. */
+    static final int DEFAULT_PORT = 8089;
+
+    /** System property used to choose another port. */
+    static final String PORT_PROPERTY = "booking.port";
+
+    /** Key of the error message in a failed response. */
+    static final String ERROR = "error";
+
+    /** Key and parameter of the waiting room place of a queued buyer. */
+    static final String ADMISSION = "admission";
+
+    /** System property setting the purchases let in per second. */
+    static final String ADMISSION_RATE_PROPERTY = "booking.admission.rate";
+
+    /** System property setting the purchases that may start at once. */
+    static final String ADMISSION_BURST_PROPERTY = "booking.admission.burst";
+
+    /** System property setting the number of places in the waiting room. */
+    static final String WAITING_ROOM_PROPERTY = "booking.admission.waitingRoom";
+
+    private BookingProtocol() {
+    }
+
+    /**
+     * Gets the port configured for the booking server.
+     *
+     * @return The port.
+     */
+    static int configuredPort() {
+        return Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT);
+    }
+
+    /**
+     * Creates the admission controller configured by the system properties.
+     *
+     * @return The admission controller.
+     */
+    static AdmissionController configuredAdmission() {
+        return new AdmissionController(
+                Integer.getInteger(ADMISSION_RATE_PROPERTY, AdmissionController.DEFAULT_RATE),
+                Integer.getInteger(ADMISSION_BURST_PROPERTY, AdmissionController.DEFAULT_BURST),
+                Integer.getInteger(WAITING_ROOM_PROPERTY, AdmissionController.DEFAULT_WAITING_ROOM));
+    }
+
+    /**
+     * Encodes key/value pairs as a query string or a response body. Pairs without a value are
+     * left out, so they decode as missing.
+     *
+     * @param pValues   The pairs to encode.
+     * @param pSeparator The separator between pairs, "&amp;" for queries or a newline for bodies.
+     * @return The encoded pairs.
+     */
+    static String encode(Map<String, String> pValues, String pSeparator) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> entry : pValues.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            if (!builder.isEmpty()) {
+                builder.append(pSeparator);
+            }
+            builder.append(entry.getKey()).append('=')
+                    .append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Decodes a query string or a response body into key/value pairs.
+     *
+     * @param pText The text to decode, may be {@code null}.
+     * @return The decoded pairs, in order.
+     */
+    static Map<String, String> decode(String pText) {
+        Map<String, String> values = new LinkedHashMap<>();
+        if (pText == null || pText.isEmpty()) {
+            return values;
+        }
+        for (String pair : pText.split("[&\n]")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                values.put(pair.substring(0, separator),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,438 @@
+package com.example.project.Services;
+
+import com.example.project.Model.ShowTime;
+import com.example.project.Model.Ticket;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless booking server that owns the seat inventory and the ticket file.
+ * <p>
+ * The server exposes the {@link TicketBooking} operations of a {@link BookingService} over HTTP on
+ * the loopback interface, so every terminal on the machine sells from the same inventory instead
+ * of writing the ticket file on its own. Each request runs on its own virtual thread, which keeps
+ * thousands of concurrent purchases cheap while they wait on the seat counters or the disk.
+ * </p>
+ * <p>
+ * Start it with {@code java com.example.project.Services.BookingServer [port]}. The routes are:
+ * </p>
+ * <ul>
+ *     <li>{@code GET /health}</li>
+ *     <li>{@code GET /availability?showtime=ID}</li>
+ *     <li>{@code POST /hold?showtime=ID&count=N}</li>
+ *     <li>{@code POST /release?hold=ID}</li>
+ *     <li>{@code POST /purchase?hold=ID} or {@code POST /purchase?showtime=ID&count=N}</li>
+ *     <li>{@code POST /group-purchase?lines=ID:N,ID:N}</li>
+ *     <li>{@code POST /refund?ticket=ID}</li>
+ *     <li>{@code POST /waitlist/join?showtime=ID&count=N}</li>
+ *     <li>{@code GET /waitlist/status?entry=ID}</li>
+ *     <li>{@code POST /waitlist/leave?entry=ID}</li>
+ * </ul>
+ * <p>
+ * A route called with another method is refused with 405. Both purchase routes take an
+ * optional {@code token} parameter: a retried request with the same token answers the tickets
+ * of the first one.
+ * </p>
+ * <p>
+ * Placing a hold and buying without a hold go through an {@link AdmissionController} first. When
+ * it does not let a request in, the server answers 503 with an {@code admission} id and the
+ * buyer's position in the waiting room; the request is then sent again with that id until it
+ * is admitted. Buying seats already held is never queued.
+ * </p>
+ */
+public class BookingServer {
+
+    /** The method of the routes that only read. */
+    private static final String GET = "GET";
+
+    /** The method of the routes that change seats, tickets or waitlists. */
+    private static final String POST = "POST";
+
+    /** Number of pending connections the socket queues before refusing new ones. */
+    private static final int BACKLOG = 4096;
+
+    /** The booking service answering the requests. */
+    private final BookingService aBookingService;
+
+    /** The underlying HTTP server. */
+    private final HttpServer aHttpServer;
+
+    /** The executor running one virtual thread per request. */
+    private final ExecutorService aExecutor;
+
+    /** Lets the purchases in at a steady rate. */
+    private final AdmissionController aAdmission;
+
+    /**
+     * Constructs a booking server bound to the loopback interface, with the admission limits
+     * configured by the system properties.
+     *
+     * @param pBookingService The booking service answering the requests.
+     * @param pPort           The port to listen on.
+     * @throws IOException if the port cannot be bound.
+     */
+    public BookingServer(BookingService pBookingService, int pPort) throws IOException {
+        this(pBookingService, pPort, BookingProtocol.configuredAdmission());
+    }
+
+    /**
+     * Constructs a booking server bound to the loopback interface.
+     *
+     * @param pBookingService The booking service answering the requests.
+     * @param pPort           The port to listen on.
+     * @param pAdmission      The admission controller in front of the purchases.
+     * @throws IOException if the port cannot be bound.
+     */
+    public BookingServer(BookingService pBookingService, int pPort, AdmissionController pAdmission) throws IOException {
+        this.aBookingService = pBookingService;
+        this.aAdmission = pAdmission;
+        this.aHttpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), pPort), BACKLOG);
+        this.aExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+        aHttpServer.setExecutor(aExecutor);
+        aHttpServer.createContext("/health", exchange -> handle(exchange, GET, parameters -> Map.of("status", "ok")));
+        aHttpServer.createContext("/availability", exchange -> handle(exchange, GET, this::availability));
+        aHttpServer.createContext("/hold", exchange -> handle(exchange, POST, this::hold));
+        aHttpServer.createContext("/release", exchange -> handle(exchange, POST, this::release));
+        aHttpServer.createContext("/purchase", exchange -> handle(exchange, POST, this::purchase));
+        aHttpServer.createContext("/group-purchase", exchange -> handle(exchange, POST, this::purchaseGroup));
+        aHttpServer.createContext("/refund", exchange -> handle(exchange, POST, this::refund));
+        aHttpServer.createContext("/waitlist/join", exchange -> handle(exchange, POST, this::joinWaitlist));
+        aHttpServer.createContext("/waitlist/status", exchange -> handle(exchange, GET, this::waitlistStatus));
+        aHttpServer.createContext("/waitlist/leave", exchange -> handle(exchange, POST, this::leaveWaitlist));
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        aHttpServer.start();
+    }
+
+    /**
+     * Stops accepting requests and shuts the booking service down.
+     */
+    public void stop() {
+        aHttpServer.stop(1);
+        aExecutor.shutdown();
+        aBookingService.shutdown();
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return aHttpServer.getAddress().getPort();
+    }
+
+    /**
+     * Runs the booking server over the "data" directory until the process is stopped.
+     *
+     * @param args An optional port number.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : BookingProtocol.configuredPort();
+        BookingServer server = new BookingServer(BookingService.getInstance(), port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+        System.out.println("Booking server listening on port " + server.getPort());
+    }
+
+    /**
+     * Answers the availability of a showtime.
+     */
+    private Map<String, String> availability(Map<String, String> pParameters) {
+        int showTimeId = intParameter(pParameters, "showtime");
+        return Map.of("available", String.valueOf(aBookingService.getAvailableSeats(showTimeId)));
+    }
+
+    /**
+     * Places a hold and answers its details.
+     */
+    private Map<String, String> hold(Map<String, String> pParameters) {
+        admit(pParameters);
+        SeatHold hold = aBookingService.hold(intParameter(pParameters, "showtime"), intParameter(pParameters, "count"));
+        Map<String, String> response = new LinkedHashMap<>();
+        response.put("hold", String.valueOf(hold.getID()));
+        response.put("showtime", String.valueOf(hold.getShowTimeId()));
+        response.put("count", String.valueOf(hold.getSeatCount()));
+        response.put("seats", SeatBlock.format(hold.getSeats()));
+        response.put("expires", hold.getExpiresAt().toString());
+        return response;
+    }
+
+    /**
+     * Releases a hold.
+     */
+    private Map<String, String> release(Map<String, String> pParameters) {
+        boolean released = aBookingService.release(longParameter(pParameters, "hold"));
+        return Map.of("released", String.valueOf(released));
+    }
+
+    /**
+     * Sells a ticket, either from a hold or directly, and answers its details.
+     */
+    private Map<String, String> purchase(Map<String, String> pParameters) {
+        String token = pParameters.get("token");
+        if (!pParameters.containsKey("hold")) {
+            admit(pParameters);
+        }
+        Ticket ticket = pParameters.containsKey("hold")
+                ? aBookingService.purchase(longParameter(pParameters, "hold"), token)
+                : aBookingService.purchase(intParameter(pParameters, "showtime"), intParameter(pParameters, "count"), token);
+        return ticketResponse(ticket);
+    }
+
+    /**
+     * Sells the tickets of a group booking and answers their details, each ticket's pairs being
+     * prefixed by its position.
+     */
+    private Map<String, String> purchaseGroup(Map<String, String> pParameters) {
+        admit(pParameters);
+        GroupPurchase purchase = aBookingService.purchaseGroup(parseLines(pParameters.get("lines")), pParameters.get("token"));
+        Map<String, String> response = new LinkedHashMap<>();
+        response.put("tickets", String.valueOf(purchase.getTickets().size()));
+        response.put("total", String.valueOf(purchase.getTotalPrice()));
+        for (int i = 0; i < purchase.getTickets().size(); i++) {
+            for (Map.Entry<String, String> entry : ticketResponse(purchase.getTickets().get(i)).entrySet()) {
+                response.put(i + "." + entry.getKey(), entry.getValue());
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Refunds a ticket and answers its details.
+     */
+    private Map<String, String> refund(Map<String, String> pParameters) {
+        return ticketResponse(aBookingService.refund(intParameter(pParameters, "ticket")));
+    }
+
+    /**
+     * Puts a client on a waitlist and answers the entry.
+     */
+    private Map<String, String> joinWaitlist(Map<String, String> pParameters) {
+        return entryResponse(aBookingService.joinWaitlist(intParameter(pParameters, "showtime"),
+                intParameter(pParameters, "count")));
+    }
+
+    /**
+     * Answers the current state of a waitlist entry.
+     */
+    private Map<String, String> waitlistStatus(Map<String, String> pParameters) {
+        long entryId = longParameter(pParameters, "entry");
+        WaitlistEntry entry = aBookingService.getWaitlistEntry(entryId);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown waitlist entry: " + entryId);
+        }
+        return entryResponse(entry);
+    }
+
+    /**
+     * Takes a client out of a waitlist.
+     */
+    private Map<String, String> leaveWaitlist(Map<String, String> pParameters) {
+        boolean left = aBookingService.leaveWaitlist(longParameter(pParameters, "entry"));
+        return Map.of("left", String.valueOf(left));
+    }
+
+    /**
+     * Describes a waitlist entry as response pairs, with the offered hold if there is one.
+     *
+     * @param pEntry The entry to describe.
+     * @return The response pairs.
+     */
+    static Map<String, String> entryResponse(WaitlistEntry pEntry) {
+        Map<String, String> response = new LinkedHashMap<>();
+        response.put("entry", String.valueOf(pEntry.getID()));
+        response.put("showtime", String.valueOf(pEntry.getShowTimeId()));
+        response.put("count", String.valueOf(pEntry.getSeatCount()));
+        response.put("state", pEntry.getState().name());
+        response.put("position", String.valueOf(pEntry.getPosition()));
+        SeatHold offer = pEntry.getOffer();
+        if (offer != null) {
+            response.put("hold", String.valueOf(offer.getID()));
+            response.put("holdState", offer.getState().name());
+            response.put("seats", SeatBlock.format(offer.getSeats()));
+            response.put("expires", offer.getExpiresAt().toString());
+        }
+        return response;
+    }
+
+    /**
+     * Reads the lines of a group booking, written as {@code showtime:count} pairs separated by commas.
+     *
+     * @param pLines The encoded lines.
+     * @return The booking lines.
+     * @throws IllegalArgumentException if the lines are missing or malformed.
+     */
+    static List<BookingLine> parseLines(String pLines) {
+        if (pLines == null || pLines.isBlank()) {
+            throw new IllegalArgumentException("Missing parameter: lines");
+        }
+        List<BookingLine> lines = new ArrayList<>();
+        for (String line : pLines.split(",")) {
+            String[] parts = line.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Booking lines must be written as showtime:count.");
+            }
+            try {
+                lines.add(new BookingLine(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Booking lines must be written as showtime:count.");
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Lets a request in through the admission controller, using the buyer's pass if it was admitted
+     * from the waiting room.
+     *
+     * @param pParameters The request parameters, with the admission id of a queued buyer.
+     * @throws AdmissionPendingException if the buyer must wait in the waiting room.
+     * @throws IllegalStateException     if the waiting room is full.
+     */
+    private void admit(Map<String, String> pParameters) {
+        if (pParameters.containsKey(BookingProtocol.ADMISSION)) {
+            long admissionId = longParameter(pParameters, BookingProtocol.ADMISSION);
+            if (aAdmission.consume(admissionId)) {
+                return;
+            }
+            AdmissionController.Admission admission = aAdmission.status(admissionId);
+            if (admission != null) {
+                throw new AdmissionPendingException(admission.getID(), admission.getPosition());
+            }
+            // The place was given up or the pass expired, queue again
+        }
+        if (aAdmission.tryAcquire()) {
+            return;
+        }
+        AdmissionController.Admission admission = aAdmission.enter();
+        throw new AdmissionPendingException(admission.getID(), admission.getPosition());
+    }
+
+    /**
+     * Describes a ticket as response pairs.
+     *
+     * @param pTicket The ticket to describe.
+     * @return The response pairs.
+     */
+    static Map<String, String> ticketResponse(Ticket pTicket) {
+        ShowTime showTime = pTicket.getShowtime();
+        Map<String, String> response = new LinkedHashMap<>();
+        response.put("ticket", String.valueOf(pTicket.getID()));
+        // Old tickets may lack some fields; they are left out of the response rather than failing it
+        response.put("purchased", pTicket.getPurchaseDateTime() == null ? null : pTicket.getPurchaseDateTime().toString());
+        response.put("count", String.valueOf(pTicket.getTicketsPurchased()));
+        if (showTime != null) {
+            response.put("showtime", String.valueOf(showTime.getaID()));
+            response.put("showDateTime", showTime.getDateTime() == null ? null : showTime.getDateTime().toString());
+            response.put("movie", showTime.getMovie());
+            response.put("room", showTime.getScreeningRoom());
+        }
+        response.put("seats", pTicket.getSeats());
+        return response;
+    }
+
+    /**
+     * Runs a route and turns its result or its error into a response. A request made with another
+     * method than the route's is refused with 405, so that a stray GET never buys or frees seats.
+     *
+     * @param pExchange The HTTP exchange.
+     * @param pMethod   The HTTP method of the route.
+     * @param pRoute    The route to run.
+     * @throws IOException if the response cannot be written.
+     */
+    private void handle(HttpExchange pExchange, String pMethod, Route pRoute) throws IOException {
+        if (!pMethod.equals(pExchange.getRequestMethod())) {
+            pExchange.getResponseHeaders().set("Allow", pMethod);
+            respond(pExchange, 405, Map.of(BookingProtocol.ERROR, "Method not allowed, use " + pMethod + "."));
+            return;
+        }
+        Map<String, String> parameters = BookingProtocol.decode(pExchange.getRequestURI().getRawQuery());
+        try {
+            respond(pExchange, 200, pRoute.answer(parameters));
+        } catch (AdmissionPendingException e) {
+            Map<String, String> response = new LinkedHashMap<>();
+            response.put(BookingProtocol.ERROR, String.valueOf(e.getMessage()));
+            response.put(BookingProtocol.ADMISSION, String.valueOf(e.getAdmissionId()));
+            response.put("position", String.valueOf(e.getPosition()));
+            respond(pExchange, 503, response);
+        } catch (IllegalStateException e) {
+            // The request was valid but the seats are not available
+            respond(pExchange, 409, Map.of(BookingProtocol.ERROR, String.valueOf(e.getMessage())));
+        } catch (IllegalArgumentException e) {
+            respond(pExchange, 400, Map.of(BookingProtocol.ERROR, String.valueOf(e.getMessage())));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            respond(pExchange, 500, Map.of(BookingProtocol.ERROR, "Internal error: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Writes a plain text response and closes the exchange.
+     *
+     * @param pExchange The HTTP exchange.
+     * @param pStatus   The HTTP status code.
+     * @param pBody     The response pairs.
+     * @throws IOException if the response cannot be written.
+     */
+    private static void respond(HttpExchange pExchange, int pStatus, Map<String, String> pBody) throws IOException {
+        byte[] bytes = BookingProtocol.encode(pBody, "\n").getBytes(StandardCharsets.UTF_8);
+        pExchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        pExchange.sendResponseHeaders(pStatus, bytes.length);
+        try (OutputStream body = pExchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a required integer parameter.
+     *
+     * @throws IllegalArgumentException if the parameter is missing or not a number.
+     */
+    private static int intParameter(Map<String, String> pParameters, String pName) {
+        return (int) longParameter(pParameters, pName);
+    }
+
+    /**
+     * Reads a required long parameter.
+     *
+     * @throws IllegalArgumentException if the parameter is missing or not a number.
+     */
+    private static long longParameter(Map<String, String> pParameters, String pName) {
+        String value = pParameters.get(pName);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter: " + pName);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + pName + " must be a number.");
+        }
+    }
+
+    /**
+     * A route answering a request from its query parameters.
+     */
+    @FunctionalInterface
+    private interface Route {
+        Map<String, String> answer(Map<String, String> pParameters);
+    }
+}
@@ -0,0 +1,472 @@
+package com.example.project.Services;
+
+import Helpers.SerializationHelper;
+import com.example.project.Model.ScreeningRoom;
+import com.example.project.Model.ShowTime;
+import com.example.project.Model.Ticket;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service that owns the seat inventory and the tickets of the cinema.
+ * <p>
+ * It loads the showtimes, screening rooms and tickets from the data directory, keeps one
+ * {@link SeatInventory} per showtime and is the only place where tickets are written. It is used
+ * in process by a terminal when no {@link BookingServer} is running, and by the server otherwise.
+ * Only one booking service at a time may own a data directory, so a second terminal working on
+ * the same tickets needs the server.
+ * </p>
+ * <p>
+ * A purchase claims the seats, allocates the ticket id and appends the ticket to the journal while
+ * holding the {@link StripedLock} stripe of its showtime, so sales of different showtimes run in
+ * parallel and a sale that cannot be saved gives its seats back before anyone else sees them.
+ * </p>
+ */
+public class BookingService implements TicketBooking {
+
+    /**
+     * Price of one ticket.
+     */
+    public static final double TICKET_PRICE = 12.49;
+
+    /**
+     * Capacity used for showtimes whose screening room can no longer be found.
+     * This is the largest capacity a screening room may have.
+     */
+    private static final int UNKNOWN_ROOM_CAPACITY = 255;
+
+    /**
+     * The shared in-process instance.
+     */
+    private static BookingService sInstance;
+
+    /** Directory holding the serialized data files. */
+    private final String aDataDirectory;
+
+    /** Service holding the seats while buyers are choosing. */
+    private final SeatHoldService aHoldService;
+
+    /** Waitlists of the sold-out showtimes. */
+    private final WaitlistService aWaitlistService;
+
+    /** Store of the tickets sold. */
+    private final TicketStore aTicketStore;
+
+    /** Locks serializing the purchases of each showtime. */
+    private final StripedLock aShowTimeLocks = new StripedLock(StripedLock.DEFAULT_STRIPES);
+
+    /** Results of the ticket purchases, keyed by the request token of the client. */
+    private final RequestDeduplicator<Ticket> aPurchaseRequests =
+            new RequestDeduplicator<>(RequestDeduplicator.DEFAULT_TIME_TO_LIVE, RequestDeduplicator.DEFAULT_MAX_ENTRIES);
+
+    /** Results of the group purchases, keyed by the request token of the client. */
+    private final RequestDeduplicator<GroupPurchase> aGroupRequests =
+            new RequestDeduplicator<>(RequestDeduplicator.DEFAULT_TIME_TO_LIVE, RequestDeduplicator.DEFAULT_MAX_ENTRIES);
+
+    /** Known showtimes keyed by showtime id. */
+    private final Map<Integer, ShowTime> aShowTimes = new ConcurrentHashMap<>();
+
+    /** The showtimes last loaded, to find the showtime each ticket was sold for. */
+    private volatile ShowTimeCatalog aShowTimeCatalog = new ShowTimeCatalog(List.of());
+
+    /**
+     * Constructs a booking service over the files of a data directory.
+     *
+     * @param pDataDirectory Directory holding showtimes.ser, screening_rooms.ser and tickets.ser.
+     * @throws IllegalStateException if another booking service holds the ticket file.
+     */
+    public BookingService(String pDataDirectory) {
+        this.aDataDirectory = pDataDirectory;
+        this.aTicketStore = TicketStore.open(dataFile("tickets.ser"));
+        this.aHoldService = new SeatHoldService(SeatHoldService.DEFAULT_HOLD_DURATION);
+        this.aWaitlistService = new WaitlistService(aHoldService);
+        aHoldService.start();
+        aWaitlistService.start();
+        loadShowTimes();
+    }
+
+    /**
+     * Gets the shared booking service over the "data" directory, creating it on first use.
+     *
+     * @return The shared booking service.
+     * @throws IllegalStateException if another booking service, such as the booking server or
+     *                               another window, holds the ticket file.
+     */
+    public static synchronized BookingService getInstance() {
+        if (sInstance == null) {
+            sInstance = new BookingService("data");
+        }
+        return sInstance;
+    }
+
+    @Override
+    public int getAvailableSeats(int pShowTimeId) {
+        requireShowTime(pShowTimeId);
+        return aHoldService.getAvailableSeats(pShowTimeId);
+    }
+
+    @Override
+    public SeatHold hold(int pShowTimeId, int pSeatCount) {
+        requireShowTime(pShowTimeId);
+        return aHoldService.hold(pShowTimeId, pSeatCount);
+    }
+
+    @Override
+    public boolean release(long pHoldId) {
+        return aHoldService.release(pHoldId);
+    }
+
+    @Override
+    public Ticket purchase(long pHoldId, String pRequestToken) {
+        return aPurchaseRequests.execute(pRequestToken, () -> purchaseHold(pHoldId));
+    }
+
+    @Override
+    public Ticket purchase(int pShowTimeId, int pSeatCount, String pRequestToken) {
+        return aPurchaseRequests.execute(pRequestToken, () -> purchaseSeats(pShowTimeId, pSeatCount));
+    }
+
+    @Override
+    public GroupPurchase purchaseGroup(List<BookingLine> pLines, String pRequestToken) {
+        return aGroupRequests.execute(pRequestToken, () -> purchaseLines(pLines));
+    }
+
+    /**
+     * Buys the seats of a pending hold.
+     *
+     * @param pHoldId The identifier of the hold.
+     * @return The ticket that was sold.
+     * @throws IllegalStateException if the hold is no longer pending.
+     */
+    private Ticket purchaseHold(long pHoldId) {
+        SeatHold hold = aHoldService.getHold(pHoldId);
+        if (hold == null) {
+            throw new IllegalStateException("The seats are no longer held. Please try again.");
+        }
+
+        ReentrantLock lock = aShowTimeLocks.lockFor(hold.getShowTimeId());
+        lock.lock();
+        try {
+            if (!aHoldService.confirm(pHoldId)) {
+                throw new IllegalStateException("The seats are no longer held. Please try again.");
+            }
+            return recordSale(hold);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Holds and buys seats of a showtime in one step.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats to buy.
+     * @return The ticket that was sold.
+     * @throws IllegalArgumentException if the request is invalid or the showtime is unknown.
+     * @throws IllegalStateException    if not enough seats are free.
+     */
+    private Ticket purchaseSeats(int pShowTimeId, int pSeatCount) {
+        requireShowTime(pShowTimeId);
+        ReentrantLock lock = aShowTimeLocks.lockFor(pShowTimeId);
+        lock.lock();
+        try {
+            SeatHold hold = aHoldService.hold(pShowTimeId, pSeatCount);
+            aHoldService.confirm(hold.getID());
+            return recordSale(hold);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Buys seats for several showtimes in one all-or-nothing transaction.
+     *
+     * @param pLines The seats wanted for each showtime.
+     * @return The tickets sold, one per showtime, and their total price.
+     * @throws IllegalArgumentException if the request is empty or a showtime is unknown.
+     * @throws IllegalStateException    if one of the showtimes does not have enough seats left.
+     */
+    private GroupPurchase purchaseLines(List<BookingLine> pLines) {
+        if (pLines == null || pLines.isEmpty()) {
+            throw new IllegalArgumentException("A group booking needs at least one showtime.");
+        }
+
+        // Merge the lines of the same showtime, keeping the order they were requested in
+        Map<Integer, Integer> seatsByShowTime = new LinkedHashMap<>();
+        for (BookingLine line : pLines) {
+            requireShowTime(line.getShowTimeId());
+            seatsByShowTime.merge(line.getShowTimeId(), line.getSeatCount(), Integer::sum);
+        }
+
+        // Every group takes its stripes in ascending order, so two groups can never wait on each other
+        int[] stripes = seatsByShowTime.keySet().stream()
+                .mapToInt(aShowTimeLocks::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int stripe : stripes) {
+            aShowTimeLocks.lockAt(stripe).lock();
+        }
+        try {
+            Map<Integer, List<SeatBlock>> seats = claimGroupSeats(seatsByShowTime);
+
+            List<Ticket> tickets = new ArrayList<>(seatsByShowTime.size());
+            LocalDateTime purchaseDateTime = LocalDateTime.now();
+            int seatCount = 0;
+            for (Map.Entry<Integer, Integer> entry : seatsByShowTime.entrySet()) {
+                aHoldService.getInventory(entry.getKey()).markSold(entry.getValue());
+                Ticket ticket = new Ticket(aTicketStore.nextTicketId(), purchaseDateTime,
+                        aShowTimes.get(entry.getKey()), entry.getValue());
+                ticket.setSeats(SeatBlock.format(seats.get(entry.getKey())));
+                tickets.add(ticket);
+                seatCount += entry.getValue();
+            }
+
+            try {
+                aTicketStore.appendAll(tickets);
+            } catch (UncheckedIOException e) {
+                for (Map.Entry<Integer, List<SeatBlock>> entry : seats.entrySet()) {
+                    aHoldService.refundSeats(entry.getKey(), entry.getValue());
+                }
+                throw e;
+            }
+            return new GroupPurchase(tickets, seatCount * TICKET_PRICE);
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                aShowTimeLocks.lockAt(stripes[i]).unlock();
+            }
+        }
+    }
+
+    @Override
+    public Ticket refund(int pTicketId) {
+        Ticket ticket = aTicketStore.getTicket(pTicketId);
+        if (ticket == null || ticket.getShowtime() == null) {
+            throw new IllegalArgumentException("Unknown ticket: " + pTicketId);
+        }
+
+        // Tickets sold before the showtime identifiers were made unique may hold another showtime's identifier
+        ShowTime showTime = aShowTimeCatalog.showTimeOf(ticket.getShowtime());
+        int showTimeId = showTime == null ? ticket.getShowtime().getaID() : showTime.getaID();
+        ReentrantLock lock = aShowTimeLocks.lockFor(showTimeId);
+        lock.lock();
+        try {
+            if (!aTicketStore.remove(ticket)) {
+                throw new IllegalStateException("Ticket " + pTicketId + " was already refunded.");
+            }
+            if (aHoldService.getInventory(showTimeId) != null) {
+                List<SeatBlock> seats;
+                try {
+                    seats = SeatBlock.parse(ticket.getSeats());
+                } catch (IllegalArgumentException e) {
+                    seats = List.of();
+                }
+                aHoldService.refundSeats(showTimeId, seats);
+            }
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public WaitlistEntry joinWaitlist(int pShowTimeId, int pSeatCount) {
+        requireShowTime(pShowTimeId);
+        return aWaitlistService.join(pShowTimeId, pSeatCount);
+    }
+
+    @Override
+    public WaitlistEntry getWaitlistEntry(long pEntryId) {
+        return aWaitlistService.getEntry(pEntryId);
+    }
+
+    @Override
+    public boolean leaveWaitlist(long pEntryId) {
+        return aWaitlistService.leave(pEntryId);
+    }
+
+    /**
+     * Claims the seats of every showtime of a group, or none of them. Must be called with the
+     * locks of every showtime held.
+     *
+     * @param pSeatsByShowTime The number of seats wanted for each showtime.
+     * @return The seats claimed for each showtime.
+     * @throws IllegalStateException if a showtime does not have enough seats left.
+     */
+    private Map<Integer, List<SeatBlock>> claimGroupSeats(Map<Integer, Integer> pSeatsByShowTime) {
+        Map<Integer, List<SeatBlock>> claimed = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> entry : pSeatsByShowTime.entrySet()) {
+            List<SeatBlock> seats = aHoldService.claimSeats(entry.getKey(), entry.getValue());
+            if (seats == null) {
+                for (Map.Entry<Integer, List<SeatBlock>> previous : claimed.entrySet()) {
+                    aHoldService.releaseSeats(previous.getKey(), previous.getValue());
+                }
+                ShowTime showTime = aShowTimes.get(entry.getKey());
+                throw new IllegalStateException("Only " + aHoldService.getAvailableSeats(entry.getKey())
+                        + " seats are left for " + showTime.getMovie() + " at " + showTime.getFormattedTime() + ".");
+            }
+            claimed.put(entry.getKey(), seats);
+        }
+        return claimed;
+    }
+
+    /**
+     * Creates and saves the ticket of a hold that was just confirmed, giving the seats back if the
+     * ticket cannot be saved. Must be called with the showtime's lock held.
+     *
+     * @param pHold The confirmed hold.
+     * @return The saved ticket.
+     * @throws UncheckedIOException if the ticket could not be saved.
+     */
+    private Ticket recordSale(SeatHold pHold) {
+        ShowTime showTime = aShowTimes.get(pHold.getShowTimeId());
+        Ticket ticket = new Ticket(aTicketStore.nextTicketId(), LocalDateTime.now(), showTime, pHold.getSeatCount());
+        ticket.setSeats(SeatBlock.format(pHold.getSeats()));
+        try {
+            aTicketStore.append(ticket);
+        } catch (UncheckedIOException e) {
+            aHoldService.refundSeats(pHold.getShowTimeId(), pHold.getSeats());
+            throw e;
+        }
+        return ticket;
+    }
+
+    /**
+     * Gets the showtime with the given identifier.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @return The showtime, or {@code null} if it is unknown.
+     */
+    public ShowTime getShowTime(int pShowTimeId) {
+        return aShowTimes.get(pShowTimeId);
+    }
+
+    /**
+     * Gets a copy of every ticket sold so far.
+     *
+     * @return The tickets.
+     */
+    public List<Ticket> getTickets() {
+        return aTicketStore.getTickets();
+    }
+
+    /**
+     * Stops the background threads of the service and folds the ticket journal into the ticket file.
+     */
+    public void shutdown() {
+        aWaitlistService.shutdown();
+        aHoldService.shutdown();
+        aTicketStore.close();
+    }
+
+    /**
+     * Makes sure a showtime is known, reloading the showtime file once in case it was added
+     * after the service started.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @throws IllegalArgumentException if the showtime does not exist.
+     */
+    private void requireShowTime(int pShowTimeId) {
+        if (!aShowTimes.containsKey(pShowTimeId)) {
+            loadShowTimes();
+            if (!aShowTimes.containsKey(pShowTimeId)) {
+                throw new IllegalArgumentException("Unknown showtime: " + pShowTimeId);
+            }
+        }
+    }
+
+    /**
+     * Loads the showtimes and registers the seats of the new ones, using the capacity of their
+     * screening room and the tickets already sold for them. Showtimes sharing an identifier in
+     * old files are given new ones first, see {@link ShowTimeCatalog}.
+     */
+    private synchronized void loadShowTimes() {
+        List<ShowTime> showTimes = ShowTimeCatalog.load(dataFile("showtimes.ser"));
+        if (showTimes == null) {
+            return;
+        }
+        ShowTimeCatalog catalog = new ShowTimeCatalog(showTimes);
+        aShowTimeCatalog = catalog;
+
+        Map<String, Integer> capacities = new HashMap<>();
+        List<ScreeningRoom> rooms = SerializationHelper.loadData(dataFile("screening_rooms.ser"));
+        if (rooms != null) {
+            for (ScreeningRoom room : rooms) {
+                capacities.put(room.getName().toLowerCase(), room.getCapacity());
+            }
+        }
+
+        Map<Integer, List<Ticket>> soldTickets = new HashMap<>();
+        for (Ticket ticket : aTicketStore.getTickets()) {
+            ShowTime showTime = ticket.getShowtime() == null ? null : catalog.showTimeOf(ticket.getShowtime());
+            if (showTime != null) {
+                soldTickets.computeIfAbsent(showTime.getaID(), id -> new ArrayList<>()).add(ticket);
+            }
+        }
+
+        for (ShowTime showTime : showTimes) {
+            if (aShowTimes.putIfAbsent(showTime.getaID(), showTime) == null) {
+                String room = showTime.getScreeningRoom() == null ? "" : showTime.getScreeningRoom().trim().toLowerCase();
+                int capacity = capacities.getOrDefault(room, UNKNOWN_ROOM_CAPACITY);
+                List<Ticket> tickets = soldTickets.getOrDefault(showTime.getaID(), List.of());
+                int sold = 0;
+                for (Ticket ticket : tickets) {
+                    sold += ticket.getTicketsPurchased();
+                }
+                SeatInventory inventory = aHoldService.registerShowTime(showTime.getaID(), capacity, sold);
+                placeSoldSeats(inventory.getSeatMap(), tickets);
+            }
+        }
+    }
+
+    /**
+     * Marks the seats of tickets sold earlier as taken. Tickets keep the seats they were sold with,
+     * and tickets sold before seats were assigned are given the best seats left, which they keep
+     * from then on.
+     *
+     * @param pSeatMap The seat map of the showtime.
+     * @param pTickets The tickets sold for the showtime.
+     */
+    private static void placeSoldSeats(SeatMap pSeatMap, List<Ticket> pTickets) {
+        List<Ticket> unassigned = new ArrayList<>();
+        for (Ticket ticket : pTickets) {
+            List<SeatBlock> seats;
+            try {
+                seats = SeatBlock.parse(ticket.getSeats());
+            } catch (IllegalArgumentException e) {
+                seats = List.of();
+            }
+            if (seats.isEmpty()) {
+                unassigned.add(ticket);
+            }
+            for (SeatBlock block : seats) {
+                pSeatMap.occupy(block);
+            }
+        }
+        for (Ticket ticket : unassigned) {
+            int count = Math.min(ticket.getTicketsPurchased(), pSeatMap.getFreeSeats());
+            if (count > 0) {
+                ticket.setSeats(SeatBlock.format(pSeatMap.allocate(count)));
+            }
+        }
+    }
+
+    /**
+     * Builds the path of a file in the data directory.
+     *
+     * @param pFileName The name of the file.
+     * @return The path of the file.
+     */
+    private String dataFile(String pFileName) {
+        return new File(aDataDirectory, pFileName).getPath();
+    }
+}
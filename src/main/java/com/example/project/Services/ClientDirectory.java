@@ -0,0 +1,346 @@
+package com.example.project.Services;
+
+import Helpers.SerializationHelper;
+import com.example.project.Model.Client;
+import com.example.project.Model.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Directory of the clients, looked up by id, name prefix and email and returned a page at a time.
+ * <p>
+ * The clients are kept in two sorted lists, one by id and one by lowercased name, and in a map
+ * keyed by lowercased email. The clients with a given id, or whose name starts with a prefix,
+ * form a contiguous range of one of the lists, found with two binary searches; a page is then
+ * cut straight out of that range. Showing a page of a directory of hundreds of thousands of
+ * clients therefore never walks nor copies the whole directory.
+ * </p>
+ * <p>
+ * The directory is loaded once from the users file and keeps the other users, such as the
+ * managers, so that saving it rewrites the file without losing them. It is thread-safe.
+ * </p>
+ */
+public class ClientDirectory {
+
+    /** Orders the clients by id, and by email when they share an id. */
+    private static final Comparator<Client> ID_ORDER = Comparator.comparingInt(Client::getID)
+            .thenComparing(client -> emailKey(client.getEmail()));
+
+    /** Orders the clients by lowercased name, and by id when they share a name. */
+    private static final Comparator<Client> NAME_ORDER = Comparator.comparing((Client client) -> nameKey(client.getName()))
+            .thenComparing(ID_ORDER);
+
+    /** The path of the users file. */
+    private final String aFilePath;
+
+    /** The users of the file that are not clients, kept when saving. */
+    private final List<User> aOtherUsers = new ArrayList<>();
+
+    /** The clients, sorted by id. */
+    private final List<Client> aByID = new ArrayList<>();
+
+    /** The clients, sorted by lowercased name. */
+    private final List<Client> aByName = new ArrayList<>();
+
+    /** The clients keyed by lowercased email. */
+    private final Map<String, Client> aByEmail = new HashMap<>();
+
+    /**
+     * Constructs an empty directory saved to a users file.
+     *
+     * @param pFilePath The path of the users file.
+     */
+    public ClientDirectory(String pFilePath) {
+        this.aFilePath = pFilePath;
+    }
+
+    /**
+     * Loads the directory from a users file.
+     * <p>
+     * The file is read once, which takes a while for a large file; call this method off the
+     * JavaFX thread. A missing or unreadable file gives an empty directory.
+     * </p>
+     *
+     * @param pFilePath The path of the users file.
+     * @return The directory of the clients of the file.
+     */
+    public static ClientDirectory load(String pFilePath) {
+        ClientDirectory directory = new ClientDirectory(pFilePath);
+        List<User> users = SerializationHelper.loadData(pFilePath);
+        if (users == null) {
+            return directory;
+        }
+        List<Client> clients = new ArrayList<>();
+        for (User user : users) {
+            if (user instanceof Client client) {
+                clients.add(client);
+            } else if (user != null) {
+                directory.aOtherUsers.add(user);
+            }
+        }
+        // Sort once rather than inserting the clients one by one, lowercasing each name once for the sort
+        directory.aByID.addAll(clients);
+        directory.aByID.sort(ID_ORDER);
+        List<Map.Entry<String, Client>> byName = new ArrayList<>(clients.size());
+        for (Client client : clients) {
+            byName.add(Map.entry(nameKey(client.getName()), client));
+        }
+        byName.sort(Map.Entry.<String, Client>comparingByKey().thenComparing(Map.Entry::getValue, ID_ORDER));
+        for (Map.Entry<String, Client> entry : byName) {
+            directory.aByName.add(entry.getValue());
+        }
+        for (Client client : clients) {
+            directory.aByEmail.putIfAbsent(emailKey(client.getEmail()), client);
+        }
+        return directory;
+    }
+
+    /**
+     * Gets a page of every client, in the order of their ids.
+     *
+     * @param pOffset The position of the first client of the page.
+     * @param pLimit  The most clients on the page.
+     * @return The page.
+     */
+    public synchronized ClientPage list(int pOffset, int pLimit) {
+        return page(aByID, 0, aByID.size(), pOffset, pLimit);
+    }
+
+    /**
+     * Gets a page of the clients matching a search.
+     * <p>
+     * A search made only of digits looks for a client id, a search containing "@" for an email,
+     * and any other search for the clients whose name starts with it, ignoring case. A blank
+     * search matches every client.
+     * </p>
+     *
+     * @param pQuery  The search.
+     * @param pOffset The position of the first client of the page among the matches.
+     * @param pLimit  The most clients on the page.
+     * @return The page; the clients are in the order of their ids, except for a name search,
+     * where they are in the order of their names.
+     */
+    public synchronized ClientPage search(String pQuery, int pOffset, int pLimit) {
+        String query = pQuery == null ? "" : pQuery.trim();
+        if (query.isEmpty()) {
+            return list(pOffset, pLimit);
+        }
+        if (query.chars().allMatch(Character::isDigit)) {
+            return findByID(query, pOffset, pLimit);
+        }
+        if (query.contains("@")) {
+            Client client = aByEmail.get(emailKey(query));
+            List<Client> matches = client == null ? List.of() : List.of(client);
+            return page(matches, 0, matches.size(), pOffset, pLimit);
+        }
+        String prefix = nameKey(query);
+        int from = lowerBoundName(prefix);
+        // Every name starting with the prefix sorts before the prefix followed by the last character
+        int to = lowerBoundName(prefix + Character.MAX_VALUE);
+        return page(aByName, from, to, pOffset, pLimit);
+    }
+
+    /**
+     * Finds the client with an email.
+     *
+     * @param pEmail The email, in any case.
+     * @return The client, or {@code null} if no client has this email.
+     */
+    public synchronized Client findByEmail(String pEmail) {
+        return pEmail == null ? null : aByEmail.get(emailKey(pEmail));
+    }
+
+    /**
+     * Adds a client to the directory.
+     *
+     * @param pClient The client.
+     */
+    public synchronized void add(Client pClient) {
+        aByID.add(insertionPoint(aByID, pClient, ID_ORDER), pClient);
+        aByName.add(insertionPoint(aByName, pClient, NAME_ORDER), pClient);
+        aByEmail.putIfAbsent(emailKey(pClient.getEmail()), pClient);
+    }
+
+    /**
+     * Removes a client from the directory.
+     *
+     * @param pClient The client.
+     * @return {@code true} if the client was in the directory.
+     */
+    public synchronized boolean remove(Client pClient) {
+        if (!removeFrom(aByID, pClient, ID_ORDER)) {
+            return false;
+        }
+        removeFrom(aByName, pClient, NAME_ORDER);
+        aByEmail.remove(emailKey(pClient.getEmail()), pClient);
+        return true;
+    }
+
+    /**
+     * Gets the number of clients in the directory.
+     *
+     * @return The number of clients.
+     */
+    public synchronized int size() {
+        return aByID.size();
+    }
+
+    /**
+     * Saves the directory to its users file, along with the users that are not clients.
+     */
+    public synchronized void save() {
+        List<User> users = new ArrayList<>(aOtherUsers.size() + aByID.size());
+        users.addAll(aOtherUsers);
+        users.addAll(aByID);
+        SerializationHelper.saveData(aFilePath, users);
+    }
+
+    /**
+     * Gets a page of the clients with an id.
+     *
+     * @param pDigits The id, as typed.
+     * @param pOffset The position of the first client of the page among the matches.
+     * @param pLimit  The most clients on the page.
+     * @return The page; empty if the id is too large to be a client id.
+     */
+    private ClientPage findByID(String pDigits, int pOffset, int pLimit) {
+        int id;
+        try {
+            id = Integer.parseInt(pDigits);
+        } catch (NumberFormatException e) {
+            return new ClientPage(List.of(), pOffset, 0);
+        }
+        int from = lowerBoundID(id);
+        int to = id == Integer.MAX_VALUE ? aByID.size() : lowerBoundID(id + 1);
+        return page(aByID, from, to, pOffset, pLimit);
+    }
+
+    /**
+     * Cuts a page out of a range of a sorted list.
+     *
+     * @param pClients The sorted list.
+     * @param pFrom    The start of the range, inclusive.
+     * @param pTo      The end of the range, exclusive.
+     * @param pOffset  The position of the first client of the page within the range.
+     * @param pLimit   The most clients on the page.
+     * @return The page.
+     * @throws IllegalArgumentException if the offset or the limit is negative.
+     */
+    private static ClientPage page(List<Client> pClients, int pFrom, int pTo, int pOffset, int pLimit) {
+        if (pOffset < 0 || pLimit < 0) {
+            throw new IllegalArgumentException("Page offset and limit cannot be negative.");
+        }
+        int total = pTo - pFrom;
+        int start = pFrom + Math.min(pOffset, total);
+        int end = start + Math.min(pLimit, pTo - start);
+        return new ClientPage(pClients.subList(start, end), pOffset, total);
+    }
+
+    /**
+     * Finds the position of the first client, in id order, whose id is not smaller than an id.
+     *
+     * @param pID The id.
+     * @return The position, or the number of clients if every id is smaller.
+     */
+    private int lowerBoundID(int pID) {
+        int low = 0;
+        int high = aByID.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (aByID.get(middle).getID() < pID) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the position of the first client, in name order, whose name is not smaller than a text.
+     *
+     * @param pKey The lowercased text.
+     * @return The position, or the number of clients if every name is smaller.
+     */
+    private int lowerBoundName(String pKey) {
+        int low = 0;
+        int high = aByName.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (nameKey(aByName.get(middle).getName()).compareTo(pKey) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds where a client goes in a sorted list.
+     *
+     * @param pClients The sorted list.
+     * @param pClient  The client.
+     * @param pOrder   The order of the list.
+     * @return The position to insert the client at.
+     */
+    private static int insertionPoint(List<Client> pClients, Client pClient, Comparator<Client> pOrder) {
+        int index = Collections.binarySearch(pClients, pClient, pOrder);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Removes a client from a sorted list.
+     * <p>
+     * Clients sharing an id, an email and a name compare as equal, so the client itself is
+     * looked for among the equal ones.
+     * </p>
+     *
+     * @param pClients The sorted list.
+     * @param pClient  The client.
+     * @param pOrder   The order of the list.
+     * @return {@code true} if the client was in the list.
+     */
+    private static boolean removeFrom(List<Client> pClients, Client pClient, Comparator<Client> pOrder) {
+        int index = Collections.binarySearch(pClients, pClient, pOrder);
+        if (index < 0) {
+            return false;
+        }
+        while (index > 0 && pOrder.compare(pClients.get(index - 1), pClient) == 0) {
+            index--;
+        }
+        for (; index < pClients.size() && pOrder.compare(pClients.get(index), pClient) == 0; index++) {
+            if (pClients.get(index) == pClient) {
+                pClients.remove(index);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the key of a name in the name order.
+     *
+     * @param pName The name, possibly {@code null}.
+     * @return The trimmed, lowercased name.
+     */
+    private static String nameKey(String pName) {
+        return pName == null ? "" : pName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Gets the key of an email in the email map.
+     *
+     * @param pEmail The email, possibly {@code null}.
+     * @return The trimmed, lowercased email.
+     */
+    private static String emailKey(String pEmail) {
+        return pEmail == null ? "" : pEmail.trim().toLowerCase(Locale.ROOT);
+    }
+}
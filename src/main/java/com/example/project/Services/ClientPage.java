@@ -0,0 +1,73 @@
+package com.example.project.Services;
+
+import com.example.project.Model.Client;
+
+import java.util.List;
+
+/**
+ * One page of the clients matching a query of the {@link ClientDirectory}.
+ * <p>
+ * Besides its clients, a page tells where it starts among the matches and how many clients
+ * match in total, so a view can tell whether there is a next page to fetch.
+ * </p>
+ */
+public class ClientPage {
+
+    /** The clients of the page. */
+    private final List<Client> aClients;
+
+    /** The position of the first client of the page among the matches. */
+    private final int aOffset;
+
+    /** The number of clients matching the query, on every page. */
+    private final int aTotal;
+
+    /**
+     * Constructs a page of clients.
+     *
+     * @param pClients The clients of the page.
+     * @param pOffset  The position of the first client of the page among the matches.
+     * @param pTotal   The number of clients matching the query.
+     */
+    public ClientPage(List<Client> pClients, int pOffset, int pTotal) {
+        this.aClients = List.copyOf(pClients);
+        this.aOffset = pOffset;
+        this.aTotal = pTotal;
+    }
+
+    /**
+     * Gets the clients of the page.
+     *
+     * @return The clients, in the order of the query.
+     */
+    public List<Client> getClients() {
+        return aClients;
+    }
+
+    /**
+     * Gets the position of the first client of the page among the matches.
+     *
+     * @return The offset of the page.
+     */
+    public int getOffset() {
+        return aOffset;
+    }
+
+    /**
+     * Gets the number of clients matching the query.
+     *
+     * @return The total number of matches.
+     */
+    public int getTotal() {
+        return aTotal;
+    }
+
+    /**
+     * Checks whether more clients match after this page.
+     *
+     * @return {@code true} if there is a next page.
+     */
+    public boolean hasNext() {
+        return aOffset + aClients.size() < aTotal;
+    }
+}
@@ -0,0 +1,452 @@
+package com.example.project.Services;
+
+import com.example.project.Model.Client;
+import com.example.project.Model.ShowTime;
+import com.example.project.Model.Ticket;
+import com.example.project.Model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the tickets, the showtimes and the clients to CSV or JSON Lines files, for accounting.
+ * <p>
+ * The records are written one at a time through a fixed buffer into a file channel, optionally
+ * gzipped, so an export never holds more than one record and one buffer. The tickets are read
+ * with a {@link TicketCursor}, one at a time as well, so exporting millions of tickets takes the
+ * same memory as exporting a few. The showtimes and the clients are kept as lists by the
+ * application and are exported from them.
+ * </p>
+ * <p>
+ * An export may be limited to a period: the tickets by purchase date, the showtimes by date and
+ * the clients by registration date. The file is written next to its target and moved in place
+ * once complete, so a failed export never leaves half a file behind.
+ * </p>
+ */
+public class DataExporter {
+
+    /**
+     * The formats of an export.
+     */
+    public enum Format {
+        /** Comma-separated values with a header row, quoted as in RFC 4180. */
+        CSV,
+        /** One JSON object per line. */
+        JSON_LINES
+    }
+
+    /** The size of the buffer the records are encoded into before being written. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The format of the dates and times written. */
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    /** The fields of a ticket. */
+    private static final List<String> TICKET_FIELDS = List.of("ticket_id", "purchase_time", "showtime_id",
+            "showtime_time", "movie", "room", "tickets", "seats", "amount");
+
+    /** The fields of a showtime. */
+    private static final List<String> SHOWTIME_FIELDS = List.of("showtime_id", "showtime_time", "movie", "room");
+
+    /** The fields of a client. */
+    private static final List<String> CLIENT_FIELDS = List.of("client_id", "name", "email", "registration_time");
+
+    /** The format of the files written. */
+    private final Format aFormat;
+
+    /** Whether the files are gzipped. */
+    private final boolean aGzip;
+
+    /** The first day of the period, or {@code null} for no start. */
+    private final LocalDate aFrom;
+
+    /** The day after the period, or {@code null} for no end. */
+    private final LocalDate aTo;
+
+    /**
+     * Constructs an exporter.
+     * <p>
+     * Without any bound, every record is written; with a bound, the records without a date are
+     * left out.
+     * </p>
+     *
+     * @param pFormat The format of the files written.
+     * @param pGzip   Whether the files are gzipped.
+     * @param pFrom   The first day of the period, or {@code null} for no start.
+     * @param pTo     The day after the period, or {@code null} for no end.
+     * @throws IllegalArgumentException if the format is missing or the period ends before it starts.
+     */
+    public DataExporter(Format pFormat, boolean pGzip, LocalDate pFrom, LocalDate pTo) {
+        if (pFormat == null) {
+            throw new IllegalArgumentException("Export format cannot be null.");
+        }
+        if (pFrom != null && pTo != null && pTo.isBefore(pFrom)) {
+            throw new IllegalArgumentException("The export period ends before it starts.");
+        }
+        this.aFormat = pFormat;
+        this.aGzip = pGzip;
+        this.aFrom = pFrom;
+        this.aTo = pTo;
+    }
+
+    /**
+     * Exports the tickets of a ticket file and its journal that were bought in the period.
+     *
+     * @param pTicketFilePath Path to the serialized ticket file.
+     * @param pTarget         The file to write.
+     * @return The number of tickets written.
+     * @throws IOException if the file cannot be written, or if some tickets could not be read.
+     */
+    public long exportTickets(String pTicketFilePath, Path pTarget) throws IOException {
+        Object[] values = new Object[TICKET_FIELDS.size()];
+        try (TicketCursor cursor = TicketCursor.open(pTicketFilePath);
+             RecordWriter writer = new RecordWriter(pTarget, TICKET_FIELDS)) {
+            while (cursor.hasNext()) {
+                Ticket ticket = cursor.next();
+                if (!isInPeriod(ticket.getPurchaseDateTime())) {
+                    continue;
+                }
+                ShowTime showTime = ticket.getShowtime();
+                values[0] = ticket.getID();
+                values[1] = format(ticket.getPurchaseDateTime());
+                values[2] = showTime == null ? null : showTime.getaID();
+                values[3] = showTime == null ? null : format(showTime.getDateTime());
+                values[4] = showTime == null ? null : showTime.getMovie();
+                values[5] = showTime == null ? null : showTime.getScreeningRoom();
+                values[6] = ticket.getTicketsPurchased();
+                values[7] = ticket.getSeats();
+                values[8] = BigDecimal.valueOf(SalesRollups.TICKET_PRICE_CENTS * ticket.getTicketsPurchased(), 2);
+                writer.write(values);
+            }
+            if (!cursor.isComplete()) {
+                throw new IOException("Some tickets could not be read from " + pTicketFilePath);
+            }
+            writer.commit();
+            return writer.getCount();
+        }
+    }
+
+    /**
+     * Exports the showtimes scheduled in the period.
+     *
+     * @param pShowTimes The showtimes.
+     * @param pTarget    The file to write.
+     * @return The number of showtimes written.
+     * @throws IOException if the file cannot be written.
+     */
+    public long exportShowTimes(Iterable<ShowTime> pShowTimes, Path pTarget) throws IOException {
+        Object[] values = new Object[SHOWTIME_FIELDS.size()];
+        try (RecordWriter writer = new RecordWriter(pTarget, SHOWTIME_FIELDS)) {
+            for (ShowTime showTime : pShowTimes) {
+                if (showTime == null || !isInPeriod(showTime.getDateTime())) {
+                    continue;
+                }
+                values[0] = showTime.getaID();
+                values[1] = format(showTime.getDateTime());
+                values[2] = showTime.getMovie();
+                values[3] = showTime.getScreeningRoom();
+                writer.write(values);
+            }
+            writer.commit();
+            return writer.getCount();
+        }
+    }
+
+    /**
+     * Exports the clients registered in the period; the other users, such as managers, are left out.
+     *
+     * @param pUsers  The users.
+     * @param pTarget The file to write.
+     * @return The number of clients written.
+     * @throws IOException if the file cannot be written.
+     */
+    public long exportClients(Iterable<? extends User> pUsers, Path pTarget) throws IOException {
+        Object[] values = new Object[CLIENT_FIELDS.size()];
+        try (RecordWriter writer = new RecordWriter(pTarget, CLIENT_FIELDS)) {
+            for (User user : pUsers) {
+                if (!(user instanceof Client client) || !isInPeriod(client.getRegistrationDateTime())) {
+                    continue;
+                }
+                values[0] = client.getID();
+                values[1] = client.getName();
+                values[2] = client.getEmail();
+                values[3] = format(client.getRegistrationDateTime());
+                writer.write(values);
+            }
+            writer.commit();
+            return writer.getCount();
+        }
+    }
+
+    /**
+     * Checks whether a date falls in the period.
+     *
+     * @param pDateTime The date, possibly {@code null}.
+     * @return {@code true} if the record dated so is exported.
+     */
+    private boolean isInPeriod(LocalDateTime pDateTime) {
+        if (aFrom == null && aTo == null) {
+            return true;
+        }
+        if (pDateTime == null) {
+            return false;
+        }
+        LocalDate date = pDateTime.toLocalDate();
+        return (aFrom == null || !date.isBefore(aFrom)) && (aTo == null || date.isBefore(aTo));
+    }
+
+    /**
+     * Formats a date and time.
+     *
+     * @param pDateTime The date and time, possibly {@code null}.
+     * @return The formatted text, or {@code null}.
+     */
+    private static String format(LocalDateTime pDateTime) {
+        return pDateTime == null ? null : DATE_TIME_FORMAT.format(pDateTime);
+    }
+
+    /**
+     * Writes the records of one export into a temporary file, moved to the target on commit.
+     */
+    private class RecordWriter implements Closeable {
+
+        /** The file to write. */
+        private final Path aTarget;
+
+        /** The file being written. */
+        private final Path aTemporary;
+
+        /** The field names. */
+        private final List<String> aFields;
+
+        /** The channel the buffer is written to, gzipping if asked. */
+        private final WritableByteChannel aChannel;
+
+        /** The buffer the records are encoded into. */
+        private final ByteBuffer aBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        /** Encodes the records in UTF-8. */
+        private final CharsetEncoder aEncoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        /** The text of the record being written, reused from one record to the next. */
+        private final StringBuilder aLine = new StringBuilder(256);
+
+        /** The number of records written. */
+        private long aCount;
+
+        /** Whether the file was moved to the target. */
+        private boolean aCommitted;
+
+        /**
+         * Opens the temporary file and writes the header, if the format has one.
+         *
+         * @param pTarget The file to write.
+         * @param pFields The field names.
+         * @throws IOException if the file cannot be opened.
+         */
+        RecordWriter(Path pTarget, List<String> pFields) throws IOException {
+            this.aTarget = pTarget;
+            this.aTemporary = pTarget.resolveSibling(pTarget.getFileName() + ".tmp");
+            this.aFields = pFields;
+            FileChannel file = FileChannel.open(aTemporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.aChannel = aGzip
+                    ? Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(file), BUFFER_SIZE))
+                    : file;
+            if (aFormat == Format.CSV) {
+                for (int i = 0; i < pFields.size(); i++) {
+                    if (i > 0) {
+                        aLine.append(',');
+                    }
+                    appendCsv(pFields.get(i));
+                }
+                writeLine();
+            }
+        }
+
+        /**
+         * Writes one record.
+         *
+         * @param pValues The values of the fields, in order: text, numbers or {@code null}.
+         * @throws IOException if the record cannot be written.
+         */
+        void write(Object[] pValues) throws IOException {
+            if (aFormat == Format.CSV) {
+                for (int i = 0; i < pValues.length; i++) {
+                    if (i > 0) {
+                        aLine.append(',');
+                    }
+                    if (pValues[i] instanceof Number) {
+                        aLine.append(pValues[i]);
+                    } else if (pValues[i] != null) {
+                        appendCsv(pValues[i].toString());
+                    }
+                }
+            } else {
+                aLine.append('{');
+                for (int i = 0; i < pValues.length; i++) {
+                    if (i > 0) {
+                        aLine.append(',');
+                    }
+                    appendJson(aFields.get(i));
+                    aLine.append(':');
+                    if (pValues[i] == null || pValues[i] instanceof Number) {
+                        aLine.append(pValues[i]);
+                    } else {
+                        appendJson(pValues[i].toString());
+                    }
+                }
+                aLine.append('}');
+            }
+            writeLine();
+            aCount++;
+        }
+
+        /**
+         * Gets the number of records written.
+         *
+         * @return The number of records, not counting the header.
+         */
+        long getCount() {
+            return aCount;
+        }
+
+        /**
+         * Writes what is left in the buffer, closes the file and moves it to the target.
+         *
+         * @throws IOException if the file cannot be written or moved.
+         */
+        void commit() throws IOException {
+            drain();
+            aChannel.close();
+            Files.move(aTemporary, aTarget, StandardCopyOption.REPLACE_EXISTING);
+            aCommitted = true;
+        }
+
+        /**
+         * Closes the file, deleting it if the export was not committed.
+         *
+         * @throws IOException if the file cannot be closed or deleted.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!aCommitted) {
+                try {
+                    aChannel.close();
+                } finally {
+                    Files.deleteIfExists(aTemporary);
+                }
+            }
+        }
+
+        /**
+         * Encodes the current record followed by a line break into the buffer, writing the buffer
+         * out each time it fills up.
+         *
+         * @throws IOException if the buffer cannot be written.
+         */
+        private void writeLine() throws IOException {
+            aLine.append(aFormat == Format.CSV ? "\r\n" : "\n");
+            CharBuffer text = CharBuffer.wrap(aLine);
+            aEncoder.reset();
+            CoderResult result;
+            while ((result = aEncoder.encode(text, aBuffer, true)).isOverflow()) {
+                drain();
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            while (aEncoder.flush(aBuffer).isOverflow()) {
+                drain();
+            }
+            aLine.setLength(0);
+        }
+
+        /**
+         * Writes the buffer out and empties it.
+         *
+         * @throws IOException if the buffer cannot be written.
+         */
+        private void drain() throws IOException {
+            aBuffer.flip();
+            while (aBuffer.hasRemaining()) {
+                aChannel.write(aBuffer);
+            }
+            aBuffer.clear();
+        }
+
+        /**
+         * Appends a CSV field, quoted if it holds a comma, a quote or a line break.
+         *
+         * @param pValue The value.
+         */
+        private void appendCsv(String pValue) {
+            boolean quoted = false;
+            for (int i = 0; i < pValue.length() && !quoted; i++) {
+                char c = pValue.charAt(i);
+                quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quoted) {
+                aLine.append(pValue);
+                return;
+            }
+            aLine.append('"');
+            for (int i = 0; i < pValue.length(); i++) {
+                char c = pValue.charAt(i);
+                if (c == '"') {
+                    aLine.append('"');
+                }
+                aLine.append(c);
+            }
+            aLine.append('"');
+        }
+
+        /**
+         * Appends a JSON string, escaping quotes, backslashes and control characters.
+         *
+         * @param pValue The value.
+         */
+        private void appendJson(String pValue) {
+            aLine.append('"');
+            for (int i = 0; i < pValue.length(); i++) {
+                char c = pValue.charAt(i);
+                switch (c) {
+                    case '"' -> aLine.append("\\\"");
+                    case '\\' -> aLine.append("\\\\");
+                    case '\n' -> aLine.append("\\n");
+                    case '\r' -> aLine.append("\\r");
+                    case '\t' -> aLine.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            aLine.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            aLine.append(c);
+                        }
+                    }
+                }
+            }
+            aLine.append('"');
+        }
+    }
+}
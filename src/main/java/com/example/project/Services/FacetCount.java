@@ -0,0 +1,56 @@
+package com.example.project.Services;
+
+/**
+ * A value of a facet of the movie catalog and the number of movies having it.
+ * <p>
+ * Displayed as the value followed by its count, such as "Drama (12)", so it can be shown
+ * as is in a list or a combo box.
+ * </p>
+ */
+public class FacetCount {
+
+    /** The value, such as a genre name, a director or a release year. */
+    private final String aValue;
+
+    /** The number of movies having the value. */
+    private final int aCount;
+
+    /**
+     * Constructs the count of a facet value.
+     *
+     * @param pValue The value.
+     * @param pCount The number of movies having it.
+     */
+    public FacetCount(String pValue, int pCount) {
+        this.aValue = pValue;
+        this.aCount = pCount;
+    }
+
+    /**
+     * Gets the value.
+     *
+     * @return The value.
+     */
+    public String getValue() {
+        return aValue;
+    }
+
+    /**
+     * Gets the number of movies having the value.
+     *
+     * @return The count.
+     */
+    public int getCount() {
+        return aCount;
+    }
+
+    /**
+     * Returns the value followed by its count.
+     *
+     * @return The text displayed for the value, e.g., "Drama (12)".
+     */
+    @Override
+    public String toString() {
+        return aValue + " (" + aCount + ")";
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.project.Services;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Inverted index of words ranking documents with BM25, the scoring of most search engines.
+ * <p>
+ * Texts are cut into lowercased words, leaving out the common English words that say nothing
+ * about a document ("the", "with", ...). Every word points to the sorted list of documents
+ * containing it, with the number of times it appears in each. A search only reads the lists of
+ * its own words and adds up, for each document found, the BM25 score of each word: a word counts
+ * more the rarer it is in the collection and the more often it appears in the document, with
+ * diminishing returns, and less in long documents than in short ones. The best documents are
+ * then picked with a heap holding the {@code k} best scores, instead of sorting every match.
+ * </p>
+ * <p>
+ * Documents are numbered by the caller and can be added, replaced and removed at any time.
+ * The index is not thread-safe; the caller synchronizes its use.
+ * </p>
+ */
+public class FullTextIndex {
+
+    /** How quickly repeating a word stops raising the score. */
+    private static final double K1 = 1.2;
+
+    /** How much the length of a document lowers its score, from 0 (not at all) to 1. */
+    private static final double B = 0.75;
+
+    /** Common English words left out of the index and of the queries. */
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "he", "her", "his",
+            "in", "is", "it", "its", "of", "on", "or", "she", "that", "the", "their", "they", "this",
+            "to", "was", "were", "who", "with"
+    );
+
+    /** Documents containing each word, with the number of times it appears in each. */
+    private final Map<String, Postings> aPostings = new HashMap<>();
+
+    /** The words of each document and how often each appears, keyed by document number. */
+    private final Map<Integer, Map<String, Integer>> aDocumentWords = new HashMap<>();
+
+    /** The number of words of each document, keyed by document number. */
+    private final Map<Integer, Integer> aDocumentLengths = new HashMap<>();
+
+    /** The number of words of all the documents together. */
+    private long aTotalLength;
+
+    /**
+     * Cuts a text into lowercased words, leaving out the common English words.
+     *
+     * @param pText The text, possibly {@code null}.
+     * @return The words in the order they appear.
+     */
+    public static List<String> tokenize(String pText) {
+        List<String> words = new ArrayList<>();
+        if (pText == null) {
+            return words;
+        }
+        for (String word : pText.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty() && !STOP_WORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Indexes the words of a document, replacing its previous words if it is already indexed.
+     *
+     * @param pDocument The document number.
+     * @param pWords    The words of the document, as given by {@link #tokenize(String)}.
+     */
+    public void add(int pDocument, List<String> pWords) {
+        remove(pDocument);
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        for (String word : pWords) {
+            frequencies.merge(word, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            aPostings.computeIfAbsent(entry.getKey(), key -> new Postings()).put(pDocument, entry.getValue());
+        }
+        aDocumentWords.put(pDocument, frequencies);
+        aDocumentLengths.put(pDocument, pWords.size());
+        aTotalLength += pWords.size();
+    }
+
+    /**
+     * Removes a document from the index.
+     *
+     * @param pDocument The document number.
+     * @return {@code true} if the document was indexed.
+     */
+    public boolean remove(int pDocument) {
+        Map<String, Integer> frequencies = aDocumentWords.remove(pDocument);
+        if (frequencies == null) {
+            return false;
+        }
+        for (String word : frequencies.keySet()) {
+            Postings postings = aPostings.get(word);
+            if (postings != null && postings.remove(pDocument) && postings.aSize == 0) {
+                aPostings.remove(word);
+            }
+        }
+        aTotalLength -= aDocumentLengths.remove(pDocument);
+        return true;
+    }
+
+    /**
+     * Finds the documents best matching a query.
+     *
+     * @param pQuery The query, in any case.
+     * @param pLimit The most documents to return.
+     * @return The numbers of the matching documents, best first; ties go to the lowest number.
+     */
+    public int[] search(String pQuery, int pLimit) {
+        int documentCount = aDocumentLengths.size();
+        if (documentCount == 0 || pLimit <= 0) {
+            return new int[0];
+        }
+        double averageLength = Math.max(1, (double) aTotalLength / documentCount);
+
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String word : new LinkedHashSet<>(tokenize(pQuery))) {
+            Postings postings = aPostings.get(word);
+            if (postings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documentCount - postings.aSize + 0.5) / (postings.aSize + 0.5));
+            for (int i = 0; i < postings.aSize; i++) {
+                int document = postings.aDocuments[i];
+                int frequency = postings.aFrequencies[i];
+                double lengthRatio = aDocumentLengths.get(document) / averageLength;
+                double score = idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio));
+                scores.merge(document, score, Double::sum);
+            }
+        }
+
+        // Keep the best scores in a heap whose root is the worst of them
+        PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<>(pLimit + 1, (first, second) -> {
+            int byScore = Double.compare(first.getValue(), second.getValue());
+            return byScore != 0 ? byScore : Integer.compare(second.getKey(), first.getKey());
+        });
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            best.add(entry);
+            if (best.size() > pLimit) {
+                best.poll();
+            }
+        }
+        int[] documents = new int[best.size()];
+        for (int i = documents.length - 1; i >= 0; i--) {
+            documents[i] = best.poll().getKey();
+        }
+        return documents;
+    }
+
+    /**
+     * Writes the word lists and the document lengths, with the documents renumbered.
+     *
+     * @param pOut       The output.
+     * @param pNumbers   The new number of each document, by document number.
+     * @param pDocuments The documents, in the order of their new numbers.
+     * @throws IOException if the output fails.
+     */
+    void writeSnapshot(DataOutputStream pOut, int[] pNumbers, int[] pDocuments) throws IOException {
+        pOut.writeInt(aPostings.size());
+        for (Map.Entry<String, Postings> entry : aPostings.entrySet()) {
+            byte[] word = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            SearchIndexStore.writeVarInt(pOut, word.length);
+            pOut.write(word);
+
+            // Pack each new number with its frequency so that sorting by number keeps them together
+            Postings postings = entry.getValue();
+            long[] entries = new long[postings.aSize];
+            for (int i = 0; i < postings.aSize; i++) {
+                entries[i] = ((long) pNumbers[postings.aDocuments[i]] << 32) | postings.aFrequencies[i];
+            }
+            Arrays.sort(entries);
+            SearchIndexStore.writeVarInt(pOut, entries.length);
+            int previous = 0;
+            for (long packed : entries) {
+                int document = (int) (packed >>> 32);
+                SearchIndexStore.writeVarInt(pOut, document - previous);
+                SearchIndexStore.writeVarInt(pOut, (int) packed);
+                previous = document;
+            }
+        }
+        for (int document : pDocuments) {
+            SearchIndexStore.writeVarInt(pOut, aDocumentLengths.get(document));
+        }
+    }
+
+    /**
+     * Removes every document.
+     */
+    void clear() {
+        aPostings.clear();
+        aDocumentWords.clear();
+        aDocumentLengths.clear();
+        aTotalLength = 0;
+    }
+
+    /**
+     * Reads the word lists and document lengths written by
+     * {@link #writeSnapshot(DataOutputStream, int[], int[])} into this empty index.
+     *
+     * @param pIn            The input, positioned on the word lists.
+     * @param pDocumentCount The number of documents, numbered from 0.
+     * @throws IllegalStateException if the lists name a document out of range.
+     */
+    void readSnapshot(ByteBuffer pIn, int pDocumentCount) {
+        for (int document = 0; document < pDocumentCount; document++) {
+            aDocumentWords.put(document, new LinkedHashMap<>());
+        }
+        int wordCount = pIn.getInt();
+        for (int i = 0; i < wordCount; i++) {
+            byte[] bytes = new byte[SearchIndexStore.readVarInt(pIn)];
+            pIn.get(bytes);
+            String word = new String(bytes, StandardCharsets.UTF_8);
+
+            Postings postings = new Postings();
+            int size = SearchIndexStore.readVarInt(pIn);
+            postings.aDocuments = new int[Math.max(2, size)];
+            postings.aFrequencies = new int[Math.max(2, size)];
+            int document = 0;
+            for (int j = 0; j < size; j++) {
+                document += SearchIndexStore.readVarInt(pIn);
+                if (document >= pDocumentCount) {
+                    throw new IllegalStateException("The search index file does not fit the catalog.");
+                }
+                int frequency = SearchIndexStore.readVarInt(pIn);
+                postings.aDocuments[j] = document;
+                postings.aFrequencies[j] = frequency;
+                aDocumentWords.get(document).put(word, frequency);
+            }
+            postings.aSize = size;
+            aPostings.put(word, postings);
+        }
+        for (int document = 0; document < pDocumentCount; document++) {
+            int length = SearchIndexStore.readVarInt(pIn);
+            aDocumentLengths.put(document, length);
+            aTotalLength += length;
+        }
+    }
+
+    /**
+     * The sorted document numbers of the documents containing a word, with the number of times
+     * the word appears in each.
+     */
+    private static final class Postings {
+
+        /** The document numbers, sorted; only the first {@link #aSize} are used. */
+        private int[] aDocuments = new int[2];
+
+        /** The number of times the word appears in each document. */
+        private int[] aFrequencies = new int[2];
+
+        /** The number of documents in the list. */
+        private int aSize;
+
+        /**
+         * Adds a document at its place in the list.
+         *
+         * @param pDocument  The document number.
+         * @param pFrequency The number of times the word appears in it.
+         */
+        private void put(int pDocument, int pFrequency) {
+            int index = Arrays.binarySearch(aDocuments, 0, aSize, pDocument);
+            if (index >= 0) {
+                aFrequencies[index] = pFrequency;
+                return;
+            }
+            index = -index - 1;
+            if (aSize == aDocuments.length) {
+                aDocuments = Arrays.copyOf(aDocuments, aSize * 2);
+                aFrequencies = Arrays.copyOf(aFrequencies, aSize * 2);
+            }
+            System.arraycopy(aDocuments, index, aDocuments, index + 1, aSize - index);
+            System.arraycopy(aFrequencies, index, aFrequencies, index + 1, aSize - index);
+            aDocuments[index] = pDocument;
+            aFrequencies[index] = pFrequency;
+            aSize++;
+        }
+
+        /**
+         * Removes a document from the list.
+         *
+         * @param pDocument The document number.
+         * @return {@code true} if the document was in the list.
+         */
+        private boolean remove(int pDocument) {
+            int index = Arrays.binarySearch(aDocuments, 0, aSize, pDocument);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(aDocuments, index + 1, aDocuments, index, aSize - index - 1);
+            System.arraycopy(aFrequencies, index + 1, aFrequencies, index, aSize - index - 1);
+            aSize--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.project.Services;
+
+import com.example.project.Model.Ticket;
+
+import java.util.List;
+
+/**
+ * The result of a group booking: one ticket per showtime, all sold together.
+ */
+public class GroupPurchase {
+
+    /** The tickets sold, one per showtime, in the order the showtimes were requested. */
+    private final List<Ticket> aTickets;
+
+    /** The price of all the tickets together. */
+    private final double aTotalPrice;
+
+    /**
+     * Constructs the result of a group booking.
+     *
+     * @param pTickets    The tickets sold.
+     * @param pTotalPrice The price of all the tickets together.
+     */
+    public GroupPurchase(List<Ticket> pTickets, double pTotalPrice) {
+        this.aTickets = List.copyOf(pTickets);
+        this.aTotalPrice = pTotalPrice;
+    }
+
+    /**
+     * Gets the tickets sold.
+     *
+     * @return The tickets, one per showtime.
+     */
+    public List<Ticket> getTickets() {
+        return aTickets;
+    }
+
+    /**
+     * Gets the price of all the tickets together.
+     *
+     * @return The total price.
+     */
+    public double getTotalPrice() {
+        return aTotalPrice;
+    }
+
+    /**
+     * Gets the number of seats sold across every showtime.
+     *
+     * @return The number of seats.
+     */
+    public int getSeatCount() {
+        int seats = 0;
+        for (Ticket ticket : aTickets) {
+            seats += ticket.getTicketsPurchased();
+        }
+        return seats;
+    }
+}
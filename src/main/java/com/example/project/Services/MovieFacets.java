@@ -0,0 +1,375 @@
+package com.example.project.Services;
+
+import com.example.project.Model.Genre;
+import com.example.project.Model.Movie;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Facet counts of the movie catalog: how many movies have each genre, director and release year,
+ * overall or among the movies left by a search and the values already chosen.
+ * <p>
+ * Each movie gets a document number, and each value of each facet keeps the bitmap of the
+ * documents having it along with its count. The counts are updated as movies are added, edited
+ * and deleted, so the counts of the whole catalog are read without any work. Filtered counts
+ * are built with bitmap operations: the values chosen in a facet are OR-ed together, the facets
+ * are AND-ed with each other and with the search results, and each value's bitmap is intersected
+ * with the result, so the catalog itself is never scanned again.
+ * </p>
+ * <p>
+ * The counts of a facet leave out the values chosen in that same facet, so that they tell how
+ * many movies each other value would give instead. The numbers of removed movies are reused,
+ * which keeps the bitmaps as short as the catalog. The engine is thread-safe; movies are edited
+ * in place by the screens, so {@link #update(Movie)} must be called after a movie changes.
+ * </p>
+ */
+public class MovieFacets {
+
+    /**
+     * The facets of a movie.
+     */
+    public enum Facet {
+        /** The genres of the movie. */
+        GENRE,
+        /** The director or directors of the movie. */
+        DIRECTOR,
+        /** The year the movie was released. */
+        YEAR
+    }
+
+    /** Orders the counts from the largest, then by value. */
+    private static final Comparator<FacetCount> BY_COUNT = Comparator.comparingInt(FacetCount::getCount).reversed()
+            .thenComparing(FacetCount::getValue, String.CASE_INSENSITIVE_ORDER);
+
+    /** The indexed movies, by document number; removed movies leave a {@code null}. */
+    private final List<Movie> aDocuments = new ArrayList<>();
+
+    /** Document number of each indexed movie. */
+    private final Map<Movie, Integer> aDocumentNumbers = new IdentityHashMap<>();
+
+    /** The document numbers of removed movies, reused first. */
+    private final Deque<Integer> aFreeDocuments = new ArrayDeque<>();
+
+    /** The values of each facet of each document, as they were when the movie was indexed. */
+    private final Map<Integer, Map<Facet, Set<String>>> aDocumentValues = new HashMap<>();
+
+    /** The documents having each value, for each facet. */
+    private final Map<Facet, Map<String, BitSet>> aBitmaps = new EnumMap<>(Facet.class);
+
+    /** The number of documents having each value, for each facet. */
+    private final Map<Facet, Map<String, Integer>> aCounts = new EnumMap<>(Facet.class);
+
+    /**
+     * Constructs an empty facet engine.
+     */
+    public MovieFacets() {
+        for (Facet facet : Facet.values()) {
+            aBitmaps.put(facet, new HashMap<>());
+            aCounts.put(facet, new HashMap<>());
+        }
+    }
+
+    /**
+     * Indexes several movies.
+     *
+     * @param pMovies The movies.
+     */
+    public synchronized void addAll(Collection<Movie> pMovies) {
+        for (Movie movie : pMovies) {
+            add(movie);
+        }
+    }
+
+    /**
+     * Indexes a movie, or re-indexes it if it is already indexed.
+     *
+     * @param pMovie The movie.
+     */
+    public synchronized void add(Movie pMovie) {
+        if (aDocumentNumbers.containsKey(pMovie)) {
+            update(pMovie);
+            return;
+        }
+        int document;
+        if (aFreeDocuments.isEmpty()) {
+            document = aDocuments.size();
+            aDocuments.add(pMovie);
+        } else {
+            document = aFreeDocuments.pop();
+            aDocuments.set(document, pMovie);
+        }
+        aDocumentNumbers.put(pMovie, document);
+        index(document, pMovie);
+    }
+
+    /**
+     * Re-indexes a movie after it was edited.
+     *
+     * @param pMovie The movie.
+     */
+    public synchronized void update(Movie pMovie) {
+        Integer document = aDocumentNumbers.get(pMovie);
+        if (document == null) {
+            add(pMovie);
+            return;
+        }
+        unindex(document);
+        index(document, pMovie);
+    }
+
+    /**
+     * Removes a movie from the counts.
+     *
+     * @param pMovie The movie.
+     * @return {@code true} if the movie was indexed.
+     */
+    public synchronized boolean remove(Movie pMovie) {
+        Integer document = aDocumentNumbers.remove(pMovie);
+        if (document == null) {
+            return false;
+        }
+        unindex(document);
+        aDocuments.set(document, null);
+        aFreeDocuments.push(document);
+        return true;
+    }
+
+    /**
+     * Gets the counts of a facet over the whole catalog.
+     *
+     * @param pFacet The facet.
+     * @return The values of the facet with their counts, largest first.
+     */
+    public synchronized List<FacetCount> counts(Facet pFacet) {
+        List<FacetCount> counts = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : aCounts.get(pFacet).entrySet()) {
+            counts.add(new FacetCount(entry.getKey(), entry.getValue()));
+        }
+        counts.sort(BY_COUNT);
+        return counts;
+    }
+
+    /**
+     * Gets the counts of a facet among the movies left by a search and the values chosen in the
+     * other facets.
+     *
+     * @param pFacet     The facet.
+     * @param pSelection The values chosen, for each facet; a movie must have one of the values
+     *                   chosen in every other facet.
+     * @param pWithin    The movies left by a search, or {@code null} to count over the whole catalog.
+     * @return The values of the facet found among those movies with their counts, largest first.
+     */
+    public synchronized List<FacetCount> counts(Facet pFacet, Map<Facet, Set<String>> pSelection, Collection<Movie> pWithin) {
+        BitSet filter = filter(pSelection, pFacet, pWithin);
+        if (filter == null) {
+            return counts(pFacet);
+        }
+        int filterSize = filter.cardinality();
+        List<FacetCount> counts = new ArrayList<>();
+        for (Map.Entry<String, BitSet> entry : aBitmaps.get(pFacet).entrySet()) {
+            int count = intersectionSize(entry.getValue(), aCounts.get(pFacet).get(entry.getKey()), filter, filterSize);
+            if (count > 0) {
+                counts.add(new FacetCount(entry.getKey(), count));
+            }
+        }
+        counts.sort(BY_COUNT);
+        return counts;
+    }
+
+    /**
+     * Counts the movies left by a search having one of the values chosen in every facet.
+     *
+     * @param pSelection The values chosen, for each facet.
+     * @param pWithin    The movies left by a search, or {@code null} for the whole catalog.
+     * @return The number of movies.
+     */
+    public synchronized int count(Map<Facet, Set<String>> pSelection, Collection<Movie> pWithin) {
+        BitSet filter = filter(pSelection, null, pWithin);
+        return filter == null ? aDocumentNumbers.size() : filter.cardinality();
+    }
+
+    /**
+     * Keeps the movies having one of the values chosen in every facet.
+     *
+     * @param pMovies    The movies, such as the results of a search.
+     * @param pSelection The values chosen, for each facet.
+     * @return The movies kept, in their order.
+     */
+    public synchronized List<Movie> filter(List<Movie> pMovies, Map<Facet, Set<String>> pSelection) {
+        BitSet filter = filter(pSelection, null, null);
+        if (filter == null) {
+            return new ArrayList<>(pMovies);
+        }
+        List<Movie> movies = new ArrayList<>();
+        for (Movie movie : pMovies) {
+            Integer document = aDocumentNumbers.get(movie);
+            if (document != null && filter.get(document)) {
+                movies.add(movie);
+            }
+        }
+        return movies;
+    }
+
+    /**
+     * Gets the number of indexed movies.
+     *
+     * @return The number of movies.
+     */
+    public synchronized int size() {
+        return aDocumentNumbers.size();
+    }
+
+    /**
+     * Gets the values of each facet of a movie.
+     *
+     * @param pMovie The movie.
+     * @return The values, for each facet.
+     */
+    public static Map<Facet, Set<String>> valuesOf(Movie pMovie) {
+        Map<Facet, Set<String>> values = new EnumMap<>(Facet.class);
+
+        Set<String> genres = new LinkedHashSet<>();
+        for (Genre genre : pMovie.getGenres()) {
+            genres.add(genre.getName());
+        }
+        values.put(Facet.GENRE, genres);
+
+        Set<String> directors = new LinkedHashSet<>();
+        if (pMovie.getDirector() != null) {
+            for (String director : pMovie.getDirector().split(",")) {
+                if (!director.isBlank()) {
+                    directors.add(director.trim());
+                }
+            }
+        }
+        values.put(Facet.DIRECTOR, directors);
+
+        // Release dates are written YYYY-MM-DD
+        String releaseDate = pMovie.getReleaseDate();
+        boolean hasYear = releaseDate != null && releaseDate.length() >= 4
+                && releaseDate.substring(0, 4).chars().allMatch(Character::isDigit);
+        values.put(Facet.YEAR, hasYear ? Set.of(releaseDate.substring(0, 4)) : Set.of());
+        return values;
+    }
+
+    /**
+     * Builds the bitmap of the documents left by a search and the values chosen.
+     *
+     * @param pSelection The values chosen, for each facet.
+     * @param pExcluded  The facet whose chosen values are ignored, or {@code null} to use them all.
+     * @param pWithin    The movies left by a search, or {@code null} for the whole catalog.
+     * @return The bitmap, or {@code null} if nothing narrows the catalog down.
+     */
+    private BitSet filter(Map<Facet, Set<String>> pSelection, Facet pExcluded, Collection<Movie> pWithin) {
+        BitSet filter = null;
+        if (pWithin != null) {
+            filter = new BitSet(aDocuments.size());
+            for (Movie movie : pWithin) {
+                Integer document = aDocumentNumbers.get(movie);
+                if (document != null) {
+                    filter.set(document);
+                }
+            }
+        }
+        for (Map.Entry<Facet, Set<String>> entry : pSelection.entrySet()) {
+            if (entry.getKey() == pExcluded || entry.getValue().isEmpty()) {
+                continue;
+            }
+            // A movie having any of the values chosen in a facet passes that facet
+            BitSet anyValue = new BitSet(aDocuments.size());
+            for (String value : entry.getValue()) {
+                BitSet documents = aBitmaps.get(entry.getKey()).get(value);
+                if (documents != null) {
+                    anyValue.or(documents);
+                }
+            }
+            if (filter == null) {
+                filter = anyValue;
+            } else {
+                filter.and(anyValue);
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Counts the documents of a value that pass a filter.
+     * <p>
+     * A value with few documents is checked document by document; otherwise the two bitmaps are
+     * intersected a word of 64 documents at a time.
+     * </p>
+     *
+     * @param pDocuments  The documents of the value.
+     * @param pCount      The number of documents of the value.
+     * @param pFilter     The filter.
+     * @param pFilterSize The number of documents passing the filter.
+     * @return The number of documents of the value passing the filter.
+     */
+    private static int intersectionSize(BitSet pDocuments, int pCount, BitSet pFilter, int pFilterSize) {
+        if (pCount <= pFilterSize / Long.SIZE || pCount <= Long.SIZE) {
+            int count = 0;
+            for (int document = pDocuments.nextSetBit(0); document >= 0; document = pDocuments.nextSetBit(document + 1)) {
+                if (pFilter.get(document)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        BitSet intersection = (BitSet) pDocuments.clone();
+        intersection.and(pFilter);
+        return intersection.cardinality();
+    }
+
+    /**
+     * Adds a document to the bitmaps and counts of its values.
+     *
+     * @param pDocument The document number.
+     * @param pMovie    The movie.
+     */
+    private void index(int pDocument, Movie pMovie) {
+        Map<Facet, Set<String>> values = valuesOf(pMovie);
+        for (Map.Entry<Facet, Set<String>> entry : values.entrySet()) {
+            for (String value : entry.getValue()) {
+                aBitmaps.get(entry.getKey()).computeIfAbsent(value, key -> new BitSet()).set(pDocument);
+                aCounts.get(entry.getKey()).merge(value, 1, Integer::sum);
+            }
+        }
+        aDocumentValues.put(pDocument, values);
+    }
+
+    /**
+     * Removes a document from the bitmaps and counts of the values it was indexed with.
+     *
+     * @param pDocument The document number.
+     */
+    private void unindex(int pDocument) {
+        Map<Facet, Set<String>> values = aDocumentValues.remove(pDocument);
+        if (values == null) {
+            return;
+        }
+        for (Map.Entry<Facet, Set<String>> entry : values.entrySet()) {
+            Map<String, BitSet> bitmaps = aBitmaps.get(entry.getKey());
+            Map<String, Integer> counts = aCounts.get(entry.getKey());
+            for (String value : entry.getValue()) {
+                bitmaps.get(value).clear(pDocument);
+                // Forget the values no movie has anymore
+                if (counts.merge(value, -1, Integer::sum) == 0) {
+                    counts.remove(value);
+                    bitmaps.remove(value);
+                }
+            }
+        }
+    }
+}
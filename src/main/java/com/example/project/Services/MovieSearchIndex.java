@@ -0,0 +1,648 @@
+package com.example.project.Services;
+
+import com.example.project.Model.Genre;
+import com.example.project.Model.Movie;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory trigram index of the movie catalog, answering substring searches over the title,
+ * genres, actors, director and description of every movie.
+ * <p>
+ * Each movie gets a document number in the order it was added, and its searchable text is
+ * lowercased once, when it is indexed. Every run of three characters of that text (a trigram)
+ * points to the sorted list of documents containing it. A search intersects the lists of the
+ * trigrams of the query, starting with the shortest, and checks the few documents left against
+ * the stored text, so its cost depends on how many movies match rather than on the size of the
+ * catalog. Queries shorter than a trigram are answered by scanning the stored text.
+ * </p>
+ * <p>
+ * Movies are indexed by identity and edited in place by the screens, so {@link #update(Movie)}
+ * must be called after a movie changes. Adding, updating and removing a movie only touch the
+ * lists of its own trigrams. Results come in the order the movies were added.
+ * </p>
+ * <p>
+ * When nothing contains the query as a whole, its words are looked up separately in a
+ * {@link FullTextIndex} over the same fields, and the movies are ranked by BM25, so that
+ * "heist thriller with DiCaprio" finds the heist thrillers starring DiCaprio first.
+ * </p>
+ * <p>
+ * When none of the words match either, the search forgives typos: the titles, the names of the
+ * actors and director, and the words of each, are kept in a {@link TermTrie}, and the movies with
+ * a term within one edit (two for queries of six characters or more) of the query are returned,
+ * closest first and then the best selling first.
+ * </p>
+ * <p>
+ * The trigram and word lists can be saved and loaded back by {@link SearchIndexStore}, so that
+ * a large catalog is not indexed again at every launch.
+ * </p>
+ */
+public class MovieSearchIndex {
+
+    /** Separates the fields of a movie's text, so that no query matches across two fields. */
+    private static final char FIELD_SEPARATOR = '\n';
+
+    /** The most movies returned by a ranked search. */
+    private static final int MAX_RANKED_RESULTS = 100;
+
+    /** The indexed movies, by document number; removed movies leave a {@code null}. */
+    private final List<Movie> aDocuments = new ArrayList<>();
+
+    /** The lowercased searchable text of each document, {@code null} once removed. */
+    private final List<String> aTexts = new ArrayList<>();
+
+    /** Document number of each indexed movie. */
+    private final Map<Movie, Integer> aDocumentNumbers = new IdentityHashMap<>();
+
+    /** Documents containing each trigram, keyed by the trigram's three characters packed in a long. */
+    private final Map<Long, Postings> aPostings = new HashMap<>();
+
+    /** The words of every document, ranking the searches that no document contains as a whole. */
+    private final FullTextIndex aFullTextIndex = new FullTextIndex();
+
+    /** The fuzzy search terms of each document, {@code null} once removed. */
+    private final List<String[]> aTerms = new ArrayList<>();
+
+    /** Documents having each fuzzy search term. */
+    private final Map<String, Set<Integer>> aTermDocuments = new HashMap<>();
+
+    /** Every fuzzy search term, for finding those close to a query. */
+    private final TermTrie aTermTrie = new TermTrie();
+
+    /** Tickets sold for each movie, keyed by lowercased title. */
+    private Map<String, Integer> aPopularity = Map.of();
+
+    /**
+     * Adds every movie of a list to the index.
+     *
+     * @param pMovies The movies.
+     */
+    public synchronized void addAll(List<Movie> pMovies) {
+        for (Movie movie : pMovies) {
+            add(movie);
+        }
+    }
+
+    /**
+     * Adds a movie to the index, or re-indexes it if it is already there.
+     *
+     * @param pMovie The movie.
+     */
+    public synchronized void add(Movie pMovie) {
+        if (aDocumentNumbers.containsKey(pMovie)) {
+            update(pMovie);
+            return;
+        }
+        int document = aDocuments.size();
+        String text = textOf(pMovie);
+        aDocuments.add(pMovie);
+        aTexts.add(text);
+        aDocumentNumbers.put(pMovie, document);
+        for (long trigram : trigrams(text)) {
+            // The new document has the highest number, so it goes at the end of every list
+            aPostings.computeIfAbsent(trigram, key -> new Postings()).append(document);
+        }
+        aFullTextIndex.add(document, FullTextIndex.tokenize(text));
+        String[] terms = termsOf(pMovie);
+        aTerms.add(terms);
+        addTerms(terms, document);
+    }
+
+    /**
+     * Re-indexes a movie after it was edited, keeping its place in the results.
+     *
+     * @param pMovie The movie.
+     * @throws IllegalArgumentException if the movie is not in the index.
+     */
+    public synchronized void update(Movie pMovie) {
+        Integer document = aDocumentNumbers.get(pMovie);
+        if (document == null) {
+            throw new IllegalArgumentException("The movie is not in the search index.");
+        }
+        String oldText = aTexts.get(document);
+        String newText = textOf(pMovie);
+        if (newText.equals(oldText)) {
+            return;
+        }
+        long[] oldTrigrams = trigrams(oldText);
+        long[] newTrigrams = trigrams(newText);
+        for (long trigram : oldTrigrams) {
+            if (Arrays.binarySearch(newTrigrams, trigram) < 0) {
+                removePosting(trigram, document);
+            }
+        }
+        for (long trigram : newTrigrams) {
+            if (Arrays.binarySearch(oldTrigrams, trigram) < 0) {
+                aPostings.computeIfAbsent(trigram, key -> new Postings()).insert(document);
+            }
+        }
+        aTexts.set(document, newText);
+        aFullTextIndex.add(document, FullTextIndex.tokenize(newText));
+
+        removeTerms(aTerms.get(document), document);
+        String[] terms = termsOf(pMovie);
+        aTerms.set(document, terms);
+        addTerms(terms, document);
+    }
+
+    /**
+     * Removes a movie from the index.
+     *
+     * @param pMovie The movie.
+     * @return {@code true} if the movie was in the index.
+     */
+    public synchronized boolean remove(Movie pMovie) {
+        Integer document = aDocumentNumbers.remove(pMovie);
+        if (document == null) {
+            return false;
+        }
+        for (long trigram : trigrams(aTexts.get(document))) {
+            removePosting(trigram, document);
+        }
+        aFullTextIndex.remove(document);
+        removeTerms(aTerms.get(document), document);
+        aDocuments.set(document, null);
+        aTexts.set(document, null);
+        aTerms.set(document, null);
+        return true;
+    }
+
+    /**
+     * Sets the popularity used to rank the results of a fuzzy search.
+     *
+     * @param pTicketsByTitle The tickets sold for each movie, keyed by title.
+     */
+    public synchronized void setPopularity(Map<String, Integer> pTicketsByTitle) {
+        Map<String, Integer> popularity = new HashMap<>();
+        pTicketsByTitle.forEach((title, tickets) -> popularity.merge(title.toLowerCase(Locale.ROOT), tickets, Integer::sum));
+        aPopularity = popularity;
+    }
+
+    /**
+     * Finds the movies whose title, genres, actors, director or description contain the query,
+     * ignoring case.
+     * <p>
+     * If no movie contains it, the movies containing some of its words are returned instead, best
+     * BM25 score first. If none does, the movies whose title or people names are within a typo or
+     * two of the query are returned, closest and best selling first.
+     * </p>
+     *
+     * @param pQuery The text to look for.
+     * @return The matching movies, in the order they were added; every movie if the query is blank.
+     */
+    public synchronized List<Movie> search(String pQuery) {
+        String query = pQuery == null ? "" : pQuery.trim().toLowerCase(Locale.ROOT);
+        List<Movie> results = findSubstring(query);
+        if (results.isEmpty()) {
+            results = findRanked(query, MAX_RANKED_RESULTS);
+        }
+        return results.isEmpty() ? findFuzzy(query) : results;
+    }
+
+    /**
+     * Finds the movies best matching the words of a query, wherever they appear in the title,
+     * genres, actors, director and description.
+     *
+     * @param pQuery The query.
+     * @param pLimit The most movies to return.
+     * @return The matching movies, best BM25 score first.
+     */
+    public synchronized List<Movie> findRanked(String pQuery, int pLimit) {
+        List<Movie> results = new ArrayList<>();
+        for (int document : aFullTextIndex.search(pQuery, pLimit)) {
+            results.add(aDocuments.get(document));
+        }
+        return results;
+    }
+
+    /**
+     * Finds the movies whose searchable text contains the query.
+     *
+     * @param pQuery The lowercased query.
+     * @return The matching movies, in the order they were added.
+     */
+    private List<Movie> findSubstring(String pQuery) {
+        List<Movie> results = new ArrayList<>();
+        if (pQuery.length() < 3) {
+            for (int document = 0; document < aTexts.size(); document++) {
+                String text = aTexts.get(document);
+                if (text != null && text.contains(pQuery)) {
+                    results.add(aDocuments.get(document));
+                }
+            }
+            return results;
+        }
+
+        long[] queryTrigrams = trigrams(pQuery);
+        Postings[] lists = new Postings[queryTrigrams.length];
+        for (int i = 0; i < queryTrigrams.length; i++) {
+            lists[i] = aPostings.get(queryTrigrams[i]);
+            if (lists[i] == null) {
+                return results;
+            }
+        }
+        Arrays.sort(lists, (first, second) -> Integer.compare(first.aSize, second.aSize));
+
+        Postings shortest = lists[0];
+        candidates:
+        for (int i = 0; i < shortest.aSize; i++) {
+            int document = shortest.aDocuments[i];
+            for (int j = 1; j < lists.length; j++) {
+                if (!lists[j].contains(document)) {
+                    continue candidates;
+                }
+            }
+            // The trigrams may be in the right document but not next to each other
+            if (aTexts.get(document).contains(pQuery)) {
+                results.add(aDocuments.get(document));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Finds the movies having a title or person name within a few edits of the query.
+     *
+     * @param pQuery The lowercased query.
+     * @return The matching movies, closest first, then best selling first, then in the order they were added.
+     */
+    private List<Movie> findFuzzy(String pQuery) {
+        int maxDistance = pQuery.length() < 4 ? 0 : pQuery.length() < 6 ? 1 : 2;
+        if (maxDistance == 0) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Integer> distances = new HashMap<>();
+        for (Map.Entry<String, Integer> match : aTermTrie.search(pQuery, maxDistance).entrySet()) {
+            for (int document : aTermDocuments.get(match.getKey())) {
+                distances.merge(document, match.getValue(), Math::min);
+            }
+        }
+        List<Integer> documents = new ArrayList<>(distances.keySet());
+        Map<Integer, Integer> popularity = new HashMap<>();
+        for (int document : documents) {
+            String title = aDocuments.get(document).getTitle();
+            popularity.put(document, title == null ? 0 : aPopularity.getOrDefault(title.toLowerCase(Locale.ROOT), 0));
+        }
+        documents.sort(Comparator.<Integer>comparingInt(distances::get)
+                .thenComparing(popularity::get, Comparator.reverseOrder())
+                .thenComparingInt(Integer::intValue));
+
+        List<Movie> results = new ArrayList<>(documents.size());
+        for (int document : documents) {
+            results.add(aDocuments.get(document));
+        }
+        return results;
+    }
+
+    /**
+     * Gets the number of movies in the index.
+     *
+     * @return The number of indexed movies.
+     */
+    public synchronized int size() {
+        return aDocumentNumbers.size();
+    }
+
+    /**
+     * Writes the trigram and word lists of the index, with the movies numbered by their position
+     * in the catalog.
+     *
+     * @param pOut     The output.
+     * @param pCatalog The movies of the catalog, in the order they were saved.
+     * @throws IOException              if the output fails.
+     * @throws IllegalArgumentException if the catalog does not hold exactly the indexed movies.
+     */
+    synchronized void writeSnapshot(DataOutputStream pOut, List<Movie> pCatalog) throws IOException {
+        if (pCatalog.size() != aDocumentNumbers.size()) {
+            throw new IllegalArgumentException("The catalog does not match the search index.");
+        }
+        // The position in the catalog of each document, and the document of each position
+        int[] positions = new int[aDocuments.size()];
+        int[] documents = new int[pCatalog.size()];
+        Arrays.fill(positions, -1);
+        for (int position = 0; position < pCatalog.size(); position++) {
+            Integer document = aDocumentNumbers.get(pCatalog.get(position));
+            if (document == null || positions[document] != -1) {
+                throw new IllegalArgumentException("The catalog does not match the search index.");
+            }
+            positions[document] = position;
+            documents[position] = document;
+        }
+
+        pOut.writeInt(aPostings.size());
+        for (Map.Entry<Long, Postings> entry : aPostings.entrySet()) {
+            Postings postings = entry.getValue();
+            int[] renumbered = new int[postings.aSize];
+            for (int i = 0; i < postings.aSize; i++) {
+                renumbered[i] = positions[postings.aDocuments[i]];
+            }
+            Arrays.sort(renumbered);
+            pOut.writeLong(entry.getKey());
+            SearchIndexStore.writeSortedInts(pOut, renumbered);
+        }
+        aFullTextIndex.writeSnapshot(pOut, positions, documents);
+    }
+
+    /**
+     * Fills this empty index from the lists written by {@link #writeSnapshot(DataOutputStream, List)}.
+     * <p>
+     * Only the searchable text and the fuzzy search terms of each movie are computed again; the
+     * lists are read as they are. If the lists cannot be read, the index is left empty.
+     * </p>
+     *
+     * @param pIn      The input, positioned on the lists.
+     * @param pCatalog The movies of the catalog the lists were written for, in the same order.
+     * @throws IllegalStateException if the index is not empty or the lists do not fit the catalog.
+     */
+    synchronized void readSnapshot(ByteBuffer pIn, List<Movie> pCatalog) {
+        if (!aDocuments.isEmpty()) {
+            throw new IllegalStateException("The search index is not empty.");
+        }
+        try {
+            for (Movie movie : pCatalog) {
+                int document = aDocuments.size();
+                aDocuments.add(movie);
+                aTexts.add(textOf(movie));
+                aDocumentNumbers.put(movie, document);
+                String[] terms = termsOf(movie);
+                aTerms.add(terms);
+                addTerms(terms, document);
+            }
+
+            int trigramCount = pIn.getInt();
+            for (int i = 0; i < trigramCount; i++) {
+                long trigram = pIn.getLong();
+                int[] documents = SearchIndexStore.readSortedInts(pIn);
+                if (documents.length == 0 || documents[documents.length - 1] >= pCatalog.size()) {
+                    throw new IllegalStateException("The search index file does not fit the catalog.");
+                }
+                aPostings.put(trigram, new Postings(documents));
+            }
+            aFullTextIndex.readSnapshot(pIn, pCatalog.size());
+        } catch (RuntimeException e) {
+            clear();
+            throw e;
+        }
+    }
+
+    /**
+     * Removes every movie from the index.
+     */
+    synchronized void clear() {
+        aDocuments.clear();
+        aTexts.clear();
+        aDocumentNumbers.clear();
+        aPostings.clear();
+        aFullTextIndex.clear();
+        aTerms.clear();
+        aTermDocuments.clear();
+        aTermTrie.clear();
+    }
+
+    /**
+     * Removes a document from the list of a trigram, dropping the list once it is empty.
+     *
+     * @param pTrigram  The trigram.
+     * @param pDocument The document number.
+     */
+    private void removePosting(long pTrigram, int pDocument) {
+        Postings postings = aPostings.get(pTrigram);
+        if (postings != null && postings.remove(pDocument) && postings.aSize == 0) {
+            aPostings.remove(pTrigram);
+        }
+    }
+
+    /**
+     * Adds the fuzzy search terms of a document.
+     *
+     * @param pTerms    The terms.
+     * @param pDocument The document number.
+     */
+    private void addTerms(String[] pTerms, int pDocument) {
+        for (String term : pTerms) {
+            Set<Integer> documents = aTermDocuments.get(term);
+            if (documents == null) {
+                documents = new HashSet<>(2);
+                aTermDocuments.put(term, documents);
+                aTermTrie.add(term);
+            }
+            documents.add(pDocument);
+        }
+    }
+
+    /**
+     * Removes the fuzzy search terms of a document.
+     *
+     * @param pTerms    The terms.
+     * @param pDocument The document number.
+     */
+    private void removeTerms(String[] pTerms, int pDocument) {
+        for (String term : pTerms) {
+            Set<Integer> documents = aTermDocuments.get(term);
+            if (documents != null && documents.remove(pDocument) && documents.isEmpty()) {
+                aTermDocuments.remove(term);
+                aTermTrie.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Gets the fuzzy search terms of a movie: its title, the names of its actors and director,
+     * and the words of three letters or more of each.
+     *
+     * @param pMovie The movie.
+     * @return The distinct lowercased terms.
+     */
+    private static String[] termsOf(Movie pMovie) {
+        Set<String> terms = new LinkedHashSet<>();
+        addTerms(terms, pMovie.getTitle());
+        for (String field : new String[] {pMovie.getActors(), pMovie.getDirector()}) {
+            if (field != null) {
+                for (String name : field.split(",")) {
+                    addTerms(terms, name);
+                }
+            }
+        }
+        return terms.toArray(new String[0]);
+    }
+
+    /**
+     * Adds a name and its words to a set of fuzzy search terms.
+     *
+     * @param pTerms The terms.
+     * @param pName  The name, skipped if {@code null}.
+     */
+    private static void addTerms(Set<String> pTerms, String pName) {
+        if (pName == null) {
+            return;
+        }
+        String name = pName.trim().toLowerCase(Locale.ROOT);
+        if (!name.isEmpty()) {
+            pTerms.add(name);
+        }
+        for (String word : name.split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() >= 3) {
+                pTerms.add(word);
+            }
+        }
+    }
+
+    /**
+     * Builds the lowercased searchable text of a movie.
+     *
+     * @param pMovie The movie.
+     * @return The title, genres, actors, director and description, one per line.
+     */
+    private static String textOf(Movie pMovie) {
+        StringBuilder text = new StringBuilder();
+        appendField(text, pMovie.getTitle());
+        if (pMovie.getGenres() != null) {
+            for (Genre genre : pMovie.getGenres()) {
+                appendField(text, genre.getName());
+            }
+        }
+        appendField(text, pMovie.getActors());
+        appendField(text, pMovie.getDirector());
+        appendField(text, pMovie.getDescription());
+        return text.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Appends a field to the searchable text of a movie.
+     *
+     * @param pText  The text built so far.
+     * @param pField The field, skipped if {@code null}.
+     */
+    private static void appendField(StringBuilder pText, String pField) {
+        if (pField != null) {
+            pText.append(pField).append(FIELD_SEPARATOR);
+        }
+    }
+
+    /**
+     * Gets the distinct trigrams of a text.
+     *
+     * @param pText The text.
+     * @return The trigrams packed in longs, sorted.
+     */
+    private static long[] trigrams(String pText) {
+        if (pText.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[pText.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) pText.charAt(i) << 32) | ((long) pText.charAt(i + 1) << 16) | pText.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    /**
+     * The sorted document numbers of the movies containing a trigram.
+     */
+    private static final class Postings {
+
+        /** The document numbers, sorted; only the first {@link #aSize} are used. */
+        private int[] aDocuments = new int[2];
+
+        /** The number of documents in the list. */
+        private int aSize;
+
+        /**
+         * Constructs an empty list.
+         */
+        private Postings() {
+        }
+
+        /**
+         * Constructs a list holding sorted documents.
+         *
+         * @param pDocuments The document numbers, sorted and not empty.
+         */
+        private Postings(int[] pDocuments) {
+            this.aDocuments = pDocuments;
+            this.aSize = pDocuments.length;
+        }
+
+        /**
+         * Adds a document numbered higher than every other one in the list.
+         *
+         * @param pDocument The document number.
+         */
+        private void append(int pDocument) {
+            grow();
+            aDocuments[aSize++] = pDocument;
+        }
+
+        /**
+         * Adds a document at its place in the list.
+         *
+         * @param pDocument The document number.
+         */
+        private void insert(int pDocument) {
+            int index = Arrays.binarySearch(aDocuments, 0, aSize, pDocument);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            grow();
+            System.arraycopy(aDocuments, index, aDocuments, index + 1, aSize - index);
+            aDocuments[index] = pDocument;
+            aSize++;
+        }
+
+        /**
+         * Removes a document from the list.
+         *
+         * @param pDocument The document number.
+         * @return {@code true} if the document was in the list.
+         */
+        private boolean remove(int pDocument) {
+            int index = Arrays.binarySearch(aDocuments, 0, aSize, pDocument);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(aDocuments, index + 1, aDocuments, index, aSize - index - 1);
+            aSize--;
+            return true;
+        }
+
+        /**
+         * Checks whether a document is in the list.
+         *
+         * @param pDocument The document number.
+         * @return {@code true} if the document contains the trigram.
+         */
+        private boolean contains(int pDocument) {
+            return Arrays.binarySearch(aDocuments, 0, aSize, pDocument) >= 0;
+        }
+
+        /**
+         * Makes room for one more document.
+         */
+        private void grow() {
+            if (aSize == aDocuments.length) {
+                aDocuments = Arrays.copyOf(aDocuments, aSize * 2);
+            }
+        }
+    }
+}
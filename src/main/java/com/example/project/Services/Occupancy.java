@@ -0,0 +1,76 @@
+package com.example.project.Services;
+
+/**
+ * The seats sold out of the seats offered by one showtime or a group of showtimes, such as the
+ * showtimes of a screening room or of a movie.
+ */
+public class Occupancy {
+
+    /** The showtime or the group, such as a room name or a movie name. */
+    private final String aKey;
+
+    /** The number of seats sold. */
+    private final long aSeatsSold;
+
+    /** The number of seats offered, the capacity of the room of each showtime added up. */
+    private final long aCapacity;
+
+    /**
+     * Constructs the occupancy of a showtime or a group of showtimes.
+     *
+     * @param pKey       The showtime or the group.
+     * @param pSeatsSold The number of seats sold.
+     * @param pCapacity  The number of seats offered.
+     */
+    public Occupancy(String pKey, long pSeatsSold, long pCapacity) {
+        this.aKey = pKey;
+        this.aSeatsSold = pSeatsSold;
+        this.aCapacity = pCapacity;
+    }
+
+    /**
+     * Gets the showtime or the group.
+     *
+     * @return The text naming it.
+     */
+    public String getKey() {
+        return aKey;
+    }
+
+    /**
+     * Gets the number of seats sold.
+     *
+     * @return The seats sold.
+     */
+    public long getSeatsSold() {
+        return aSeatsSold;
+    }
+
+    /**
+     * Gets the number of seats offered.
+     *
+     * @return The seats offered.
+     */
+    public long getCapacity() {
+        return aCapacity;
+    }
+
+    /**
+     * Gets the load factor, the part of the seats offered that were sold.
+     *
+     * @return The load factor, from 0 to 1, or 0 if no seat was offered.
+     */
+    public double getLoadFactor() {
+        return aCapacity == 0 ? 0 : (double) aSeatsSold / aCapacity;
+    }
+
+    /**
+     * Returns the group followed by its load factor.
+     *
+     * @return The text of the occupancy, e.g., "Room 1: 76% (152/200)".
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: %.0f%% (%d/%d)", aKey, getLoadFactor() * 100, aSeatsSold, aCapacity);
+    }
+}
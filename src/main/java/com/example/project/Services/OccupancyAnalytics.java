@@ -0,0 +1,247 @@
+package com.example.project.Services;
+
+import com.example.project.Model.ScreeningRoom;
+import com.example.project.Model.ShowTime;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * How full the showtimes are: the load factor of every showtime, screening room and movie, and
+ * a heatmap of the load factor of each room at each hour of the week.
+ * <p>
+ * The seats sold come from the seat counters of the {@link SalesRollups}, which the ticket store
+ * keeps up to date with every sale and refund, and the seats offered from the capacity of the
+ * room of each showtime. Building the analytics therefore only goes through the showtimes and
+ * the rooms, never through the tickets.
+ * </p>
+ * <p>
+ * A showtime is placed in the heatmap at the hour of the week it starts, Monday 00:00 being hour
+ * 0. Showtimes whose room no longer exists are left out, since their capacity is unknown, and
+ * so are showtimes without a start time; {@link #skippedShowTimes()} lists them so the view can
+ * say so. Showtimes sharing an identifier in old files are each counted on their own.
+ * </p>
+ */
+public class OccupancyAnalytics {
+
+    /** The number of hours in a week, the number of columns of the heatmap. */
+    public static final int HOURS_PER_WEEK = 7 * 24;
+
+    /** Orders the occupancies from the fullest, then by name. */
+    private static final Comparator<Occupancy> BY_LOAD_FACTOR = Comparator.comparingDouble(Occupancy::getLoadFactor)
+            .reversed()
+            .thenComparing(Occupancy::getKey, String.CASE_INSENSITIVE_ORDER);
+
+    /** The occupancy of every showtime, in the order of their dates. */
+    private final List<Occupancy> aByShowTime = new ArrayList<>();
+
+    /** The occupancy of every screening room, fullest first. */
+    private final List<Occupancy> aByRoom = new ArrayList<>();
+
+    /** The occupancy of every movie, fullest first. */
+    private final List<Occupancy> aByMovie = new ArrayList<>();
+
+    /** The showtimes left out, each described with the reason. */
+    private final List<String> aSkippedShowTimes = new ArrayList<>();
+
+    /** The rooms of the heatmap, in the order of their names. */
+    private final List<String> aHeatmapRooms = new ArrayList<>();
+
+    /** The seats sold in each room at each hour of the week. */
+    private long[][] aHeatmapSeatsSold;
+
+    /** The seats offered in each room at each hour of the week. */
+    private long[][] aHeatmapCapacity;
+
+    /**
+     * Builds the analytics of the showtimes.
+     *
+     * @param pSeatsByShowTime The seats sold for each showtime, keyed by the showtime as the
+     *                         tickets recorded it, as given by {@link SalesRollups#seatsByShowTime()}.
+     * @param pShowTimes       The showtimes.
+     * @param pRooms           The screening rooms.
+     * @return The analytics.
+     */
+    public static OccupancyAnalytics of(Map<ShowTimeKey, Long> pSeatsByShowTime, List<ShowTime> pShowTimes,
+                                        List<ScreeningRoom> pRooms) {
+        // Old tickets may hold the identifier of another showtime, so each one is matched to its own
+        ShowTimeCatalog catalog = new ShowTimeCatalog(pShowTimes);
+        Map<ShowTime, Long> seatsSold = new IdentityHashMap<>();
+        for (Map.Entry<ShowTimeKey, Long> entry : pSeatsByShowTime.entrySet()) {
+            ShowTime showTime = catalog.showTimeOf(entry.getKey());
+            if (showTime != null) {
+                seatsSold.merge(showTime, entry.getValue(), Long::sum);
+            }
+        }
+
+        Map<String, ScreeningRoom> roomsByName = new HashMap<>();
+        for (ScreeningRoom room : pRooms) {
+            if (room != null && room.getName() != null && room.getCapacity() > 0) {
+                roomsByName.putIfAbsent(roomKey(room.getName()), room);
+            }
+        }
+
+        OccupancyAnalytics analytics = new OccupancyAnalytics();
+        List<ShowTime> showTimes = new ArrayList<>();
+        for (ShowTime showTime : pShowTimes) {
+            if (showTime == null) {
+                continue;
+            }
+            if (showTime.getDateTime() == null) {
+                analytics.aSkippedShowTimes.add(showTime.getMovie() + " - room " + showTime.getScreeningRoom()
+                        + ": no start time");
+            } else if (!roomsByName.containsKey(roomKey(showTime.getScreeningRoom()))) {
+                analytics.aSkippedShowTimes.add(showTime.getMovie() + " - " + showTime.getFormattedDate() + " "
+                        + showTime.getFormattedTime() + ": unknown room \"" + showTime.getScreeningRoom() + "\"");
+            } else {
+                showTimes.add(showTime);
+            }
+        }
+        showTimes.sort(Comparator.comparing(ShowTime::getDateTime));
+
+        Map<String, long[]> byRoom = new LinkedHashMap<>();
+        Map<String, long[]> byMovie = new LinkedHashMap<>();
+        Map<String, Integer> heatmapRows = new HashMap<>();
+        roomsByName.values().stream()
+                .map(ScreeningRoom::getName)
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .forEach(name -> {
+                    heatmapRows.put(roomKey(name), analytics.aHeatmapRooms.size());
+                    analytics.aHeatmapRooms.add(name.trim());
+                });
+        analytics.aHeatmapSeatsSold = new long[analytics.aHeatmapRooms.size()][HOURS_PER_WEEK];
+        analytics.aHeatmapCapacity = new long[analytics.aHeatmapRooms.size()][HOURS_PER_WEEK];
+
+        for (ShowTime showTime : showTimes) {
+            ScreeningRoom room = roomsByName.get(roomKey(showTime.getScreeningRoom()));
+            long capacity = room.getCapacity();
+            // Seats sold past the capacity, from rooms made smaller since, still count as a full showtime
+            long sold = Math.min(seatsSold.getOrDefault(showTime, 0L), capacity);
+            String movie = showTime.getMovie() == null || showTime.getMovie().isBlank()
+                    ? SalesRollups.UNKNOWN : showTime.getMovie().trim();
+
+            analytics.aByShowTime.add(new Occupancy(movie + " - " + showTime.getFormattedDate() + " "
+                    + showTime.getFormattedTime() + " - " + room.getName().trim(), sold, capacity));
+            addTo(byRoom, room.getName().trim(), sold, capacity);
+            addTo(byMovie, movie, sold, capacity);
+
+            int row = heatmapRows.get(roomKey(room.getName()));
+            int hour = hourOfWeek(showTime.getDateTime());
+            analytics.aHeatmapSeatsSold[row][hour] += sold;
+            analytics.aHeatmapCapacity[row][hour] += capacity;
+        }
+
+        byRoom.forEach((name, total) -> analytics.aByRoom.add(new Occupancy(name, total[0], total[1])));
+        byMovie.forEach((name, total) -> analytics.aByMovie.add(new Occupancy(name, total[0], total[1])));
+        analytics.aByRoom.sort(BY_LOAD_FACTOR);
+        analytics.aByMovie.sort(BY_LOAD_FACTOR);
+        return analytics;
+    }
+
+    /**
+     * Gets the showtimes left out of the analytics.
+     *
+     * @return The showtimes without a start time or whose room no longer exists, each described
+     * with the reason, in the order of the showtime list.
+     */
+    public List<String> skippedShowTimes() {
+        return List.copyOf(aSkippedShowTimes);
+    }
+
+    /**
+     * Gets the occupancy of every showtime.
+     *
+     * @return The occupancies, in the order of the showtime dates.
+     */
+    public List<Occupancy> byShowTime() {
+        return List.copyOf(aByShowTime);
+    }
+
+    /**
+     * Gets the occupancy of every screening room that has showtimes.
+     *
+     * @return The occupancies, fullest first.
+     */
+    public List<Occupancy> byRoom() {
+        return List.copyOf(aByRoom);
+    }
+
+    /**
+     * Gets the occupancy of every movie that has showtimes.
+     *
+     * @return The occupancies, fullest first.
+     */
+    public List<Occupancy> byMovie() {
+        return List.copyOf(aByMovie);
+    }
+
+    /**
+     * Gets the screening rooms of the heatmap.
+     *
+     * @return The room names, one per row of the heatmap, in alphabetical order.
+     */
+    public List<String> getHeatmapRooms() {
+        return List.copyOf(aHeatmapRooms);
+    }
+
+    /**
+     * Gets one cell of the heatmap: the showtimes of a room starting at an hour of the week.
+     *
+     * @param pRoom       The row of the room, as in {@link #getHeatmapRooms()}.
+     * @param pHourOfWeek The hour of the week, from 0 for Monday 00:00 to 167 for Sunday 23:00.
+     * @return The occupancy of these showtimes, or {@code null} if the room has none at that hour.
+     */
+    public Occupancy getHeatmapCell(int pRoom, int pHourOfWeek) {
+        long capacity = aHeatmapCapacity[pRoom][pHourOfWeek];
+        if (capacity == 0) {
+            return null;
+        }
+        DayOfWeek day = DayOfWeek.of(pHourOfWeek / 24 + 1);
+        String key = aHeatmapRooms.get(pRoom) + ", " + day.getDisplayName(TextStyle.SHORT, Locale.ENGLISH)
+                + " " + SalesRollups.hourKey(pHourOfWeek % 24);
+        return new Occupancy(key, aHeatmapSeatsSold[pRoom][pHourOfWeek], capacity);
+    }
+
+    /**
+     * Gets the hour of the week of a time.
+     *
+     * @param pDateTime The time.
+     * @return The hour of the week, from 0 for Monday 00:00 to 167 for Sunday 23:00.
+     */
+    public static int hourOfWeek(LocalDateTime pDateTime) {
+        return (pDateTime.getDayOfWeek().getValue() - 1) * 24 + pDateTime.getHour();
+    }
+
+    /**
+     * Adds the seats of a showtime to a group.
+     *
+     * @param pGroups   The seats sold and offered of each group.
+     * @param pKey      The group.
+     * @param pSold     The seats sold.
+     * @param pCapacity The seats offered.
+     */
+    private static void addTo(Map<String, long[]> pGroups, String pKey, long pSold, long pCapacity) {
+        long[] total = pGroups.computeIfAbsent(pKey, k -> new long[2]);
+        total[0] += pSold;
+        total[1] += pCapacity;
+    }
+
+    /**
+     * Gets the key of a room name, matching names the way the booking service does.
+     *
+     * @param pName The room name, possibly {@code null}.
+     * @return The trimmed, lowercased name.
+     */
+    private static String roomKey(String pName) {
+        return pName == null ? "" : pName.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.project.Services;
+
+import java.io.Serial;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Builds sales reports over the ticket history on every core.
+ * <p>
+ * The rows of a {@link TicketColumns} are split in halves until each part is at most a segment
+ * long, and the halves are handed to a fork/join pool, which lets idle cores take the halves
+ * waiting in the queue of a busy one. Each segment is added up into its own {@link SalesReport}
+ * with no locking, and the reports of two halves are merged once both are done, so a report over
+ * millions of tickets takes about the time of one segment per core.
+ * </p>
+ * <p>
+ * A report runs in the background and is followed through its {@link ReportJob}, which tells the
+ * progress after every segment and can be cancelled.
+ * </p>
+ */
+public class ReportEngine {
+
+    /** The default most rows added up by one task. */
+    public static final int DEFAULT_SEGMENT_ROWS = 64 * 1024;
+
+    /** The pool running the tasks. */
+    private final ForkJoinPool aPool;
+
+    /** The most rows added up by one task. */
+    private final int aSegmentRows;
+
+    /**
+     * Constructs an engine running on the common fork/join pool, which has one thread per core.
+     */
+    public ReportEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SEGMENT_ROWS);
+    }
+
+    /**
+     * Constructs an engine.
+     *
+     * @param pPool        The pool running the tasks.
+     * @param pSegmentRows The most rows added up by one task.
+     * @throws IllegalArgumentException if the segment size is not positive.
+     */
+    public ReportEngine(ForkJoinPool pPool, int pSegmentRows) {
+        if (pSegmentRows <= 0) {
+            throw new IllegalArgumentException("Segment size must be a positive number.");
+        }
+        this.aPool = pPool;
+        this.aSegmentRows = pSegmentRows;
+    }
+
+    /**
+     * Starts building the report of the tickets bought in a period.
+     * <p>
+     * Without any bound, every ticket is counted; with a bound, the tickets without a purchase
+     * time are left out.
+     * </p>
+     *
+     * @param pColumns    The ticket history; it must not change while the report is built.
+     * @param pFrom       The first day of the period, or {@code null} for no start.
+     * @param pTo         The day after the period, or {@code null} for no end.
+     * @param pOnProgress Told the part of the rows gone through after every segment, from the
+     *                    threads of the pool, or {@code null}.
+     * @return The job building the report.
+     * @throws IllegalArgumentException if the period ends before it starts.
+     */
+    public ReportJob start(TicketColumns pColumns, LocalDate pFrom, LocalDate pTo, DoubleConsumer pOnProgress) {
+        if (pFrom != null && pTo != null && pTo.isBefore(pFrom)) {
+            throw new IllegalArgumentException("The report period ends before it starts.");
+        }
+        long from;
+        if (pFrom != null) {
+            from = pFrom.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        } else {
+            // Tickets without a purchase time are stored at the smallest time, so they are only kept without bounds
+            from = pTo == null ? Long.MIN_VALUE : Long.MIN_VALUE + 1;
+        }
+        long to = pTo == null ? Long.MAX_VALUE : pTo.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+
+        ReportJob job = new ReportJob(pColumns.size(), pOnProgress);
+        SegmentTask task = new SegmentTask(pColumns, from, to, 0, pColumns.size(), aSegmentRows, job);
+        CompletableFuture.supplyAsync(task::invoke, aPool).whenComplete((report, error) -> {
+            if (error == null) {
+                job.getResult().complete(report);
+            } else {
+                job.getResult().completeExceptionally(error);
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Adds up a range of rows, splitting it in halves run in parallel while it is longer than a segment.
+     * <p>
+     * Tasks are never serialized, although {@link RecursiveTask} is {@link java.io.Serializable}.
+     * </p>
+     */
+    @SuppressWarnings("serial")
+    private static class SegmentTask extends RecursiveTask<SalesReport> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /** The ticket history. */
+        private final TicketColumns aColumns;
+
+        /** The first purchase time of the period, inclusive. */
+        private final long aFromTime;
+
+        /** The purchase time ending the period, exclusive. */
+        private final long aToTime;
+
+        /** The first row, inclusive. */
+        private final int aFromRow;
+
+        /** The last row, exclusive. */
+        private final int aToRow;
+
+        /** The most rows added up by one task. */
+        private final int aSegmentRows;
+
+        /** The job the task belongs to. */
+        private final ReportJob aJob;
+
+        /**
+         * Constructs the task of a range of rows.
+         *
+         * @param pColumns     The ticket history.
+         * @param pFromTime    The first purchase time of the period, inclusive.
+         * @param pToTime      The purchase time ending the period, exclusive.
+         * @param pFromRow     The first row, inclusive.
+         * @param pToRow       The last row, exclusive.
+         * @param pSegmentRows The most rows added up by one task.
+         * @param pJob         The job the task belongs to.
+         */
+        SegmentTask(TicketColumns pColumns, long pFromTime, long pToTime, int pFromRow, int pToRow, int pSegmentRows,
+                    ReportJob pJob) {
+            this.aColumns = pColumns;
+            this.aFromTime = pFromTime;
+            this.aToTime = pToTime;
+            this.aFromRow = pFromRow;
+            this.aToRow = pToRow;
+            this.aSegmentRows = pSegmentRows;
+            this.aJob = pJob;
+        }
+
+        @Override
+        protected SalesReport compute() {
+            if (aJob.isCancelled()) {
+                throw new CancellationException("The report was cancelled.");
+            }
+            if (aToRow - aFromRow <= aSegmentRows) {
+                SalesReport report = new SalesReport(aColumns, aFromTime, aToTime);
+                report.accumulate(aFromRow, aToRow);
+                aJob.addProgress(aToRow - aFromRow);
+                return report;
+            }
+            int middle = (aFromRow + aToRow) >>> 1;
+            SegmentTask left = new SegmentTask(aColumns, aFromTime, aToTime, aFromRow, middle, aSegmentRows, aJob);
+            SegmentTask right = new SegmentTask(aColumns, aFromTime, aToTime, middle, aToRow, aSegmentRows, aJob);
+            left.fork();
+            SalesReport report = right.compute();
+            return left.join().merge(report);
+        }
+    }
+}
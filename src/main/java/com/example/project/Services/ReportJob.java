@@ -0,0 +1,92 @@
+package com.example.project.Services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A sales report being built by the {@link ReportEngine}.
+ * <p>
+ * The job tells how far the report has got and can be cancelled; the segments already being
+ * added up finish, and the others are skipped. The report itself is given by {@link #getResult()},
+ * which completes with it, or is cancelled.
+ * </p>
+ */
+public class ReportJob {
+
+    /** The report, once every segment is added up. */
+    private final CompletableFuture<SalesReport> aResult = new CompletableFuture<>();
+
+    /** The number of rows to go through. */
+    private final long aTotalRows;
+
+    /** The number of rows gone through so far. */
+    private final AtomicLong aRowsDone = new AtomicLong();
+
+    /** Told the progress after every segment, or {@code null}. */
+    private final DoubleConsumer aOnProgress;
+
+    /** Whether the job was cancelled. */
+    private volatile boolean aCancelled;
+
+    /**
+     * Constructs a job over a number of rows.
+     *
+     * @param pTotalRows  The number of rows to go through.
+     * @param pOnProgress Told the progress after every segment, from the threads building the
+     *                    report, or {@code null}.
+     */
+    ReportJob(long pTotalRows, DoubleConsumer pOnProgress) {
+        this.aTotalRows = pTotalRows;
+        this.aOnProgress = pOnProgress;
+    }
+
+    /**
+     * Gets the report.
+     *
+     * @return The report, completed once it is built, or cancelled along with the job.
+     */
+    public CompletableFuture<SalesReport> getResult() {
+        return aResult;
+    }
+
+    /**
+     * Gets how far the report has got.
+     *
+     * @return The part of the rows gone through, from 0 to 1.
+     */
+    public double getProgress() {
+        return aTotalRows == 0 ? 1 : (double) aRowsDone.get() / aTotalRows;
+    }
+
+    /**
+     * Cancels the job.
+     *
+     * @return {@code true} if the job was cancelled, {@code false} if the report was already built.
+     */
+    public boolean cancel() {
+        aCancelled = true;
+        return aResult.cancel(false);
+    }
+
+    /**
+     * Checks whether the job was cancelled.
+     *
+     * @return {@code true} if it was cancelled.
+     */
+    public boolean isCancelled() {
+        return aCancelled;
+    }
+
+    /**
+     * Records that a segment of rows was gone through.
+     *
+     * @param pRows The number of rows of the segment.
+     */
+    void addProgress(int pRows) {
+        long done = aRowsDone.addAndGet(pRows);
+        if (aOnProgress != null) {
+            aOnProgress.accept((double) done / aTotalRows);
+        }
+    }
+}
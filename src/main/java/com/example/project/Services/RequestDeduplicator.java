@@ -0,0 +1,158 @@
+package com.example.project.Services;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of requests by a token chosen by the client, so a retried request
+ * returns the original result instead of running again.
+ * <p>
+ * The first request with a token runs; any other request with the same token, while the first is
+ * still running or after it succeeded, gets the same result without running. A request that fails
+ * forgets its token so the client can try again. Tokens are forgotten after a time to live, and
+ * the oldest tokens are dropped when the table is full, so the table never grows without bound.
+ * </p>
+ *
+ * @param <T> The type of the results.
+ */
+public class RequestDeduplicator<T> {
+
+    /** How long a token is remembered when no duration is given. */
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    /** How many tokens are remembered at most when no size is given. */
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    /** The results, keyed by token. */
+    private final Map<String, Entry<T>> aEntries = new ConcurrentHashMap<>();
+
+    /** The entries in the order they were added, oldest first. */
+    private final Queue<Entry<T>> aOrder = new ConcurrentLinkedQueue<>();
+
+    /** How long a token is remembered, in milliseconds. */
+    private final long aTimeToLiveMillis;
+
+    /** How many tokens are remembered at most. */
+    private final int aMaxEntries;
+
+    /**
+     * Constructs a deduplicator.
+     *
+     * @param pTimeToLive How long a token is remembered.
+     * @param pMaxEntries How many tokens are remembered at most. Must be positive.
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    public RequestDeduplicator(Duration pTimeToLive, int pMaxEntries) {
+        if (pMaxEntries <= 0) {
+            throw new IllegalArgumentException("The table must hold at least one entry.");
+        }
+        this.aTimeToLiveMillis = pTimeToLive.toMillis();
+        this.aMaxEntries = pMaxEntries;
+    }
+
+    /**
+     * Runs a request once per token.
+     *
+     * @param pToken   The token chosen by the client, or {@code null} to always run the request.
+     * @param pRequest The request.
+     * @return The result of the request, or the result of the earlier request with the same token.
+     */
+    public T execute(String pToken, Supplier<T> pRequest) {
+        if (pToken == null || pToken.isEmpty()) {
+            return pRequest.get();
+        }
+
+        long now = System.currentTimeMillis();
+        Entry<T> entry = new Entry<>(pToken, now + aTimeToLiveMillis);
+        while (true) {
+            Entry<T> existing = aEntries.putIfAbsent(pToken, entry);
+            if (existing == null) {
+                break;
+            }
+            if (existing.aExpiresAt > now) {
+                return await(existing);
+            }
+            // The earlier request is too old to be a retry of this one
+            aEntries.remove(pToken, existing);
+        }
+        aOrder.add(entry);
+        evict(now);
+
+        try {
+            T result = pRequest.get();
+            entry.aResult.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            aEntries.remove(pToken, entry);
+            entry.aResult.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of tokens remembered.
+     *
+     * @return The number of tokens.
+     */
+    public int size() {
+        return aEntries.size();
+    }
+
+    /**
+     * Drops the expired tokens at the head of the table, and the oldest tokens while it is too big.
+     *
+     * @param pNow The current time, in milliseconds.
+     */
+    private void evict(long pNow) {
+        Entry<T> oldest;
+        while ((oldest = aOrder.peek()) != null
+                && (oldest.aExpiresAt <= pNow || aEntries.size() > aMaxEntries || aEntries.get(oldest.aToken) != oldest)) {
+            if (aOrder.remove(oldest)) {
+                aEntries.remove(oldest.aToken, oldest);
+            }
+        }
+    }
+
+    /**
+     * Waits for the result of an earlier request.
+     *
+     * @param pEntry The entry of the earlier request.
+     * @return Its result.
+     */
+    private static <T> T await(Entry<T> pEntry) {
+        try {
+            return pEntry.aResult.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The result of one token.
+     */
+    private static final class Entry<T> {
+
+        /** The token. */
+        private final String aToken;
+
+        /** The time after which the token is forgotten, in milliseconds. */
+        private final long aExpiresAt;
+
+        /** The result, completed once the request ran. */
+        private final CompletableFuture<T> aResult = new CompletableFuture<>();
+
+        private Entry(String pToken, long pExpiresAt) {
+            this.aToken = pToken;
+            this.aExpiresAt = pExpiresAt;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.project.Services;
+
+import com.example.project.Model.ScreeningRoom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the screening rooms answering queries on their features and capacity, such as
+ * "IMAX or 3D rooms with at least 180 seats".
+ * <p>
+ * The rooms are kept sorted by capacity, so the rooms within a capacity range form a contiguous
+ * run of that order, found with two binary searches. Each feature has its own bucket holding the
+ * positions of its rooms in that order, itself sorted by capacity, so a query reads only the part
+ * of the buckets of its features that falls in the range, instead of checking every room.
+ * </p>
+ * <p>
+ * The index is built from a snapshot of the rooms; build a new one when a room is added, edited
+ * or deleted.
+ * </p>
+ */
+public class RoomIndex {
+
+    /** The rooms, sorted by capacity and then by name. */
+    private final ScreeningRoom[] aRooms;
+
+    /** The capacity of each room, in the same order. */
+    private final int[] aCapacities;
+
+    /** The positions of the rooms of each feature, sorted, keyed by lowercased feature. */
+    private final Map<String, int[]> aFeatureBuckets = new HashMap<>();
+
+    /**
+     * Builds the index of a snapshot of the screening rooms.
+     *
+     * @param pRooms The screening rooms.
+     */
+    public RoomIndex(Collection<ScreeningRoom> pRooms) {
+        this.aRooms = pRooms.toArray(new ScreeningRoom[0]);
+        Arrays.sort(aRooms, Comparator.comparingInt(ScreeningRoom::getCapacity)
+                .thenComparing(ScreeningRoom::getName, String.CASE_INSENSITIVE_ORDER));
+
+        this.aCapacities = new int[aRooms.length];
+        Map<String, List<Integer>> buckets = new HashMap<>();
+        for (int i = 0; i < aRooms.length; i++) {
+            aCapacities[i] = aRooms[i].getCapacity();
+            buckets.computeIfAbsent(featureKey(aRooms[i].getFeatures()), key -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<String, List<Integer>> entry : buckets.entrySet()) {
+            aFeatureBuckets.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    /**
+     * Finds the rooms having any of a set of features and a capacity within a range.
+     *
+     * @param pFeatures    The accepted features, in any case; every feature is accepted if empty.
+     * @param pMinCapacity The smallest accepted capacity, inclusive.
+     * @param pMaxCapacity The largest accepted capacity, inclusive.
+     * @return The matching rooms, sorted by capacity and then by name.
+     */
+    public List<ScreeningRoom> find(Collection<String> pFeatures, int pMinCapacity, int pMaxCapacity) {
+        List<ScreeningRoom> rooms = new ArrayList<>();
+        if (pMinCapacity > pMaxCapacity) {
+            return rooms;
+        }
+        // The rooms within the range are the positions from the first room holding at least the minimum
+        // up to the first room holding more than the maximum
+        int from = lowerBound(pMinCapacity);
+        int to = pMaxCapacity == Integer.MAX_VALUE ? aRooms.length : lowerBound(pMaxCapacity + 1);
+
+        if (pFeatures.isEmpty()) {
+            for (int i = from; i < to; i++) {
+                rooms.add(aRooms[i]);
+            }
+            return rooms;
+        }
+
+        Set<String> features = new LinkedHashSet<>();
+        for (String feature : pFeatures) {
+            features.add(featureKey(feature));
+        }
+        // Each bucket is sorted, so the part of it within the range is found with binary searches too
+        int[] positions = new int[aRooms.length];
+        int count = 0;
+        for (String feature : features) {
+            int[] bucket = aFeatureBuckets.get(feature);
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = firstAtLeast(bucket, from); i < bucket.length && bucket[i] < to; i++) {
+                positions[count++] = bucket[i];
+            }
+        }
+        // Each room has a single feature, so the buckets never share a room; merge them back in capacity order
+        Arrays.sort(positions, 0, count);
+        for (int i = 0; i < count; i++) {
+            rooms.add(aRooms[positions[i]]);
+        }
+        return rooms;
+    }
+
+    /**
+     * Finds the rooms having any of a set of features and at least a number of seats.
+     *
+     * @param pFeatures    The accepted features, in any case; every feature is accepted if empty.
+     * @param pMinCapacity The smallest accepted capacity, inclusive.
+     * @return The matching rooms, sorted by capacity and then by name.
+     */
+    public List<ScreeningRoom> find(Collection<String> pFeatures, int pMinCapacity) {
+        return find(pFeatures, pMinCapacity, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the number of rooms in the index.
+     *
+     * @return The number of rooms.
+     */
+    public int size() {
+        return aRooms.length;
+    }
+
+    /**
+     * Finds the position of the first room holding at least a number of seats.
+     *
+     * @param pCapacity The number of seats.
+     * @return The position, or the number of rooms if every room is smaller.
+     */
+    private int lowerBound(int pCapacity) {
+        int low = 0;
+        int high = aCapacities.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (aCapacities[middle] < pCapacity) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first entry of a sorted bucket that is not smaller than a position.
+     *
+     * @param pBucket   The bucket.
+     * @param pPosition The position.
+     * @return The index of that entry, or the length of the bucket if every entry is smaller.
+     */
+    private static int firstAtLeast(int[] pBucket, int pPosition) {
+        int index = Arrays.binarySearch(pBucket, pPosition);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Gets the key of a feature in the buckets.
+     *
+     * @param pFeature The feature, in any case.
+     * @return The trimmed, lowercased feature.
+     */
+    private static String featureKey(String pFeature) {
+        return pFeature == null ? "" : pFeature.trim().toLowerCase(Locale.ROOT);
+    }
+}
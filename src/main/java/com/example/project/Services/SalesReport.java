@@ -0,0 +1,262 @@
+package com.example.project.Services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The figures of a sales report over the ticket history: the number of sales and of tickets,
+ * the smallest and largest sale, the first and last purchase, and the tickets of every movie,
+ * screening room, day and hour.
+ * <p>
+ * A report is built in parts by the {@link ReportEngine}: each part covers a segment of the rows
+ * of a {@link TicketColumns}, and the parts are merged two by two until one report is left.
+ * Every figure merges by adding up, or by keeping the smaller or the larger value, so the
+ * report does not depend on how the rows were split.
+ * </p>
+ */
+public class SalesReport {
+
+    /** The number of hours in a day. */
+    private static final int HOURS_PER_DAY = 24;
+
+    /** The number of seconds in a day. */
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    /** The columns the report is built from, which name the movies and rooms. */
+    private final TicketColumns aColumns;
+
+    /** The first purchase time of the period covered, inclusive. */
+    private final long aFrom;
+
+    /** The last purchase time of the period covered, exclusive. */
+    private final long aTo;
+
+    /** The number of sales, each sale being one ticket record. */
+    private long aSaleCount;
+
+    /** The number of tickets sold. */
+    private long aTicketCount;
+
+    /** The fewest tickets of a sale, or {@link Integer#MAX_VALUE} if there is no sale. */
+    private int aMinTickets = Integer.MAX_VALUE;
+
+    /** The most tickets of a sale, or {@link Integer#MIN_VALUE} if there is no sale. */
+    private int aMaxTickets = Integer.MIN_VALUE;
+
+    /** The earliest purchase time, or {@link Long#MAX_VALUE} if none. */
+    private long aFirstPurchase = Long.MAX_VALUE;
+
+    /** The latest purchase time, or {@link Long#MIN_VALUE} if none. */
+    private long aLastPurchase = Long.MIN_VALUE;
+
+    /** The tickets of each movie, by movie code. */
+    private final long[] aTicketsByMovie;
+
+    /** The tickets of each screening room, by room code. */
+    private final long[] aTicketsByRoom;
+
+    /** The tickets of each day, by the number of days since the first purchase day of the columns. */
+    private final long[] aTicketsByDay;
+
+    /** The tickets of each hour of the day. */
+    private final long[] aTicketsByHour = new long[HOURS_PER_DAY];
+
+    /**
+     * Constructs an empty report over the tickets bought in a period.
+     *
+     * @param pColumns The columns the report is built from.
+     * @param pFrom    The first purchase time of the period, in seconds since 1970-01-01T00:00
+     *                 local time, or {@link Long#MIN_VALUE} to include the tickets without a
+     *                 purchase time and everything before the end of the period.
+     * @param pTo      The purchase time ending the period, exclusive, or {@link Long#MAX_VALUE}
+     *                 for no end.
+     */
+    SalesReport(TicketColumns pColumns, long pFrom, long pTo) {
+        this.aColumns = pColumns;
+        this.aFrom = pFrom;
+        this.aTo = pTo;
+        this.aTicketsByMovie = new long[pColumns.getMovieCount()];
+        this.aTicketsByRoom = new long[pColumns.getRoomCount()];
+        this.aTicketsByDay = new long[pColumns.getDayCount()];
+    }
+
+    /**
+     * Adds the tickets of a range of rows bought in the period of the report.
+     *
+     * @param pFromRow The first row, inclusive.
+     * @param pToRow   The last row, exclusive.
+     */
+    void accumulate(int pFromRow, int pToRow) {
+        long[] purchaseTimes = aColumns.purchaseTimes();
+        int[] counts = aColumns.counts();
+        int[] movies = aColumns.movies();
+        int[] rooms = aColumns.rooms();
+        long firstDay = aColumns.firstEpochDay();
+        for (int row = pFromRow; row < pToRow; row++) {
+            long time = purchaseTimes[row];
+            if (time < aFrom || time >= aTo) {
+                continue;
+            }
+            int count = counts[row];
+            aSaleCount++;
+            aTicketCount += count;
+            aMinTickets = Math.min(aMinTickets, count);
+            aMaxTickets = Math.max(aMaxTickets, count);
+            aTicketsByMovie[movies[row]] += count;
+            aTicketsByRoom[rooms[row]] += count;
+            if (time != TicketColumns.NO_PURCHASE_TIME) {
+                aFirstPurchase = Math.min(aFirstPurchase, time);
+                aLastPurchase = Math.max(aLastPurchase, time);
+                long day = Math.floorDiv(time, SECONDS_PER_DAY);
+                aTicketsByDay[(int) (day - firstDay)] += count;
+                aTicketsByHour[(int) ((time - day * SECONDS_PER_DAY) / 3600)] += count;
+            }
+        }
+    }
+
+    /**
+     * Adds the figures of another part of the same report to this one.
+     *
+     * @param pOther The other part, built from the same columns over the same period.
+     * @return This report.
+     */
+    SalesReport merge(SalesReport pOther) {
+        aSaleCount += pOther.aSaleCount;
+        aTicketCount += pOther.aTicketCount;
+        aMinTickets = Math.min(aMinTickets, pOther.aMinTickets);
+        aMaxTickets = Math.max(aMaxTickets, pOther.aMaxTickets);
+        aFirstPurchase = Math.min(aFirstPurchase, pOther.aFirstPurchase);
+        aLastPurchase = Math.max(aLastPurchase, pOther.aLastPurchase);
+        addTo(aTicketsByMovie, pOther.aTicketsByMovie);
+        addTo(aTicketsByRoom, pOther.aTicketsByRoom);
+        addTo(aTicketsByDay, pOther.aTicketsByDay);
+        addTo(aTicketsByHour, pOther.aTicketsByHour);
+        return this;
+    }
+
+    /**
+     * Gets the number of sales.
+     *
+     * @return The number of ticket records.
+     */
+    public long getSaleCount() {
+        return aSaleCount;
+    }
+
+    /**
+     * Gets the number of tickets sold.
+     *
+     * @return The number of tickets.
+     */
+    public long getTicketCount() {
+        return aTicketCount;
+    }
+
+    /**
+     * Gets the revenue of the tickets sold.
+     *
+     * @return The revenue, in cents.
+     */
+    public long getRevenueCents() {
+        return aTicketCount * SalesRollups.TICKET_PRICE_CENTS;
+    }
+
+    /**
+     * Gets the fewest tickets bought in one sale.
+     *
+     * @return The number of tickets, or 0 if there is no sale.
+     */
+    public int getMinTickets() {
+        return aSaleCount == 0 ? 0 : aMinTickets;
+    }
+
+    /**
+     * Gets the most tickets bought in one sale.
+     *
+     * @return The number of tickets, or 0 if there is no sale.
+     */
+    public int getMaxTickets() {
+        return aSaleCount == 0 ? 0 : aMaxTickets;
+    }
+
+    /**
+     * Gets the time of the first purchase.
+     *
+     * @return The time, or {@code null} if no sale has a purchase time.
+     */
+    public LocalDateTime getFirstPurchase() {
+        return aFirstPurchase == Long.MAX_VALUE ? null : LocalDateTime.ofEpochSecond(aFirstPurchase, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Gets the time of the last purchase.
+     *
+     * @return The time, or {@code null} if no sale has a purchase time.
+     */
+    public LocalDateTime getLastPurchase() {
+        return aLastPurchase == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(aLastPurchase, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Gets the totals of every group of a dimension that sold tickets.
+     *
+     * @param pDimension The dimension.
+     * @return The totals, in the same order as {@link SalesRollups#totals(SalesRollups.Dimension)}.
+     */
+    public List<SalesTotal> totals(SalesRollups.Dimension pDimension) {
+        List<SalesTotal> totals = new ArrayList<>();
+        switch (pDimension) {
+            case MOVIE -> {
+                for (int movie = 0; movie < aTicketsByMovie.length; movie++) {
+                    addTotal(totals, aColumns.getMovieName(movie), aTicketsByMovie[movie]);
+                }
+            }
+            case ROOM -> {
+                for (int room = 0; room < aTicketsByRoom.length; room++) {
+                    addTotal(totals, aColumns.getRoomName(room), aTicketsByRoom[room]);
+                }
+            }
+            case DAY -> {
+                LocalDate firstDay = aColumns.getFirstDay();
+                for (int day = 0; day < aTicketsByDay.length; day++) {
+                    addTotal(totals, firstDay.plusDays(day).toString(), aTicketsByDay[day]);
+                }
+            }
+            case HOUR -> {
+                for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                    addTotal(totals, SalesRollups.hourKey(hour), aTicketsByHour[hour]);
+                }
+            }
+        }
+        SalesRollups.sort(pDimension, totals);
+        return totals;
+    }
+
+    /**
+     * Adds the total of a group to a list, unless the group sold no ticket.
+     *
+     * @param pTotals  The list.
+     * @param pKey     The group.
+     * @param pTickets The tickets of the group.
+     */
+    private static void addTotal(List<SalesTotal> pTotals, String pKey, long pTickets) {
+        if (pTickets != 0) {
+            pTotals.add(new SalesTotal(pKey, pTickets, pTickets * SalesRollups.TICKET_PRICE_CENTS));
+        }
+    }
+
+    /**
+     * Adds each entry of an array to the same entry of another.
+     *
+     * @param pSums   The array added to.
+     * @param pValues The array added.
+     */
+    private static void addTo(long[] pSums, long[] pValues) {
+        for (int i = 0; i < pSums.length; i++) {
+            pSums[i] += pValues[i];
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.project.Services;
+
+import com.example.project.Model.ShowTime;
+import com.example.project.Model.Ticket;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Running totals of the ticket sales: the tickets sold and their revenue per movie, per day,
+ * per screening room and per hour of the day, the seats sold for each showtime, along with the
+ * grand totals.
+ * <p>
+ * The totals are updated with every sale and every refund, so reading them never goes through
+ * the tickets themselves. The {@link TicketStore} keeps them as it appends tickets to its journal
+ * and saves them next to the ticket file, along with the length of the journal they include,
+ * whenever it compacts the journal and every thousand records appended to it; a report then
+ * only reads the saved totals and the last records of the journal, whatever the number of
+ * tickets ever sold.
+ * </p>
+ * <p>
+ * A sale is counted on the day and at the hour it was made, in the screening room and for the
+ * movie of its showtime. The revenue is counted in cents, at {@link BookingService#TICKET_PRICE}
+ * per ticket. The totals are thread-safe.
+ * </p>
+ */
+public class SalesRollups {
+
+    /**
+     * The groupings of the sales.
+     */
+    public enum Dimension {
+        /** The movie of the showtime. */
+        MOVIE,
+        /** The day of the purchase. */
+        DAY,
+        /** The screening room of the showtime. */
+        ROOM,
+        /** The hour of the day of the purchase. */
+        HOUR
+    }
+
+    /** The group of sales whose movie, room or purchase time is missing. */
+    public static final String UNKNOWN = "Unknown";
+
+    /** The price of one ticket, in cents. */
+    static final long TICKET_PRICE_CENTS = Math.round(BookingService.TICKET_PRICE * 100);
+
+    /** The first bytes of a totals file, "SRUP". */
+    private static final int MAGIC = 0x53525550;
+
+    /** The version of the layout of the totals file, raised whenever the layout changes. */
+    private static final int FORMAT_VERSION = 4;
+
+    /** Orders the totals from the largest revenue, then by group. */
+    private static final Comparator<SalesTotal> BY_REVENUE = Comparator.comparingLong(SalesTotal::getRevenueCents)
+            .reversed()
+            .thenComparing(SalesTotal::getKey, String.CASE_INSENSITIVE_ORDER);
+
+    /** The tickets and revenue in cents of each group, for each dimension. */
+    private final Map<Dimension, Map<String, long[]>> aTotals = new EnumMap<>(Dimension.class);
+
+    /**
+     * The seats sold for each showtime, keyed by the showtime as the tickets recorded it, since
+     * old tickets may hold the identifier of another showtime.
+     */
+    private final Map<ShowTimeKey, Long> aSeatsByShowTime = new HashMap<>();
+
+    /** The number of sales counted, each sale being one ticket record. */
+    private long aSaleCount;
+
+    /** The number of tickets sold. */
+    private long aTicketCount;
+
+    /** The revenue of the tickets sold, in cents. */
+    private long aRevenueCents;
+
+    /** The length of the journal included in totals loaded from a file. */
+    private long aJournalOffset;
+
+    /**
+     * Constructs empty totals.
+     */
+    public SalesRollups() {
+        for (Dimension dimension : Dimension.values()) {
+            aTotals.put(dimension, new HashMap<>());
+        }
+    }
+
+    /**
+     * Builds the totals of a list of tickets.
+     *
+     * @param pTickets The tickets sold and not refunded.
+     * @return The totals.
+     */
+    public static SalesRollups of(Collection<Ticket> pTickets) {
+        SalesRollups rollups = new SalesRollups();
+        for (Ticket ticket : pTickets) {
+            rollups.record(ticket);
+        }
+        return rollups;
+    }
+
+    /**
+     * Adds a sale to the totals.
+     *
+     * @param pTicket The ticket sold.
+     */
+    public synchronized void record(Ticket pTicket) {
+        apply(pTicket, 1);
+    }
+
+    /**
+     * Takes a refunded sale away from the totals.
+     *
+     * @param pTicket The ticket refunded.
+     */
+    public synchronized void refund(Ticket pTicket) {
+        apply(pTicket, -1);
+    }
+
+    /**
+     * Gets the totals of every group of a dimension.
+     *
+     * @param pDimension The dimension.
+     * @return The totals, in the order of the days and hours, or from the largest revenue for
+     * the movies and the rooms.
+     */
+    public synchronized List<SalesTotal> totals(Dimension pDimension) {
+        List<SalesTotal> totals = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : aTotals.get(pDimension).entrySet()) {
+            totals.add(new SalesTotal(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        sort(pDimension, totals);
+        return totals;
+    }
+
+    /**
+     * Sorts the totals of a dimension in the order they are reported in.
+     *
+     * @param pDimension The dimension.
+     * @param pTotals    The totals of its groups.
+     */
+    static void sort(Dimension pDimension, List<SalesTotal> pTotals) {
+        if (pDimension == Dimension.DAY || pDimension == Dimension.HOUR) {
+            // Days are written as yyyy-MM-dd and hours as HH:00, so they sort as text
+            pTotals.sort(Comparator.comparing(SalesTotal::getKey));
+        } else {
+            pTotals.sort(BY_REVENUE);
+        }
+    }
+
+    /**
+     * Gets the group of an hour of the day.
+     *
+     * @param pHour The hour, from 0 to 23.
+     * @return The group, such as "09:00".
+     */
+    static String hourKey(int pHour) {
+        return String.format("%02d:00", pHour);
+    }
+
+    /**
+     * Gets the seats sold for each showtime.
+     *
+     * @return A copy of the seats sold, keyed by the showtime as the tickets recorded it; showtimes
+     * without any sale are left out. {@link ShowTimeCatalog#showTimeOf(ShowTimeKey)} finds the
+     * showtime of each key.
+     */
+    public synchronized Map<ShowTimeKey, Long> seatsByShowTime() {
+        return new HashMap<>(aSeatsByShowTime);
+    }
+
+    /**
+     * Gets the number of sales counted.
+     *
+     * @return The number of ticket records sold and not refunded.
+     */
+    public synchronized long getSaleCount() {
+        return aSaleCount;
+    }
+
+    /**
+     * Gets the number of tickets sold.
+     *
+     * @return The number of tickets.
+     */
+    public synchronized long getTicketCount() {
+        return aTicketCount;
+    }
+
+    /**
+     * Gets the revenue of the tickets sold.
+     *
+     * @return The revenue, in cents.
+     */
+    public synchronized long getRevenueCents() {
+        return aRevenueCents;
+    }
+
+    /**
+     * Gets the length of the journal included in totals loaded from a file; the records after it
+     * are still to be added.
+     *
+     * @return The length in bytes, 0 for totals that were not loaded.
+     */
+    long getJournalOffset() {
+        return aJournalOffset;
+    }
+
+    /**
+     * Saves the totals to a file, through a temporary file that then replaces it.
+     *
+     * @param pPath          The path of the totals file.
+     * @param pVersion       The version of the tickets the totals were built from, checked when loading.
+     * @param pJournalOffset The length of the journal the totals include.
+     * @throws IOException if the file cannot be written.
+     */
+    public synchronized void save(Path pPath, long pVersion, long pJournalOffset) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(pVersion);
+        out.writeLong(pJournalOffset);
+        out.writeLong(aSaleCount);
+        out.writeLong(aTicketCount);
+        out.writeLong(aRevenueCents);
+        for (Dimension dimension : Dimension.values()) {
+            Map<String, long[]> groups = aTotals.get(dimension);
+            out.writeInt(groups.size());
+            for (Map.Entry<String, long[]> entry : groups.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue()[0]);
+                out.writeLong(entry.getValue()[1]);
+            }
+        }
+        out.writeInt(aSeatsByShowTime.size());
+        for (Map.Entry<ShowTimeKey, Long> entry : aSeatsByShowTime.entrySet()) {
+            entry.getKey().write(out);
+            out.writeLong(entry.getValue());
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(bytes.toByteArray());
+        out.writeInt((int) checksum.getValue());
+
+        Path temporaryPath = Path.of(pPath + ".tmp");
+        Files.write(temporaryPath, bytes.toByteArray());
+        Files.move(temporaryPath, pPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads totals saved by {@link #save(Path, long, long)}, provided they were built from the current tickets.
+     *
+     * @param pPath    The path of the totals file.
+     * @param pVersion The version of the current tickets.
+     * @return The totals, or {@code null} if the file is missing, corrupt or built from other tickets.
+     */
+    public static SalesRollups load(Path pPath, long pVersion) {
+        if (pVersion == -1 || !Files.exists(pPath)) {
+            return null;
+        }
+        try {
+            byte[] file = Files.readAllBytes(pPath);
+            if (file.length < 72) {
+                return null;
+            }
+            // The last four bytes are the checksum of everything before them
+            int length = file.length - Integer.BYTES;
+            CRC32C checksum = new CRC32C();
+            checksum.update(file, 0, length);
+            if ((int) checksum.getValue() != ByteBuffer.wrap(file).getInt(length)) {
+                return null;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(file, 0, length));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != pVersion) {
+                return null;
+            }
+            SalesRollups rollups = new SalesRollups();
+            rollups.aJournalOffset = in.readLong();
+            rollups.aSaleCount = in.readLong();
+            rollups.aTicketCount = in.readLong();
+            rollups.aRevenueCents = in.readLong();
+            for (Dimension dimension : Dimension.values()) {
+                Map<String, long[]> groups = rollups.aTotals.get(dimension);
+                for (int count = in.readInt(); count > 0; count--) {
+                    groups.put(in.readUTF(), new long[]{in.readLong(), in.readLong()});
+                }
+            }
+            for (int count = in.readInt(); count > 0; count--) {
+                rollups.aSeatsByShowTime.put(ShowTimeKey.read(in), in.readLong());
+            }
+            return in.available() > 0 ? null : rollups;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Sales totals could not be loaded, they will be rebuilt: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Adds a ticket to every total, or takes it away.
+     *
+     * @param pTicket The ticket.
+     * @param pSign   {@code 1} to add the ticket, {@code -1} to take it away.
+     */
+    private void apply(Ticket pTicket, int pSign) {
+        long tickets = (long) pSign * pTicket.getTicketsPurchased();
+        long revenue = tickets * TICKET_PRICE_CENTS;
+        aSaleCount += pSign;
+        aTicketCount += tickets;
+        aRevenueCents += revenue;
+
+        ShowTime showTime = pTicket.getShowtime();
+        if (showTime != null) {
+            ShowTimeKey key = ShowTimeKey.of(showTime);
+            if (aSeatsByShowTime.merge(key, tickets, Long::sum) == 0) {
+                aSeatsByShowTime.remove(key);
+            }
+        }
+        add(Dimension.MOVIE, showTime == null ? null : showTime.getMovie(), tickets, revenue);
+        add(Dimension.ROOM, showTime == null ? null : showTime.getScreeningRoom(), tickets, revenue);
+        if (pTicket.getPurchaseDateTime() == null) {
+            add(Dimension.DAY, null, tickets, revenue);
+            add(Dimension.HOUR, null, tickets, revenue);
+        } else {
+            add(Dimension.DAY, pTicket.getPurchaseDateTime().toLocalDate().toString(), tickets, revenue);
+            add(Dimension.HOUR, hourKey(pTicket.getPurchaseDateTime().getHour()), tickets, revenue);
+        }
+    }
+
+    /**
+     * Adds tickets and revenue to one group, dropping the group once nothing is left in it.
+     *
+     * @param pDimension The dimension of the group.
+     * @param pKey       The group, or {@code null} if it is unknown.
+     * @param pTickets   The tickets to add, negative for a refund.
+     * @param pRevenue   The revenue to add in cents, negative for a refund.
+     */
+    private void add(Dimension pDimension, String pKey, long pTickets, long pRevenue) {
+        String key = pKey == null || pKey.isBlank() ? UNKNOWN : pKey.trim();
+        Map<String, long[]> groups = aTotals.get(pDimension);
+        long[] total = groups.computeIfAbsent(key, k -> new long[2]);
+        total[0] += pTickets;
+        total[1] += pRevenue;
+        if (total[0] == 0 && total[1] == 0) {
+            groups.remove(key);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.project.Services;
+
+/**
+ * The tickets sold and the revenue of one group of sales, such as one movie or one day.
+ * <p>
+ * The revenue is kept in cents so that adding and taking away sales never drifts.
+ * </p>
+ */
+public class SalesTotal {
+
+    /** The group, such as a movie name, a day or an hour. */
+    private final String aKey;
+
+    /** The number of tickets sold. */
+    private final long aTickets;
+
+    /** The revenue of the tickets, in cents. */
+    private final long aRevenueCents;
+
+    /**
+     * Constructs the total of a group of sales.
+     *
+     * @param pKey          The group.
+     * @param pTickets      The number of tickets sold.
+     * @param pRevenueCents The revenue of the tickets, in cents.
+     */
+    public SalesTotal(String pKey, long pTickets, long pRevenueCents) {
+        this.aKey = pKey;
+        this.aTickets = pTickets;
+        this.aRevenueCents = pRevenueCents;
+    }
+
+    /**
+     * Gets the group of the sales.
+     *
+     * @return The group, such as a movie name, a day or an hour.
+     */
+    public String getKey() {
+        return aKey;
+    }
+
+    /**
+     * Gets the number of tickets sold.
+     *
+     * @return The number of tickets.
+     */
+    public long getTickets() {
+        return aTickets;
+    }
+
+    /**
+     * Gets the revenue of the tickets, in cents.
+     *
+     * @return The revenue in cents.
+     */
+    public long getRevenueCents() {
+        return aRevenueCents;
+    }
+
+    /**
+     * Gets the revenue of the tickets.
+     *
+     * @return The revenue, in dollars.
+     */
+    public double getRevenue() {
+        return aRevenueCents / 100.0;
+    }
+
+    /**
+     * Returns the group followed by its tickets.
+     *
+     * @return The text of the total, e.g., "Dune (42 tickets)".
+     */
+    @Override
+    public String toString() {
+        return aKey + " (" + aTickets + " tickets)";
+    }
+}
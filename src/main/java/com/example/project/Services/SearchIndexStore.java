@@ -0,0 +1,253 @@
+package com.example.project.Services;
+
+import com.example.project.Model.Movie;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Saves the movie search index to disk, so that it is reused at the next launch instead of being
+ * rebuilt from the whole catalog.
+ * <p>
+ * The index file holds the trigram lists and the BM25 word lists of a {@link MovieSearchIndex},
+ * with the movies numbered by their position in the catalog. Each list is written as the gaps
+ * between its sorted numbers in a variable number of bytes, so most entries take a single byte.
+ * The file starts with the version of the catalog it was built from, which is a checksum of the
+ * catalog file, and ends with a checksum of its own content.
+ * </p>
+ * <p>
+ * On startup the file is read into memory and straight into the lists, which only works if
+ * the catalog file has not changed since; a missing, corrupt or stale index file is reported as
+ * absent, and the caller rebuilds the index instead. Loading runs on the caller's thread, which
+ * should be a background one. The index is then kept up to date in memory, and the whole index is
+ * written again after every change of the catalog by a background thread, which also computes
+ * the version of the catalog; when several saves are queued, only the last one is written.
+ * </p>
+ */
+public final class SearchIndexStore {
+
+    /** The first bytes of an index file, "MSIX". */
+    private static final int MAGIC = 0x4D534958;
+
+    /** The version of the layout of the index file, raised whenever the layout changes. */
+    private static final int FORMAT_VERSION = 1;
+
+    /** The last save requested for each index file, so that older saves still queued are skipped. */
+    private static final Map<Path, Long> LATEST_SAVES = new ConcurrentHashMap<>();
+
+    /** Numbers the saves in the order they are requested. */
+    private static final AtomicLong SAVE_COUNTER = new AtomicLong();
+
+    /** The background thread writing the index files, one after the other. */
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Prevents instantiation; the store is used through its static methods.
+     */
+    private SearchIndexStore() {
+    }
+
+    /**
+     * Computes the version of a catalog file, a checksum of its content.
+     *
+     * @param pCatalogPath The path of the catalog file.
+     * @return The version, or {@code -1} if the file cannot be read.
+     */
+    public static long catalogVersion(String pCatalogPath) {
+        CRC32C checksum = new CRC32C();
+        try (InputStream in = Files.newInputStream(Path.of(pCatalogPath))) {
+            byte[] buffer = new byte[64 * 1024];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                checksum.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+        return checksum.getValue();
+    }
+
+    /**
+     * Loads a saved index into an empty index, provided it was built from the current catalog.
+     * <p>
+     * The index is locked while it is loaded, so the searches and changes made meanwhile wait for
+     * it and are then applied in order.
+     * </p>
+     *
+     * @param pIndexPath      The path of the index file.
+     * @param pIndex          The empty index to fill.
+     * @param pCatalog        The movies of the catalog, in the order they were saved.
+     * @param pCatalogVersion The version of the catalog file, as given by {@link #catalogVersion(String)}.
+     * @return {@code true} if the index was loaded, {@code false} if the file is missing, corrupt or
+     * built from another catalog, or if the index is not empty; the index is then left as it was.
+     */
+    public static boolean load(String pIndexPath, MovieSearchIndex pIndex, List<Movie> pCatalog, long pCatalogVersion) {
+        Path path = Path.of(pIndexPath);
+        if (pCatalogVersion == -1 || !Files.exists(path)) {
+            return false;
+        }
+        try {
+            // Read into the heap rather than mapped, so that the file can be replaced while the index is in use
+            ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (file.limit() < 24) {
+                return false;
+            }
+            // The last four bytes are the checksum of everything before them
+            CRC32C checksum = new CRC32C();
+            checksum.update(file.slice(0, file.limit() - Integer.BYTES));
+            if ((int) checksum.getValue() != file.getInt(file.limit() - Integer.BYTES)) {
+                return false;
+            }
+            ByteBuffer content = file.slice(0, file.limit() - Integer.BYTES);
+            if (content.getInt() != MAGIC || content.getInt() != FORMAT_VERSION
+                    || content.getLong() != pCatalogVersion || content.getInt() != pCatalog.size()) {
+                return false;
+            }
+            synchronized (pIndex) {
+                pIndex.readSnapshot(content, pCatalog);
+                if (content.hasRemaining()) {
+                    pIndex.clear();
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Search index could not be loaded, it will be rebuilt: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves an index built from the current catalog, on a background thread.
+     * <p>
+     * The background thread computes the version of the catalog file, writes the index while
+     * holding its lock, and replaces the index file through a temporary file. A save is skipped
+     * if another save of the same file was requested after it, since that one matches the index
+     * and the catalog as they last changed.
+     * </p>
+     *
+     * @param pIndexPath   The path of the index file.
+     * @param pIndex       The index.
+     * @param pCatalog     The movies of the catalog, in the order they were saved; they must be
+     *                     exactly the movies of the index.
+     * @param pCatalogPath The path of the saved catalog file.
+     */
+    public static void save(String pIndexPath, MovieSearchIndex pIndex, List<Movie> pCatalog, String pCatalogPath) {
+        Path path = Path.of(pIndexPath);
+        long saveNumber = SAVE_COUNTER.incrementAndGet();
+        LATEST_SAVES.put(path, saveNumber);
+        WRITER.execute(() -> {
+            if (LATEST_SAVES.get(path) != saveNumber) {
+                return;
+            }
+            long catalogVersion = catalogVersion(pCatalogPath);
+            if (catalogVersion == -1) {
+                System.err.println("Search index could not be saved: the catalog cannot be read.");
+                return;
+            }
+            Path temporaryPath = Path.of(pIndexPath + ".tmp");
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(catalogVersion);
+                out.writeInt(pCatalog.size());
+                pIndex.writeSnapshot(out, pCatalog);
+                CRC32C checksum = new CRC32C();
+                checksum.update(bytes.toByteArray());
+                out.writeInt((int) checksum.getValue());
+                // The catalog may have been saved again while this one was written
+                if (LATEST_SAVES.get(path) != saveNumber) {
+                    return;
+                }
+                Files.write(temporaryPath, bytes.toByteArray());
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Search index could not be saved: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Writes a number in one to five bytes, seven bits at a time, smaller numbers taking fewer bytes.
+     *
+     * @param pOut   The output.
+     * @param pValue The number, not negative.
+     * @throws IOException if the output fails.
+     */
+    static void writeVarInt(DataOutputStream pOut, int pValue) throws IOException {
+        while ((pValue & ~0x7F) != 0) {
+            pOut.writeByte((pValue & 0x7F) | 0x80);
+            pValue >>>= 7;
+        }
+        pOut.writeByte(pValue);
+    }
+
+    /**
+     * Reads a number written by {@link #writeVarInt(DataOutputStream, int)}.
+     *
+     * @param pIn The input.
+     * @return The number.
+     * @throws IllegalStateException if the number is longer than five bytes.
+     */
+    static int readVarInt(ByteBuffer pIn) {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte next = pIn.get();
+            value |= (next & 0x7F) << shift;
+            if (next >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed number in the search index file.");
+    }
+
+    /**
+     * Writes a sorted list of distinct numbers as its size followed by the gaps between them.
+     *
+     * @param pOut    The output.
+     * @param pValues The numbers, sorted and not negative.
+     * @throws IOException if the output fails.
+     */
+    static void writeSortedInts(DataOutputStream pOut, int[] pValues) throws IOException {
+        writeVarInt(pOut, pValues.length);
+        int previous = 0;
+        for (int value : pValues) {
+            writeVarInt(pOut, value - previous);
+            previous = value;
+        }
+    }
+
+    /**
+     * Reads a list written by {@link #writeSortedInts(DataOutputStream, int[])}.
+     *
+     * @param pIn The input.
+     * @return The numbers, sorted.
+     */
+    static int[] readSortedInts(ByteBuffer pIn) {
+        int[] values = new int[readVarInt(pIn)];
+        int previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            previous += readVarInt(pIn);
+            values[i] = previous;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.project.Services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * A run of adjacent seats in one row of a screening room.
+ * <p>
+ * Rows and seats are numbered from zero internally. Their labels follow the usual cinema
+ * convention: rows are lettered from the screen ("A", "B", ...) and seats are numbered from one,
+ * so the block of row 2, seats 4 to 7 reads "C5-C8".
+ * </p>
+ */
+public final class SeatBlock {
+
+    /** The row of the block, counted from the screen. */
+    private final int aRow;
+
+    /** The first seat of the block in its row. */
+    private final int aFirstSeat;
+
+    /** The number of seats in the block. */
+    private final int aSeatCount;
+
+    /**
+     * Constructs a block of seats.
+     *
+     * @param pRow       The row of the block, counted from zero.
+     * @param pFirstSeat The first seat of the block, counted from zero.
+     * @param pSeatCount The number of seats. Must be positive.
+     * @throws IllegalArgumentException if a position is negative or the seat count is not positive.
+     */
+    public SeatBlock(int pRow, int pFirstSeat, int pSeatCount) {
+        if (pRow < 0 || pFirstSeat < 0) {
+            throw new IllegalArgumentException("Seat positions cannot be negative.");
+        }
+        if (pSeatCount <= 0) {
+            throw new IllegalArgumentException("Seat count must be a positive number.");
+        }
+        this.aRow = pRow;
+        this.aFirstSeat = pFirstSeat;
+        this.aSeatCount = pSeatCount;
+    }
+
+    /**
+     * Gets the row of the block.
+     *
+     * @return The row, counted from zero.
+     */
+    public int getRow() {
+        return aRow;
+    }
+
+    /**
+     * Gets the first seat of the block.
+     *
+     * @return The first seat, counted from zero.
+     */
+    public int getFirstSeat() {
+        return aFirstSeat;
+    }
+
+    /**
+     * Gets the number of seats in the block.
+     *
+     * @return The number of seats.
+     */
+    public int getSeatCount() {
+        return aSeatCount;
+    }
+
+    /**
+     * Gets the label of the block, such as "C5-C8", or "C5" for a single seat.
+     *
+     * @return The label.
+     */
+    public String getLabel() {
+        String row = rowLabel(aRow);
+        String first = row + (aFirstSeat + 1);
+        return aSeatCount == 1 ? first : first + "-" + row + (aFirstSeat + aSeatCount);
+    }
+
+    @Override
+    public String toString() {
+        return getLabel();
+    }
+
+    /**
+     * Gets the label of a row: "A" to "Z", then "AA", "AB" and so on.
+     *
+     * @param pRow The row, counted from zero.
+     * @return The row label.
+     */
+    public static String rowLabel(int pRow) {
+        StringBuilder label = new StringBuilder();
+        int row = pRow + 1;
+        while (row > 0) {
+            row--;
+            label.insert(0, (char) ('A' + row % 26));
+            row /= 26;
+        }
+        return label.toString();
+    }
+
+    /**
+     * Formats blocks as a comma separated list of labels.
+     *
+     * @param pBlocks The blocks.
+     * @return The labels, or an empty string if there are no blocks.
+     */
+    public static String format(List<SeatBlock> pBlocks) {
+        StringJoiner labels = new StringJoiner(", ");
+        for (SeatBlock block : pBlocks) {
+            labels.add(block.getLabel());
+        }
+        return labels.toString();
+    }
+
+    /**
+     * Parses labels written by {@link #format(List)}.
+     *
+     * @param pLabels The labels, may be {@code null} or empty.
+     * @return The blocks.
+     * @throws IllegalArgumentException if a label is malformed.
+     */
+    public static List<SeatBlock> parse(String pLabels) {
+        List<SeatBlock> blocks = new ArrayList<>();
+        if (pLabels == null || pLabels.isBlank()) {
+            return blocks;
+        }
+        for (String label : pLabels.split(",")) {
+            String[] ends = label.trim().split("-");
+            if (ends.length > 2) {
+                throw new IllegalArgumentException("Invalid seat label: " + label);
+            }
+            int[] first = parseSeat(ends[0]);
+            int[] last = ends.length == 2 ? parseSeat(ends[1]) : first;
+            if (first[0] != last[0] || last[1] < first[1]) {
+                throw new IllegalArgumentException("Invalid seat label: " + label);
+            }
+            blocks.add(new SeatBlock(first[0], first[1], last[1] - first[1] + 1));
+        }
+        return blocks;
+    }
+
+    /**
+     * Parses a single seat label such as "C5".
+     *
+     * @param pLabel The seat label.
+     * @return The row and the seat, both counted from zero.
+     * @throws IllegalArgumentException if the label is malformed.
+     */
+    private static int[] parseSeat(String pLabel) {
+        int letters = 0;
+        int row = 0;
+        while (letters < pLabel.length() && pLabel.charAt(letters) >= 'A' && pLabel.charAt(letters) <= 'Z') {
+            row = row * 26 + (pLabel.charAt(letters) - 'A' + 1);
+            letters++;
+        }
+        if (letters == 0 || letters == pLabel.length()) {
+            throw new IllegalArgumentException("Invalid seat label: " + pLabel);
+        }
+        try {
+            return new int[]{row - 1, Integer.parseInt(pLabel.substring(letters)) - 1};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid seat label: " + pLabel);
+        }
+    }
+}
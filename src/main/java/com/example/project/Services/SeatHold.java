@@ -0,0 +1,159 @@
+package com.example.project.Services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Represents seats temporarily set aside for one buyer.
+ * <p>
+ * A hold starts {@link State#PENDING} and ends exactly once, either confirmed by a purchase,
+ * released by the buyer, or expired by the {@link SeatHoldService}. The state is changed with a
+ * compare-and-set so that a purchase and an expiry racing on the same hold cannot both win.
+ * </p>
+ */
+public class SeatHold {
+
+    /**
+     * The lifecycle states of a hold.
+     */
+    public enum State {
+        /** The seats are set aside and waiting for a purchase. */
+        PENDING,
+        /** The seats were bought. */
+        CONFIRMED,
+        /** The buyer gave the seats back. */
+        RELEASED,
+        /** The hold timed out and the seats were given back. */
+        EXPIRED
+    }
+
+    /** The unique identifier of the hold. */
+    private final long aID;
+
+    /** The identifier of the showtime the seats belong to. */
+    private final int aShowTimeId;
+
+    /** The number of seats held. */
+    private final int aSeatCount;
+
+    /** The seats held. */
+    private final List<SeatBlock> aSeats;
+
+    /** The date and time after which the hold is no longer valid. */
+    private final LocalDateTime aExpiresAt;
+
+    /** The current state of the hold. */
+    private final AtomicReference<State> aState = new AtomicReference<>(State.PENDING);
+
+    /** The timeout that will expire this hold. */
+    private TimingWheel.Timeout<SeatHold> aTimeout;
+
+    /**
+     * Constructs a pending hold.
+     *
+     * @param pID         The unique identifier of the hold.
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats held.
+     * @param pSeats      The seats held.
+     * @param pExpiresAt  The date and time after which the hold is no longer valid.
+     */
+    public SeatHold(long pID, int pShowTimeId, int pSeatCount, List<SeatBlock> pSeats, LocalDateTime pExpiresAt) {
+        this.aID = pID;
+        this.aShowTimeId = pShowTimeId;
+        this.aSeatCount = pSeatCount;
+        this.aSeats = List.copyOf(pSeats);
+        this.aExpiresAt = pExpiresAt;
+    }
+
+    /**
+     * Gets the unique identifier of the hold.
+     *
+     * @return The hold identifier.
+     */
+    public long getID() {
+        return aID;
+    }
+
+    /**
+     * Gets the identifier of the showtime the seats belong to.
+     *
+     * @return The showtime identifier.
+     */
+    public int getShowTimeId() {
+        return aShowTimeId;
+    }
+
+    /**
+     * Gets the number of seats held.
+     *
+     * @return The number of seats.
+     */
+    public int getSeatCount() {
+        return aSeatCount;
+    }
+
+    /**
+     * Gets the seats held.
+     *
+     * @return The blocks of seats, a single block when the seats are side by side.
+     */
+    public List<SeatBlock> getSeats() {
+        return aSeats;
+    }
+
+    /**
+     * Gets the date and time after which the hold is no longer valid.
+     *
+     * @return The expiry date and time.
+     */
+    public LocalDateTime getExpiresAt() {
+        return aExpiresAt;
+    }
+
+    /**
+     * Gets the current state of the hold.
+     *
+     * @return The hold state.
+     */
+    public State getState() {
+        return aState.get();
+    }
+
+    /**
+     * Checks whether the hold is still waiting for a purchase.
+     *
+     * @return {@code true} if the hold is pending.
+     */
+    public boolean isPending() {
+        return aState.get() == State.PENDING;
+    }
+
+    /**
+     * Ends the hold if it is still pending.
+     *
+     * @param pFinalState The state the hold ends in.
+     * @return {@code true} if this call ended the hold.
+     */
+    boolean complete(State pFinalState) {
+        return aState.compareAndSet(State.PENDING, pFinalState);
+    }
+
+    /**
+     * Sets the timeout that will expire this hold.
+     *
+     * @param pTimeout The scheduled timeout.
+     */
+    void setTimeout(TimingWheel.Timeout<SeatHold> pTimeout) {
+        this.aTimeout = pTimeout;
+    }
+
+    /**
+     * Gets the timeout that will expire this hold.
+     *
+     * @return The scheduled timeout.
+     */
+    TimingWheel.Timeout<SeatHold> getTimeout() {
+        return aTimeout;
+    }
+}
@@ -0,0 +1,391 @@
+package com.example.project.Services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service that places short holds on the seats of a showtime.
+ * <p>
+ * A buyer first holds seats, then either confirms the hold when the ticket is bought or releases
+ * it. Holds that are neither confirmed nor released expire on their own. Every pending hold is
+ * a single entry in a {@link TimingWheel} that is advanced by one background thread, so the cost
+ * of expiring holds does not grow with the number of holds waiting.
+ * </p>
+ * <p>
+ * Seats given back by a release, an expired hold or a refund are first offered to the
+ * {@link SeatsFreedListener}, which may keep them claimed for clients waiting for the showtime;
+ * only the seats it does not keep become free for new holds.
+ * </p>
+ */
+public class SeatHoldService {
+
+    /**
+     * How long a hold lasts when no duration is given.
+     */
+    public static final Duration DEFAULT_HOLD_DURATION = Duration.ofMinutes(2);
+
+    /**
+     * Resolution of the timing wheel, in milliseconds.
+     */
+    private static final long TICK_MILLIS = 100;
+
+    /**
+     * Inventories of every known showtime, keyed by showtime id.
+     */
+    private final Map<Integer, SeatInventory> aInventories = new ConcurrentHashMap<>();
+
+    /**
+     * Pending holds keyed by hold id.
+     */
+    private final Map<Long, SeatHold> aHolds = new ConcurrentHashMap<>();
+
+    /**
+     * The timing wheel that expires the pending holds.
+     */
+    private final TimingWheel<SeatHold> aWheel;
+
+    /**
+     * Thread that advances the timing wheel.
+     */
+    private final ScheduledExecutorService aTicker;
+
+    /**
+     * Source of hold identifiers.
+     */
+    private final AtomicLong aNextHoldId = new AtomicLong(1);
+
+    /**
+     * How long a hold lasts.
+     */
+    private final Duration aHoldDuration;
+
+    /**
+     * Offered the seats given back before they become free, or {@code null}.
+     */
+    private volatile SeatsFreedListener aSeatsFreedListener;
+
+    /**
+     * Offered the seats of a showtime whenever they are given back.
+     */
+    public interface SeatsFreedListener {
+
+        /**
+         * Takes seats that were given back. The seats kept stay claimed in the inventory of the
+         * showtime, and are held again through {@link SeatHoldService#holdClaimedSeats(int, int)} or given back
+         * with {@link SeatInventory#release(int)}. Runs on the thread freeing the seats, so it must
+         * not block.
+         *
+         * @param pShowTimeId The identifier of the showtime.
+         * @param pSeatCount  The number of seats given back.
+         * @return The number of seats kept, at most the number given back.
+         */
+        int seatsFreed(int pShowTimeId, int pSeatCount);
+    }
+
+    /**
+     * Constructs a hold service. Call {@link #start()} to have its holds expire.
+     *
+     * @param pHoldDuration How long a hold lasts before it expires.
+     */
+    public SeatHoldService(Duration pHoldDuration) {
+        this.aHoldDuration = pHoldDuration;
+        this.aWheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+        this.aTicker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-hold-expiry");
+            thread.setDaemon(true); // Never keep the application alive just to expire holds
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the expiry thread, which advances the timing wheel every tick. Call it once.
+     */
+    public void start() {
+        aTicker.scheduleAtFixedRate(this::expireHolds, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the listener offered the seats of a showtime whenever they are given back by a
+     * release, an expired hold or a refund.
+     *
+     * @param pListener The listener.
+     */
+    public void setSeatsFreedListener(SeatsFreedListener pListener) {
+        this.aSeatsFreedListener = pListener;
+    }
+
+    /**
+     * Registers the seats of a showtime if it is not known yet.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pCapacity   The number of seats in the room.
+     * @param pSold       The number of seats already sold.
+     * @return The inventory of the showtime.
+     */
+    public SeatInventory registerShowTime(int pShowTimeId, int pCapacity, int pSold) {
+        return aInventories.computeIfAbsent(pShowTimeId, id -> new SeatInventory(id, pCapacity, pSold));
+    }
+
+    /**
+     * Gets the inventory of a showtime.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @return The inventory, or {@code null} if the showtime was never registered.
+     */
+    public SeatInventory getInventory(int pShowTimeId) {
+        return aInventories.get(pShowTimeId);
+    }
+
+    /**
+     * Holds seats of a showtime for the configured duration.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats to hold. Must be positive.
+     * @return The pending hold.
+     * @throws IllegalArgumentException if the seat count is not positive or the showtime is unknown.
+     * @throws IllegalStateException    if not enough seats are free.
+     */
+    public SeatHold hold(int pShowTimeId, int pSeatCount) {
+        List<SeatBlock> seats = claimSeats(pShowTimeId, pSeatCount);
+        if (seats == null) {
+            throw new IllegalStateException("Only " + getAvailableSeats(pShowTimeId) + " seats are left for this showtime.");
+        }
+        return placeHold(pShowTimeId, pSeatCount, seats);
+    }
+
+    /**
+     * Holds seats of a showtime that are already claimed in its inventory, such as the seats kept
+     * by the {@link SeatsFreedListener}, for the configured duration.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats to hold, out of the seats claimed. Must be positive.
+     * @return The pending hold, or {@code null} if the seat map cannot place the seats, which only
+     *         happens with old data; the seats then stay claimed.
+     * @throws IllegalArgumentException if the seat count is not positive or the showtime is unknown.
+     */
+    public SeatHold holdClaimedSeats(int pShowTimeId, int pSeatCount) {
+        if (pSeatCount <= 0) {
+            throw new IllegalArgumentException("Seat count must be a positive number.");
+        }
+        SeatInventory inventory = aInventories.get(pShowTimeId);
+        if (inventory == null) {
+            throw new IllegalArgumentException("Unknown showtime: " + pShowTimeId);
+        }
+        List<SeatBlock> seats = inventory.getSeatMap().allocate(pSeatCount);
+        return seats == null ? null : placeHold(pShowTimeId, pSeatCount, seats);
+    }
+
+    /**
+     * Places a hold on allocated seats and schedules its expiry.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats held.
+     * @param pSeats      The seats allocated for the hold.
+     * @return The pending hold.
+     */
+    private SeatHold placeHold(int pShowTimeId, int pSeatCount, List<SeatBlock> pSeats) {
+        SeatHold hold = new SeatHold(aNextHoldId.getAndIncrement(), pShowTimeId, pSeatCount, pSeats,
+                LocalDateTime.now().plus(aHoldDuration));
+        aHolds.put(hold.getID(), hold);
+        hold.setTimeout(aWheel.schedule(hold, aHoldDuration.toMillis()));
+        return hold;
+    }
+
+    /**
+     * Claims seats of a showtime without placing a hold, allocating the best available ones.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats. Must be positive.
+     * @return The seats claimed, or {@code null} if not enough seats are free.
+     * @throws IllegalArgumentException if the seat count is not positive or the showtime is unknown.
+     */
+    public List<SeatBlock> claimSeats(int pShowTimeId, int pSeatCount) {
+        if (pSeatCount <= 0) {
+            throw new IllegalArgumentException("Seat count must be a positive number.");
+        }
+        SeatInventory inventory = aInventories.get(pShowTimeId);
+        if (inventory == null) {
+            throw new IllegalArgumentException("Unknown showtime: " + pShowTimeId);
+        }
+        if (!inventory.tryClaim(pSeatCount)) {
+            return null;
+        }
+        List<SeatBlock> seats = inventory.getSeatMap().allocate(pSeatCount);
+        if (seats == null) {
+            // Only happens with old data where tickets without seats could not all be placed
+            inventory.release(pSeatCount);
+        }
+        return seats;
+    }
+
+    /**
+     * Gives back seats claimed by {@link #claimSeats(int, int)} that will not be sold.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeats      The seats to give back.
+     */
+    public void releaseSeats(int pShowTimeId, List<SeatBlock> pSeats) {
+        SeatInventory inventory = aInventories.get(pShowTimeId);
+        if (!inventory.getSeatMap().free(pSeats)) {
+            // Seats given back twice must not be counted as available twice
+            System.err.println("Seats " + pSeats + " of showtime " + pShowTimeId + " were not allocated.");
+            return;
+        }
+        giveBack(inventory, countSeats(pSeats));
+    }
+
+    /**
+     * Gives back seats that were sold.
+     * <p>
+     * Only the seats freed in the seat map are counted as given back, so that the counters never
+     * let a buyer claim a seat the map cannot place. The seats of a ticket from old data that could
+     * not all be placed in the room are fewer than the seats sold, and seats that are not allocated
+     * are not given back at all.
+     * </p>
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeats      The seats to free in the seat map.
+     */
+    public void refundSeats(int pShowTimeId, List<SeatBlock> pSeats) {
+        SeatInventory inventory = aInventories.get(pShowTimeId);
+        if (!inventory.getSeatMap().free(pSeats)) {
+            System.err.println("Seats " + pSeats + " of showtime " + pShowTimeId + " were not allocated.");
+            return;
+        }
+        int freed = countSeats(pSeats);
+        inventory.refund(freed);
+        giveBack(inventory, freed);
+    }
+
+    /**
+     * Gets a pending hold.
+     *
+     * @param pHoldId The identifier of the hold.
+     * @return The hold, or {@code null} if it is no longer pending.
+     */
+    public SeatHold getHold(long pHoldId) {
+        return aHolds.get(pHoldId);
+    }
+
+    /**
+     * Confirms a pending hold, turning its seats into sold seats.
+     *
+     * @param pHoldId The identifier of the hold.
+     * @return {@code true} if the hold was pending and is now confirmed.
+     */
+    public boolean confirm(long pHoldId) {
+        SeatHold hold = aHolds.remove(pHoldId);
+        if (hold == null || !hold.complete(SeatHold.State.CONFIRMED)) {
+            return false;
+        }
+        cancelTimeout(hold);
+        aInventories.get(hold.getShowTimeId()).markSold(hold.getSeatCount());
+        return true;
+    }
+
+    /**
+     * Releases a pending hold, giving its seats back.
+     *
+     * @param pHoldId The identifier of the hold.
+     * @return {@code true} if the hold was pending and is now released.
+     */
+    public boolean release(long pHoldId) {
+        SeatHold hold = aHolds.remove(pHoldId);
+        if (hold == null || !hold.complete(SeatHold.State.RELEASED)) {
+            return false;
+        }
+        cancelTimeout(hold);
+        releaseSeats(hold.getShowTimeId(), hold.getSeats());
+        return true;
+    }
+
+    /**
+     * Gets the number of free seats of a showtime.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @return The free seats, or 0 if the showtime is unknown.
+     */
+    public int getAvailableSeats(int pShowTimeId) {
+        SeatInventory inventory = aInventories.get(pShowTimeId);
+        return inventory == null ? 0 : inventory.getAvailable();
+    }
+
+    /**
+     * Gets the number of holds waiting to be confirmed or released.
+     *
+     * @return The number of pending holds.
+     */
+    public int getPendingHoldCount() {
+        return aWheel.size();
+    }
+
+    /**
+     * Stops the expiry thread. Pending holds are left as they are.
+     */
+    public void shutdown() {
+        aTicker.shutdownNow();
+    }
+
+    /**
+     * Advances the timing wheel and gives back the seats of every hold that timed out.
+     */
+    private void expireHolds() {
+        List<SeatHold> expired = aWheel.advance(System.currentTimeMillis());
+        for (SeatHold hold : expired) {
+            if (hold.complete(SeatHold.State.EXPIRED)) {
+                aHolds.remove(hold.getID());
+                releaseSeats(hold.getShowTimeId(), hold.getSeats());
+            }
+        }
+    }
+
+    /**
+     * Offers claimed seats that were given back to the listener, and frees the ones it does not keep.
+     *
+     * @param pInventory The inventory of the showtime.
+     * @param pSeatCount The number of seats given back.
+     */
+    private void giveBack(SeatInventory pInventory, int pSeatCount) {
+        int kept = 0;
+        SeatsFreedListener listener = aSeatsFreedListener;
+        if (listener != null) {
+            kept = Math.max(0, Math.min(pSeatCount, listener.seatsFreed(pInventory.getShowTimeId(), pSeatCount)));
+        }
+        if (kept < pSeatCount) {
+            pInventory.release(pSeatCount - kept);
+        }
+    }
+
+    /**
+     * Counts the seats of blocks.
+     *
+     * @param pSeats The blocks.
+     * @return The number of seats.
+     */
+    private static int countSeats(List<SeatBlock> pSeats) {
+        int count = 0;
+        for (SeatBlock block : pSeats) {
+            count += block.getSeatCount();
+        }
+        return count;
+    }
+
+    /**
+     * Removes the timeout of a hold that ended before expiring.
+     *
+     * @param pHold The hold that ended.
+     */
+    private void cancelTimeout(SeatHold pHold) {
+        TimingWheel.Timeout<SeatHold> timeout = pHold.getTimeout();
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.project.Services;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of the seats of a single showtime.
+ * <p>
+ * A seat is either free, claimed by a pending hold, or sold. The inventory keeps one counter for
+ * every claimed seat (held or sold) and one for the sold seats only, so a hold can be placed or
+ * released with a single compare-and-set and no lock is needed to stop two buyers from taking
+ * the last seats of a show.
+ * </p>
+ * <p>
+ * Which seats are taken is tracked by the {@link SeatMap} of the inventory. The counters are
+ * claimed before seats are allocated from the map and released after they are freed, so the map
+ * always has a free seat for every seat the counters let a buyer claim.
+ * </p>
+ */
+public class SeatInventory {
+
+    /** The identifier of the showtime these seats belong to. */
+    private final int aShowTimeId;
+
+    /** The number of seats in the screening room. */
+    private final int aCapacity;
+
+    /** The number of seats that are either held or sold. */
+    private final AtomicInteger aClaimed;
+
+    /** The number of seats that are sold. */
+    private final AtomicInteger aSold;
+
+    /** The seats of the room and which of them are taken. */
+    private final SeatMap aSeatMap;
+
+    /**
+     * Constructs the inventory of a showtime.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pCapacity   The number of seats in the screening room. Must be positive.
+     * @param pSold       The number of seats already sold. Must not be negative.
+     * @throws IllegalArgumentException if the capacity or the sold count is invalid.
+     */
+    public SeatInventory(int pShowTimeId, int pCapacity, int pSold) {
+        if (pCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be a positive number.");
+        }
+        if (pSold < 0) {
+            throw new IllegalArgumentException("Sold seats cannot be negative.");
+        }
+        this.aShowTimeId = pShowTimeId;
+        this.aCapacity = pCapacity;
+        // Old data may contain oversold shows, so both counts are clamped to the room size
+        int sold = Math.min(pSold, pCapacity);
+        this.aClaimed = new AtomicInteger(sold);
+        this.aSold = new AtomicInteger(sold);
+        this.aSeatMap = new SeatMap(pCapacity);
+    }
+
+    /**
+     * Tries to claim seats for a new hold.
+     *
+     * @param pCount The number of seats to claim.
+     * @return {@code true} if the seats were claimed, {@code false} if not enough seats are free.
+     */
+    public boolean tryClaim(int pCount) {
+        while (true) {
+            int claimed = aClaimed.get();
+            if (claimed + pCount > aCapacity) {
+                return false;
+            }
+            if (aClaimed.compareAndSet(claimed, claimed + pCount)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back seats that were claimed by a hold that will not be sold.
+     *
+     * @param pCount The number of seats to release.
+     */
+    public void release(int pCount) {
+        aClaimed.addAndGet(-pCount);
+    }
+
+    /**
+     * Turns previously claimed seats into sold seats.
+     *
+     * @param pCount The number of seats sold.
+     */
+    public void markSold(int pCount) {
+        aSold.addAndGet(pCount);
+    }
+
+    /**
+     * Takes back seats that were sold, for example when a ticket is refunded or could not be saved.
+     * The seats stay claimed until they are given back with {@link #release(int)}.
+     *
+     * @param pCount The number of seats refunded. No more seats are taken back than are sold.
+     */
+    public void refund(int pCount) {
+        aSold.updateAndGet(sold -> Math.max(0, sold - pCount));
+    }
+
+    /**
+     * Gets the identifier of the showtime.
+     *
+     * @return The showtime identifier.
+     */
+    public int getShowTimeId() {
+        return aShowTimeId;
+    }
+
+    /**
+     * Gets the number of seats in the screening room.
+     *
+     * @return The room capacity.
+     */
+    public int getCapacity() {
+        return aCapacity;
+    }
+
+    /**
+     * Gets the seat map of the showtime.
+     *
+     * @return The seat map.
+     */
+    public SeatMap getSeatMap() {
+        return aSeatMap;
+    }
+
+    /**
+     * Gets the number of seats sold.
+     *
+     * @return The sold seats.
+     */
+    public int getSold() {
+        return aSold.get();
+    }
+
+    /**
+     * Gets the number of seats that are neither held nor sold.
+     *
+     * @return The free seats.
+     */
+    public int getAvailable() {
+        return aCapacity - aClaimed.get();
+    }
+}
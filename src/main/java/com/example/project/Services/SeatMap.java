@@ -0,0 +1,365 @@
+package com.example.project.Services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * The seats of one showtime laid out in rows, with a best-available allocator.
+ * <p>
+ * A {@link com.example.project.Model.ScreeningRoom} only knows its capacity, so the layout is
+ * derived from it: rows are about one and a half times as wide as the room is deep, and the last
+ * row holds whatever seats are left over.
+ * </p>
+ * <p>
+ * Each row keeps its free seats as runs (first seat and length) together with a count of the runs
+ * of each length, so the longest free run of a row is known without looking at its seats. Finding a
+ * block of N seats skips every row whose longest run is too short, and only inspects the runs of
+ * the rows that can fit the block, starting from the centre row and stopping as soon as no farther
+ * row can beat the best block found. A nearly full room therefore costs about one check per row.
+ * </p>
+ */
+public class SeatMap {
+
+    /**
+     * How many seats of sideways offset one row of distance from the centre is worth when
+     * comparing blocks.
+     */
+    private static final double ROW_WEIGHT = 2.0;
+
+    /** The rows, from the screen to the back. */
+    private final Row[] aRows;
+
+    /** The row indexes ordered by their distance from the centre row. */
+    private final int[] aRowsByDistance;
+
+    /** The number of seats that are not allocated. */
+    private int aFreeSeats;
+
+    /**
+     * Constructs the seat map of a room with every seat free.
+     *
+     * @param pCapacity The number of seats in the room. Must be positive.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public SeatMap(int pCapacity) {
+        if (pCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be a positive number.");
+        }
+        int width = rowWidthFor(pCapacity);
+        int rowCount = (pCapacity + width - 1) / width;
+        this.aRows = new Row[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            aRows[i] = new Row(Math.min(width, pCapacity - i * width));
+        }
+        double centre = (rowCount - 1) / 2.0;
+        this.aRowsByDistance = IntStream.range(0, rowCount).boxed()
+                .sorted(Comparator.comparingDouble(row -> Math.abs(row - centre)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.aFreeSeats = pCapacity;
+    }
+
+    /**
+     * Gets the number of seats per row used for a room of the given capacity.
+     *
+     * @param pCapacity The number of seats in the room.
+     * @return The row width.
+     */
+    public static int rowWidthFor(int pCapacity) {
+        return Math.max(1, Math.min(pCapacity, (int) Math.round(Math.sqrt(pCapacity * 1.5))));
+    }
+
+    /**
+     * Allocates the best available seats.
+     * <p>
+     * The seats are a single block in one row when such a block is free, choosing the block
+     * closest to the centre of the room. When the free seats are too scattered, the largest
+     * blocks closest to the centre are combined instead.
+     * </p>
+     *
+     * @param pSeatCount The number of seats. Must be positive.
+     * @return The allocated blocks, or {@code null} if fewer seats than asked are free.
+     * @throws IllegalArgumentException if the seat count is not positive.
+     */
+    public synchronized List<SeatBlock> allocate(int pSeatCount) {
+        if (pSeatCount <= 0) {
+            throw new IllegalArgumentException("Seat count must be a positive number.");
+        }
+        if (pSeatCount > aFreeSeats) {
+            return null;
+        }
+
+        List<SeatBlock> blocks = new ArrayList<>();
+        int remaining = pSeatCount;
+        while (remaining > 0) {
+            SeatBlock block = findBestBlock(Math.min(remaining, getLongestFreeRun()));
+            occupyFree(block);
+            blocks.add(block);
+            remaining -= block.getSeatCount();
+        }
+        return blocks;
+    }
+
+    /**
+     * Marks specific seats as allocated, for example the seats of a ticket sold earlier.
+     *
+     * @param pBlock The seats to allocate.
+     * @return {@code true} if every seat of the block was free and is now allocated.
+     */
+    public synchronized boolean occupy(SeatBlock pBlock) {
+        if (pBlock.getRow() >= aRows.length || !aRows[pBlock.getRow()].isFree(pBlock.getFirstSeat(), pBlock.getSeatCount())) {
+            return false;
+        }
+        occupyFree(pBlock);
+        return true;
+    }
+
+    /**
+     * Gives allocated seats back.
+     * <p>
+     * Either every block is freed or none is: a block lying outside the room, holding a free seat,
+     * or overlapping another block of the list leaves the map as it was.
+     * </p>
+     *
+     * @param pBlocks The seats to free.
+     * @return {@code true} if every seat was allocated and is now free.
+     */
+    public synchronized boolean free(List<SeatBlock> pBlocks) {
+        for (int i = 0; i < pBlocks.size(); i++) {
+            SeatBlock block = pBlocks.get(i);
+            if (block.getRow() >= aRows.length
+                    || !aRows[block.getRow()].isOccupied(block.getFirstSeat(), block.getSeatCount())) {
+                // Take back the blocks already freed, so a double free cannot add seats that were never sold
+                for (SeatBlock freed : pBlocks.subList(0, i)) {
+                    occupyFree(freed);
+                }
+                return false;
+            }
+            aRows[block.getRow()].free(block.getFirstSeat(), block.getSeatCount());
+            aFreeSeats += block.getSeatCount();
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of seats that are not allocated.
+     *
+     * @return The free seats.
+     */
+    public synchronized int getFreeSeats() {
+        return aFreeSeats;
+    }
+
+    /**
+     * Gets the longest block of free seats in a single row.
+     *
+     * @return The length of the longest free run, 0 when the room is full.
+     */
+    public synchronized int getLongestFreeRun() {
+        int longest = 0;
+        for (Row row : aRows) {
+            longest = Math.max(longest, row.longestRun());
+        }
+        return longest;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The number of rows.
+     */
+    public int getRowCount() {
+        return aRows.length;
+    }
+
+    /**
+     * Gets the number of seats of a row.
+     *
+     * @param pRow The row, counted from zero.
+     * @return The number of seats of the row.
+     */
+    public int getRowWidth(int pRow) {
+        return aRows[pRow].aWidth;
+    }
+
+    /**
+     * Checks whether a seat is free.
+     *
+     * @param pRow  The row, counted from zero.
+     * @param pSeat The seat, counted from zero.
+     * @return {@code true} if the seat is not allocated.
+     */
+    public synchronized boolean isFree(int pRow, int pSeat) {
+        return aRows[pRow].isFree(pSeat, 1);
+    }
+
+    /**
+     * Finds the free block of the given length closest to the centre of the room.
+     *
+     * @param pSeatCount The length of the block, at most the longest free run.
+     * @return The best block.
+     */
+    private SeatBlock findBestBlock(int pSeatCount) {
+        double centreRow = (aRows.length - 1) / 2.0;
+        SeatBlock best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (int rowIndex : aRowsByDistance) {
+            double rowScore = Math.abs(rowIndex - centreRow) * ROW_WEIGHT;
+            if (rowScore >= bestScore) {
+                // Rows are visited from the centre outwards, so no later row can do better
+                break;
+            }
+            Row row = aRows[rowIndex];
+            if (row.longestRun() < pSeatCount) {
+                continue;
+            }
+            double centreSeat = row.aWidth / 2.0;
+            for (Map.Entry<Integer, Integer> run : row.aRuns.entrySet()) {
+                int runStart = run.getKey();
+                int runLength = run.getValue();
+                if (runLength < pSeatCount) {
+                    continue;
+                }
+                // Slide the block as close to the middle of the row as the run allows
+                int ideal = (int) Math.round(centreSeat - pSeatCount / 2.0);
+                int start = Math.max(runStart, Math.min(ideal, runStart + runLength - pSeatCount));
+                double score = rowScore + Math.abs(start + pSeatCount / 2.0 - centreSeat);
+                if (score < bestScore) {
+                    bestScore = score;
+                    best = new SeatBlock(rowIndex, start, pSeatCount);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Allocates seats known to be free.
+     *
+     * @param pBlock The seats to allocate.
+     */
+    private void occupyFree(SeatBlock pBlock) {
+        aRows[pBlock.getRow()].occupy(pBlock.getFirstSeat(), pBlock.getSeatCount());
+        aFreeSeats -= pBlock.getSeatCount();
+    }
+
+    /**
+     * The free seats of one row, kept as runs.
+     */
+    private static final class Row {
+
+        /** The number of seats of the row. */
+        private final int aWidth;
+
+        /** The free runs, their length keyed by their first seat. */
+        private final TreeMap<Integer, Integer> aRuns = new TreeMap<>();
+
+        /** The number of free runs of each length. */
+        private final TreeMap<Integer, Integer> aRunLengths = new TreeMap<>();
+
+        /**
+         * Constructs a row with every seat free.
+         *
+         * @param pWidth The number of seats of the row.
+         */
+        private Row(int pWidth) {
+            this.aWidth = pWidth;
+            addRun(0, pWidth);
+        }
+
+        /**
+         * Gets the length of the longest free run.
+         *
+         * @return The longest run, 0 when the row is full.
+         */
+        private int longestRun() {
+            return aRunLengths.isEmpty() ? 0 : aRunLengths.lastKey();
+        }
+
+        /**
+         * Checks whether seats are all free.
+         *
+         * @param pFirstSeat The first seat.
+         * @param pSeatCount The number of seats.
+         * @return {@code true} if every seat is free.
+         */
+        private boolean isFree(int pFirstSeat, int pSeatCount) {
+            Map.Entry<Integer, Integer> run = aRuns.floorEntry(pFirstSeat);
+            return run != null && pFirstSeat + pSeatCount <= run.getKey() + run.getValue();
+        }
+
+        /**
+         * Checks whether seats all lie in the row and are all allocated.
+         *
+         * @param pFirstSeat The first seat.
+         * @param pSeatCount The number of seats.
+         * @return {@code true} if every seat is allocated.
+         */
+        private boolean isOccupied(int pFirstSeat, int pSeatCount) {
+            if (pFirstSeat + pSeatCount > aWidth) {
+                return false;
+            }
+            Map.Entry<Integer, Integer> before = aRuns.floorEntry(pFirstSeat);
+            if (before != null && before.getKey() + before.getValue() > pFirstSeat) {
+                return false;
+            }
+            Integer after = aRuns.ceilingKey(pFirstSeat);
+            return after == null || after >= pFirstSeat + pSeatCount;
+        }
+
+        /**
+         * Allocates free seats, splitting the run that holds them.
+         *
+         * @param pFirstSeat The first seat.
+         * @param pSeatCount The number of seats.
+         */
+        private void occupy(int pFirstSeat, int pSeatCount) {
+            Map.Entry<Integer, Integer> run = aRuns.floorEntry(pFirstSeat);
+            int runStart = run.getKey();
+            int runEnd = runStart + run.getValue();
+            removeRun(runStart, run.getValue());
+            if (pFirstSeat > runStart) {
+                addRun(runStart, pFirstSeat - runStart);
+            }
+            if (pFirstSeat + pSeatCount < runEnd) {
+                addRun(pFirstSeat + pSeatCount, runEnd - pFirstSeat - pSeatCount);
+            }
+        }
+
+        /**
+         * Frees seats, merging them with the free runs on either side.
+         *
+         * @param pFirstSeat The first seat.
+         * @param pSeatCount The number of seats.
+         */
+        private void free(int pFirstSeat, int pSeatCount) {
+            int start = pFirstSeat;
+            int end = pFirstSeat + pSeatCount;
+            Map.Entry<Integer, Integer> before = aRuns.lowerEntry(start);
+            if (before != null && before.getKey() + before.getValue() == start) {
+                removeRun(before.getKey(), before.getValue());
+                start = before.getKey();
+            }
+            Integer after = aRuns.get(end);
+            if (after != null) {
+                removeRun(end, after);
+                end += after;
+            }
+            addRun(start, end - start);
+        }
+
+        private void addRun(int pStart, int pLength) {
+            aRuns.put(pStart, pLength);
+            aRunLengths.merge(pLength, 1, Integer::sum);
+        }
+
+        private void removeRun(int pStart, int pLength) {
+            aRuns.remove(pStart);
+            aRunLengths.merge(pLength, -1, (count, delta) -> count + delta == 0 ? null : count + delta);
+        }
+    }
+}
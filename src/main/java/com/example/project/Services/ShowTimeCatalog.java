@@ -0,0 +1,186 @@
+package com.example.project.Services;
+
+import Helpers.SerializationHelper;
+import com.example.project.Model.ShowTime;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The showtimes of the showtime file, and the showtime each ticket was sold for.
+ * <p>
+ * Showtime files written before the identifiers were made unique can hold several showtimes
+ * with the same identifier, which made the sales, the seats and the occupancy of one count for
+ * another. {@link #load(String)} gives every later showtime sharing an identifier a new one and
+ * saves the file again, so the identifiers are unique from then on; the same file always gets the
+ * same new identifiers, whichever process renumbers it first. New showtimes take the identifier
+ * after the largest one, given by {@link #nextId(Collection)}.
+ * </p>
+ * <p>
+ * Tickets keep a copy of their showtime, so the tickets sold before the renumbering still hold
+ * the old identifier. {@link #showTimeOf(ShowTimeKey)} therefore takes the showtime with the
+ * identifier of the ticket if its movie and start time agree, then the showtime with the movie
+ * and start time of the ticket, and only then the showtime with the identifier alone, for a
+ * showtime moved to another time or movie after the sale.
+ * </p>
+ */
+public class ShowTimeCatalog {
+
+    /** The showtimes, by identifier; the first one wins if identifiers are not unique. */
+    private final Map<Integer, ShowTime> aById = new HashMap<>();
+
+    /** The showtimes, by movie and start time; the first one wins if two are scheduled alike. */
+    private final Map<List<Object>, ShowTime> aBySchedule = new HashMap<>();
+
+    /**
+     * Constructs a catalog of showtimes.
+     *
+     * @param pShowTimes The showtimes, with unique identifiers as {@link #load(String)} gives them.
+     */
+    public ShowTimeCatalog(Collection<ShowTime> pShowTimes) {
+        for (ShowTime showTime : pShowTimes) {
+            if (showTime != null) {
+                aById.putIfAbsent(showTime.getaID(), showTime);
+                aBySchedule.putIfAbsent(scheduleOf(showTime.getMovie(), showTime.getDateTime()), showTime);
+            }
+        }
+    }
+
+    /**
+     * Loads the showtimes of a showtime file, giving new identifiers to the showtimes that share
+     * one and saving the file again if any did.
+     *
+     * @param pFilePath Path to the serialized showtime file.
+     * @return The showtimes, or {@code null} if the file cannot be read.
+     */
+    public static List<ShowTime> load(String pFilePath) {
+        List<ShowTime> showTimes = SerializationHelper.loadData(pFilePath);
+        if (showTimes == null) {
+            return null;
+        }
+        showTimes = new ArrayList<>(showTimes);
+        if (renumberDuplicates(showTimes)) {
+            try {
+                save(pFilePath, showTimes);
+            } catch (IOException e) {
+                System.err.println("Renumbered showtimes could not be saved: " + e.getMessage());
+            }
+        }
+        return showTimes;
+    }
+
+    /**
+     * Gives a new identifier to every showtime whose identifier was already taken by an earlier one.
+     *
+     * @param pShowTimes The showtimes, renumbered in place.
+     * @return {@code true} if a showtime was renumbered.
+     */
+    public static boolean renumberDuplicates(List<ShowTime> pShowTimes) {
+        int nextId = nextId(pShowTimes);
+        Set<Integer> takenIds = new HashSet<>();
+        boolean renumbered = false;
+        for (ShowTime showTime : pShowTimes) {
+            if (showTime != null && !takenIds.add(showTime.getaID())) {
+                System.err.println("Showtime " + showTime.getMovie() + " at " + showTime.getDateTime()
+                        + " shared the identifier " + showTime.getaID() + ", it is now " + nextId + ".");
+                showTime.setID(nextId);
+                takenIds.add(nextId);
+                nextId++;
+                renumbered = true;
+            }
+        }
+        return renumbered;
+    }
+
+    /**
+     * Gets the identifier for a new showtime.
+     *
+     * @param pShowTimes The existing showtimes.
+     * @return One more than the largest identifier, or 1 if there is no showtime.
+     */
+    public static int nextId(Collection<ShowTime> pShowTimes) {
+        int largest = 0;
+        for (ShowTime showTime : pShowTimes) {
+            if (showTime != null) {
+                largest = Math.max(largest, showTime.getaID());
+            }
+        }
+        return largest + 1;
+    }
+
+    /**
+     * Gets a showtime by its identifier.
+     *
+     * @param pShowTimeId The identifier.
+     * @return The showtime, or {@code null} if there is none.
+     */
+    public ShowTime get(int pShowTimeId) {
+        return aById.get(pShowTimeId);
+    }
+
+    /**
+     * Finds the showtime a ticket was sold for.
+     *
+     * @param pSold The showtime as recorded by the ticket.
+     * @return The showtime, or {@code null} if it no longer exists.
+     */
+    public ShowTime showTimeOf(ShowTimeKey pSold) {
+        List<Object> schedule = scheduleOf(pSold.getMovie(), pSold.getDateTime());
+        ShowTime byId = aById.get(pSold.getID());
+        if (byId != null && scheduleOf(byId.getMovie(), byId.getDateTime()).equals(schedule)) {
+            return byId;
+        }
+        ShowTime bySchedule = aBySchedule.get(schedule);
+        return bySchedule != null ? bySchedule : byId;
+    }
+
+    /**
+     * Finds the showtime a ticket was sold for.
+     *
+     * @param pSold The copy of the showtime kept by the ticket.
+     * @return The showtime, or {@code null} if it no longer exists.
+     */
+    public ShowTime showTimeOf(ShowTime pSold) {
+        return showTimeOf(ShowTimeKey.of(pSold));
+    }
+
+    /**
+     * Gets the key matching showtimes by movie and start time.
+     *
+     * @param pMovie    The movie, or {@code null}.
+     * @param pDateTime The start time, or {@code null}.
+     * @return The key.
+     */
+    private static List<Object> scheduleOf(String pMovie, LocalDateTime pDateTime) {
+        return Arrays.asList(pMovie, pDateTime);
+    }
+
+    /**
+     * Saves the showtimes through a temporary file that then replaces the showtime file.
+     *
+     * @param pFilePath  Path to the serialized showtime file.
+     * @param pShowTimes The showtimes.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void save(String pFilePath, List<ShowTime> pShowTimes) throws IOException {
+        Path temporaryPath = Path.of(pFilePath + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporaryPath);
+             ObjectOutputStream out = new ObjectOutputStream(file)) {
+            out.writeObject(new ArrayList<>(pShowTimes));
+        }
+        Files.move(temporaryPath, Path.of(pFilePath), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
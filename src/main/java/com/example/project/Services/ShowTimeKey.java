@@ -0,0 +1,131 @@
+package com.example.project.Services;
+
+import com.example.project.Model.ShowTime;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+
+/**
+ * The showtime a ticket was sold for, as the ticket recorded it: the identifier, the movie and
+ * the start time of the showtime at the time of the sale.
+ * <p>
+ * The identifier alone is not enough for tickets sold before showtime identifiers were made
+ * unique, since two showtimes could share it; {@link ShowTimeCatalog#showTimeOf(ShowTimeKey)}
+ * uses the movie and the start time to tell them apart.
+ * </p>
+ */
+public final class ShowTimeKey {
+
+    /** The identifier of the showtime. */
+    private final int aID;
+
+    /** The movie of the showtime, or {@code null} if unknown. */
+    private final String aMovie;
+
+    /** The start time of the showtime, or {@code null} if unknown. */
+    private final LocalDateTime aDateTime;
+
+    /**
+     * Constructs a key.
+     *
+     * @param pID       The identifier of the showtime.
+     * @param pMovie    The movie of the showtime, or {@code null} if unknown.
+     * @param pDateTime The start time of the showtime, or {@code null} if unknown.
+     */
+    public ShowTimeKey(int pID, String pMovie, LocalDateTime pDateTime) {
+        this.aID = pID;
+        this.aMovie = pMovie;
+        this.aDateTime = pDateTime;
+    }
+
+    /**
+     * Gets the key of a showtime.
+     *
+     * @param pShowTime The showtime.
+     * @return The key, with the identifier, movie and start time of the showtime.
+     */
+    public static ShowTimeKey of(ShowTime pShowTime) {
+        return new ShowTimeKey(pShowTime.getaID(), pShowTime.getMovie(), pShowTime.getDateTime());
+    }
+
+    /**
+     * Gets the identifier of the showtime.
+     *
+     * @return The identifier.
+     */
+    public int getID() {
+        return aID;
+    }
+
+    /**
+     * Gets the movie of the showtime.
+     *
+     * @return The movie, or {@code null} if unknown.
+     */
+    public String getMovie() {
+        return aMovie;
+    }
+
+    /**
+     * Gets the start time of the showtime.
+     *
+     * @return The start time, or {@code null} if unknown.
+     */
+    public LocalDateTime getDateTime() {
+        return aDateTime;
+    }
+
+    /**
+     * Writes the key.
+     *
+     * @param pOut The output.
+     * @throws IOException if the key cannot be written.
+     */
+    void write(DataOutputStream pOut) throws IOException {
+        pOut.writeInt(aID);
+        pOut.writeBoolean(aMovie != null);
+        if (aMovie != null) {
+            pOut.writeUTF(aMovie);
+        }
+        pOut.writeBoolean(aDateTime != null);
+        if (aDateTime != null) {
+            pOut.writeLong(aDateTime.toEpochSecond(ZoneOffset.UTC));
+            pOut.writeInt(aDateTime.getNano());
+        }
+    }
+
+    /**
+     * Reads a key written by {@link #write(DataOutputStream)}.
+     *
+     * @param pIn The input.
+     * @return The key.
+     * @throws IOException if the key cannot be read.
+     */
+    static ShowTimeKey read(DataInputStream pIn) throws IOException {
+        int id = pIn.readInt();
+        String movie = pIn.readBoolean() ? pIn.readUTF() : null;
+        LocalDateTime dateTime = pIn.readBoolean()
+                ? LocalDateTime.ofEpochSecond(pIn.readLong(), pIn.readInt(), ZoneOffset.UTC) : null;
+        return new ShowTimeKey(id, movie, dateTime);
+    }
+
+    @Override
+    public boolean equals(Object pObject) {
+        return pObject instanceof ShowTimeKey other && aID == other.aID
+                && Objects.equals(aMovie, other.aMovie) && Objects.equals(aDateTime, other.aDateTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(aID, aMovie, aDateTime);
+    }
+
+    @Override
+    public String toString() {
+        return aID + " (" + aMovie + ", " + aDateTime + ")";
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.project.Services;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by showtime id.
+ * <p>
+ * Each showtime id maps to one of the stripes, so purchases for different showtimes almost never
+ * wait for each other while purchases for the same showtime are serialized. A single global lock
+ * would make every sale wait for every other one, and one lock per showtime would grow without bound.
+ * </p>
+ */
+public class StripedLock {
+
+    /** Default number of stripes, enough to keep collisions rare for a day of showtimes. */
+    public static final int DEFAULT_STRIPES = 256;
+
+    /** The stripes, their number being a power of two. */
+    private final ReentrantLock[] aStripes;
+
+    /**
+     * Constructs a striped lock.
+     *
+     * @param pStripes The minimum number of stripes. Rounded up to a power of two.
+     * @throws IllegalArgumentException if the number of stripes is not positive.
+     */
+    public StripedLock(int pStripes) {
+        if (pStripes <= 0) {
+            throw new IllegalArgumentException("Number of stripes must be positive.");
+        }
+        int size = Integer.highestOneBit(pStripes);
+        if (size < pStripes) {
+            size <<= 1;
+        }
+        this.aStripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            aStripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Gets the lock guarding a showtime.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @return The lock of the showtime's stripe.
+     */
+    public ReentrantLock lockFor(int pShowTimeId) {
+        return aStripes[stripeOf(pShowTimeId)];
+    }
+
+    /**
+     * Gets the lock of a stripe.
+     *
+     * @param pStripe The stripe index, as returned by {@link #stripeOf(int)}.
+     * @return The lock of the stripe.
+     */
+    public ReentrantLock lockAt(int pStripe) {
+        return aStripes[pStripe];
+    }
+
+    /**
+     * Gets the index of the stripe guarding a showtime.
+     * <p>
+     * The id is mixed first so that consecutive ids spread over the stripes.
+     * </p>
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @return The stripe index.
+     */
+    public int stripeOf(int pShowTimeId) {
+        int hash = pShowTimeId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (aStripes.length - 1);
+    }
+
+    /**
+     * Gets the number of stripes.
+     *
+     * @return The number of stripes.
+     */
+    public int getStripeCount() {
+        return aStripes.length;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.project.Services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Trie of search terms, finding every term within a few typos of a query.
+ * <p>
+ * The search walks the trie while filling one row of the Levenshtein table per character, the
+ * row of a node being computed from the row of its parent. Terms sharing a prefix therefore
+ * share the work done on it, and a branch is abandoned as soon as every entry of its row exceeds
+ * the allowed distance, since no longer term below it can come closer. This is the walk a
+ * Levenshtein automaton makes over a dictionary, so a search visits the few branches that stay
+ * within a typo or two of the query instead of comparing the query with every term.
+ * </p>
+ * <p>
+ * Terms can be added and removed at any time.
+ * </p>
+ */
+public class TermTrie {
+
+    /** The root of the trie, standing for the empty prefix. */
+    private final Node aRoot = new Node();
+
+    /** The number of terms in the trie. */
+    private int aSize;
+
+    /**
+     * Adds a term to the trie.
+     *
+     * @param pTerm The term.
+     * @return {@code true} if the term was not already in the trie.
+     */
+    public boolean add(String pTerm) {
+        Node node = aRoot;
+        for (int i = 0; i < pTerm.length(); i++) {
+            node = node.childOrCreate(pTerm.charAt(i));
+        }
+        if (node.aTerm != null) {
+            return false;
+        }
+        node.aTerm = pTerm;
+        aSize++;
+        return true;
+    }
+
+    /**
+     * Removes a term from the trie, dropping the branches that no longer lead to any term.
+     *
+     * @param pTerm The term.
+     * @return {@code true} if the term was in the trie.
+     */
+    public boolean remove(String pTerm) {
+        Node[] path = new Node[pTerm.length() + 1];
+        path[0] = aRoot;
+        for (int i = 0; i < pTerm.length(); i++) {
+            path[i + 1] = path[i].child(pTerm.charAt(i));
+            if (path[i + 1] == null) {
+                return false;
+            }
+        }
+        Node node = path[pTerm.length()];
+        if (node.aTerm == null) {
+            return false;
+        }
+        node.aTerm = null;
+        aSize--;
+        for (int i = pTerm.length(); i > 0 && path[i].aTerm == null && path[i].aSize == 0; i--) {
+            path[i - 1].removeChild(pTerm.charAt(i - 1));
+        }
+        return true;
+    }
+
+    /**
+     * Finds the terms within a number of edits of a query.
+     *
+     * @param pQuery       The query.
+     * @param pMaxDistance The most insertions, deletions and substitutions allowed.
+     * @return The matching terms with their distance to the query.
+     */
+    public Map<String, Integer> search(String pQuery, int pMaxDistance) {
+        Map<String, Integer> matches = new HashMap<>();
+        int[] row = new int[pQuery.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = j;
+        }
+        if (aRoot.aTerm != null && row[pQuery.length()] <= pMaxDistance) {
+            matches.put(aRoot.aTerm, row[pQuery.length()]);
+        }
+        for (int i = 0; i < aRoot.aSize; i++) {
+            search(aRoot.aChildren[i], aRoot.aKeys[i], pQuery, row, pMaxDistance, matches);
+        }
+        return matches;
+    }
+
+    /**
+     * Gets the number of terms in the trie.
+     *
+     * @return The number of terms.
+     */
+    public int size() {
+        return aSize;
+    }
+
+    /**
+     * Removes every term.
+     */
+    void clear() {
+        aRoot.aKeys = new char[0];
+        aRoot.aChildren = new Node[0];
+        aRoot.aSize = 0;
+        aRoot.aTerm = null;
+        aSize = 0;
+    }
+
+    /**
+     * Continues a search into a node.
+     *
+     * @param pNode        The node.
+     * @param pCharacter   The character leading to the node.
+     * @param pQuery       The query.
+     * @param pParentRow   The row of the Levenshtein table of the parent node.
+     * @param pMaxDistance The most edits allowed.
+     * @param pMatches     The matching terms found so far.
+     */
+    private static void search(Node pNode, char pCharacter, String pQuery, int[] pParentRow, int pMaxDistance,
+                               Map<String, Integer> pMatches) {
+        int[] row = new int[pParentRow.length];
+        row[0] = pParentRow[0] + 1;
+        int smallest = row[0];
+        for (int j = 1; j < row.length; j++) {
+            int substitution = pParentRow[j - 1] + (pQuery.charAt(j - 1) == pCharacter ? 0 : 1);
+            row[j] = Math.min(substitution, Math.min(pParentRow[j], row[j - 1]) + 1);
+            smallest = Math.min(smallest, row[j]);
+        }
+        if (smallest > pMaxDistance) {
+            return; // Every longer term starting with this prefix is too far as well
+        }
+        int distance = row[row.length - 1];
+        if (pNode.aTerm != null && distance <= pMaxDistance) {
+            pMatches.put(pNode.aTerm, distance);
+        }
+        for (int i = 0; i < pNode.aSize; i++) {
+            search(pNode.aChildren[i], pNode.aKeys[i], pQuery, row, pMaxDistance, pMatches);
+        }
+    }
+
+    /**
+     * A prefix of the terms, with the children sorted by character.
+     */
+    private static final class Node {
+
+        /** The characters leading to the children, sorted; only the first {@link #aSize} are used. */
+        private char[] aKeys = new char[0];
+
+        /** The children, in the order of their characters. */
+        private Node[] aChildren = new Node[0];
+
+        /** The number of children. */
+        private int aSize;
+
+        /** The term ending at this node, or {@code null} if none does. */
+        private String aTerm;
+
+        /**
+         * Gets the child reached by a character.
+         *
+         * @param pCharacter The character.
+         * @return The child, or {@code null} if there is none.
+         */
+        private Node child(char pCharacter) {
+            int index = Arrays.binarySearch(aKeys, 0, aSize, pCharacter);
+            return index >= 0 ? aChildren[index] : null;
+        }
+
+        /**
+         * Gets the child reached by a character, creating it if needed.
+         *
+         * @param pCharacter The character.
+         * @return The child.
+         */
+        private Node childOrCreate(char pCharacter) {
+            int index = Arrays.binarySearch(aKeys, 0, aSize, pCharacter);
+            if (index >= 0) {
+                return aChildren[index];
+            }
+            index = -index - 1;
+            if (aSize == aKeys.length) {
+                int capacity = Math.max(2, aSize * 2);
+                aKeys = Arrays.copyOf(aKeys, capacity);
+                aChildren = Arrays.copyOf(aChildren, capacity);
+            }
+            System.arraycopy(aKeys, index, aKeys, index + 1, aSize - index);
+            System.arraycopy(aChildren, index, aChildren, index + 1, aSize - index);
+            Node child = new Node();
+            aKeys[index] = pCharacter;
+            aChildren[index] = child;
+            aSize++;
+            return child;
+        }
+
+        /**
+         * Removes the child reached by a character.
+         *
+         * @param pCharacter The character.
+         */
+        private void removeChild(char pCharacter) {
+            int index = Arrays.binarySearch(aKeys, 0, aSize, pCharacter);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(aKeys, index + 1, aKeys, index, aSize - index - 1);
+            System.arraycopy(aChildren, index + 1, aChildren, index, aSize - index - 1);
+            aSize--;
+            aChildren[aSize] = null;
+        }
+    }
+}
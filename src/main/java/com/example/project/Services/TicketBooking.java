@@ -0,0 +1,154 @@
+package com.example.project.Services;
+
+import com.example.project.Model.Ticket;
+
+import java.util.List;
+
+/**
+ * The operations a terminal needs to sell tickets.
+ * <p>
+ * The {@link BookingService} implements them in process, and the {@link BookingClient} forwards
+ * them to a {@link BookingServer}, so the controllers do not need to know which one they use.
+ * </p>
+ */
+public interface TicketBooking {
+
+    /**
+     * Gets the number of seats that can still be held for a showtime.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @return The free seats.
+     */
+    int getAvailableSeats(int pShowTimeId);
+
+    /**
+     * Holds seats of a showtime for a short time.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats to hold.
+     * @return The pending hold.
+     * @throws IllegalArgumentException if the request is invalid or the showtime is unknown.
+     * @throws IllegalStateException    if not enough seats are free.
+     */
+    SeatHold hold(int pShowTimeId, int pSeatCount);
+
+    /**
+     * Releases a pending hold.
+     *
+     * @param pHoldId The identifier of the hold.
+     * @return {@code true} if the hold was pending and is now released.
+     */
+    boolean release(long pHoldId);
+
+    /**
+     * Buys the seats of a pending hold.
+     *
+     * @param pHoldId The identifier of the hold.
+     * @return The ticket that was sold.
+     * @throws IllegalStateException if the hold is no longer pending.
+     */
+    default Ticket purchase(long pHoldId) {
+        return purchase(pHoldId, null);
+    }
+
+    /**
+     * Buys the seats of a pending hold at most once per request token. Sending the same token
+     * again, for example after a double click or a lost response, returns the ticket of the
+     * first request without claiming or writing anything.
+     *
+     * @param pHoldId       The identifier of the hold.
+     * @param pRequestToken A token unique to this purchase, or {@code null}.
+     * @return The ticket that was sold.
+     * @throws IllegalStateException if the hold is no longer pending.
+     */
+    Ticket purchase(long pHoldId, String pRequestToken);
+
+    /**
+     * Holds and buys seats of a showtime in one step.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats to buy.
+     * @return The ticket that was sold.
+     * @throws IllegalArgumentException if the request is invalid or the showtime is unknown.
+     * @throws IllegalStateException    if not enough seats are free.
+     */
+    default Ticket purchase(int pShowTimeId, int pSeatCount) {
+        return purchase(pShowTimeId, pSeatCount, null);
+    }
+
+    /**
+     * Holds and buys seats of a showtime in one step, at most once per request token.
+     *
+     * @param pShowTimeId   The identifier of the showtime.
+     * @param pSeatCount    The number of seats to buy.
+     * @param pRequestToken A token unique to this purchase, or {@code null}.
+     * @return The ticket that was sold.
+     * @throws IllegalArgumentException if the request is invalid or the showtime is unknown.
+     * @throws IllegalStateException    if not enough seats are free.
+     */
+    Ticket purchase(int pShowTimeId, int pSeatCount, String pRequestToken);
+
+    /**
+     * Buys seats for several showtimes in one all-or-nothing transaction.
+     * <p>
+     * Either every line is sold and saved, or nothing is: if one showtime does not have enough
+     * seats left, the seats already claimed for the other showtimes are given back.
+     * </p>
+     *
+     * @param pLines The seats wanted for each showtime.
+     * @return The tickets sold, one per showtime, and their total price.
+     * @throws IllegalArgumentException if the request is empty or a showtime is unknown.
+     * @throws IllegalStateException    if one of the showtimes does not have enough seats left.
+     */
+    default GroupPurchase purchaseGroup(List<BookingLine> pLines) {
+        return purchaseGroup(pLines, null);
+    }
+
+    /**
+     * Buys seats for several showtimes in one all-or-nothing transaction, at most once per request token.
+     *
+     * @param pLines        The seats wanted for each showtime.
+     * @param pRequestToken A token unique to this purchase, or {@code null}.
+     * @return The tickets sold, one per showtime, and their total price.
+     * @throws IllegalArgumentException if the request is empty or a showtime is unknown.
+     * @throws IllegalStateException    if one of the showtimes does not have enough seats left.
+     */
+    GroupPurchase purchaseGroup(List<BookingLine> pLines, String pRequestToken);
+
+    /**
+     * Refunds a ticket, giving its seats back.
+     *
+     * @param pTicketId The identifier of the ticket.
+     * @return The refunded ticket.
+     * @throws IllegalArgumentException if there is no such ticket.
+     * @throws IllegalStateException    if the ticket was already refunded.
+     */
+    Ticket refund(int pTicketId);
+
+    /**
+     * Puts the client on the waitlist of a showtime. Seats freed later are held for the waiting
+     * clients in the order they joined.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats wanted.
+     * @return The waitlist entry.
+     * @throws IllegalArgumentException if the request is invalid or the showtime is unknown.
+     */
+    WaitlistEntry joinWaitlist(int pShowTimeId, int pSeatCount);
+
+    /**
+     * Gets the current state of a waitlist entry, including the hold once seats were offered.
+     *
+     * @param pEntryId The identifier of the entry.
+     * @return The entry, or {@code null} if it is unknown or the client left.
+     */
+    WaitlistEntry getWaitlistEntry(long pEntryId);
+
+    /**
+     * Takes the client out of a waitlist.
+     *
+     * @param pEntryId The identifier of the entry.
+     * @return {@code true} if the client was waiting or had an offer pending.
+     */
+    boolean leaveWaitlist(long pEntryId);
+}
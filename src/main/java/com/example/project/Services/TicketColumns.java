@@ -0,0 +1,452 @@
+package com.example.project.Services;
+
+import com.example.project.Model.ShowTime;
+import com.example.project.Model.Ticket;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The ticket history laid out in columns of primitive arrays, for reports over many tickets.
+ * <p>
+ * Each ticket is one row, and each of its fields is one entry of a column: the ticket id, the
+ * showtime id, the purchase time in seconds and the number of tickets are stored as is, and the
+ * movie and the screening room are stored as codes into two dictionaries of names. Adding up
+ * the tickets of each movie, room or day is then a loop over two arrays, instead of following
+ * every ticket to its showtime, its strings and its date.
+ * </p>
+ * <p>
+ * Aggregations work on a range of rows, so that a report can split the history between several
+ * threads and merge their results. The columns are filled once with {@link #of(Collection)},
+ * {@link #load(String)} or {@link #add(Ticket)} and may then be read by any number of threads;
+ * adding rows while they are read is not safe.
+ * </p>
+ */
+public class TicketColumns {
+
+    /** The purchase time stored for tickets without one. */
+    public static final long NO_PURCHASE_TIME = Long.MIN_VALUE;
+
+    /** The number of seconds in a day. */
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    /** The number of rows the columns start with. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** The number of rows. */
+    private int aSize;
+
+    /** The ticket id of each row. */
+    private int[] aTicketIds = new int[INITIAL_CAPACITY];
+
+    /** The showtime id of each row, or {@code -1} for tickets without a showtime. */
+    private int[] aShowTimeIds = new int[INITIAL_CAPACITY];
+
+    /** The purchase time of each row, in seconds since 1970-01-01T00:00 local time. */
+    private long[] aPurchaseTimes = new long[INITIAL_CAPACITY];
+
+    /** The number of tickets of each row. */
+    private int[] aCounts = new int[INITIAL_CAPACITY];
+
+    /** The movie code of each row. */
+    private int[] aMovies = new int[INITIAL_CAPACITY];
+
+    /** The screening room code of each row. */
+    private int[] aRooms = new int[INITIAL_CAPACITY];
+
+    /** The movie names, by code. */
+    private final List<String> aMovieNames = new ArrayList<>();
+
+    /** The code of each movie name. */
+    private final Map<String, Integer> aMovieCodes = new HashMap<>();
+
+    /** The screening room names, by code. */
+    private final List<String> aRoomNames = new ArrayList<>();
+
+    /** The code of each screening room name. */
+    private final Map<String, Integer> aRoomCodes = new HashMap<>();
+
+    /** The earliest purchase day, in days since 1970-01-01, or {@link Long#MAX_VALUE} if none. */
+    private long aFirstDay = Long.MAX_VALUE;
+
+    /** The latest purchase day, in days since 1970-01-01, or {@link Long#MIN_VALUE} if none. */
+    private long aLastDay = Long.MIN_VALUE;
+
+    /**
+     * Lays out tickets in columns.
+     *
+     * @param pTickets The tickets.
+     * @return The columns, one row per ticket in the order of the collection.
+     */
+    public static TicketColumns of(Collection<Ticket> pTickets) {
+        TicketColumns columns = new TicketColumns();
+        columns.ensureCapacity(pTickets.size());
+        for (Ticket ticket : pTickets) {
+            columns.add(ticket);
+        }
+        return columns;
+    }
+
+    /**
+     * Lays out the tickets of a ticket file and its journal in columns.
+     * <p>
+     * The tickets are read one at a time through a {@link TicketCursor}, so only the columns are
+     * kept in memory, never the whole list of tickets. A read error is reported as
+     * {@link TicketStore#loadTickets(String)} reports it, and the columns then hold the tickets
+     * read before it.
+     * </p>
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @return The columns, one row per ticket in the order {@link TicketStore#loadTickets(String)} gives them.
+     */
+    public static TicketColumns load(String pFilePath) {
+        TicketColumns columns = new TicketColumns();
+        try (TicketCursor cursor = TicketCursor.open(pFilePath)) {
+            while (cursor.hasNext()) {
+                columns.add(cursor.next());
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Adds a ticket as a new row.
+     *
+     * @param pTicket The ticket.
+     */
+    public void add(Ticket pTicket) {
+        ensureCapacity(aSize + 1);
+        ShowTime showTime = pTicket.getShowtime();
+        LocalDateTime purchaseDateTime = pTicket.getPurchaseDateTime();
+        long purchaseTime = purchaseDateTime == null
+                ? NO_PURCHASE_TIME : purchaseDateTime.toEpochSecond(ZoneOffset.UTC);
+
+        aTicketIds[aSize] = pTicket.getID();
+        aShowTimeIds[aSize] = showTime == null ? -1 : showTime.getaID();
+        aPurchaseTimes[aSize] = purchaseTime;
+        aCounts[aSize] = pTicket.getTicketsPurchased();
+        aMovies[aSize] = encode(showTime == null ? null : showTime.getMovie(), aMovieNames, aMovieCodes);
+        aRooms[aSize] = encode(showTime == null ? null : showTime.getScreeningRoom(), aRoomNames, aRoomCodes);
+        aSize++;
+
+        if (purchaseTime != NO_PURCHASE_TIME) {
+            long day = Math.floorDiv(purchaseTime, SECONDS_PER_DAY);
+            aFirstDay = Math.min(aFirstDay, day);
+            aLastDay = Math.max(aLastDay, day);
+        }
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The number of tickets laid out.
+     */
+    public int size() {
+        return aSize;
+    }
+
+    /**
+     * Gets the ticket id of a row.
+     *
+     * @param pRow The row.
+     * @return The ticket id.
+     */
+    public int getTicketId(int pRow) {
+        return aTicketIds[checkRow(pRow)];
+    }
+
+    /**
+     * Gets the showtime id of a row.
+     *
+     * @param pRow The row.
+     * @return The showtime id, or {@code -1} if the ticket has no showtime.
+     */
+    public int getShowTimeId(int pRow) {
+        return aShowTimeIds[checkRow(pRow)];
+    }
+
+    /**
+     * Gets the purchase time of a row.
+     *
+     * @param pRow The row.
+     * @return The purchase time in seconds since 1970-01-01T00:00 local time, or
+     * {@link #NO_PURCHASE_TIME} if the ticket has none.
+     */
+    public long getPurchaseTime(int pRow) {
+        return aPurchaseTimes[checkRow(pRow)];
+    }
+
+    /**
+     * Gets the number of tickets of a row.
+     *
+     * @param pRow The row.
+     * @return The number of tickets.
+     */
+    public int getCount(int pRow) {
+        return aCounts[checkRow(pRow)];
+    }
+
+    /**
+     * Gets the movie code of a row.
+     *
+     * @param pRow The row.
+     * @return The code, to look up with {@link #getMovieName(int)}.
+     */
+    public int getMovie(int pRow) {
+        return aMovies[checkRow(pRow)];
+    }
+
+    /**
+     * Gets the screening room code of a row.
+     *
+     * @param pRow The row.
+     * @return The code, to look up with {@link #getRoomName(int)}.
+     */
+    public int getRoom(int pRow) {
+        return aRooms[checkRow(pRow)];
+    }
+
+    /**
+     * Gets the number of distinct movies.
+     *
+     * @return The number of movie codes.
+     */
+    public int getMovieCount() {
+        return aMovieNames.size();
+    }
+
+    /**
+     * Gets the name of a movie code.
+     *
+     * @param pCode The code.
+     * @return The movie name, or {@link SalesRollups#UNKNOWN} for tickets without a movie.
+     */
+    public String getMovieName(int pCode) {
+        return aMovieNames.get(pCode);
+    }
+
+    /**
+     * Gets the number of distinct screening rooms.
+     *
+     * @return The number of room codes.
+     */
+    public int getRoomCount() {
+        return aRoomNames.size();
+    }
+
+    /**
+     * Gets the name of a screening room code.
+     *
+     * @param pCode The code.
+     * @return The room name, or {@link SalesRollups#UNKNOWN} for tickets without a room.
+     */
+    public String getRoomName(int pCode) {
+        return aRoomNames.get(pCode);
+    }
+
+    /**
+     * Gets the earliest purchase day.
+     *
+     * @return The day, or {@code null} if no ticket has a purchase time.
+     */
+    public LocalDate getFirstDay() {
+        return aFirstDay == Long.MAX_VALUE ? null : LocalDate.ofEpochDay(aFirstDay);
+    }
+
+    /**
+     * Gets the number of days from the earliest purchase day to the latest, both included.
+     *
+     * @return The number of days, or 0 if no ticket has a purchase time.
+     */
+    public int getDayCount() {
+        return aFirstDay == Long.MAX_VALUE ? 0 : Math.toIntExact(aLastDay - aFirstDay + 1);
+    }
+
+    /**
+     * Gets the column of the purchase times, for the reports reading the rows directly.
+     *
+     * @return The column, whose first {@link #size()} entries are rows; it must not be changed.
+     */
+    long[] purchaseTimes() {
+        return aPurchaseTimes;
+    }
+
+    /**
+     * Gets the column of the numbers of tickets, for the reports reading the rows directly.
+     *
+     * @return The column, whose first {@link #size()} entries are rows; it must not be changed.
+     */
+    int[] counts() {
+        return aCounts;
+    }
+
+    /**
+     * Gets the column of the movie codes, for the reports reading the rows directly.
+     *
+     * @return The column, whose first {@link #size()} entries are rows; it must not be changed.
+     */
+    int[] movies() {
+        return aMovies;
+    }
+
+    /**
+     * Gets the column of the screening room codes, for the reports reading the rows directly.
+     *
+     * @return The column, whose first {@link #size()} entries are rows; it must not be changed.
+     */
+    int[] rooms() {
+        return aRooms;
+    }
+
+    /**
+     * Gets the earliest purchase day as a number of days.
+     *
+     * @return The days since 1970-01-01, or {@link Long#MAX_VALUE} if no ticket has a purchase time.
+     */
+    long firstEpochDay() {
+        return aFirstDay;
+    }
+
+    /**
+     * Adds up the tickets of a range of rows.
+     *
+     * @param pFrom The first row, inclusive.
+     * @param pTo   The last row, exclusive.
+     * @return The number of tickets.
+     */
+    public long sumTickets(int pFrom, int pTo) {
+        checkRange(pFrom, pTo);
+        long sum = 0;
+        for (int row = pFrom; row < pTo; row++) {
+            sum += aCounts[row];
+        }
+        return sum;
+    }
+
+    /**
+     * Adds up the tickets of each movie over a range of rows.
+     *
+     * @param pFrom The first row, inclusive.
+     * @param pTo   The last row, exclusive.
+     * @return The tickets of each movie, indexed by movie code.
+     */
+    public long[] ticketsByMovie(int pFrom, int pTo) {
+        return sumByCode(aMovies, aMovieNames.size(), pFrom, pTo);
+    }
+
+    /**
+     * Adds up the tickets of each screening room over a range of rows.
+     *
+     * @param pFrom The first row, inclusive.
+     * @param pTo   The last row, exclusive.
+     * @return The tickets of each room, indexed by room code.
+     */
+    public long[] ticketsByRoom(int pFrom, int pTo) {
+        return sumByCode(aRooms, aRoomNames.size(), pFrom, pTo);
+    }
+
+    /**
+     * Adds up the tickets of each purchase day over a range of rows. Tickets without a purchase
+     * time are left out.
+     *
+     * @param pFrom The first row, inclusive.
+     * @param pTo   The last row, exclusive.
+     * @return The tickets of each day, indexed by the number of days since {@link #getFirstDay()}.
+     */
+    public long[] ticketsByDay(int pFrom, int pTo) {
+        checkRange(pFrom, pTo);
+        long[] sums = new long[getDayCount()];
+        for (int row = pFrom; row < pTo; row++) {
+            long time = aPurchaseTimes[row];
+            if (time != NO_PURCHASE_TIME) {
+                sums[(int) (Math.floorDiv(time, SECONDS_PER_DAY) - aFirstDay)] += aCounts[row];
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Adds up the tickets of each code of a column over a range of rows.
+     *
+     * @param pCodes The column of codes.
+     * @param pCount The number of codes.
+     * @param pFrom  The first row, inclusive.
+     * @param pTo    The last row, exclusive.
+     * @return The tickets of each code.
+     */
+    private long[] sumByCode(int[] pCodes, int pCount, int pFrom, int pTo) {
+        checkRange(pFrom, pTo);
+        long[] sums = new long[pCount];
+        for (int row = pFrom; row < pTo; row++) {
+            sums[pCodes[row]] += aCounts[row];
+        }
+        return sums;
+    }
+
+    /**
+     * Gets the code of a name, giving it the next code if it has none yet.
+     *
+     * @param pName  The name, possibly {@code null}.
+     * @param pNames The names, by code.
+     * @param pCodes The code of each name.
+     * @return The code.
+     */
+    private static int encode(String pName, List<String> pNames, Map<String, Integer> pCodes) {
+        String name = pName == null || pName.isBlank() ? SalesRollups.UNKNOWN : pName.trim();
+        Integer code = pCodes.get(name);
+        if (code == null) {
+            code = pNames.size();
+            pNames.add(name);
+            pCodes.put(name, code);
+        }
+        return code;
+    }
+
+    /**
+     * Grows the columns so that they hold at least a number of rows.
+     *
+     * @param pCapacity The number of rows.
+     */
+    private void ensureCapacity(int pCapacity) {
+        if (pCapacity <= aCounts.length) {
+            return;
+        }
+        int capacity = Math.max(pCapacity, aCounts.length + (aCounts.length >> 1));
+        aTicketIds = Arrays.copyOf(aTicketIds, capacity);
+        aShowTimeIds = Arrays.copyOf(aShowTimeIds, capacity);
+        aPurchaseTimes = Arrays.copyOf(aPurchaseTimes, capacity);
+        aCounts = Arrays.copyOf(aCounts, capacity);
+        aMovies = Arrays.copyOf(aMovies, capacity);
+        aRooms = Arrays.copyOf(aRooms, capacity);
+    }
+
+    /**
+     * Checks that a row exists.
+     *
+     * @param pRow The row.
+     * @return The row.
+     * @throws IndexOutOfBoundsException if there is no such row.
+     */
+    private int checkRow(int pRow) {
+        return Objects.checkIndex(pRow, aSize);
+    }
+
+    /**
+     * Checks that a range of rows exists.
+     *
+     * @param pFrom The first row, inclusive.
+     * @param pTo   The last row, exclusive.
+     * @throws IndexOutOfBoundsException if the range goes past the rows.
+     */
+    private void checkRange(int pFrom, int pTo) {
+        Objects.checkFromToIndex(pFrom, pTo, aSize);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.project.Services;
+
+import com.example.project.Model.Ticket;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Goes through the tickets of a ticket file and its journal one at a time.
+ * <p>
+ * The ticket file is read as a stream of tickets, each one dropped once it has been handed out,
+ * so going through millions of tickets takes the memory of a few of them. The journal is read
+ * twice: once when the cursor is opened, to learn which tickets it sells and refunds, then after
+ * the ticket file for the tickets sold since the last compaction. Only the identifiers of the
+ * tickets of the journal are kept, and the journal is emptied on every compaction.
+ * </p>
+ * <p>
+ * A crash during a compaction can leave a ticket both in the ticket file and in the journal; the
+ * copy in the ticket file is then skipped, so every ticket comes out once.
+ * </p>
+ * <p>
+ * Ticket files written before tickets were streamed hold a single list; they are still read,
+ * though the list is then loaded whole, until the next compaction writes the stream.
+ * </p>
+ * <p>
+ * The tickets come out in the order {@link TicketStore#loadTickets(String)} gives them. A read
+ * error ends the part being read, as loading the tickets would; {@link #isComplete()} tells
+ * whether that happened.
+ * </p>
+ */
+public class TicketCursor implements Iterator<Ticket>, Closeable {
+
+    /** The identifiers of the tickets sold in the journal. */
+    private final Set<Integer> aJournalSaleIds;
+
+    /** The identifiers of the tickets refunded in the journal. */
+    private final Set<Integer> aRefundedIds;
+
+    /** The path of the journal. */
+    private final Path aJournalPath;
+
+    /** The ticket file being read, or {@code null} once it is done. */
+    private ObjectInputStream aSnapshot;
+
+    /** The tickets of a ticket file holding a single list, or {@code null}. */
+    private Iterator<Ticket> aSnapshotList;
+
+    /** The journal being read, or {@code null} before the ticket file is done. */
+    private DataInputStream aJournal;
+
+    /** Whether the journal has been read to its end. */
+    private boolean aJournalDone;
+
+    /** The next ticket, once {@link #hasNext()} has found it. */
+    private Ticket aNext;
+
+    /** Whether every record could be read. */
+    private boolean aComplete = true;
+
+    /**
+     * Constructs a cursor.
+     *
+     * @param pSnapshot       The ticket file, or {@code null} if there is none.
+     * @param pJournalPath    The path of the journal.
+     * @param pJournalSaleIds The identifiers of the tickets sold in the journal.
+     * @param pRefundedIds    The identifiers of the tickets refunded in the journal.
+     */
+    private TicketCursor(ObjectInputStream pSnapshot, Path pJournalPath, Set<Integer> pJournalSaleIds,
+                         Set<Integer> pRefundedIds) {
+        this.aSnapshot = pSnapshot;
+        this.aJournalPath = pJournalPath;
+        this.aJournalSaleIds = pJournalSaleIds;
+        this.aRefundedIds = pRefundedIds;
+    }
+
+    /**
+     * Opens a cursor over the tickets of a ticket file and its journal.
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @return The cursor, which must be closed.
+     */
+    public static TicketCursor open(String pFilePath) {
+        Path journalPath = TicketStore.journalPathOf(pFilePath);
+        Set<Integer> journalSaleIds = new HashSet<>();
+        Set<Integer> refundedIds = new HashSet<>();
+        TicketStore.replayJournal(journalPath, sale -> journalSaleIds.add(sale.getID()),
+                refunded -> refundedIds.add(refunded.getID()));
+
+        ObjectInputStream snapshot = null;
+        Path path = Path.of(pFilePath);
+        if (Files.exists(path)) {
+            InputStream in = null;
+            try {
+                in = new BufferedInputStream(Files.newInputStream(path));
+                snapshot = new ObjectInputStream(in);
+            } catch (IOException e) {
+                System.err.println("Error reading data from file: " + pFilePath);
+                e.printStackTrace();
+                closeQuietly(in);
+            }
+        }
+        TicketCursor cursor = new TicketCursor(snapshot, journalPath, journalSaleIds, refundedIds);
+        cursor.aComplete = snapshot != null || !Files.exists(path);
+        return cursor;
+    }
+
+    /**
+     * Checks whether there is another ticket.
+     *
+     * @return {@code true} if {@link #next()} has a ticket to give.
+     */
+    @Override
+    public boolean hasNext() {
+        while (aNext == null) {
+            boolean fromSnapshot = aSnapshot != null;
+            Ticket ticket = fromSnapshot ? readSnapshot() : readJournal();
+            if (ticket == null && aSnapshot == null && aJournalDone) {
+                return false;
+            }
+            // A ticket also sold in the journal was left there by a crash during a compaction
+            if (ticket != null && !aRefundedIds.contains(ticket.getID())
+                    && !(fromSnapshot && aJournalSaleIds.contains(ticket.getID()))) {
+                aNext = ticket;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the next ticket.
+     *
+     * @return The ticket.
+     * @throws NoSuchElementException if every ticket was given.
+     */
+    @Override
+    public Ticket next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more tickets.");
+        }
+        Ticket ticket = aNext;
+        aNext = null;
+        return ticket;
+    }
+
+    /**
+     * Checks whether every ticket could be read.
+     *
+     * @return {@code false} if a read error ended the ticket file or the journal early.
+     */
+    public boolean isComplete() {
+        return aComplete;
+    }
+
+    /**
+     * Closes the files being read.
+     */
+    @Override
+    public void close() {
+        closeQuietly(aSnapshot);
+        closeQuietly(aJournal);
+        aSnapshot = null;
+        aSnapshotList = null;
+        aJournal = null;
+        aJournalDone = true;
+    }
+
+    /**
+     * Reads the next ticket of the ticket file, closing it once it is done.
+     *
+     * @return The ticket, or {@code null} if the ticket file is done or a record was skipped.
+     */
+    @SuppressWarnings("unchecked")
+    private Ticket readSnapshot() {
+        try {
+            if (aSnapshotList != null) {
+                if (aSnapshotList.hasNext()) {
+                    return aSnapshotList.next();
+                }
+            } else {
+                Object record = aSnapshot.readObject();
+                if (record instanceof Ticket ticket) {
+                    return ticket;
+                }
+                if (record instanceof List<?> list) {
+                    aSnapshotList = ((List<Ticket>) list).iterator();
+                    return null;
+                }
+                // A null record ends the stream of tickets
+            }
+        } catch (EOFException e) {
+            // An empty or cut short ticket file has no more tickets
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("Error reading ticket file: " + e.getMessage());
+            aComplete = false;
+        }
+        closeQuietly(aSnapshot);
+        aSnapshot = null;
+        aSnapshotList = null;
+        return null;
+    }
+
+    /**
+     * Reads the next ticket sold in the journal, opening it on the first call.
+     *
+     * @return The ticket, or {@code null} if the journal is done or the record was not a sale.
+     */
+    private Ticket readJournal() {
+        if (aJournalDone) {
+            return null;
+        }
+        try {
+            if (aJournal == null) {
+                if (!Files.exists(aJournalPath)) {
+                    aJournalDone = true;
+                    return null;
+                }
+                aJournal = new DataInputStream(new BufferedInputStream(Files.newInputStream(aJournalPath)));
+            }
+            int length = aJournal.readInt();
+            if (length == TicketStore.REFUND) {
+                aJournal.skipNBytes(aJournal.readInt());
+                return null;
+            }
+            if (length < 0) {
+                throw new StreamCorruptedException("Invalid journal record length: " + length);
+            }
+            byte[] record = new byte[length];
+            aJournal.readFully(record);
+            return TicketStore.fromRecord(record);
+        } catch (EOFException e) {
+            // End of the journal, or a record cut short by a crash which is dropped
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Error reading ticket journal: " + aJournalPath);
+            e.printStackTrace();
+            aComplete = false;
+        }
+        closeQuietly(aJournal);
+        aJournal = null;
+        aJournalDone = true;
+        return null;
+    }
+
+    /**
+     * Closes a stream, ignoring any error.
+     *
+     * @param pStream The stream, or {@code null}.
+     */
+    private static void closeQuietly(Closeable pStream) {
+        if (pStream != null) {
+            try {
+                pStream.close();
+            } catch (IOException e) {
+                // Nothing was written, so nothing is lost
+            }
+        }
+    }
+}
@@ -0,0 +1,646 @@
+package com.example.project.Services;
+
+import com.example.project.Model.Ticket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Owns the tickets saved in the ticket file.
+ * <p>
+ * The tickets are kept in two files: the ticket file, a stream of serialized tickets ended by
+ * {@code null}, and a journal next to it where every new ticket is appended as one
+ * length-prefixed record, and every refunded ticket as a refund marker followed by the ticket's
+ * record.
+ * Appending a ticket therefore writes a few hundred bytes instead of
+ * rewriting every ticket ever sold, and tickets are serialized by the buyer's own thread so sales
+ * for different showtimes only meet in the file system. The journal is folded back into the
+ * ticket file by {@link #compact()}, which runs when the store is opened and when it is closed.
+ * </p>
+ * <p>
+ * Only one store at a time may own a ticket file, since compacting rewrites the ticket file and
+ * empties the journal: a second store would drop the tickets the first one appended meanwhile.
+ * {@link #open(String)} therefore locks a file next to the ticket file until {@link #close()},
+ * and refuses to open a ticket file another store, in this process or another, holds.
+ * </p>
+ * <p>
+ * Readers in other processes must use {@link #loadTickets(String)}, or a {@link TicketCursor} to
+ * go through the tickets one at a time, so that they also see the tickets that are still in the
+ * journal.
+ * </p>
+ * <p>
+ * The store also keeps the {@link SalesRollups} of its tickets up to date with every sale and
+ * refund, and saves them next to the ticket file on every compaction and every
+ * {@value #CHECKPOINT_INTERVAL} journal records, along with the length of the journal they
+ * include. {@link #loadRollups(String)} reads them back and adds the records of the journal
+ * written since, so the sales totals are read without loading the ticket file, however long the
+ * store has been running.
+ * </p>
+ */
+public class TicketStore {
+
+    /** Length prefix marking a refund record, which is followed by the refunded ticket's record. */
+    static final int REFUND = -2;
+
+    /**
+     * The number of tickets written to the ticket file between two resets of the stream, which
+     * let readers drop the tickets they have already read.
+     */
+    private static final int SNAPSHOT_RESET_INTERVAL = 1024;
+
+    /** The number of journal records written between two saves of the sales totals. */
+    static final int CHECKPOINT_INTERVAL = 1000;
+
+    /** The lock files held by the ticket stores of this process. */
+    private static final Set<Path> HELD_LOCKS = ConcurrentHashMap.newKeySet();
+
+    /** Path to the serialized ticket file. */
+    private final String aFilePath;
+
+    /** Path to the journal of tickets appended since the last compaction. */
+    private final Path aJournalPath;
+
+    /** Path to the sales totals saved on every compaction. */
+    private final Path aRollupsPath;
+
+    /** The sales totals of the tickets, updated with every sale and refund. */
+    private final SalesRollups aSalesRollups;
+
+    /** Every ticket sold so far and not refunded. */
+    private final ConcurrentLinkedQueue<Ticket> aTickets;
+
+    /** The same tickets keyed by ticket id. */
+    private final Map<Integer, Ticket> aTicketsById = new ConcurrentHashMap<>();
+
+    /** Source of ticket identifiers. */
+    private final AtomicInteger aNextTicketId;
+
+    /** The number of journal records written since the sales totals were last saved. */
+    private final AtomicInteger aRecordsSinceCheckpoint = new AtomicInteger();
+
+    /** Lets appends run side by side while keeping them out of a compaction. */
+    private final ReadWriteLock aCompactionLock = new ReentrantReadWriteLock();
+
+    /** Channel holding the lock on the ticket file, released by {@link #close()}. */
+    private final FileChannel aLock;
+
+    /** Channel appending to the journal. */
+    private FileChannel aJournal;
+
+    /**
+     * Constructs a ticket store and loads the existing tickets.
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @param pLock     Channel holding the lock on the ticket file.
+     */
+    private TicketStore(String pFilePath, FileChannel pLock) {
+        this.aFilePath = pFilePath;
+        this.aLock = pLock;
+        this.aJournalPath = journalPathOf(pFilePath);
+        this.aRollupsPath = rollupsPathOf(pFilePath);
+        this.aTickets = new ConcurrentLinkedQueue<>(loadTickets(pFilePath));
+        this.aSalesRollups = SalesRollups.of(aTickets);
+
+        int highestId = 0;
+        for (Ticket ticket : aTickets) {
+            highestId = Math.max(highestId, ticket.getID());
+            aTicketsById.put(ticket.getID(), ticket);
+        }
+        this.aNextTicketId = new AtomicInteger(highestId + 1);
+    }
+
+    /**
+     * Opens the ticket store of a ticket file: locks the ticket file, loads the existing tickets
+     * and folds the journal into the ticket file.
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @return The ticket store, which owns the ticket file until it is closed.
+     * @throws IllegalStateException if another ticket store holds the ticket file.
+     * @throws UncheckedIOException  if the lock or the journal cannot be opened.
+     */
+    public static TicketStore open(String pFilePath) {
+        FileChannel lock = lock(pFilePath);
+        try {
+            TicketStore store = new TicketStore(pFilePath, lock);
+            store.compact();
+            return store;
+        } catch (RuntimeException e) {
+            unlock(pFilePath, lock);
+            throw e;
+        }
+    }
+
+    /**
+     * Locks a ticket file for a ticket store.
+     * <p>
+     * The lock is taken on a ".lock" file next to the ticket file rather than on the journal, which
+     * compaction closes and reopens. The operating system releases it if the process ends without
+     * closing the store. File locks belong to the whole process, and closing any channel of the
+     * lock file may drop them, so the stores of this process are kept apart by {@link #HELD_LOCKS}
+     * before the lock file is even opened.
+     * </p>
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @return The channel holding the lock.
+     * @throws IllegalStateException if another ticket store holds the ticket file.
+     * @throws UncheckedIOException  if the lock file cannot be opened.
+     */
+    private static FileChannel lock(String pFilePath) {
+        Path lockPath = lockPathOf(pFilePath);
+        if (!HELD_LOCKS.add(lockPath)) {
+            throw inUse(pFilePath);
+        }
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            HELD_LOCKS.remove(lockPath);
+            throw new UncheckedIOException("Could not open the ticket lock: " + lockPath, e);
+        }
+        try {
+            if (channel.tryLock() != null) {
+                return channel;
+            }
+        } catch (IOException e) {
+            unlock(pFilePath, channel);
+            throw new UncheckedIOException("Could not lock the ticket file: " + lockPath, e);
+        }
+        unlock(pFilePath, channel);
+        throw inUse(pFilePath);
+    }
+
+    /**
+     * Builds the exception telling that another ticket store holds a ticket file.
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @return The exception.
+     */
+    private static IllegalStateException inUse(String pFilePath) {
+        return new IllegalStateException("The tickets of " + pFilePath + " are used by another booking service."
+                + " Start the booking server so that every window shares it.");
+    }
+
+    /**
+     * Closes the channel of a ticket lock, which releases the lock.
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @param pLock     The channel of the lock.
+     */
+    private static void unlock(String pFilePath, FileChannel pLock) {
+        try {
+            pLock.close();
+        } catch (IOException e) {
+            System.err.println("Could not release the ticket lock: " + e.getMessage());
+        } finally {
+            HELD_LOCKS.remove(lockPathOf(pFilePath));
+        }
+    }
+
+    /**
+     * Loads every ticket from a ticket file and its journal.
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @return The tickets that were not refunded, in the order they were saved.
+     */
+    public static List<Ticket> loadTickets(String pFilePath) {
+        List<Ticket> tickets = new ArrayList<>();
+        try (TicketCursor cursor = TicketCursor.open(pFilePath)) {
+            cursor.forEachRemaining(tickets::add);
+        }
+        return tickets;
+    }
+
+    /**
+     * Loads the sales totals of a ticket file and its journal.
+     * <p>
+     * The totals saved last are read and the records written to the journal since are added to
+     * them, so at most about a thousand records are read whatever the number of tickets. If the
+     * totals are missing, were saved for another ticket file or include more of the journal than
+     * there is, they are built from every ticket instead.
+     * </p>
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @return The sales totals of the tickets that were not refunded.
+     */
+    public static SalesRollups loadRollups(String pFilePath) {
+        SalesRollups rollups = SalesRollups.load(rollupsPathOf(pFilePath), ticketFileVersion(pFilePath));
+        Path journalPath = journalPathOf(pFilePath);
+        if (rollups != null && journalLength(journalPath) >= rollups.getJournalOffset()) {
+            replayJournal(journalPath, rollups.getJournalOffset(), rollups::record, rollups::refund);
+            return rollups;
+        }
+        rollups = new SalesRollups();
+        try (TicketCursor cursor = TicketCursor.open(pFilePath)) {
+            cursor.forEachRemaining(rollups::record);
+        }
+        return rollups;
+    }
+
+    /**
+     * Allocates a new ticket identifier.
+     *
+     * @return An identifier no other ticket uses.
+     */
+    public int nextTicketId() {
+        return aNextTicketId.getAndIncrement();
+    }
+
+    /**
+     * Appends a ticket to the journal.
+     *
+     * @param pTicket The ticket to add.
+     * @throws UncheckedIOException if the ticket could not be written, in which case it is not added.
+     */
+    public void append(Ticket pTicket) {
+        appendAll(List.of(pTicket));
+    }
+
+    /**
+     * Appends several tickets to the journal in a single write.
+     *
+     * @param pTickets The tickets to add.
+     * @throws UncheckedIOException if the tickets could not be written, in which case none is added.
+     */
+    public void appendAll(List<Ticket> pTickets) {
+        List<ByteBuffer> records = new ArrayList<>(pTickets.size());
+        int size = 0;
+        for (Ticket ticket : pTickets) {
+            ByteBuffer record = toRecord(ticket);
+            records.add(record);
+            size += record.remaining();
+        }
+        ByteBuffer batch = ByteBuffer.allocate(size);
+        for (ByteBuffer record : records) {
+            batch.put(record);
+        }
+        batch.flip();
+
+        aCompactionLock.readLock().lock();
+        try {
+            // Channels opened for appending write each buffer whole at the end of the file
+            while (batch.hasRemaining()) {
+                aJournal.write(batch);
+            }
+            aTickets.addAll(pTickets);
+            for (Ticket ticket : pTickets) {
+                aTicketsById.put(ticket.getID(), ticket);
+                aSalesRollups.record(ticket);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save the tickets to the journal: " + aJournalPath, e);
+        } finally {
+            aCompactionLock.readLock().unlock();
+        }
+        countRecords(pTickets.size());
+    }
+
+    /**
+     * Gets a ticket that was sold and not refunded.
+     *
+     * @param pTicketId The identifier of the ticket.
+     * @return The ticket, or {@code null} if there is no such ticket.
+     */
+    public Ticket getTicket(int pTicketId) {
+        return aTicketsById.get(pTicketId);
+    }
+
+    /**
+     * Removes a refunded ticket, appending a refund record to the journal.
+     *
+     * @param pTicket The ticket to remove.
+     * @return {@code true} if the ticket was removed, {@code false} if it was already gone.
+     * @throws UncheckedIOException if the refund could not be written, in which case the ticket is kept.
+     */
+    public boolean remove(Ticket pTicket) {
+        ByteBuffer ticketRecord = toRecord(pTicket);
+        if (!aTicketsById.remove(pTicket.getID(), pTicket)) {
+            return false;
+        }
+        ByteBuffer refund = ByteBuffer.allocate(Integer.BYTES + ticketRecord.remaining());
+        refund.putInt(REFUND).put(ticketRecord).flip();
+
+        aCompactionLock.readLock().lock();
+        try {
+            while (refund.hasRemaining()) {
+                aJournal.write(refund);
+            }
+            aTickets.remove(pTicket);
+            aSalesRollups.refund(pTicket);
+        } catch (IOException e) {
+            aTicketsById.put(pTicket.getID(), pTicket);
+            throw new UncheckedIOException("Could not save the refund to the journal: " + aJournalPath, e);
+        } finally {
+            aCompactionLock.readLock().unlock();
+        }
+        countRecords(1);
+        return true;
+    }
+
+    /**
+     * Counts records written to the journal, saving the sales totals once enough were written.
+     * <p>
+     * The totals are saved with the length of the journal while appends are kept out, so the
+     * length covers exactly the records the totals include. This holds the sales back for the
+     * few milliseconds of writing a small file, once every {@value #CHECKPOINT_INTERVAL} records.
+     * </p>
+     *
+     * @param pRecords The number of records written.
+     */
+    private void countRecords(int pRecords) {
+        if (aRecordsSinceCheckpoint.addAndGet(pRecords) < CHECKPOINT_INTERVAL) {
+            return;
+        }
+        aCompactionLock.writeLock().lock();
+        try {
+            // Another thread may have saved the totals while this one waited
+            if (aRecordsSinceCheckpoint.get() >= CHECKPOINT_INTERVAL) {
+                aRecordsSinceCheckpoint.set(0);
+                aSalesRollups.save(aRollupsPath, ticketFileVersion(aFilePath), aJournal.size());
+            }
+        } catch (IOException e) {
+            System.err.println("Sales totals could not be saved: " + e.getMessage());
+        } finally {
+            aCompactionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a copy of every ticket sold so far and not refunded.
+     *
+     * @return The tickets.
+     */
+    public List<Ticket> getTickets() {
+        return new ArrayList<>(aTickets);
+    }
+
+    /**
+     * Writes every ticket to the ticket file and empties the journal.
+     * <p>
+     * The new ticket file is flushed to disk and moved in place atomically, and the journal is
+     * only emptied once the move is on disk, so a crash in between at worst leaves tickets in
+     * both files; readers such as {@link TicketCursor} then skip the ticket file's copy. The sales
+     * totals are saved for the new ticket file last, so totals saved before a crash never count
+     * the tickets of a journal that was not emptied; if they cannot be saved, readers rebuild
+     * them from the tickets.
+     * </p>
+     *
+     * @throws UncheckedIOException if the journal cannot be reopened.
+     */
+    public void compact() {
+        aCompactionLock.writeLock().lock();
+        try {
+            if (aJournal != null) {
+                aJournal.close();
+            }
+            Path temporaryPath = Path.of(aFilePath + ".tmp");
+            writeSnapshot(temporaryPath, aTickets);
+            Files.move(temporaryPath, Path.of(aFilePath), StandardCopyOption.REPLACE_EXISTING);
+            forceDirectory(Path.of(aFilePath).toAbsolutePath().getParent());
+            try (FileChannel journal = FileChannel.open(aJournalPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                journal.force(true);
+            }
+            aRecordsSinceCheckpoint.set(0);
+            try {
+                aSalesRollups.save(aRollupsPath, ticketFileVersion(aFilePath), 0);
+            } catch (IOException e) {
+                System.err.println("Sales totals could not be saved: " + e.getMessage());
+            }
+            aJournal = FileChannel.open(aJournalPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact the ticket journal: " + aJournalPath, e);
+        } finally {
+            aCompactionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Folds the journal into the ticket file, closes it and releases the ticket file for another store.
+     */
+    public void close() {
+        try {
+            compact();
+            aJournal.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            unlock(aFilePath, aLock);
+        }
+    }
+
+    /**
+     * Gets the path of the journal belonging to a ticket file.
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @return The journal path, the ticket file name with a ".journal" extension.
+     */
+    static Path journalPathOf(String pFilePath) {
+        String base = pFilePath.endsWith(".ser") ? pFilePath.substring(0, pFilePath.length() - 4) : pFilePath;
+        return Path.of(base + ".journal");
+    }
+
+    /**
+     * Gets the path of the file locked by the store owning a ticket file.
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @return The absolute lock path, the ticket file name with a ".lock" extension.
+     */
+    private static Path lockPathOf(String pFilePath) {
+        String base = pFilePath.endsWith(".ser") ? pFilePath.substring(0, pFilePath.length() - 4) : pFilePath;
+        return Path.of(base + ".lock").toAbsolutePath().normalize();
+    }
+
+    /**
+     * Gets the path of the sales totals belonging to a ticket file.
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @return The totals path, the ticket file name with a ".rollups" extension.
+     */
+    static Path rollupsPathOf(String pFilePath) {
+        String base = pFilePath.endsWith(".ser") ? pFilePath.substring(0, pFilePath.length() - 4) : pFilePath;
+        return Path.of(base + ".rollups");
+    }
+
+    /**
+     * Computes the version of a ticket file, which changes whenever the file is replaced.
+     *
+     * @param pFilePath Path to the serialized ticket file.
+     * @return The version, made of the size and the modification time of the file, or {@code -1}
+     * if the file cannot be read.
+     */
+    static long ticketFileVersion(String pFilePath) {
+        try {
+            Path path = Path.of(pFilePath);
+            return 31 * Files.getLastModifiedTime(path).toMillis() + Files.size(path);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the length of a journal.
+     *
+     * @param pJournalPath The path of the journal.
+     * @return The length in bytes, 0 if there is no journal.
+     */
+    private static long journalLength(Path pJournalPath) {
+        try {
+            return Files.exists(pJournalPath) ? Files.size(pJournalPath) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Reads every record of a journal, in the order they were written.
+     * <p>
+     * A record cut short by a crash ends the journal and is dropped.
+     * </p>
+     *
+     * @param pJournalPath The path of the journal.
+     * @param pOnSale      Called with each ticket sold.
+     * @param pOnRefund    Called with each ticket refunded.
+     */
+    static void replayJournal(Path pJournalPath, Consumer<Ticket> pOnSale, Consumer<Ticket> pOnRefund) {
+        replayJournal(pJournalPath, 0, pOnSale, pOnRefund);
+    }
+
+    /**
+     * Reads the records of a journal from an offset, in the order they were written.
+     * <p>
+     * A record cut short by a crash ends the journal and is dropped.
+     * </p>
+     *
+     * @param pJournalPath The path of the journal.
+     * @param pFromOffset  The offset of the first record to read, the start of a record.
+     * @param pOnSale      Called with each ticket sold.
+     * @param pOnRefund    Called with each ticket refunded.
+     */
+    static void replayJournal(Path pJournalPath, long pFromOffset, Consumer<Ticket> pOnSale,
+                              Consumer<Ticket> pOnRefund) {
+        if (!Files.exists(pJournalPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(pJournalPath)))) {
+            in.skipNBytes(pFromOffset);
+            while (true) {
+                int length = in.readInt();
+                boolean refund = length == REFUND;
+                if (refund) {
+                    length = in.readInt();
+                }
+                if (length < 0) {
+                    throw new StreamCorruptedException("Invalid journal record length: " + length);
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                (refund ? pOnRefund : pOnSale).accept(fromRecord(record));
+            }
+        } catch (EOFException e) {
+            // End of the journal, or a record cut short by a crash which is dropped
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Error reading ticket journal: " + pJournalPath);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes tickets to a ticket file as a stream of tickets ended by {@code null}.
+     * <p>
+     * The stream is reset every few tickets, so that neither the writer nor the readers keep
+     * every ticket they have gone through.
+     * </p>
+     *
+     * @param pPath    The path of the file.
+     * @param pTickets The tickets.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeSnapshot(Path pPath, Iterable<Ticket> pTickets) throws IOException {
+        try (FileChannel channel = FileChannel.open(pPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            int written = 0;
+            for (Ticket ticket : pTickets) {
+                out.writeObject(ticket);
+                if (++written % SNAPSHOT_RESET_INTERVAL == 0) {
+                    out.reset();
+                }
+            }
+            out.writeObject(null);
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Flushes a directory to disk, so that a file just moved into it stays there after a crash.
+     * <p>
+     * Not every platform lets a directory be opened; there the move is left to the file system.
+     * </p>
+     *
+     * @param pDirectory The directory.
+     */
+    private static void forceDirectory(Path pDirectory) {
+        try (FileChannel directory = FileChannel.open(pDirectory, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Windows cannot open directories; its moves are already written through
+        }
+    }
+
+    /**
+     * Serializes a ticket into a length-prefixed journal record.
+     *
+     * @param pTicket The ticket.
+     * @return The record, ready to be written.
+     */
+    private static ByteBuffer toRecord(Ticket pTicket) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(pTicket);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize ticket " + pTicket.getID(), e);
+        }
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bytes.size());
+        record.putInt(bytes.size()).put(bytes.toByteArray()).flip();
+        return record;
+    }
+
+    /**
+     * Deserializes a ticket from the body of a journal record.
+     *
+     * @param pRecord The record body.
+     * @return The ticket.
+     */
+    static Ticket fromRecord(byte[] pRecord) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(pRecord))) {
+            return (Ticket) in.readObject();
+        }
+    }
+}
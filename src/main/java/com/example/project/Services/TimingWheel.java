@@ -0,0 +1,304 @@
+package com.example.project.Services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel used to expire large numbers of timeouts cheaply.
+ * <p>
+ * The wheel is made of {@value #LEVELS} levels of {@value #SLOTS} slots each. Level 0 has a
+ * resolution of one tick, level 1 of {@value #SLOTS} ticks, and so on. A timeout is placed in the
+ * coarsest level that still covers its deadline and is cascaded down into finer levels as time
+ * passes, so scheduling, cancelling and expiring a timeout are all O(1) no matter how many are pending.
+ * This is what lets the {@link SeatHoldService} keep one pending hold per buyer without
+ * scheduling one task per hold.
+ * </p>
+ *
+ * @param <T> The type of payload carried by each timeout.
+ */
+public class TimingWheel<T> {
+
+    /**
+     * Number of bits used to index the slots of one level.
+     */
+    private static final int SLOT_BITS = 6;
+
+    /**
+     * Number of slots per level.
+     */
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    /**
+     * Mask used to extract the slot index of a level from a tick number.
+     */
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /**
+     * Number of levels in the wheel.
+     */
+    private static final int LEVELS = 4;
+
+    /**
+     * Largest delay, in ticks, that the wheel can represent without re-cascading.
+     */
+    private static final long MAX_DELAY_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    /**
+     * Duration of one tick in milliseconds.
+     */
+    private final long aTickMillis;
+
+    /**
+     * Wall-clock time, in milliseconds, that corresponds to tick 0.
+     */
+    private final long aStartMillis;
+
+    /**
+     * The buckets of every level, indexed by level then by slot.
+     */
+    private final Bucket<T>[][] aLevels;
+
+    /**
+     * The last tick that has been processed.
+     */
+    private long aCurrentTick;
+
+    /**
+     * Number of timeouts currently scheduled in the wheel.
+     */
+    private int aSize;
+
+    /**
+     * Constructs a timing wheel.
+     *
+     * @param pTickMillis  The duration of one tick in milliseconds. Must be positive.
+     * @param pStartMillis The wall-clock time, in milliseconds, at which the wheel starts.
+     * @throws IllegalArgumentException if the tick duration is not positive.
+     */
+    public TimingWheel(long pTickMillis, long pStartMillis) {
+        if (pTickMillis <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive.");
+        }
+        this.aTickMillis = pTickMillis;
+        this.aStartMillis = pStartMillis;
+        this.aLevels = newLevels();
+    }
+
+    /**
+     * Creates the empty buckets of every level.
+     *
+     * @param <T> The type of the payloads.
+     * @return The buckets, indexed by level then slot.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Bucket<T>[][] newLevels() {
+        Bucket<T>[][] levels = (Bucket<T>[][]) new Bucket<?>[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                levels[level][slot] = new Bucket<>();
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Schedules a payload to expire after the given delay.
+     * <p>
+     * The delay is rounded up to a whole number of ticks, so a timeout never fires early.
+     * </p>
+     *
+     * @param pPayload     The payload to hand back when the timeout expires.
+     * @param pDelayMillis The delay in milliseconds.
+     * @return A handle that can be used to cancel the timeout.
+     */
+    public synchronized Timeout<T> schedule(T pPayload, long pDelayMillis) {
+        long delayTicks = Math.max(1, (pDelayMillis + aTickMillis - 1) / aTickMillis);
+        Timeout<T> timeout = new Timeout<>(this, pPayload, aCurrentTick + delayTicks);
+        insert(timeout);
+        aSize++;
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel up to the given wall-clock time and collects every expired payload.
+     * <p>
+     * The payloads are returned rather than handed to a callback so that the caller can act on
+     * them without holding the wheel's lock.
+     * </p>
+     *
+     * @param pNowMillis The current wall-clock time in milliseconds.
+     * @return The payloads whose timeouts expired, in deadline order.
+     */
+    public synchronized List<T> advance(long pNowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = (pNowMillis - aStartMillis) / aTickMillis;
+
+        while (aCurrentTick < targetTick) {
+            if (aSize == 0) {
+                // Nothing is pending, so there is nothing to cascade or expire on the way
+                aCurrentTick = targetTick;
+                break;
+            }
+            aCurrentTick++;
+            cascade();
+
+            Bucket<T> bucket = aLevels[0][(int) (aCurrentTick & SLOT_MASK)];
+            Timeout<T> timeout = bucket.aHead;
+            while (timeout != null) {
+                Timeout<T> next = timeout.aNext;
+                bucket.remove(timeout);
+                if (timeout.aDeadlineTick > aCurrentTick) {
+                    // Deadline was clamped to the wheel's span; put it back for another round
+                    insert(timeout);
+                } else {
+                    aSize--;
+                    expired.add(timeout.aPayload);
+                }
+                timeout = next;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Gets the number of timeouts currently pending in the wheel.
+     *
+     * @return The number of pending timeouts.
+     */
+    public synchronized int size() {
+        return aSize;
+    }
+
+    /**
+     * Moves the timeouts of the coarser levels down when the finer level wraps around.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if (((aCurrentTick >> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+                return;
+            }
+            Bucket<T> bucket = aLevels[level][(int) ((aCurrentTick >> (SLOT_BITS * level)) & SLOT_MASK)];
+            Timeout<T> timeout = bucket.aHead;
+            while (timeout != null) {
+                Timeout<T> next = timeout.aNext;
+                bucket.remove(timeout);
+                insert(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    /**
+     * Places a timeout in the bucket matching its remaining delay.
+     *
+     * @param pTimeout The timeout to place.
+     */
+    private void insert(Timeout<T> pTimeout) {
+        long delta = Math.min(pTimeout.aDeadlineTick - aCurrentTick, MAX_DELAY_TICKS);
+        long tick = aCurrentTick + Math.max(delta, 0);
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        aLevels[level][(int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK)].add(pTimeout);
+    }
+
+    /**
+     * Removes a timeout from the wheel if it is still pending.
+     *
+     * @param pTimeout The timeout to cancel.
+     * @return {@code true} if the timeout was pending and has been removed.
+     */
+    private synchronized boolean cancel(Timeout<T> pTimeout) {
+        if (pTimeout.aBucket == null) {
+            return false;
+        }
+        pTimeout.aBucket.remove(pTimeout);
+        aSize--;
+        return true;
+    }
+
+    /**
+     * A handle on a scheduled timeout.
+     *
+     * @param <T> The type of payload carried by the timeout.
+     */
+    public static final class Timeout<T> {
+
+        /** The wheel that owns this timeout. */
+        private final TimingWheel<T> aWheel;
+
+        /** The payload handed back on expiry. */
+        private final T aPayload;
+
+        /** The tick at which this timeout expires. */
+        private final long aDeadlineTick;
+
+        /** The bucket currently holding this timeout, or {@code null} once expired or cancelled. */
+        private Bucket<T> aBucket;
+
+        /** Previous timeout in the same bucket. */
+        private Timeout<T> aPrevious;
+
+        /** Next timeout in the same bucket. */
+        private Timeout<T> aNext;
+
+        private Timeout(TimingWheel<T> pWheel, T pPayload, long pDeadlineTick) {
+            this.aWheel = pWheel;
+            this.aPayload = pPayload;
+            this.aDeadlineTick = pDeadlineTick;
+        }
+
+        /**
+         * Cancels this timeout so that it never expires.
+         *
+         * @return {@code true} if the timeout was still pending.
+         */
+        public boolean cancel() {
+            return aWheel.cancel(this);
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts sharing the same slot, allowing O(1) removal.
+     *
+     * @param <T> The type of payload carried by the timeouts.
+     */
+    private static final class Bucket<T> {
+
+        /** First timeout in the bucket. */
+        private Timeout<T> aHead;
+
+        /** Last timeout in the bucket. */
+        private Timeout<T> aTail;
+
+        private void add(Timeout<T> pTimeout) {
+            pTimeout.aBucket = this;
+            pTimeout.aPrevious = aTail;
+            pTimeout.aNext = null;
+            if (aTail == null) {
+                aHead = pTimeout;
+            } else {
+                aTail.aNext = pTimeout;
+            }
+            aTail = pTimeout;
+        }
+
+        private void remove(Timeout<T> pTimeout) {
+            if (pTimeout.aPrevious == null) {
+                aHead = pTimeout.aNext;
+            } else {
+                pTimeout.aPrevious.aNext = pTimeout.aNext;
+            }
+            if (pTimeout.aNext == null) {
+                aTail = pTimeout.aPrevious;
+            } else {
+                pTimeout.aNext.aPrevious = pTimeout.aPrevious;
+            }
+            pTimeout.aBucket = null;
+            pTimeout.aPrevious = null;
+            pTimeout.aNext = null;
+        }
+    }
+}
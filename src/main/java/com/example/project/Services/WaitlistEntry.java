@@ -0,0 +1,156 @@
+package com.example.project.Services;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A client waiting for seats of a sold-out showtime.
+ * <p>
+ * An entry starts {@link State#WAITING}. When enough seats are freed and every earlier entry has
+ * been served, the {@link WaitlistService} holds the seats for the client and the entry becomes
+ * {@link State#OFFERED}; the client then buys them like any other hold. A client may also leave
+ * the waitlist. Both changes are made with a compare-and-set so that an offer and a departure
+ * racing on the same entry cannot both win.
+ * </p>
+ */
+public class WaitlistEntry {
+
+    /**
+     * The lifecycle states of a waitlist entry.
+     */
+    public enum State {
+        /** The client is waiting for seats. */
+        WAITING,
+        /** Seats were freed and are held for the client. */
+        OFFERED,
+        /** The client left the waitlist. */
+        LEFT
+    }
+
+    /** The unique identifier of the entry. */
+    private final long aID;
+
+    /** The identifier of the showtime the client is waiting for. */
+    private final int aShowTimeId;
+
+    /** The number of seats the client wants. */
+    private final int aSeatCount;
+
+    /** The current state of the entry. */
+    private final AtomicReference<State> aState = new AtomicReference<>(State.WAITING);
+
+    /** The hold placed for the client once seats were freed. */
+    private volatile SeatHold aOffer;
+
+    /** The number of clients ahead of this one when the entry was last looked at. */
+    private volatile int aPosition;
+
+    /**
+     * Constructs a waiting entry.
+     *
+     * @param pID         The unique identifier of the entry.
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats wanted.
+     */
+    public WaitlistEntry(long pID, int pShowTimeId, int pSeatCount) {
+        this.aID = pID;
+        this.aShowTimeId = pShowTimeId;
+        this.aSeatCount = pSeatCount;
+    }
+
+    /**
+     * Gets the unique identifier of the entry.
+     *
+     * @return The entry identifier.
+     */
+    public long getID() {
+        return aID;
+    }
+
+    /**
+     * Gets the identifier of the showtime the client is waiting for.
+     *
+     * @return The showtime identifier.
+     */
+    public int getShowTimeId() {
+        return aShowTimeId;
+    }
+
+    /**
+     * Gets the number of seats the client wants.
+     *
+     * @return The number of seats.
+     */
+    public int getSeatCount() {
+        return aSeatCount;
+    }
+
+    /**
+     * Gets the current state of the entry.
+     *
+     * @return The entry state.
+     */
+    public State getState() {
+        return aState.get();
+    }
+
+    /**
+     * Gets the hold placed for the client.
+     *
+     * @return The hold, or {@code null} if no seats were offered yet.
+     */
+    public SeatHold getOffer() {
+        return aOffer;
+    }
+
+    /**
+     * Gets the number of clients ahead of this one.
+     *
+     * @return The position in the waitlist, 0 when the client is next.
+     */
+    public int getPosition() {
+        return aPosition;
+    }
+
+    /**
+     * Checks whether the client is still waiting.
+     *
+     * @return {@code true} if the entry is waiting.
+     */
+    public boolean isWaiting() {
+        return aState.get() == State.WAITING;
+    }
+
+    /**
+     * Offers held seats to the client if it is still waiting.
+     *
+     * @param pOffer The hold placed for the client.
+     * @return {@code true} if this call made the offer.
+     */
+    boolean offer(SeatHold pOffer) {
+        // Published before the state so that anyone seeing OFFERED also sees the hold
+        aOffer = pOffer;
+        if (aState.compareAndSet(State.WAITING, State.OFFERED)) {
+            return true;
+        }
+        aOffer = null;
+        return false;
+    }
+
+    /**
+     * Takes the client out of the waitlist.
+     *
+     * @return The state the entry was in, {@link State#LEFT} if it had already left.
+     */
+    State leave() {
+        return aState.getAndSet(State.LEFT);
+    }
+
+    /**
+     * Sets the number of clients ahead of this one.
+     *
+     * @param pPosition The position in the waitlist.
+     */
+    void setPosition(int pPosition) {
+        this.aPosition = pPosition;
+    }
+}
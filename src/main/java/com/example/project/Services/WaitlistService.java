@@ -0,0 +1,314 @@
+package com.example.project.Services;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one first-in, first-out waitlist per showtime and offers freed seats to the waiting clients.
+ * <p>
+ * Whenever seats are given back to a {@link SeatHoldService}, by a release, an expired hold or a
+ * refund, they are offered to this service before they become free. If clients are waiting for
+ * the showtime the service keeps them, still claimed so that no other buyer can hold them, and
+ * wakes a single dispatch thread if it is not already awake, so the thread freeing the seats never
+ * waits, however many clients are queued. The dispatch thread then serves every showtime that
+ * freed seats in one batch: it places a hold for the client at the head of the waitlist as long
+ * as the seats kept, topped up with free seats if needed, are enough, and stops at the first
+ * client that does not fit so that nobody is served before a client who joined earlier. Once
+ * nobody is waiting, the seats still kept become free.
+ * </p>
+ * <p>
+ * An offered hold expires like any other, and the seats it gives back go to the next client.
+ * </p>
+ * <p>
+ * {@link #start()} registers the service with the hold service; until then freed seats become
+ * free right away.
+ * </p>
+ */
+public class WaitlistService {
+
+    /** Service holding the seats offered to the waiting clients. */
+    private final SeatHoldService aHoldService;
+
+    /** The waiting clients of each showtime, in the order they joined. */
+    private final Map<Integer, Queue<WaitlistEntry>> aWaitlists = new ConcurrentHashMap<>();
+
+    /** Every entry that is waiting or was offered seats, keyed by entry id. */
+    private final Map<Long, WaitlistEntry> aEntries = new ConcurrentHashMap<>();
+
+    /** The freed seats kept for the waiting clients of each showtime, still claimed in its inventory. */
+    private final Map<Integer, AtomicInteger> aKeptSeats = new ConcurrentHashMap<>();
+
+    /** Showtimes that freed seats since the last dispatch. */
+    private final Set<Integer> aPendingShowTimes = ConcurrentHashMap.newKeySet();
+
+    /** Whether a dispatch is already scheduled. */
+    private final AtomicBoolean aDispatchScheduled = new AtomicBoolean();
+
+    /** Thread offering the freed seats. */
+    private final ExecutorService aDispatcher;
+
+    /** Source of entry identifiers. */
+    private final AtomicLong aNextEntryId = new AtomicLong(1);
+
+    /**
+     * Constructs a waitlist service over the seats of a hold service. Call {@link #start()} to
+     * have it offered the seats the hold service frees.
+     *
+     * @param pHoldService The service holding the seats.
+     */
+    public WaitlistService(SeatHoldService pHoldService) {
+        this.aHoldService = pHoldService;
+        this.aDispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "waitlist-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Registers the service to be offered the seats freed by the hold service.
+     */
+    public void start() {
+        aHoldService.setSeatsFreedListener(this::keepFreedSeats);
+    }
+
+    /**
+     * Adds a client to the waitlist of a showtime. If enough seats are already free and nobody is
+     * waiting ahead, the seats are offered right away.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats wanted. Must be positive.
+     * @return The waiting entry.
+     * @throws IllegalArgumentException if the seat count is not positive or the showtime is unknown.
+     */
+    public WaitlistEntry join(int pShowTimeId, int pSeatCount) {
+        if (pSeatCount <= 0) {
+            throw new IllegalArgumentException("Seat count must be a positive number.");
+        }
+        SeatInventory inventory = aHoldService.getInventory(pShowTimeId);
+        if (inventory == null) {
+            throw new IllegalArgumentException("Unknown showtime: " + pShowTimeId);
+        }
+        if (pSeatCount > inventory.getCapacity()) {
+            throw new IllegalArgumentException("The room only has " + inventory.getCapacity() + " seats.");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry(aNextEntryId.getAndIncrement(), pShowTimeId, pSeatCount);
+        aEntries.put(entry.getID(), entry);
+        Queue<WaitlistEntry> waitlist = aWaitlists.computeIfAbsent(pShowTimeId, id -> new ConcurrentLinkedQueue<>());
+        waitlist.add(entry);
+        entry.setPosition(positionOf(waitlist, entry));
+        scheduleDispatch(pShowTimeId);
+        return entry;
+    }
+
+    /**
+     * Gets a waitlist entry with its current position.
+     * <p>
+     * Finding the position walks the waitlist up to the entry, so this is meant for a client
+     * checking on its own entry now and then.
+     * </p>
+     *
+     * @param pEntryId The identifier of the entry.
+     * @return The entry, or {@code null} if it is unknown or the client left.
+     */
+    public WaitlistEntry getEntry(long pEntryId) {
+        WaitlistEntry entry = aEntries.get(pEntryId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isWaiting()) {
+            entry.setPosition(positionOf(aWaitlists.get(entry.getShowTimeId()), entry));
+        } else if (entry.getOffer() != null && !entry.getOffer().isPending()) {
+            // The offer was bought, released or expired: this is the last time the client needs the entry
+            aEntries.remove(pEntryId);
+        }
+        return entry;
+    }
+
+    /**
+     * Takes a client out of a waitlist, giving back the seats offered to it if it had not bought them.
+     *
+     * @param pEntryId The identifier of the entry.
+     * @return {@code true} if the client was waiting or had an offer pending.
+     */
+    public boolean leave(long pEntryId) {
+        WaitlistEntry entry = aEntries.remove(pEntryId);
+        if (entry == null) {
+            return false;
+        }
+        WaitlistEntry.State previous = entry.leave();
+        if (previous == WaitlistEntry.State.OFFERED) {
+            return aHoldService.release(entry.getOffer().getID());
+        }
+        if (previous != WaitlistEntry.State.WAITING) {
+            return false;
+        }
+        // A waiting entry stays queued until the dispatch thread skips it, and the seats kept for
+        // it go to the next client
+        scheduleDispatch(entry.getShowTimeId());
+        return true;
+    }
+
+    /**
+     * Gets the number of clients waiting for a showtime.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @return The number of waiting clients.
+     */
+    public int getWaitingCount(int pShowTimeId) {
+        Queue<WaitlistEntry> waitlist = aWaitlists.get(pShowTimeId);
+        if (waitlist == null) {
+            return 0;
+        }
+        int waiting = 0;
+        for (WaitlistEntry entry : waitlist) {
+            if (entry.isWaiting()) {
+                waiting++;
+            }
+        }
+        return waiting;
+    }
+
+    /**
+     * Keeps the freed seats of a showtime if clients are waiting for it, and makes sure a
+     * dispatch will run. Never blocks.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     * @param pSeatCount  The number of seats freed, still claimed.
+     * @return The number of seats kept: all of them if a client is waiting, none otherwise.
+     */
+    private int keepFreedSeats(int pShowTimeId, int pSeatCount) {
+        Queue<WaitlistEntry> waitlist = aWaitlists.get(pShowTimeId);
+        if (waitlist == null || aDispatcher.isShutdown() || !hasWaiting(waitlist)) {
+            return 0;
+        }
+        aKeptSeats.computeIfAbsent(pShowTimeId, id -> new AtomicInteger()).addAndGet(pSeatCount);
+        scheduleDispatch(pShowTimeId);
+        return pSeatCount;
+    }
+
+    /**
+     * Records that a showtime needs a dispatch and makes sure one will run. Never blocks.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     */
+    private void scheduleDispatch(int pShowTimeId) {
+        aPendingShowTimes.add(pShowTimeId);
+        if (aDispatchScheduled.compareAndSet(false, true)) {
+            try {
+                aDispatcher.execute(this::dispatch);
+            } catch (RejectedExecutionException e) {
+                // Shut down, the waiting clients are left as they are
+            }
+        }
+    }
+
+    /**
+     * Stops the dispatch thread. Waiting clients are left as they are.
+     */
+    public void shutdown() {
+        aDispatcher.shutdownNow();
+    }
+
+    /**
+     * Offers the freed seats of every pending showtime.
+     */
+    private void dispatch() {
+        // Cleared first, so seats freed during this pass schedule another one
+        aDispatchScheduled.set(false);
+        Iterator<Integer> pending = aPendingShowTimes.iterator();
+        while (pending.hasNext()) {
+            int showTimeId = pending.next();
+            pending.remove();
+            dispatch(showTimeId);
+        }
+    }
+
+    /**
+     * Offers the seats kept for a showtime to its waiting clients, in the order they joined,
+     * claiming free seats when the seats kept are not enough. Frees the seats still kept once
+     * nobody is waiting.
+     *
+     * @param pShowTimeId The identifier of the showtime.
+     */
+    private void dispatch(int pShowTimeId) {
+        Queue<WaitlistEntry> waitlist = aWaitlists.get(pShowTimeId);
+        SeatInventory inventory = aHoldService.getInventory(pShowTimeId);
+        AtomicInteger kept = aKeptSeats.computeIfAbsent(pShowTimeId, id -> new AtomicInteger());
+        WaitlistEntry head;
+        while ((head = waitlist.peek()) != null) {
+            if (!head.isWaiting()) {
+                waitlist.poll();
+                continue;
+            }
+            int missing = head.getSeatCount() - kept.get();
+            if (missing > 0) {
+                if (!inventory.tryClaim(missing)) {
+                    // Wait for more seats to be freed
+                    return;
+                }
+                kept.addAndGet(missing);
+            }
+            SeatHold offer = aHoldService.holdClaimedSeats(pShowTimeId, head.getSeatCount());
+            if (offer == null) {
+                return;
+            }
+            kept.addAndGet(-head.getSeatCount());
+            waitlist.poll();
+            if (!head.offer(offer)) {
+                // The client left in the meantime
+                aHoldService.release(offer.getID());
+            }
+        }
+        int unused = kept.getAndSet(0);
+        if (unused > 0) {
+            inventory.release(unused);
+        }
+    }
+
+    /**
+     * Checks whether any client in a waitlist is still waiting.
+     *
+     * @param pWaitlist The waitlist.
+     * @return {@code true} if a client is waiting.
+     */
+    private static boolean hasWaiting(Queue<WaitlistEntry> pWaitlist) {
+        for (WaitlistEntry entry : pWaitlist) {
+            if (entry.isWaiting()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the waiting clients ahead of an entry.
+     *
+     * @param pWaitlist The waitlist of the entry's showtime.
+     * @param pEntry    The entry.
+     * @return The number of waiting clients ahead.
+     */
+    private static int positionOf(Queue<WaitlistEntry> pWaitlist, WaitlistEntry pEntry) {
+        int position = 0;
+        for (WaitlistEntry entry : pWaitlist) {
+            if (entry == pEntry) {
+                break;
+            }
+            if (entry.isWaiting()) {
+                position++;
+            }
+        }
+        return position;
+    }
+}
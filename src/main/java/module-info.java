@@ -2,11 +2,14 @@ module com.example.project {
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.base;
+    requires jdk.httpserver;
+    requires java.net.http;
 
     opens com.example.project.Model to javafx.base;
     opens com.example.project to javafx.fxml;
     exports com.example.project;
     exports com.example.project.Model;
     exports com.example.project.Controllers;
+    exports com.example.project.Services;
     opens com.example.project.Controllers to javafx.fxml;
 }
\ No newline at end of file
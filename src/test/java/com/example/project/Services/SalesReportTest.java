@@ -0,0 +1,97 @@
+package com.example.project.Services;
+
+import com.example.project.Model.ShowTime;
+import com.example.project.Model.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests that a {@link SalesReport} built in parts and merged matches the report built in one pass.
+ */
+class SalesReportTest {
+
+    @Test
+    void mergedPartsMatchTheWholeReport() {
+        TicketColumns columns = TicketColumns.of(tickets());
+        int middle = columns.size() / 3;
+
+        SalesReport whole = report(columns, 0, columns.size());
+        SalesReport merged = report(columns, 0, middle).merge(report(columns, middle, columns.size()));
+
+        assertSameReport(whole, merged);
+    }
+
+    @Test
+    void mergingAnEmptyPartChangesNothing() {
+        TicketColumns columns = TicketColumns.of(tickets());
+
+        SalesReport whole = report(columns, 0, columns.size());
+        SalesReport merged = report(columns, 0, 0).merge(report(columns, 0, columns.size()))
+                .merge(report(columns, columns.size(), columns.size()));
+
+        assertSameReport(whole, merged);
+    }
+
+    @Test
+    void emptyReportHasNoPurchaseTimes() {
+        SalesReport empty = report(TicketColumns.of(tickets()), 0, 0);
+
+        assertEquals(0, empty.getSaleCount());
+        assertNull(empty.getFirstPurchase());
+        assertNull(empty.getLastPurchase());
+    }
+
+    private static SalesReport report(TicketColumns pColumns, int pFromRow, int pToRow) {
+        SalesReport report = new SalesReport(pColumns, Long.MIN_VALUE, Long.MAX_VALUE);
+        report.accumulate(pFromRow, pToRow);
+        return report;
+    }
+
+    private static void assertSameReport(SalesReport pExpected, SalesReport pActual) {
+        assertEquals(pExpected.getSaleCount(), pActual.getSaleCount());
+        assertEquals(pExpected.getTicketCount(), pActual.getTicketCount());
+        assertEquals(pExpected.getRevenueCents(), pActual.getRevenueCents());
+        assertEquals(pExpected.getMinTickets(), pActual.getMinTickets());
+        assertEquals(pExpected.getMaxTickets(), pActual.getMaxTickets());
+        assertEquals(pExpected.getFirstPurchase(), pActual.getFirstPurchase());
+        assertEquals(pExpected.getLastPurchase(), pActual.getLastPurchase());
+        for (SalesRollups.Dimension dimension : SalesRollups.Dimension.values()) {
+            assertEquals(describe(pExpected.totals(dimension)), describe(pActual.totals(dimension)));
+        }
+    }
+
+    private static List<String> describe(List<SalesTotal> pTotals) {
+        List<String> described = new ArrayList<>();
+        for (SalesTotal total : pTotals) {
+            described.add(total.getKey() + "=" + total.getTickets() + "/" + total.getRevenueCents());
+        }
+        return described;
+    }
+
+    /**
+     * Builds tickets for several movies, rooms, days and hours, the smallest and largest
+     * purchases falling in different parts.
+     *
+     * @return The tickets.
+     */
+    private static List<Ticket> tickets() {
+        List<ShowTime> showTimes = List.of(
+                new ShowTime(1, LocalDateTime.of(2025, 3, 1, 20, 0), "Polar", "Room 1"),
+                new ShowTime(2, LocalDateTime.of(2025, 3, 2, 18, 30), "RRR", "Room 2"),
+                new ShowTime(3, LocalDateTime.of(2025, 3, 4, 21, 0), "HitMan", "Room 1"));
+        List<Ticket> tickets = new ArrayList<>();
+        LocalDateTime purchase = LocalDateTime.of(2025, 2, 27, 9, 15);
+        for (int i = 0; i < 30; i++) {
+            int count = i == 4 ? 9 : i == 25 ? 1 : 2 + i % 3;
+            tickets.add(new Ticket(i + 1, purchase.plusHours(7L * i), showTimes.get(i % showTimes.size()), count));
+        }
+        tickets.add(new Ticket(31, null, showTimes.get(0), 2));
+        return tickets;
+    }
+}
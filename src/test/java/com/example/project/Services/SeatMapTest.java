@@ -0,0 +1,122 @@
+package com.example.project.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the edge cases of allocating and freeing the seats of a {@link SeatMap}.
+ */
+class SeatMapTest {
+
+    @Test
+    void allocateFillsTheRoomThenRefuses() {
+        SeatMap map = new SeatMap(20);
+
+        assertEquals(20, countSeats(map.allocate(20)));
+        assertEquals(0, map.getFreeSeats());
+        assertEquals(0, map.getLongestFreeRun());
+        assertNull(map.allocate(1));
+    }
+
+    @Test
+    void allocateRefusesMoreSeatsThanAreFree() {
+        SeatMap map = new SeatMap(10);
+        map.allocate(8);
+
+        assertNull(map.allocate(3));
+        assertEquals(2, map.getFreeSeats());
+    }
+
+    @Test
+    void allocateRejectsCountsThatAreNotPositive() {
+        SeatMap map = new SeatMap(10);
+
+        assertThrows(IllegalArgumentException.class, () -> map.allocate(0));
+        assertThrows(IllegalArgumentException.class, () -> map.allocate(-1));
+    }
+
+    @Test
+    void allocateTakesASingleBlockInTheCentreRow() {
+        SeatMap map = new SeatMap(100);
+
+        List<SeatBlock> seats = map.allocate(4);
+
+        assertEquals(1, seats.size());
+        assertEquals(4, seats.get(0).getSeatCount());
+        double centre = (map.getRowCount() - 1) / 2.0;
+        assertTrue(Math.abs(seats.get(0).getRow() - centre) <= 0.5);
+    }
+
+    @Test
+    void allocateCombinesScatteredSeats() {
+        SeatMap map = new SeatMap(10);
+        map.allocate(10);
+        List<SeatBlock> scattered = List.of(new SeatBlock(0, 0, 1), new SeatBlock(1, 0, 1), new SeatBlock(2, 0, 1));
+        assertTrue(map.free(scattered));
+
+        List<SeatBlock> seats = map.allocate(3);
+
+        assertEquals(3, seats.size());
+        assertEquals(3, countSeats(seats));
+        assertEquals(0, map.getFreeSeats());
+    }
+
+    @Test
+    void freeGivesTheSeatsBackOnce() {
+        SeatMap map = new SeatMap(12);
+        List<SeatBlock> seats = map.allocate(5);
+
+        assertTrue(map.free(seats));
+        assertEquals(12, map.getFreeSeats());
+        assertFalse(map.free(seats));
+        assertEquals(12, map.getFreeSeats());
+    }
+
+    @Test
+    void freeIsAllOrNothing() {
+        SeatMap map = new SeatMap(12);
+        List<SeatBlock> sold = map.allocate(3);
+        SeatBlock block = sold.get(0);
+        SeatBlock neverSold = new SeatBlock(map.getRowCount() - 1, 0, 1);
+
+        assertFalse(map.free(List.of(block, neverSold)));
+        assertFalse(map.isFree(block.getRow(), block.getFirstSeat()));
+        assertEquals(9, map.getFreeSeats());
+
+        assertFalse(map.free(List.of(block, block)));
+        assertEquals(9, map.getFreeSeats());
+    }
+
+    @Test
+    void freeRefusesSeatsOutsideTheRoom() {
+        SeatMap map = new SeatMap(12);
+        map.allocate(12);
+
+        assertFalse(map.free(List.of(new SeatBlock(map.getRowCount(), 0, 1))));
+        assertEquals(0, map.getFreeSeats());
+    }
+
+    @Test
+    void occupyRefusesSeatsAlreadyTaken() {
+        SeatMap map = new SeatMap(12);
+
+        assertTrue(map.occupy(new SeatBlock(0, 0, 2)));
+        assertFalse(map.occupy(new SeatBlock(0, 1, 2)));
+        assertEquals(10, map.getFreeSeats());
+    }
+
+    private static int countSeats(List<SeatBlock> pSeats) {
+        int count = 0;
+        for (SeatBlock block : pSeats) {
+            count += block.getSeatCount();
+        }
+        return count;
+    }
+}
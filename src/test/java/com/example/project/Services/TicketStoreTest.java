@@ -0,0 +1,183 @@
+package com.example.project.Services;
+
+import com.example.project.Model.ShowTime;
+import com.example.project.Model.Ticket;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the ticket file and its journal: replaying the journal, the records left behind by a
+ * compaction that did not finish, refunds and the checkpoints of the sales totals.
+ */
+class TicketStoreTest {
+
+    /** The showtime of the tickets. */
+    private static final ShowTime SHOW_TIME = new ShowTime(1, LocalDateTime.of(2025, 1, 1, 20, 0), "Polar", "Room 1");
+
+    /** Directory holding the ticket file of each test. */
+    @TempDir
+    Path aDirectory;
+
+    @Test
+    void ticketsAppendedToTheJournalAreReadBackBeforeAndAfterCompaction() throws IOException {
+        TicketStore store = TicketStore.open(ticketFile());
+        store.append(ticket(store.nextTicketId(), 2));
+        store.appendAll(List.of(ticket(store.nextTicketId(), 1), ticket(store.nextTicketId(), 4)));
+
+        assertEquals(List.of(1, 2, 3), ids(TicketStore.loadTickets(ticketFile())));
+        assertTrue(Files.size(journal()) > 0);
+
+        store.close();
+        assertEquals(List.of(1, 2, 3), ids(TicketStore.loadTickets(ticketFile())));
+        assertEquals(0, Files.size(journal()));
+    }
+
+    @Test
+    void ticketsLeftInTheJournalByAnUnfinishedCompactionAreReadOnce() throws IOException {
+        TicketStore store = TicketStore.open(ticketFile());
+        store.appendAll(List.of(ticket(store.nextTicketId(), 2), ticket(store.nextTicketId(), 3)));
+        byte[] journal = Files.readAllBytes(journal());
+        byte[] totals = Files.readAllBytes(TicketStore.rollupsPathOf(ticketFile()));
+        store.close();
+        // A crash after the new ticket file was moved in place but before the journal was emptied,
+        // which also leaves the totals saved for the previous ticket file
+        Files.write(journal(), journal);
+        Files.write(TicketStore.rollupsPathOf(ticketFile()), totals);
+
+        assertEquals(List.of(1, 2), ids(TicketStore.loadTickets(ticketFile())));
+        assertTotalsMatchTickets();
+
+        TicketStore reopened = TicketStore.open(ticketFile());
+        assertEquals(List.of(1, 2), ids(reopened.getTickets()));
+        assertEquals(3, reopened.nextTicketId());
+        reopened.close();
+    }
+
+    @Test
+    void refundRecordsRemoveTheTicket() {
+        TicketStore store = TicketStore.open(ticketFile());
+        Ticket refunded = ticket(store.nextTicketId(), 2);
+        store.appendAll(List.of(refunded, ticket(store.nextTicketId(), 3)));
+
+        assertTrue(store.remove(refunded));
+        assertFalse(store.remove(refunded));
+        assertNull(store.getTicket(1));
+        assertEquals(List.of(2), ids(TicketStore.loadTickets(ticketFile())));
+        assertEquals(3, TicketStore.loadRollups(ticketFile()).getTicketCount());
+
+        store.close();
+        TicketStore reopened = TicketStore.open(ticketFile());
+        assertNull(reopened.getTicket(1));
+        assertNotNull(reopened.getTicket(2));
+        reopened.close();
+    }
+
+    @Test
+    void refundInTheJournalHidesTheTicketOfTheTicketFile() {
+        TicketStore store = TicketStore.open(ticketFile());
+        store.appendAll(List.of(ticket(store.nextTicketId(), 2), ticket(store.nextTicketId(), 3)));
+        store.close();
+
+        TicketStore reopened = TicketStore.open(ticketFile());
+        assertTrue(reopened.remove(reopened.getTicket(1)));
+
+        assertEquals(List.of(2), ids(TicketStore.loadTickets(ticketFile())));
+        assertTotalsMatchTickets();
+        reopened.close();
+    }
+
+    @Test
+    void totalsAreCheckpointedWithTheJournalLengthTheyInclude() throws IOException {
+        TicketStore store = TicketStore.open(ticketFile());
+        for (int i = 0; i < TicketStore.CHECKPOINT_INTERVAL + 10; i++) {
+            store.append(ticket(store.nextTicketId(), 1 + i % 4));
+        }
+        store.remove(store.getTicket(5));
+
+        SalesRollups checkpoint = SalesRollups.load(TicketStore.rollupsPathOf(ticketFile()),
+                TicketStore.ticketFileVersion(ticketFile()));
+        assertNotNull(checkpoint);
+        assertTrue(checkpoint.getJournalOffset() > 0);
+        assertTrue(checkpoint.getJournalOffset() < Files.size(journal()));
+        assertTotalsMatchTickets();
+        store.close();
+    }
+
+    @Test
+    void totalsIncludingMoreJournalThanThereIsAreRebuilt() throws IOException {
+        TicketStore store = TicketStore.open(ticketFile());
+        for (int i = 0; i < TicketStore.CHECKPOINT_INTERVAL + 10; i++) {
+            store.append(ticket(store.nextTicketId(), 2));
+        }
+        long checkpointOffset = SalesRollups.load(TicketStore.rollupsPathOf(ticketFile()),
+                TicketStore.ticketFileVersion(ticketFile())).getJournalOffset();
+        try (FileChannel journal = FileChannel.open(journal(), StandardOpenOption.WRITE)) {
+            journal.truncate(checkpointOffset / 2);
+        }
+
+        assertTotalsMatchTickets();
+        store.close();
+    }
+
+    @Test
+    void aSecondStoreIsRefusedUntilTheFirstIsClosed() {
+        TicketStore store = TicketStore.open(ticketFile());
+        store.append(ticket(store.nextTicketId(), 2));
+
+        assertThrows(IllegalStateException.class, () -> TicketStore.open(ticketFile()));
+        store.append(ticket(store.nextTicketId(), 1));
+
+        store.close();
+        TicketStore reopened = TicketStore.open(ticketFile());
+        assertEquals(List.of(1, 2), ids(reopened.getTickets()));
+        reopened.close();
+    }
+
+    /**
+     * Checks that the sales totals read back match the totals of the tickets read back.
+     */
+    private void assertTotalsMatchTickets() {
+        SalesRollups expected = SalesRollups.of(TicketStore.loadTickets(ticketFile()));
+        SalesRollups actual = TicketStore.loadRollups(ticketFile());
+        assertEquals(expected.getSaleCount(), actual.getSaleCount());
+        assertEquals(expected.getTicketCount(), actual.getTicketCount());
+        assertEquals(expected.getRevenueCents(), actual.getRevenueCents());
+        assertEquals(expected.seatsByShowTime(), actual.seatsByShowTime());
+    }
+
+    private String ticketFile() {
+        return aDirectory.resolve("tickets.ser").toString();
+    }
+
+    private Path journal() {
+        return TicketStore.journalPathOf(ticketFile());
+    }
+
+    private static Ticket ticket(int pId, int pCount) {
+        return new Ticket(pId, LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(pId), SHOW_TIME, pCount);
+    }
+
+    private static List<Integer> ids(List<Ticket> pTickets) {
+        List<Integer> ids = new ArrayList<>();
+        for (Ticket ticket : pTickets) {
+            ids.add(ticket.getID());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.project.Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the expiry of the timeouts of a {@link TimingWheel}.
+ */
+class TimingWheelTest {
+
+    /** The resolution of the wheels tested, in milliseconds. */
+    private static final long TICK_MILLIS = 100;
+
+    @Test
+    void timeoutExpiresOnItsTickAndNotBefore() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MILLIS, 0);
+        wheel.schedule("hold", 250);
+
+        // The delay is rounded up to three ticks
+        assertEquals(List.of(), wheel.advance(299));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("hold"), wheel.advance(300));
+        assertEquals(0, wheel.size());
+        assertEquals(List.of(), wheel.advance(10_000));
+    }
+
+    @Test
+    void timeoutsExpireInDeadlineOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MILLIS, 0);
+        wheel.schedule("late", 500);
+        wheel.schedule("early", 200);
+
+        assertEquals(List.of("early", "late"), wheel.advance(1_000));
+    }
+
+    @Test
+    void cancelledTimeoutNeverExpires() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MILLIS, 0);
+        TimingWheel.Timeout<String> timeout = wheel.schedule("released", 200);
+        wheel.schedule("kept", 200);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("kept"), wheel.advance(1_000));
+    }
+
+    @Test
+    void longTimeoutCascadesDownToItsTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MILLIS, 0);
+        long hour = 3_600_000;
+        wheel.schedule("hour", hour);
+
+        assertEquals(List.of(), wheel.advance(hour - TICK_MILLIS));
+        assertEquals(List.of("hour"), wheel.advance(hour));
+    }
+
+    @Test
+    void timeoutScheduledAfterTheWheelMovedIsCountedFromNow() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MILLIS, 0);
+        wheel.advance(1_000);
+        wheel.schedule("hold", 200);
+
+        assertEquals(List.of(), wheel.advance(1_100));
+        assertEquals(List.of("hold"), wheel.advance(1_200));
+    }
+}